@@ -0,0 +1,35 @@
+/*
+ * FXGL - JavaFX Game Library. The MIT License (MIT).
+ * Copyright (c) AlmasB (almaslvl@gmail.com).
+ * See LICENSE for details.
+ */
+
+package com.almasb.fxgl.pathfinding;
+
+/**
+ * Defines whether pathfinders may move diagonally between grid cells.
+ *
+ * @author Almas Baimagambetov (almaslvl@gmail.com)
+ */
+public enum DiagonalMovement {
+
+    /**
+     * Only left, right, up and down moves are allowed.
+     */
+    NEVER,
+
+    /**
+     * A diagonal move is allowed only if both orthogonally adjacent cells are walkable,
+     * i.e. corners of obstacles cannot be cut.
+     */
+    NO_CORNER_CUTTING,
+
+    /**
+     * A diagonal move is allowed if at least one of the orthogonally adjacent cells is walkable.
+     */
+    ALLOW_CORNER_CUTTING;
+
+    public boolean isAllowed() {
+        return this != NEVER;
+    }
+}
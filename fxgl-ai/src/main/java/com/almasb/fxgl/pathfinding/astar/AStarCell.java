@@ -10,6 +10,10 @@ import com.almasb.fxgl.pathfinding.Cell;
 import com.almasb.fxgl.pathfinding.CellState;
 
 /**
+ * A cell of {@link AStarGrid}.
+ * Pathfinders keep their search data (costs and parents) in {@link GridSearchState} rather than in cells,
+ * so G cost, H cost and parent of a cell are not updated by a search.
+ *
  * @author Almas Baimagambetov (AlmasB) (almaslvl@gmail.com)
  */
 public class AStarCell extends Cell {
@@ -26,26 +30,50 @@ public class AStarCell extends Cell {
         this.state = state;
     }
 
+    /**
+     * @deprecated search data is no longer stored in cells, so pathfinders do not update this value
+     */
+    @Deprecated
     public final void setParent(AStarCell parent) {
         this.parent = parent;
     }
 
+    /**
+     * @deprecated search data is no longer stored in cells, so pathfinders do not update this value
+     */
+    @Deprecated
     public final AStarCell getParent() {
         return parent;
     }
 
+    /**
+     * @deprecated search data is no longer stored in cells, so pathfinders do not update this value
+     */
+    @Deprecated
     public final void setHCost(int hCost) {
         this.hCost = hCost;
     }
 
+    /**
+     * @deprecated search data is no longer stored in cells, so pathfinders do not update this value
+     */
+    @Deprecated
     public final int getHCost() {
         return hCost;
     }
 
+    /**
+     * @deprecated search data is no longer stored in cells, so pathfinders do not update this value
+     */
+    @Deprecated
     public final void setGCost(int gCost) {
         this.gCost = gCost;
     }
 
+    /**
+     * @deprecated search data is no longer stored in cells, so pathfinders do not update this value
+     */
+    @Deprecated
     public final int getGCost() {
         return gCost;
     }
@@ -64,7 +92,9 @@ public class AStarCell extends Cell {
 
     /**
      * @return F cost (G + H)
+     * @deprecated search data is no longer stored in cells, so pathfinders do not update this value
      */
+    @Deprecated
     public final int getFCost() {
         return gCost + hCost;
     }
@@ -12,10 +12,12 @@ import com.almasb.fxgl.core.util.LazyValue;
 import com.almasb.fxgl.entity.component.Component;
 import com.almasb.fxgl.entity.component.Required;
 import com.almasb.fxgl.pathfinding.CellMoveComponent;
+import com.almasb.fxgl.pathfinding.Pathfinder;
 
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Random;
+import java.util.function.Function;
 
 /**
  * @author Almas Baimagambetov (almaslvl@gmail.com)
@@ -25,12 +27,22 @@ public final class AStarMoveComponent extends Component {
 
     private CellMoveComponent moveComponent;
 
-    private LazyValue<AStarPathfinder> pathfinder;
+    private LazyValue<AStarGrid> grid;
+    private LazyValue<Pathfinder<AStarCell>> pathfinder;
 
     private List<AStarCell> path = new ArrayList<>();
 
     private Runnable delayedPathCalc = EmptyRunnable.INSTANCE;
 
+    /**
+     * If not null, paths are requested from this service instead of being computed on this thread.
+     */
+    private AStarPathRequestService pathRequestService = null;
+
+    // incremented with every path request, so that results of outdated requests are ignored
+    private int pathRequestID = 0;
+    private boolean isPathRequestPending = false;
+
     public AStarMoveComponent(AStarGrid grid) {
         this(new LazyValue<>(() -> grid));
     }
@@ -39,7 +51,28 @@ public final class AStarMoveComponent extends Component {
      * This ctor is for cases when the grid has not been constructed yet.
      */
     public AStarMoveComponent(LazyValue<AStarGrid> grid) {
-        pathfinder = new LazyValue<>(() -> new AStarPathfinder(grid.get()));
+        this(grid, AStarPathfinder::new);
+    }
+
+    /**
+     * Allows using a different pathfinder, e.g. {@link JPSPathfinder} or one with diagonal movement.
+     *
+     * @param grid the grid, which may not have been constructed yet
+     * @param pathfinderFactory creates a pathfinder for the grid, once the grid is constructed
+     */
+    public AStarMoveComponent(LazyValue<AStarGrid> grid, Function<AStarGrid, Pathfinder<AStarCell>> pathfinderFactory) {
+        this.grid = grid;
+        pathfinder = new LazyValue<>(() -> pathfinderFactory.apply(grid.get()));
+    }
+
+    /**
+     * Paths are computed asynchronously by given service, which can be shared between many components.
+     * A path is followed once it has been delivered by the service.
+     */
+    public AStarMoveComponent(AStarPathRequestService pathRequestService) {
+        this(new LazyValue<>(pathRequestService::getGrid));
+
+        this.pathRequestService = pathRequestService;
     }
 
     @Override
@@ -61,17 +94,25 @@ public final class AStarMoveComponent extends Component {
     }
 
     /**
-     * @return true when the path is empty and entity is no longer moving
+     * @return true if a path has been requested from the path request service and not yet delivered
+     */
+    public boolean isPathRequestPending() {
+        return isPathRequestPending;
+    }
+
+    /**
+     * @return true when the path is empty, no path is pending and entity is no longer moving
      */
     public boolean isAtDestination() {
-        return !isMoving() && isPathEmpty();
+        return !isMoving() && isPathEmpty() && !isPathRequestPending();
     }
 
     public AStarGrid getGrid() {
-        return pathfinder.get().getGrid();
+        return grid.get();
     }
 
     public void stopMovementAt(int cellX, int cellY) {
+        cancelPathRequest();
         path.clear();
         moveComponent.setPositionToCell(cellX, cellY);
     }
@@ -125,12 +166,36 @@ public final class AStarMoveComponent extends Component {
      */
     public void moveToCell(int startX, int startY, int targetX, int targetY) {
         if (moveComponent.isAtDestination()) {
-            path = pathfinder.get().findPath(startX, startY, targetX, targetY);
+            findPath(startX, startY, targetX, targetY);
         } else {
-            delayedPathCalc = () -> {
-                path = pathfinder.get().findPath(moveComponent.getCellX(), moveComponent.getCellY(), targetX, targetY);
-            };
+            delayedPathCalc = () -> findPath(moveComponent.getCellX(), moveComponent.getCellY(), targetX, targetY);
+        }
+    }
+
+    private void findPath(int startX, int startY, int targetX, int targetY) {
+        if (pathRequestService == null) {
+            path = pathfinder.get().findPath(startX, startY, targetX, targetY);
+            return;
         }
+
+        cancelPathRequest();
+        path = new ArrayList<>();
+
+        int requestID = pathRequestID;
+        isPathRequestPending = true;
+
+        pathRequestService.requestPath(startX, startY, targetX, targetY, result -> {
+            if (requestID != pathRequestID)
+                return;
+
+            isPathRequestPending = false;
+            path = new ArrayList<>(result);
+        });
+    }
+
+    private void cancelPathRequest() {
+        pathRequestID++;
+        isPathRequestPending = false;
     }
 
     @Override
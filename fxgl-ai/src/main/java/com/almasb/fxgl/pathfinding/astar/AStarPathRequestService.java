@@ -0,0 +1,330 @@
+/*
+ * FXGL - JavaFX Game Library. The MIT License (MIT).
+ * Copyright (c) AlmasB (almaslvl@gmail.com).
+ * See LICENSE for details.
+ */
+
+package com.almasb.fxgl.pathfinding.astar;
+
+import com.almasb.fxgl.core.Updatable;
+import com.almasb.fxgl.core.concurrent.Async;
+import com.almasb.fxgl.core.util.LazyValue;
+import com.almasb.fxgl.logging.Logger;
+import javafx.util.Duration;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * Solves path requests of many {@link AStarMoveComponent}s in batches on background workers.
+ * Requests made during a frame are queued and, on the next {@link #onUpdate(double)},
+ * solved by the workers against a read-only snapshot of the grid taken at dispatch time.
+ * Results are delivered on the thread that calls {@link #onUpdate(double)}, at the earliest on the frame after dispatch.
+ * Identical (source, target) requests that are queued in the same frame are solved once.
+ * Workers stop taking new requests from a batch once the max solve time per frame is exceeded,
+ * the remaining requests are dispatched with the next batch.
+ *
+ * The service must be updated once per frame, e.g. from the game's onUpdate().
+ * Busy cells are not supported, use {@link AStarPathfinder} directly for such cases.
+ *
+ * @author Almas Baimagambetov (almaslvl@gmail.com)
+ */
+public final class AStarPathRequestService implements Updatable {
+
+    private static final Logger log = Logger.get(AStarPathRequestService.class);
+
+    private static final Duration DEFAULT_MAX_SOLVE_TIME = Duration.millis(4);
+
+    private final LazyValue<AStarGrid> grid;
+    private final Executor executor;
+    private final int numWorkers;
+
+    private long maxSolveTimeNanos = toNanos(DEFAULT_MAX_SOLVE_TIME);
+
+    // queued requests by (source, target) key, in-flight requests are not deduplicated
+    // since they are solved against an older snapshot
+    private final Map<Long, Request> queuedRequests = new HashMap<>();
+    private final ArrayDeque<Request> queue = new ArrayDeque<>();
+
+    private int numPendingRequests = 0;
+
+    private AStarGrid snapshot;
+    private AStarPathfinder[] pathfinders = new AStarPathfinder[0];
+
+    // the current batch is only read by workers while they are running
+    private Request[] batch = new Request[0];
+    private int batchSize = 0;
+    private volatile long batchDeadline;
+
+    private final AtomicInteger nextBatchIndex = new AtomicInteger();
+    private final AtomicInteger numRunningWorkers = new AtomicInteger();
+    private final ConcurrentLinkedQueue<Request> completed = new ConcurrentLinkedQueue<>();
+
+    public AStarPathRequestService(AStarGrid grid) {
+        this(new LazyValue<>(() -> grid));
+    }
+
+    /**
+     * This ctor is for cases when the grid has not been constructed yet.
+     * Requests are solved using the default background executor and
+     * a worker per available processor, excluding the game thread.
+     */
+    public AStarPathRequestService(LazyValue<AStarGrid> grid) {
+        this(grid, Async.INSTANCE, Math.max(1, Runtime.getRuntime().availableProcessors() - 1));
+    }
+
+    /**
+     * @param grid the grid, which is only accessed from the thread that calls {@link #onUpdate(double)}
+     * @param executor used to run workers
+     * @param numWorkers max number of workers that solve a batch in parallel
+     */
+    public AStarPathRequestService(LazyValue<AStarGrid> grid, Executor executor, int numWorkers) {
+        if (numWorkers < 1)
+            throw new IllegalArgumentException("Number of workers must be at least 1: " + numWorkers);
+
+        this.grid = grid;
+        this.executor = executor;
+        this.numWorkers = numWorkers;
+    }
+
+    public AStarGrid getGrid() {
+        return grid.get();
+    }
+
+    public int getNumWorkers() {
+        return numWorkers;
+    }
+
+    /**
+     * @return max time that workers spend taking new requests from a batch
+     */
+    public Duration getMaxSolveTimePerFrame() {
+        return Duration.millis(maxSolveTimeNanos / 1_000_000.0);
+    }
+
+    /**
+     * Each worker solves at least one request per batch, regardless of this value.
+     *
+     * @param maxSolveTime max time that workers spend taking new requests from a batch
+     */
+    public void setMaxSolveTimePerFrame(Duration maxSolveTime) {
+        maxSolveTimeNanos = toNanos(maxSolveTime);
+    }
+
+    /**
+     * @return number of requests that have not been delivered yet (identical requests are counted once)
+     */
+    public int getNumPendingRequests() {
+        return numPendingRequests;
+    }
+
+    /**
+     * Queues a path request.
+     * The callback is called from {@link #onUpdate(double)} with an unmodifiable path
+     * of grid cells from source (excl) to target (incl) or an empty list if no path found.
+     */
+    public void requestPath(int sourceX, int sourceY, int targetX, int targetY, Consumer<List<AStarCell>> callback) {
+        long key = key(sourceX, sourceY, targetX, targetY);
+
+        Request request = queuedRequests.get(key);
+        if (request == null) {
+            request = new Request(key, sourceX, sourceY, targetX, targetY);
+
+            queuedRequests.put(key, request);
+            queue.addLast(request);
+            numPendingRequests++;
+        }
+
+        request.callbacks.add(callback);
+    }
+
+    @Override
+    public void onUpdate(double tpf) {
+        deliverCompleted();
+
+        if (numRunningWorkers.get() > 0)
+            return;
+
+        requeueUnsolved();
+
+        if (!queue.isEmpty()) {
+            dispatch();
+        }
+    }
+
+    private void deliverCompleted() {
+        AStarGrid liveGrid = grid.get();
+
+        Request request;
+        while ((request = completed.poll()) != null) {
+            numPendingRequests--;
+
+            List<AStarCell> path = new ArrayList<>(request.path.size());
+
+            // map snapshot cells to cells of the live grid
+            for (int i = 0; i < request.path.size(); i++) {
+                AStarCell cell = request.path.get(i);
+                path.add(liveGrid.get(cell.getX(), cell.getY()));
+            }
+
+            List<AStarCell> result = Collections.unmodifiableList(path);
+
+            for (int i = 0; i < request.callbacks.size(); i++) {
+                request.callbacks.get(i).accept(result);
+            }
+        }
+    }
+
+    private void requeueUnsolved() {
+        // add in reverse so that the original order is kept
+        for (int i = batchSize - 1; i >= nextBatchIndex.get(); i--) {
+            Request request = batch[i];
+            Request queued = queuedRequests.get(request.key);
+
+            // an identical request was made while this one was in flight
+            if (queued != null) {
+                request.callbacks.addAll(queued.callbacks);
+                queue.remove(queued);
+                numPendingRequests--;
+            }
+
+            queuedRequests.put(request.key, request);
+            queue.addFirst(request);
+        }
+
+        for (int i = 0; i < batchSize; i++) {
+            batch[i] = null;
+        }
+
+        batchSize = 0;
+        nextBatchIndex.set(0);
+    }
+
+    private void dispatch() {
+        takeSnapshot();
+
+        if (batch.length < queue.size()) {
+            batch = new Request[queue.size()];
+        }
+
+        while (!queue.isEmpty()) {
+            batch[batchSize++] = queue.pollFirst();
+        }
+
+        queuedRequests.clear();
+
+        int numBatchWorkers = Math.min(numWorkers, batchSize);
+
+        numRunningWorkers.set(numBatchWorkers);
+        batchDeadline = System.nanoTime() + maxSolveTimeNanos;
+
+        for (int i = 0; i < numBatchWorkers; i++) {
+            AStarPathfinder pathfinder = pathfinders[i];
+
+            executor.execute(() -> runWorker(pathfinder));
+        }
+    }
+
+    /**
+     * Copies cell states of the live grid, so that workers do not observe changes made during the batch.
+     */
+    private void takeSnapshot() {
+        AStarGrid liveGrid = grid.get();
+
+        if (snapshot == null || snapshot.getWidth() != liveGrid.getWidth() || snapshot.getHeight() != liveGrid.getHeight()) {
+            snapshot = new AStarGrid(liveGrid.getWidth(), liveGrid.getHeight());
+
+            // each worker has its own pathfinder since they are not thread-safe
+            pathfinders = new AStarPathfinder[numWorkers];
+            for (int i = 0; i < numWorkers; i++) {
+                pathfinders[i] = new AStarPathfinder(snapshot);
+            }
+        }
+
+        AStarCell[][] liveData = liveGrid.getData();
+        AStarCell[][] snapshotData = snapshot.getData();
+
+        for (int x = 0; x < liveData.length; x++) {
+            for (int y = 0; y < liveData[x].length; y++) {
+                snapshotData[x][y].setState(liveData[x][y].getState());
+            }
+        }
+    }
+
+    private void runWorker(AStarPathfinder pathfinder) {
+        try {
+            boolean isFirst = true;
+
+            while (isFirst || System.nanoTime() < batchDeadline) {
+                int index = nextBatchIndex.getAndIncrement();
+
+                if (index >= batchSize) {
+                    // keep the index within the batch, so that it marks the first unsolved request
+                    nextBatchIndex.decrementAndGet();
+                    break;
+                }
+
+                Request request = batch[index];
+
+                try {
+                    request.path = pathfinder.findPath(request.sourceX, request.sourceY, request.targetX, request.targetY);
+                } catch (Exception e) {
+                    log.warning("Failed to find path for " + request, e);
+                    request.path = Collections.emptyList();
+                }
+
+                completed.add(request);
+
+                isFirst = false;
+            }
+        } finally {
+            numRunningWorkers.decrementAndGet();
+        }
+    }
+
+    // grids are assumed to be smaller than 65536 cells in each dimension
+    private static long key(int sourceX, int sourceY, int targetX, int targetY) {
+        return ((long) (sourceX & 0xFFFF) << 48)
+                | ((long) (sourceY & 0xFFFF) << 32)
+                | ((long) (targetX & 0xFFFF) << 16)
+                | (targetY & 0xFFFF);
+    }
+
+    private static long toNanos(Duration duration) {
+        return (long) (duration.toMillis() * 1_000_000);
+    }
+
+    private static final class Request {
+        private final long key;
+        private final int sourceX;
+        private final int sourceY;
+        private final int targetX;
+        private final int targetY;
+
+        private final List<Consumer<List<AStarCell>>> callbacks = new ArrayList<>(1);
+
+        // written by a worker, read after the request is polled from the completed queue
+        private List<AStarCell> path;
+
+        private Request(long key, int sourceX, int sourceY, int targetX, int targetY) {
+            this.key = key;
+            this.sourceX = sourceX;
+            this.sourceY = sourceY;
+            this.targetX = targetX;
+            this.targetY = targetY;
+        }
+
+        @Override
+        public String toString() {
+            return "Request(" + sourceX + "," + sourceY + " -> " + targetX + "," + targetY + ")";
+        }
+    }
+}
@@ -7,35 +7,76 @@
 package com.almasb.fxgl.pathfinding.astar;
 
 import com.almasb.fxgl.pathfinding.CellState;
+import com.almasb.fxgl.pathfinding.DiagonalMovement;
 import com.almasb.fxgl.pathfinding.Pathfinder;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
 
 /**
+ * A* search with a binary heap as the open set.
+ * Search data (costs, parents, open / closed flags) is kept in arrays indexed by cell id
+ * and stamped with a search generation, so the grid does not need to be reset between searches.
+ * Note: an instance is not thread-safe, use one instance per thread.
+ *
  * @author Almas Baimagambetov (almaslvl@gmail.com)
  */
 public final class AStarPathfinder implements Pathfinder<AStarCell> {
 
+    private static final int MOVE_COST = 10;
+    private static final int DIAGONAL_MOVE_COST = 14;
+
+    // left, right, up, down, then diagonals
+    private static final int[] DX = { -1, 1, 0, 0, -1, 1, -1, 1 };
+    private static final int[] DY = { 0, 0, -1, 1, -1, -1, 1, 1 };
+
     private AStarGrid grid;
+    private DiagonalMovement diagonalMovement;
+
+    private final GridSearchState search = new GridSearchState();
+
+    private int width;
+    private int height;
+
+    private int numExpandedCells = 0;
 
     public AStarPathfinder(AStarGrid grid) {
+        this(grid, DiagonalMovement.NEVER);
+    }
+
+    /**
+     * Straight moves cost 10 and diagonal moves cost 14.
+     */
+    public AStarPathfinder(AStarGrid grid, DiagonalMovement diagonalMovement) {
         this.grid = grid;
+        this.diagonalMovement = diagonalMovement;
     }
 
     public AStarGrid getGrid() {
         return grid;
     }
 
+    public DiagonalMovement getDiagonalMovement() {
+        return diagonalMovement;
+    }
+
+    /**
+     * @return number of cells expanded (taken from the open set) during the last search
+     */
+    public int getNumExpandedCells() {
+        return numExpandedCells;
+    }
+
     @Override
     public List<AStarCell> findPath(int sourceX, int sourceY, int targetX, int targetY) {
-        return findPath(grid.getData(), grid.get(sourceX, sourceY), grid.get(targetX, targetY));
+        return findPath(grid.getData(), grid.get(sourceX, sourceY), grid.get(targetX, targetY), Collections.emptyList());
     }
 
     @Override
     public List<AStarCell> findPath(int sourceX, int sourceY, int targetX, int targetY, List<AStarCell> busyCells) {
-        return findPath(grid.getData(), grid.get(sourceX, sourceY), grid.get(targetX, targetY), busyCells.toArray(new AStarCell[0]));
+        return findPath(grid.getData(), grid.get(sourceX, sourceY), grid.get(targetX, targetY), busyCells);
     }
 
     /**
@@ -49,121 +90,127 @@ public final class AStarPathfinder implements Pathfinder<AStarCell> {
      * @return          path as list of nodes from start (excl) to target (incl) or empty list if no path found
      */
     public List<AStarCell> findPath(AStarCell[][] grid, AStarCell start, AStarCell target, AStarCell... busyNodes) {
+        return findPath(grid, start, target, Arrays.asList(busyNodes));
+    }
+
+    private List<AStarCell> findPath(AStarCell[][] grid, AStarCell start, AStarCell target, List<AStarCell> busyNodes) {
         if (start == target || target.getState() == CellState.NOT_WALKABLE)
             return Collections.emptyList();
 
-        // reset grid cells data
-        for (int y = 0; y < grid[0].length; y++) {
-            for (int x = 0; x < grid.length; x++) {
-                grid[x][y].setHCost(Math.abs(target.getX() - x) + Math.abs(target.getY() - y));
-                grid[x][y].setParent(null);
-                grid[x][y].setGCost(0);
-            }
+        width = grid.length;
+        height = grid[0].length;
+
+        search.begin(width, height);
+
+        numExpandedCells = 0;
+
+        for (int i = 0; i < busyNodes.size(); i++) {
+            AStarCell busy = busyNodes.get(i);
+
+            search.markBusy(busy.getX(), busy.getY());
         }
 
-        List<AStarCell> open = new ArrayList<>();
-        List<AStarCell> closed = new ArrayList<>();
+        int targetX = target.getX();
+        int targetY = target.getY();
+        int targetID = search.id(targetX, targetY);
+
+        boolean isDiagonalAllowed = diagonalMovement.isAllowed();
+        int numDirections = isDiagonalAllowed ? 8 : 4;
+
+        int current = search.id(start.getX(), start.getY());
+        search.visit(current, 0, 0, -1);
+
+        while (true) {
+            numExpandedCells++;
+
+            int x = current % width;
+            int y = current / width;
 
-        AStarCell current = start;
+            for (int i = 0; i < numDirections; i++) {
+                int nx = x + DX[i];
+                int ny = y + DY[i];
 
-        boolean found = false;
+                if (!isWalkable(grid, nx, ny))
+                    continue;
 
-        while (!found && !closed.contains(target)) {
-            for (AStarCell neighbor : getValidNeighbors(current, grid, busyNodes)) {
-                if (neighbor == target) {
-                    target.setParent(current);
-                    found = true;
-                    closed.add(target);
-                    break;
+                boolean isDiagonal = i >= 4;
+
+                if (isDiagonal && !canMoveDiagonally(grid, x, y, DX[i], DY[i]))
+                    continue;
+
+                int neighbor = search.id(nx, ny);
+
+                int newG = search.getGCost(current) + (isDiagonal ? DIAGONAL_MOVE_COST : MOVE_COST);
+
+                // with uniform move costs the first path found to the target is a shortest one
+                if (neighbor == targetID && !isDiagonalAllowed) {
+                    return buildPath(grid, current, target);
                 }
 
-                if (!closed.contains(neighbor)) {
-                    if (open.contains(neighbor)) {
-                        int newG = current.getGCost() + 10;
-
-                        if (newG < neighbor.getGCost()) {
-                            neighbor.setParent(current);
-                            neighbor.setGCost(newG);
-                        }
-                    } else {
-                        neighbor.setParent(current);
-                        neighbor.setGCost(current.getGCost() + 10);
-                        open.add(neighbor);
+                int state = search.getState(neighbor);
+
+                if (state == GridSearchState.CLOSED)
+                    continue;
+
+                if (state == GridSearchState.OPEN) {
+                    if (newG < search.getGCost(neighbor)) {
+                        search.decreaseCost(neighbor, newG, current);
                     }
+                } else {
+                    search.visit(neighbor, newG, heuristic(nx, ny, targetX, targetY), current);
+                    search.push(neighbor);
                 }
             }
 
-            if (!found) {
-                closed.add(current);
-                open.remove(current);
+            search.close(current);
 
-                if (open.isEmpty())
-                    return Collections.emptyList();
+            if (search.isOpenSetEmpty())
+                return Collections.emptyList();
 
-                AStarCell acc = open.get(0);
+            current = search.pop();
 
-                for (AStarCell a : open) {
-                    acc = a.getFCost() < acc.getFCost() ? a : acc;
-                }
-
-                current = acc;
-            }
+            if (current == targetID)
+                return buildPath(grid, search.getParent(current), target);
         }
-
-        return buildPath(start, target);
     }
 
-    private List<AStarCell> buildPath(AStarCell start, AStarCell target) {
-        List<AStarCell> path = new ArrayList<>();
+    private int heuristic(int x, int y, int targetX, int targetY) {
+        int dx = Math.abs(targetX - x);
+        int dy = Math.abs(targetY - y);
 
-        AStarCell tmp = target;
-        do {
-            path.add(tmp);
-            tmp = tmp.getParent();
-        } while (tmp != start);
+        if (!diagonalMovement.isAllowed())
+            return dx + dy;
 
-        Collections.reverse(path);
-        return path;
+        // octile distance
+        return MOVE_COST * Math.max(dx, dy) + (DIAGONAL_MOVE_COST - MOVE_COST) * Math.min(dx, dy);
     }
 
-    /**
-     * @param node the A* node
-     * @param grid the A* grid
-     * @param busyNodes nodes which are busy, i.e. walkable but have a temporary obstacle
-     * @return neighbors of the node
-     */
-    protected List<AStarCell> getValidNeighbors(AStarCell node, AStarCell[][] grid, AStarCell... busyNodes) {
-        int x = node.getX();
-        int y = node.getY();
-        int[] points = {
-                x - 1, y,
-                x + 1, y,
-                x, y - 1,
-                x, y + 1
-        };
-
-        List<AStarCell> result = new ArrayList<>();
-
-        for (int i = 0; i < points.length; i++) {
-            int x1 = points[i];
-            int y1 = points[++i];
-
-            if (x1 >= 0 && x1 < grid.length
-                    && y1 >= 0 && y1 < grid[0].length
-                    && grid[x1][y1].getState() == CellState.WALKABLE
-                    && !contains(x1, y1, busyNodes)) {
-                result.add(grid[x1][y1]);
-            }
-        }
+    private boolean isWalkable(AStarCell[][] grid, int x, int y) {
+        return x >= 0 && x < width && y >= 0 && y < height
+                && grid[x][y].getState() == CellState.WALKABLE
+                && !search.isBusy(search.id(x, y));
+    }
+
+    private boolean canMoveDiagonally(AStarCell[][] grid, int x, int y, int dx, int dy) {
+        boolean isHorizontalWalkable = isWalkable(grid, x + dx, y);
+        boolean isVerticalWalkable = isWalkable(grid, x, y + dy);
 
-        return result;
+        if (diagonalMovement == DiagonalMovement.NO_CORNER_CUTTING)
+            return isHorizontalWalkable && isVerticalWalkable;
+
+        return isHorizontalWalkable || isVerticalWalkable;
     }
 
-    private boolean contains(int x, int y, AStarCell... cells) {
-        for (AStarCell n : cells)
-            if (n.getX() == x && n.getY() == y)
-                return true;
+    private List<AStarCell> buildPath(AStarCell[][] grid, int lastBeforeTarget, AStarCell target) {
+        List<AStarCell> path = new ArrayList<>();
+        path.add(target);
+
+        // the start cell is the only visited cell without a parent
+        for (int cell = lastBeforeTarget; search.getParent(cell) != -1; cell = search.getParent(cell)) {
+            path.add(grid[cell % width][cell / width]);
+        }
 
-        return false;
+        Collections.reverse(path);
+        return path;
     }
 }
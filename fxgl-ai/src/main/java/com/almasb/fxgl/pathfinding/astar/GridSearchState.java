@@ -0,0 +1,234 @@
+/*
+ * FXGL - JavaFX Game Library. The MIT License (MIT).
+ * Copyright (c) AlmasB (almaslvl@gmail.com).
+ * See LICENSE for details.
+ */
+
+package com.almasb.fxgl.pathfinding.astar;
+
+import java.util.Arrays;
+
+/**
+ * Search data of grid pathfinders ({@link AStarPathfinder}, {@link JPSPathfinder}) and their open set.
+ * Costs, parents and open / closed flags are kept in arrays indexed by cell id = y * width + x
+ * and stamped with a search generation, so the arrays do not need to be reset between searches.
+ * The open set is a binary min-heap of cell ids ordered by F cost.
+ *
+ * @author Almas Baimagambetov (almaslvl@gmail.com)
+ */
+final class GridSearchState {
+
+    static final byte UNVISITED = 0;
+    static final byte OPEN = 1;
+    static final byte CLOSED = 2;
+
+    private int[] stamps = new int[0];
+    private int[] busyStamps = new int[0];
+    private byte[] states = new byte[0];
+    private int[] gCosts = new int[0];
+    private int[] fCosts = new int[0];
+    private int[] parents = new int[0];
+    private int[] heapIndices = new int[0];
+    private int[] insertionOrder = new int[0];
+
+    // binary min-heap of cell ids
+    private int[] heap = new int[0];
+    private int heapSize = 0;
+
+    private int generation = 0;
+    private int insertionCounter = 0;
+
+    private int width;
+    private int height;
+
+    /**
+     * Starts a new search on a grid of given size, all cells become unvisited and not busy.
+     */
+    void begin(int width, int height) {
+        int size = width * height;
+
+        if (stamps.length != size) {
+            stamps = new int[size];
+            busyStamps = new int[size];
+            states = new byte[size];
+            gCosts = new int[size];
+            fCosts = new int[size];
+            parents = new int[size];
+            heapIndices = new int[size];
+            insertionOrder = new int[size];
+            heap = new int[size];
+
+            generation = 0;
+        }
+
+        this.width = width;
+        this.height = height;
+
+        generation++;
+
+        // on overflow, clear old stamps so that they cannot match the new generation
+        if (generation == Integer.MAX_VALUE) {
+            Arrays.fill(stamps, 0);
+            Arrays.fill(busyStamps, 0);
+            generation = 1;
+        }
+
+        heapSize = 0;
+        insertionCounter = 0;
+    }
+
+    int id(int x, int y) {
+        return y * width + x;
+    }
+
+    /**
+     * Marks the cell as busy for the current search, cells outside the grid are ignored.
+     */
+    void markBusy(int x, int y) {
+        if (x >= 0 && x < width && y >= 0 && y < height) {
+            busyStamps[id(x, y)] = generation;
+        }
+    }
+
+    boolean isBusy(int cell) {
+        return busyStamps[cell] == generation;
+    }
+
+    /**
+     * @return one of UNVISITED, OPEN, CLOSED
+     */
+    int getState(int cell) {
+        return stamps[cell] == generation ? states[cell] : UNVISITED;
+    }
+
+    void close(int cell) {
+        states[cell] = CLOSED;
+    }
+
+    int getGCost(int cell) {
+        return gCosts[cell];
+    }
+
+    /**
+     * @return parent cell id or -1 if the cell is the start cell
+     */
+    int getParent(int cell) {
+        return parents[cell];
+    }
+
+    /**
+     * Sets the costs and parent of a cell that has not been visited during the current search.
+     */
+    void visit(int cell, int gCost, int hCost, int parent) {
+        stamps[cell] = generation;
+        states[cell] = UNVISITED;
+        gCosts[cell] = gCost;
+        fCosts[cell] = gCost + hCost;
+        parents[cell] = parent;
+    }
+
+    /**
+     * Sets a lower G cost and new parent of a cell in the open set.
+     */
+    void decreaseCost(int cell, int gCost, int parent) {
+        parents[cell] = parent;
+        fCosts[cell] -= gCosts[cell] - gCost;
+        gCosts[cell] = gCost;
+
+        siftUp(heapIndices[cell]);
+    }
+
+    boolean isOpenSetEmpty() {
+        return heapSize == 0;
+    }
+
+    /**
+     * Adds a visited cell to the open set.
+     */
+    void push(int cell) {
+        states[cell] = OPEN;
+        insertionOrder[cell] = insertionCounter++;
+
+        heap[heapSize] = cell;
+        heapIndices[cell] = heapSize;
+        heapSize++;
+
+        siftUp(heapSize - 1);
+    }
+
+    /**
+     * Removes the cell with lowest F cost from the open set.
+     */
+    int pop() {
+        int result = heap[0];
+
+        heapSize--;
+
+        if (heapSize > 0) {
+            heap[0] = heap[heapSize];
+            heapIndices[heap[0]] = 0;
+            siftDown(0);
+        }
+
+        // popped cell is expanded next and closed afterwards
+        states[result] = UNVISITED;
+
+        return result;
+    }
+
+    /**
+     * Ties in F cost are resolved in favor of the cell that was opened first.
+     */
+    private boolean isLess(int cell1, int cell2) {
+        int f1 = fCosts[cell1];
+        int f2 = fCosts[cell2];
+
+        if (f1 != f2)
+            return f1 < f2;
+
+        return insertionOrder[cell1] < insertionOrder[cell2];
+    }
+
+    private void siftUp(int index) {
+        int cell = heap[index];
+
+        while (index > 0) {
+            int parentIndex = (index - 1) >>> 1;
+            int parent = heap[parentIndex];
+
+            if (!isLess(cell, parent))
+                break;
+
+            heap[index] = parent;
+            heapIndices[parent] = index;
+            index = parentIndex;
+        }
+
+        heap[index] = cell;
+        heapIndices[cell] = index;
+    }
+
+    private void siftDown(int index) {
+        int cell = heap[index];
+
+        while (true) {
+            int child = 2 * index + 1;
+
+            if (child >= heapSize)
+                break;
+
+            if (child + 1 < heapSize && isLess(heap[child + 1], heap[child]))
+                child++;
+
+            if (!isLess(heap[child], cell))
+                break;
+
+            heap[index] = heap[child];
+            heapIndices[heap[index]] = index;
+            index = child;
+        }
+
+        heap[index] = cell;
+        heapIndices[cell] = index;
+    }
+}
@@ -0,0 +1,488 @@
+/*
+ * FXGL - JavaFX Game Library. The MIT License (MIT).
+ * Copyright (c) AlmasB (almaslvl@gmail.com).
+ * See LICENSE for details.
+ */
+
+package com.almasb.fxgl.pathfinding.astar;
+
+import com.almasb.fxgl.pathfinding.CellState;
+import com.almasb.fxgl.pathfinding.DiagonalMovement;
+import com.almasb.fxgl.pathfinding.Pathfinder;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Jump Point Search (Harabor and Grastien) for uniform-cost grids.
+ * Instead of adding every neighbor to the open set, the search "jumps" in a straight or diagonal line
+ * until it finds a cell that has neighbors which cannot be reached optimally otherwise.
+ * Only such jump points are added to the open set, so far fewer cells are expanded than with A*.
+ * The work moves to scanning cells while jumping, which is cheaper per cell, hence the gain in time depends on the map:
+ * it is largest for 4-way movement and maze-like maps.
+ * Paths have the same cost as paths found by {@link AStarPathfinder} with the same {@link DiagonalMovement},
+ * though they may be different when multiple shortest paths exist.
+ * Returned paths contain every cell, not just jump points, so they can be followed by {@link AStarMoveComponent}.
+ * Straight moves cost 10 and diagonal moves cost 14.
+ * Note: an instance is not thread-safe, use one instance per thread.
+ *
+ * @author Almas Baimagambetov (almaslvl@gmail.com)
+ */
+public final class JPSPathfinder implements Pathfinder<AStarCell> {
+
+    private static final int MOVE_COST = 10;
+    private static final int DIAGONAL_MOVE_COST = 14;
+
+    // left, right, up, down, then diagonals
+    private static final int[] DX = { -1, 1, 0, 0, -1, 1, -1, 1 };
+    private static final int[] DY = { 0, 0, -1, 1, -1, -1, 1, 1 };
+
+    private final AStarGrid grid;
+    private final DiagonalMovement diagonalMovement;
+
+    // the grid data of the current search
+    private AStarCell[][] data;
+
+    private final GridSearchState search = new GridSearchState();
+
+    private int width;
+    private int height;
+
+    private int targetX;
+    private int targetY;
+
+    // pruned neighbors of the cell being expanded
+    private final int[] neighborsX = new int[8];
+    private final int[] neighborsY = new int[8];
+    private int numNeighbors = 0;
+
+    private int numExpandedCells = 0;
+    private int numScannedCells = 0;
+
+    public JPSPathfinder(AStarGrid grid) {
+        this(grid, DiagonalMovement.NEVER);
+    }
+
+    public JPSPathfinder(AStarGrid grid, DiagonalMovement diagonalMovement) {
+        this.grid = grid;
+        this.diagonalMovement = diagonalMovement;
+    }
+
+    public AStarGrid getGrid() {
+        return grid;
+    }
+
+    public DiagonalMovement getDiagonalMovement() {
+        return diagonalMovement;
+    }
+
+    /**
+     * @return number of jump points expanded (taken from the open set) during the last search
+     */
+    public int getNumExpandedCells() {
+        return numExpandedCells;
+    }
+
+    /**
+     * @return number of cells visited while jumping during the last search
+     */
+    public int getNumScannedCells() {
+        return numScannedCells;
+    }
+
+    @Override
+    public List<AStarCell> findPath(int sourceX, int sourceY, int targetX, int targetY) {
+        return findPath(sourceX, sourceY, targetX, targetY, Collections.emptyList());
+    }
+
+    @Override
+    public List<AStarCell> findPath(int sourceX, int sourceY, int targetX, int targetY, List<AStarCell> busyCells) {
+        AStarCell start = grid.get(sourceX, sourceY);
+        AStarCell target = grid.get(targetX, targetY);
+
+        if (start == target || target.getState() == CellState.NOT_WALKABLE)
+            return Collections.emptyList();
+
+        beginSearch(grid.getData());
+
+        numExpandedCells = 0;
+        numScannedCells = 0;
+
+        for (int i = 0; i < busyCells.size(); i++) {
+            AStarCell busy = busyCells.get(i);
+
+            search.markBusy(busy.getX(), busy.getY());
+        }
+
+        this.targetX = targetX;
+        this.targetY = targetY;
+
+        int targetID = search.id(targetX, targetY);
+
+        int current = search.id(sourceX, sourceY);
+        search.visit(current, 0, 0, -1);
+
+        while (true) {
+            numExpandedCells++;
+
+            identifySuccessors(current);
+
+            search.close(current);
+
+            if (search.isOpenSetEmpty())
+                return Collections.emptyList();
+
+            current = search.pop();
+
+            if (current == targetID)
+                return buildPath(current);
+        }
+    }
+
+    private void identifySuccessors(int cell) {
+        int x = cell % width;
+        int y = cell / width;
+
+        findNeighbors(cell, x, y);
+
+        for (int i = 0; i < numNeighbors; i++) {
+            int nx = neighborsX[i];
+            int ny = neighborsY[i];
+
+            int jumpPoint = jump(nx, ny, nx - x, ny - y);
+
+            if (jumpPoint == -1)
+                continue;
+
+            int state = search.getState(jumpPoint);
+
+            if (state == GridSearchState.CLOSED)
+                continue;
+
+            int jx = jumpPoint % width;
+            int jy = jumpPoint / width;
+
+            int newG = search.getGCost(cell) + distance(x, y, jx, jy);
+
+            if (state == GridSearchState.OPEN) {
+                if (newG < search.getGCost(jumpPoint)) {
+                    search.decreaseCost(jumpPoint, newG, cell);
+                }
+            } else {
+                search.visit(jumpPoint, newG, distance(jx, jy, targetX, targetY), cell);
+                search.push(jumpPoint);
+            }
+        }
+    }
+
+    /**
+     * Collects neighbors of given cell that need to be explored, given the direction the cell was reached from.
+     */
+    private void findNeighbors(int cell, int x, int y) {
+        numNeighbors = 0;
+
+        int parent = search.getParent(cell);
+
+        if (parent == -1) {
+            int numDirections = diagonalMovement.isAllowed() ? 8 : 4;
+
+            for (int i = 0; i < numDirections; i++) {
+                int nx = x + DX[i];
+                int ny = y + DY[i];
+
+                if (isWalkable(nx, ny) && (i < 4 || canMoveDiagonally(x, y, DX[i], DY[i]))) {
+                    addNeighbor(nx, ny);
+                }
+            }
+
+            return;
+        }
+
+        int dx = Integer.signum(x - parent % width);
+        int dy = Integer.signum(y - parent / width);
+
+        switch (diagonalMovement) {
+            case NEVER:
+                findNeighborsNoDiagonal(x, y, dx, dy);
+                break;
+
+            case NO_CORNER_CUTTING:
+                findNeighborsNoCornerCutting(x, y, dx, dy);
+                break;
+
+            case ALLOW_CORNER_CUTTING:
+            default:
+                findNeighborsCornerCutting(x, y, dx, dy);
+                break;
+        }
+    }
+
+    private void findNeighborsNoDiagonal(int x, int y, int dx, int dy) {
+        if (dx != 0) {
+            addNeighborIfWalkable(x, y - 1);
+            addNeighborIfWalkable(x, y + 1);
+            addNeighborIfWalkable(x + dx, y);
+        } else {
+            addNeighborIfWalkable(x - 1, y);
+            addNeighborIfWalkable(x + 1, y);
+            addNeighborIfWalkable(x, y + dy);
+        }
+    }
+
+    private void findNeighborsNoCornerCutting(int x, int y, int dx, int dy) {
+        if (dx != 0 && dy != 0) {
+            boolean isVerticalWalkable = isWalkable(x, y + dy);
+            boolean isHorizontalWalkable = isWalkable(x + dx, y);
+
+            if (isVerticalWalkable)
+                addNeighbor(x, y + dy);
+
+            if (isHorizontalWalkable)
+                addNeighbor(x + dx, y);
+
+            if (isVerticalWalkable && isHorizontalWalkable)
+                addNeighborIfWalkable(x + dx, y + dy);
+
+        } else if (dx != 0) {
+            boolean isNextWalkable = isWalkable(x + dx, y);
+            boolean isTopWalkable = isWalkable(x, y - 1);
+            boolean isBottomWalkable = isWalkable(x, y + 1);
+
+            if (isNextWalkable) {
+                addNeighbor(x + dx, y);
+
+                if (isTopWalkable)
+                    addNeighborIfWalkable(x + dx, y - 1);
+
+                if (isBottomWalkable)
+                    addNeighborIfWalkable(x + dx, y + 1);
+            }
+
+            if (isTopWalkable)
+                addNeighbor(x, y - 1);
+
+            if (isBottomWalkable)
+                addNeighbor(x, y + 1);
+
+        } else {
+            boolean isNextWalkable = isWalkable(x, y + dy);
+            boolean isLeftWalkable = isWalkable(x - 1, y);
+            boolean isRightWalkable = isWalkable(x + 1, y);
+
+            if (isNextWalkable) {
+                addNeighbor(x, y + dy);
+
+                if (isLeftWalkable)
+                    addNeighborIfWalkable(x - 1, y + dy);
+
+                if (isRightWalkable)
+                    addNeighborIfWalkable(x + 1, y + dy);
+            }
+
+            if (isLeftWalkable)
+                addNeighbor(x - 1, y);
+
+            if (isRightWalkable)
+                addNeighbor(x + 1, y);
+        }
+    }
+
+    private void findNeighborsCornerCutting(int x, int y, int dx, int dy) {
+        if (dx != 0 && dy != 0) {
+            boolean isVerticalWalkable = isWalkable(x, y + dy);
+            boolean isHorizontalWalkable = isWalkable(x + dx, y);
+
+            if (isVerticalWalkable)
+                addNeighbor(x, y + dy);
+
+            if (isHorizontalWalkable)
+                addNeighbor(x + dx, y);
+
+            if (isVerticalWalkable || isHorizontalWalkable)
+                addNeighborIfWalkable(x + dx, y + dy);
+
+            // forced neighbors
+            if (!isWalkable(x - dx, y) && isVerticalWalkable)
+                addNeighborIfWalkable(x - dx, y + dy);
+
+            if (!isWalkable(x, y - dy) && isHorizontalWalkable)
+                addNeighborIfWalkable(x + dx, y - dy);
+
+        } else if (dx != 0) {
+            if (isWalkable(x + dx, y)) {
+                addNeighbor(x + dx, y);
+
+                // forced neighbors
+                if (!isWalkable(x, y - 1))
+                    addNeighborIfWalkable(x + dx, y - 1);
+
+                if (!isWalkable(x, y + 1))
+                    addNeighborIfWalkable(x + dx, y + 1);
+            }
+        } else {
+            if (isWalkable(x, y + dy)) {
+                addNeighbor(x, y + dy);
+
+                // forced neighbors
+                if (!isWalkable(x - 1, y))
+                    addNeighborIfWalkable(x - 1, y + dy);
+
+                if (!isWalkable(x + 1, y))
+                    addNeighborIfWalkable(x + 1, y + dy);
+            }
+        }
+    }
+
+    /**
+     * Moves from (x, y) in direction (dx, dy) until a jump point is found.
+     *
+     * @return id of the jump point or -1 if there is none in this direction
+     */
+    private int jump(int x, int y, int dx, int dy) {
+        while (true) {
+            numScannedCells++;
+
+            if (!isWalkable(x, y))
+                return -1;
+
+            if (x == targetX && y == targetY)
+                return search.id(x, y);
+
+            if (hasForcedNeighbors(x, y, dx, dy))
+                return search.id(x, y);
+
+            if (dx != 0 && dy != 0) {
+                // when moving diagonally, check for horizontal and vertical jump points
+                if (jump(x + dx, y, dx, 0) != -1 || jump(x, y + dy, 0, dy) != -1)
+                    return search.id(x, y);
+
+                if (!canMoveDiagonally(x, y, dx, dy))
+                    return -1;
+
+            } else if (dy != 0 && diagonalMovement == DiagonalMovement.NEVER
+                    // without diagonal moves, vertical moves check for horizontal jump points
+                    && (jump(x + 1, y, 1, 0) != -1 || jump(x - 1, y, -1, 0) != -1)) {
+                return search.id(x, y);
+            }
+
+            x += dx;
+            y += dy;
+        }
+    }
+
+    private boolean hasForcedNeighbors(int x, int y, int dx, int dy) {
+        switch (diagonalMovement) {
+            case NEVER:
+            case NO_CORNER_CUTTING:
+                if (dx != 0 && dy != 0)
+                    return false;
+
+                if (dx != 0) {
+                    return isForced(x, y - 1, x - dx, y - 1) || isForced(x, y + 1, x - dx, y + 1);
+                }
+
+                return isForced(x - 1, y, x - 1, y - dy) || isForced(x + 1, y, x + 1, y - dy);
+
+            case ALLOW_CORNER_CUTTING:
+            default:
+                if (dx != 0 && dy != 0) {
+                    return isForced(x - dx, y + dy, x - dx, y) || isForced(x + dx, y - dy, x, y - dy);
+                }
+
+                if (dx != 0) {
+                    return isForced(x + dx, y + 1, x, y + 1) || isForced(x + dx, y - 1, x, y - 1);
+                }
+
+                return isForced(x + 1, y + dy, x + 1, y) || isForced(x - 1, y + dy, x - 1, y);
+        }
+    }
+
+    /**
+     * @return true if (x, y) is walkable, but (blockedX, blockedY) is not, so (x, y) may need to be reached via the current cell
+     */
+    private boolean isForced(int x, int y, int blockedX, int blockedY) {
+        return isWalkable(x, y) && !isWalkable(blockedX, blockedY);
+    }
+
+    private boolean isWalkable(int x, int y) {
+        return x >= 0 && x < width && y >= 0 && y < height
+                && data[x][y].getState() == CellState.WALKABLE
+                && !search.isBusy(search.id(x, y));
+    }
+
+    private boolean canMoveDiagonally(int x, int y, int dx, int dy) {
+        boolean isHorizontalWalkable = isWalkable(x + dx, y);
+        boolean isVerticalWalkable = isWalkable(x, y + dy);
+
+        if (diagonalMovement == DiagonalMovement.NO_CORNER_CUTTING)
+            return isHorizontalWalkable && isVerticalWalkable;
+
+        return isHorizontalWalkable || isVerticalWalkable;
+    }
+
+    private void addNeighbor(int x, int y) {
+        neighborsX[numNeighbors] = x;
+        neighborsY[numNeighbors] = y;
+        numNeighbors++;
+    }
+
+    private void addNeighborIfWalkable(int x, int y) {
+        if (isWalkable(x, y)) {
+            addNeighbor(x, y);
+        }
+    }
+
+    /**
+     * @return cost of the cheapest path between two cells, ignoring obstacles
+     */
+    private int distance(int x1, int y1, int x2, int y2) {
+        int dx = Math.abs(x2 - x1);
+        int dy = Math.abs(y2 - y1);
+
+        if (!diagonalMovement.isAllowed())
+            return MOVE_COST * (dx + dy);
+
+        return MOVE_COST * Math.max(dx, dy) + (DIAGONAL_MOVE_COST - MOVE_COST) * Math.min(dx, dy);
+    }
+
+    private void beginSearch(AStarCell[][] data) {
+        this.data = data;
+
+        width = data.length;
+        height = data[0].length;
+
+        search.begin(width, height);
+    }
+
+    /**
+     * Expands jump points into a list of adjacent cells.
+     */
+    private List<AStarCell> buildPath(int target) {
+        List<AStarCell> path = new ArrayList<>();
+
+        // the start cell is the only visited cell without a parent
+        for (int cell = target; search.getParent(cell) != -1; cell = search.getParent(cell)) {
+            int x = cell % width;
+            int y = cell / width;
+
+            int parent = search.getParent(cell);
+            int px = parent % width;
+            int py = parent / width;
+
+            int dx = Integer.signum(px - x);
+            int dy = Integer.signum(py - y);
+
+            // consecutive jump points are always on a straight or diagonal line
+            while (x != px || y != py) {
+                path.add(data[x][y]);
+
+                x += dx;
+                y += dy;
+            }
+        }
+
+        Collections.reverse(path);
+        return path;
+    }
+}
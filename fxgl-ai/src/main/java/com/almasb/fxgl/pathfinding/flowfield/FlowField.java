@@ -0,0 +1,480 @@
+/*
+ * FXGL - JavaFX Game Library. The MIT License (MIT).
+ * Copyright (c) AlmasB (almaslvl@gmail.com).
+ * See LICENSE for details.
+ */
+
+package com.almasb.fxgl.pathfinding.flowfield;
+
+import com.almasb.fxgl.pathfinding.Cell;
+import com.almasb.fxgl.pathfinding.DiagonalMovement;
+import com.almasb.fxgl.pathfinding.Grid;
+
+import java.util.Arrays;
+import java.util.Optional;
+import java.util.function.Predicate;
+
+/**
+ * A Dijkstra map (integration field) towards a single goal cell.
+ * Every cell stores the cost of the shortest path from that cell to the goal,
+ * so any number of units that share the goal can pick their next cell in O(1) using {@link #getNextCell(int, int)},
+ * instead of each running its own search.
+ * Straight moves cost 10 and diagonal moves cost 14.
+ *
+ * Cells are walkable if they pass the given predicate, e.g. AStarCell::isWalkable for an AStarGrid.
+ * When walkability of cells changes, call {@link #markChanged(int, int)} for changed cells,
+ * or {@link #refresh()} to find changed cells by checking all cells.
+ * Only costs that depend on changed cells are recomputed.
+ *
+ * @author Almas Baimagambetov (almaslvl@gmail.com)
+ */
+public final class FlowField<T extends Cell> {
+
+    /**
+     * Cost of cells from which the goal cannot be reached.
+     */
+    public static final int UNREACHABLE = Integer.MAX_VALUE;
+
+    private static final int MOVE_COST = 10;
+    private static final int DIAGONAL_MOVE_COST = 14;
+
+    // left, right, up, down, then diagonals
+    private static final int[] DX = { -1, 1, 0, 0, -1, 1, -1, 1 };
+    private static final int[] DY = { 0, 0, -1, 1, -1, -1, 1, 1 };
+
+    private final Grid<T> grid;
+    private final Predicate<T> isWalkablePredicate;
+    private final DiagonalMovement diagonalMovement;
+    private final int numDirections;
+
+    private final int width;
+    private final int height;
+
+    // indexed by cell id = y * width + x
+    private final int[] costs;
+    private final boolean[] walkable;
+
+    // changed cells that have not been processed yet
+    private final int[] changedCells;
+    private final boolean[] isChanged;
+    private int numChangedCells = 0;
+
+    // cells invalidated by an incremental update
+    private final int[] invalidCells;
+    private final boolean[] isInvalid;
+    private int numInvalidCells = 0;
+
+    // binary min-heap of (cost << 32 | cell id), may contain outdated entries
+    private long[] heap = new long[64];
+    private int heapSize = 0;
+
+    private int goalX;
+    private int goalY;
+
+    public FlowField(Grid<T> grid, Predicate<T> isWalkable, int goalX, int goalY) {
+        this(grid, isWalkable, DiagonalMovement.NEVER, goalX, goalY);
+    }
+
+    public FlowField(Grid<T> grid, Predicate<T> isWalkable, DiagonalMovement diagonalMovement, int goalX, int goalY) {
+        this.grid = grid;
+        this.isWalkablePredicate = isWalkable;
+        this.diagonalMovement = diagonalMovement;
+
+        numDirections = diagonalMovement.isAllowed() ? 8 : 4;
+
+        width = grid.getWidth();
+        height = grid.getHeight();
+
+        int size = width * height;
+
+        costs = new int[size];
+        walkable = new boolean[size];
+        changedCells = new int[size];
+        isChanged = new boolean[size];
+        invalidCells = new int[size];
+        isInvalid = new boolean[size];
+
+        setGoal(goalX, goalY);
+    }
+
+    public Grid<T> getGrid() {
+        return grid;
+    }
+
+    public DiagonalMovement getDiagonalMovement() {
+        return diagonalMovement;
+    }
+
+    public int getGoalX() {
+        return goalX;
+    }
+
+    public int getGoalY() {
+        return goalY;
+    }
+
+    /**
+     * Sets a new goal and rebuilds the whole field.
+     */
+    public void setGoal(int goalX, int goalY) {
+        if (!grid.isWithin(goalX, goalY))
+            throw new IllegalArgumentException("Goal is outside of the grid: " + goalX + "," + goalY);
+
+        this.goalX = goalX;
+        this.goalY = goalY;
+
+        rebuild();
+    }
+
+    /**
+     * Recomputes the whole field, reading walkability of all cells.
+     */
+    public void rebuild() {
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                walkable[id(x, y)] = isWalkablePredicate.test(grid.get(x, y));
+            }
+        }
+
+        clearChanged();
+
+        Arrays.fill(costs, UNREACHABLE);
+
+        int goal = id(goalX, goalY);
+
+        costs[goal] = 0;
+
+        heapSize = 0;
+        push(0, goal);
+
+        propagate();
+    }
+
+    /**
+     * Marks the cell as changed, so that its walkability is read again
+     * and costs that depend on it are recomputed before the next query.
+     */
+    public void markChanged(int x, int y) {
+        int cell = id(x, y);
+
+        if (!isChanged[cell]) {
+            isChanged[cell] = true;
+            changedCells[numChangedCells++] = cell;
+        }
+    }
+
+    /**
+     * Checks walkability of all cells and marks the cells that changed.
+     * This is O(number of cells), but much cheaper than {@link #rebuild()} if only a few cells changed.
+     */
+    public void refresh() {
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                if (walkable[id(x, y)] != isWalkablePredicate.test(grid.get(x, y))) {
+                    markChanged(x, y);
+                }
+            }
+        }
+    }
+
+    /**
+     * Recomputes costs that depend on cells marked as changed.
+     * This is called automatically before queries.
+     */
+    public void update() {
+        if (numChangedCells == 0)
+            return;
+
+        int goal = id(goalX, goalY);
+
+        // invalidate changed cells and their neighbors (diagonal moves between neighbors may depend on the cell),
+        // and all cells whose cost may have been derived from them
+        for (int i = 0; i < numChangedCells; i++) {
+            int cell = changedCells[i];
+            int x = cell % width;
+            int y = cell / width;
+
+            walkable[cell] = isWalkablePredicate.test(grid.get(x, y));
+
+            invalidate(cell, goal);
+
+            for (int dir = 0; dir < numDirections; dir++) {
+                int nx = x + DX[dir];
+                int ny = y + DY[dir];
+
+                if (grid.isWithin(nx, ny)) {
+                    invalidate(id(nx, ny), goal);
+                }
+            }
+        }
+
+        clearChanged();
+
+        // seed each invalidated cell from its valid neighbors
+        heapSize = 0;
+
+        for (int i = 0; i < numInvalidCells; i++) {
+            int cell = invalidCells[i];
+
+            if (!walkable[cell])
+                continue;
+
+            int x = cell % width;
+            int y = cell / width;
+
+            for (int dir = 0; dir < numDirections; dir++) {
+                int nx = x + DX[dir];
+                int ny = y + DY[dir];
+
+                if (!canMove(x, y, nx, ny, dir))
+                    continue;
+
+                int neighborCost = costs[id(nx, ny)];
+
+                if (neighborCost != UNREACHABLE) {
+                    int newCost = neighborCost + moveCost(dir);
+
+                    if (newCost < costs[cell]) {
+                        costs[cell] = newCost;
+                    }
+                }
+            }
+
+            if (costs[cell] != UNREACHABLE) {
+                push(costs[cell], cell);
+            }
+        }
+
+        for (int i = 0; i < numInvalidCells; i++) {
+            isInvalid[invalidCells[i]] = false;
+        }
+
+        numInvalidCells = 0;
+
+        propagate();
+    }
+
+    /**
+     * Marks given cell and, transitively, all cells whose cost may have been derived from it as unreachable.
+     */
+    private void invalidate(int start, int goal) {
+        if (start == goal || isInvalid[start])
+            return;
+
+        int first = numInvalidCells;
+
+        addInvalid(start);
+
+        // unreachable cells have no dependents, but still need to be recomputed
+        if (costs[start] == UNREACHABLE)
+            return;
+
+        // costs of invalidated cells are kept until their dependents have been found
+        for (int i = first; i < numInvalidCells; i++) {
+            int cell = invalidCells[i];
+            int cost = costs[cell];
+
+            int x = cell % width;
+            int y = cell / width;
+
+            for (int dir = 0; dir < numDirections; dir++) {
+                int nx = x + DX[dir];
+                int ny = y + DY[dir];
+
+                if (!grid.isWithin(nx, ny))
+                    continue;
+
+                int neighbor = id(nx, ny);
+
+                if (neighbor == goal || isInvalid[neighbor])
+                    continue;
+
+                if (costs[neighbor] != UNREACHABLE && costs[neighbor] == cost + moveCost(dir)) {
+                    addInvalid(neighbor);
+                }
+            }
+        }
+
+        for (int i = first; i < numInvalidCells; i++) {
+            costs[invalidCells[i]] = UNREACHABLE;
+        }
+    }
+
+    private void addInvalid(int cell) {
+        isInvalid[cell] = true;
+        invalidCells[numInvalidCells++] = cell;
+    }
+
+    /**
+     * Dijkstra's algorithm from the cells in the heap, with moves reversed (from a cell towards the cells that can move into it).
+     */
+    private void propagate() {
+        while (heapSize > 0) {
+            long entry = pop();
+
+            int cost = (int) (entry >>> 32);
+            int cell = (int) entry;
+
+            // outdated entry
+            if (cost > costs[cell])
+                continue;
+
+            int x = cell % width;
+            int y = cell / width;
+
+            for (int dir = 0; dir < numDirections; dir++) {
+                int nx = x + DX[dir];
+                int ny = y + DY[dir];
+
+                // moves are symmetric, so a move from neighbor into this cell is allowed iff the opposite move is
+                if (!canMove(x, y, nx, ny, dir))
+                    continue;
+
+                int neighbor = id(nx, ny);
+                int newCost = cost + moveCost(dir);
+
+                if (newCost < costs[neighbor]) {
+                    costs[neighbor] = newCost;
+                    push(newCost, neighbor);
+                }
+            }
+        }
+    }
+
+    /**
+     * @return cost of the shortest path from given cell to the goal or {@link #UNREACHABLE}
+     */
+    public int getCost(int x, int y) {
+        update();
+
+        return costs[id(x, y)];
+    }
+
+    /**
+     * @return true if the goal can be reached from given cell
+     */
+    public boolean isReachable(int x, int y) {
+        return getCost(x, y) != UNREACHABLE;
+    }
+
+    /**
+     * @return the adjacent cell to move to from given cell in order to reach the goal along a shortest path,
+     * or empty if given cell is the goal or the goal cannot be reached from any adjacent cell
+     */
+    public Optional<T> getNextCell(int x, int y) {
+        update();
+
+        if (x == goalX && y == goalY)
+            return Optional.empty();
+
+        // this also allows moving out of a cell that has become non-walkable
+        long bestCost = UNREACHABLE;
+        int bestDir = -1;
+
+        for (int dir = 0; dir < numDirections; dir++) {
+            int nx = x + DX[dir];
+            int ny = y + DY[dir];
+
+            if (!canMove(x, y, nx, ny, dir))
+                continue;
+
+            int neighborCost = costs[id(nx, ny)];
+
+            if (neighborCost == UNREACHABLE)
+                continue;
+
+            long cost = (long) neighborCost + moveCost(dir);
+
+            if (cost < bestCost) {
+                bestCost = cost;
+                bestDir = dir;
+            }
+        }
+
+        if (bestDir == -1)
+            return Optional.empty();
+
+        return Optional.of(grid.get(x + DX[bestDir], y + DY[bestDir]));
+    }
+
+    private boolean canMove(int x, int y, int nx, int ny, int dir) {
+        if (!grid.isWithin(nx, ny) || !walkable[id(nx, ny)])
+            return false;
+
+        if (dir < 4)
+            return true;
+
+        boolean isHorizontalWalkable = walkable[id(nx, y)];
+        boolean isVerticalWalkable = walkable[id(x, ny)];
+
+        if (diagonalMovement == DiagonalMovement.NO_CORNER_CUTTING)
+            return isHorizontalWalkable && isVerticalWalkable;
+
+        return isHorizontalWalkable || isVerticalWalkable;
+    }
+
+    private static int moveCost(int dir) {
+        return dir < 4 ? MOVE_COST : DIAGONAL_MOVE_COST;
+    }
+
+    private int id(int x, int y) {
+        return y * width + x;
+    }
+
+    private void clearChanged() {
+        for (int i = 0; i < numChangedCells; i++) {
+            isChanged[changedCells[i]] = false;
+        }
+
+        numChangedCells = 0;
+    }
+
+    private void push(int cost, int cell) {
+        if (heapSize == heap.length) {
+            heap = Arrays.copyOf(heap, heap.length * 2);
+        }
+
+        long entry = ((long) cost << 32) | cell;
+
+        int index = heapSize++;
+
+        while (index > 0) {
+            int parentIndex = (index - 1) >>> 1;
+
+            if (heap[parentIndex] <= entry)
+                break;
+
+            heap[index] = heap[parentIndex];
+            index = parentIndex;
+        }
+
+        heap[index] = entry;
+    }
+
+    private long pop() {
+        long result = heap[0];
+        long last = heap[--heapSize];
+
+        int index = 0;
+
+        while (true) {
+            int child = 2 * index + 1;
+
+            if (child >= heapSize)
+                break;
+
+            if (child + 1 < heapSize && heap[child + 1] < heap[child])
+                child++;
+
+            if (heap[child] >= last)
+                break;
+
+            heap[index] = heap[child];
+            index = child;
+        }
+
+        heap[index] = last;
+
+        return result;
+    }
+}
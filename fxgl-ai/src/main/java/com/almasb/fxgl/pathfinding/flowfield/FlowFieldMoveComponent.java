@@ -0,0 +1,63 @@
+/*
+ * FXGL - JavaFX Game Library. The MIT License (MIT).
+ * Copyright (c) AlmasB (almaslvl@gmail.com).
+ * See LICENSE for details.
+ */
+
+package com.almasb.fxgl.pathfinding.flowfield;
+
+import com.almasb.fxgl.entity.component.Component;
+import com.almasb.fxgl.entity.component.Required;
+import com.almasb.fxgl.pathfinding.CellMoveComponent;
+
+/**
+ * Moves an entity cell by cell towards the goal of a flow field.
+ * The flow field can be shared between any number of entities, since picking the next cell is O(1).
+ *
+ * @author Almas Baimagambetov (almaslvl@gmail.com)
+ */
+@Required(CellMoveComponent.class)
+public final class FlowFieldMoveComponent extends Component {
+
+    private CellMoveComponent moveComponent;
+
+    private FlowField<?> flowField;
+
+    public FlowFieldMoveComponent(FlowField<?> flowField) {
+        this.flowField = flowField;
+    }
+
+    public FlowField<?> getFlowField() {
+        return flowField;
+    }
+
+    /**
+     * Allows switching to a different goal.
+     * If the entity is moving, it first reaches the current next cell.
+     */
+    public void setFlowField(FlowField<?> flowField) {
+        this.flowField = flowField;
+    }
+
+    public boolean isMoving() {
+        return moveComponent.isMoving();
+    }
+
+    /**
+     * @return true if entity is in the goal cell and is no longer moving
+     */
+    public boolean isAtGoal() {
+        return !isMoving()
+                && moveComponent.getCellX() == flowField.getGoalX()
+                && moveComponent.getCellY() == flowField.getGoalY();
+    }
+
+    @Override
+    public void onUpdate(double tpf) {
+        if (!moveComponent.isAtDestination())
+            return;
+
+        flowField.getNextCell(moveComponent.getCellX(), moveComponent.getCellY())
+                .ifPresent(moveComponent::moveToCell);
+    }
+}
@@ -13,8 +13,10 @@ module com.almasb.fxgl.ai {
 
     exports com.almasb.fxgl.pathfinding;
     exports com.almasb.fxgl.pathfinding.astar;
+    exports com.almasb.fxgl.pathfinding.flowfield;
     exports com.almasb.fxgl.pathfinding.maze;
     exports com.almasb.fxgl.procedural;
 
     opens com.almasb.fxgl.pathfinding.astar to com.almasb.fxgl.core;
+    opens com.almasb.fxgl.pathfinding.flowfield to com.almasb.fxgl.core;
 }
\ No newline at end of file
@@ -0,0 +1,180 @@
+/*
+ * FXGL - JavaFX Game Library. The MIT License (MIT).
+ * Copyright (c) AlmasB (almaslvl@gmail.com).
+ * See LICENSE for details.
+ */
+
+package com.almasb.fxgl.pathfinding.astar;
+
+import com.almasb.fxgl.core.util.LazyValue;
+import com.almasb.fxgl.pathfinding.CellState;
+import javafx.util.Duration;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class AStarPathRequestServiceTest {
+
+    private static final int GRID_SIZE = 20;
+    private AStarGrid grid;
+    private AStarPathRequestService service;
+
+    @BeforeEach
+    public void setUp() {
+        grid = new AStarGrid(GRID_SIZE, GRID_SIZE);
+
+        // run workers on the calling thread
+        service = new AStarPathRequestService(new LazyValue<>(() -> grid), Runnable::run, 1);
+    }
+
+    @Test
+    public void testNumWorkersMustBePositive() {
+        assertThrows(IllegalArgumentException.class, () -> new AStarPathRequestService(new LazyValue<>(() -> grid), Runnable::run, 0));
+    }
+
+    @Test
+    public void testPathIsDeliveredOnNextFrame() {
+        List<List<AStarCell>> results = new ArrayList<>();
+
+        service.requestPath(0, 0, 3, 0, results::add);
+
+        assertThat(service.getNumPendingRequests(), is(1));
+
+        // dispatched and solved
+        service.onUpdate(0.016);
+        assertTrue(results.isEmpty());
+
+        // delivered
+        service.onUpdate(0.016);
+        assertThat(results.size(), is(1));
+        assertThat(service.getNumPendingRequests(), is(0));
+
+        List<AStarCell> path = results.get(0);
+
+        assertThat(path, is(new AStarPathfinder(grid).findPath(0, 0, 3, 0)));
+
+        // cells belong to the live grid, not the snapshot
+        assertSame(grid.get(3, 0), path.get(path.size() - 1));
+
+        assertThrows(UnsupportedOperationException.class, () -> path.remove(0));
+    }
+
+    @Test
+    public void testIdenticalRequestsAreSolvedOnce() {
+        List<List<AStarCell>> results = new ArrayList<>();
+
+        service.requestPath(0, 0, 5, 5, results::add);
+        service.requestPath(0, 0, 5, 5, results::add);
+        service.requestPath(5, 5, 0, 0, results::add);
+
+        assertThat(service.getNumPendingRequests(), is(2));
+
+        service.onUpdate(0.016);
+        service.onUpdate(0.016);
+
+        assertThat(results.size(), is(3));
+        assertSame(results.get(0), results.get(1));
+        assertNotSame(results.get(0), results.get(2));
+    }
+
+    @Test
+    public void testRequestsAreSolvedAgainstSnapshot() {
+        List<List<AStarCell>> results = new ArrayList<>();
+
+        service.requestPath(0, 0, 2, 0, results::add);
+        service.onUpdate(0.016);
+
+        // changed after dispatch, so not observed by the solved request
+        grid.get(1, 0).setState(CellState.NOT_WALKABLE);
+
+        service.requestPath(0, 0, 2, 0, results::add);
+        service.onUpdate(0.016);
+        service.onUpdate(0.016);
+
+        assertThat(results.size(), is(2));
+        assertThat(results.get(0).size(), is(2));
+        assertThat(results.get(1).size(), is(4));
+    }
+
+    @Test
+    public void testSolveTimeIsCappedPerFrame() {
+        service.setMaxSolveTimePerFrame(Duration.ZERO);
+
+        assertThat(service.getMaxSolveTimePerFrame(), is(Duration.ZERO));
+
+        List<Integer> delivered = new ArrayList<>();
+
+        service.requestPath(0, 0, 1, 0, path -> delivered.add(1));
+        service.requestPath(0, 0, 2, 0, path -> delivered.add(2));
+        service.requestPath(0, 0, 3, 0, path -> delivered.add(3));
+
+        service.onUpdate(0.016);
+        assertTrue(delivered.isEmpty());
+
+        // each frame a single worker solves at least one request
+        service.onUpdate(0.016);
+        assertThat(delivered, is(List.of(1)));
+
+        service.onUpdate(0.016);
+        assertThat(delivered, is(List.of(1, 2)));
+
+        service.onUpdate(0.016);
+        assertThat(delivered, is(List.of(1, 2, 3)));
+    }
+
+    @Test
+    public void testManyRequestsOnWorkerPool() throws Exception {
+        var random = new Random(11);
+
+        grid.forEach(cell -> {
+            if (random.nextDouble() < 0.2)
+                cell.setState(CellState.NOT_WALKABLE);
+        });
+
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+
+        try {
+            service = new AStarPathRequestService(new LazyValue<>(() -> grid), executor, 4);
+
+            var pathfinder = new AStarPathfinder(grid);
+
+            int numRequests = 200;
+            int[] numDelivered = { 0 };
+
+            for (int i = 0; i < numRequests; i++) {
+                int sourceX = random.nextInt(GRID_SIZE);
+                int sourceY = random.nextInt(GRID_SIZE);
+                int targetX = random.nextInt(GRID_SIZE);
+                int targetY = random.nextInt(GRID_SIZE);
+
+                var expected = pathfinder.findPath(sourceX, sourceY, targetX, targetY);
+
+                service.requestPath(sourceX, sourceY, targetX, targetY, path -> {
+                    assertThat(path, is(expected));
+                    numDelivered[0]++;
+                });
+            }
+
+            long deadline = System.currentTimeMillis() + 10_000;
+
+            while (numDelivered[0] < numRequests && System.currentTimeMillis() < deadline) {
+                service.onUpdate(0.016);
+                Thread.sleep(1);
+            }
+
+            assertThat(numDelivered[0], is(numRequests));
+            assertThat(service.getNumPendingRequests(), is(0));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
@@ -7,13 +7,17 @@
 package com.almasb.fxgl.pathfinding.astar;
 
 import com.almasb.fxgl.pathfinding.CellState;
+import com.almasb.fxgl.pathfinding.DiagonalMovement;
 import com.almasb.fxgl.pathfinding.Pathfinder;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
+import java.util.Random;
 
 import static org.hamcrest.CoreMatchers.is;
 import static org.hamcrest.MatcherAssert.assertThat;
@@ -93,6 +97,114 @@ public class AStarPathfinderTest {
                 4, 5);
     }
     
+    @Test
+    public void testBusyCellsDoNotAffectNextSearch() {
+        List<AStarCell> path = pathfinder.findPath(0, 0, 2, 0, Collections.singletonList(grid.get(1, 0)));
+        assertPathEquals(path,
+                0, 1,
+                1, 1,
+                2, 1,
+                2, 0);
+
+        path = pathfinder.findPath(0, 0, 2, 0);
+        assertPathEquals(path,
+                1, 0,
+                2, 0);
+    }
+
+    @Test
+    public void testFindPathWithDiagonalMovement() {
+        var diagonalPathfinder = new AStarPathfinder(grid, DiagonalMovement.NO_CORNER_CUTTING);
+
+        assertThat(diagonalPathfinder.getDiagonalMovement(), is(DiagonalMovement.NO_CORNER_CUTTING));
+
+        List<AStarCell> path = diagonalPathfinder.findPath(0, 0, 3, 3);
+        assertPathEquals(path,
+                1, 1,
+                2, 2,
+                3, 3);
+
+        // corner of an obstacle
+        grid.get(1, 0).setState(CellState.NOT_WALKABLE);
+
+        path = diagonalPathfinder.findPath(0, 0, 1, 1);
+        assertPathEquals(path,
+                0, 1,
+                1, 1);
+
+        path = new AStarPathfinder(grid, DiagonalMovement.ALLOW_CORNER_CUTTING).findPath(0, 0, 1, 1);
+        assertPathEquals(path,
+                1, 1);
+
+        // squeezing between two obstacles is never allowed
+        grid.get(0, 1).setState(CellState.NOT_WALKABLE);
+
+        path = new AStarPathfinder(grid, DiagonalMovement.ALLOW_CORNER_CUTTING).findPath(0, 0, 1, 1);
+        assertTrue(path.isEmpty());
+    }
+
+    @Test
+    public void testFindPathIsShortestOnRandomGrids() {
+        var random = new Random(15);
+
+        var bigGrid = new AStarGrid(64, 48);
+        var bigPathfinder = new AStarPathfinder(bigGrid);
+
+        for (int i = 0; i < 30; i++) {
+            bigGrid.forEach(c -> c.setState(random.nextDouble() < 0.3 ? CellState.NOT_WALKABLE : CellState.WALKABLE));
+
+            for (int j = 0; j < 10; j++) {
+                var start = bigGrid.getRandomCell(random);
+                var target = bigGrid.getRandomCell(random);
+
+                var path = bigPathfinder.findPath(start.getX(), start.getY(), target.getX(), target.getY());
+
+                int expected = start == target ? 0 : shortestDistance(bigGrid, start, target);
+
+                if (expected == -1) {
+                    assertTrue(path.isEmpty());
+                    continue;
+                }
+
+                assertThat(path.size(), is(expected));
+
+                // each step is to an adjacent walkable cell
+                AStarCell prev = start;
+                for (AStarCell cell : path) {
+                    assertThat(prev.distance(cell), is(1));
+                    assertTrue(cell.isWalkable());
+                    prev = cell;
+                }
+            }
+        }
+    }
+
+    private static int shortestDistance(AStarGrid grid, AStarCell start, AStarCell target) {
+        if (target.getState() == CellState.NOT_WALKABLE)
+            return -1;
+
+        int[][] dist = new int[grid.getWidth()][grid.getHeight()];
+        for (int[] column : dist)
+            Arrays.fill(column, -1);
+
+        var queue = new ArrayDeque<AStarCell>();
+        queue.add(start);
+        dist[start.getX()][start.getY()] = 0;
+
+        while (!queue.isEmpty()) {
+            var cell = queue.poll();
+
+            for (AStarCell n : grid.getNeighbors(cell.getX(), cell.getY())) {
+                if (n.isWalkable() && dist[n.getX()][n.getY()] == -1) {
+                    dist[n.getX()][n.getY()] = dist[cell.getX()][cell.getY()] + 1;
+                    queue.add(n);
+                }
+            }
+        }
+
+        return dist[target.getX()][target.getY()];
+    }
+
     private void assertPathEquals(List<AStarCell> path, int... points) {
         assertEquals(points.length / 2, path.size());
 
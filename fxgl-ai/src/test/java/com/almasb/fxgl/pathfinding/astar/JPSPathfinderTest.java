@@ -0,0 +1,243 @@
+/*
+ * FXGL - JavaFX Game Library. The MIT License (MIT).
+ * Copyright (c) AlmasB (almaslvl@gmail.com).
+ * See LICENSE for details.
+ */
+
+package com.almasb.fxgl.pathfinding.astar;
+
+import com.almasb.fxgl.pathfinding.CellState;
+import com.almasb.fxgl.pathfinding.DiagonalMovement;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.Random;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.lessThan;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class JPSPathfinderTest {
+
+    private static final int GRID_SIZE = 20;
+    private AStarGrid grid;
+
+    @BeforeEach
+    public void setUp() {
+        grid = new AStarGrid(GRID_SIZE, GRID_SIZE);
+    }
+
+    @Test
+    public void testFindPath() {
+        var pathfinder = new JPSPathfinder(grid);
+
+        assertThat(pathfinder.getDiagonalMovement(), is(DiagonalMovement.NEVER));
+
+        List<AStarCell> path = pathfinder.findPath(3, 0, 5, 0);
+        assertPathEquals(path, 4, 0, 5, 0);
+
+        // Make passing impossible.
+        for (int i = 0; i <= 19; i++)
+            grid.get(4, i).setState(CellState.NOT_WALKABLE);
+
+        path = pathfinder.findPath(3, 0, 5, 0);
+        assertTrue(path.isEmpty());
+
+        assertTrue(pathfinder.findPath(3, 0, 3, 0).isEmpty());
+        assertTrue(pathfinder.findPath(3, 0, 4, 0).isEmpty());
+    }
+
+    @Test
+    public void testPathContainsIntermediateCells() {
+        var pathfinder = new JPSPathfinder(grid, DiagonalMovement.NO_CORNER_CUTTING);
+
+        List<AStarCell> path = pathfinder.findPath(0, 0, 4, 2);
+
+        assertThat(path.size(), is(4));
+        assertSame(grid.get(4, 2), path.get(3));
+        assertValidPath(grid, DiagonalMovement.NO_CORNER_CUTTING, grid.get(0, 0), path);
+    }
+
+    @Test
+    public void testFindPathWithBusyCells() {
+        var pathfinder = new JPSPathfinder(grid);
+
+        List<AStarCell> path = pathfinder.findPath(0, 0, 2, 0, Collections.singletonList(grid.get(1, 0)));
+        assertThat(path.size(), is(4));
+        assertFalse(path.contains(grid.get(1, 0)));
+
+        path = pathfinder.findPath(0, 0, 2, 0);
+        assertPathEquals(path, 1, 0, 2, 0);
+    }
+
+    @ParameterizedTest
+    @EnumSource(DiagonalMovement.class)
+    public void testPathCostIsOptimalOnRandomGrids(DiagonalMovement diagonalMovement) {
+        var random = new Random(21);
+
+        var bigGrid = new AStarGrid(48, 40);
+        var jps = new JPSPathfinder(bigGrid, diagonalMovement);
+        var astar = new AStarPathfinder(bigGrid, diagonalMovement);
+
+        for (int i = 0; i < 40; i++) {
+            double density = 0.1 + 0.05 * (i % 6);
+            bigGrid.forEach(c -> c.setState(random.nextDouble() < density ? CellState.NOT_WALKABLE : CellState.WALKABLE));
+
+            for (int j = 0; j < 10; j++) {
+                var start = bigGrid.getRandomCell(random);
+                var target = bigGrid.getRandomCell(random);
+
+                int expected = start == target ? 0 : shortestPathCost(bigGrid, diagonalMovement, start, target);
+
+                var jpsPath = jps.findPath(start.getX(), start.getY(), target.getX(), target.getY());
+                var astarPath = astar.findPath(start.getX(), start.getY(), target.getX(), target.getY());
+
+                if (expected <= 0) {
+                    assertTrue(jpsPath.isEmpty());
+                    assertTrue(astarPath.isEmpty());
+                    continue;
+                }
+
+                assertThat(assertValidPath(bigGrid, diagonalMovement, start, jpsPath), is(expected));
+                assertThat(assertValidPath(bigGrid, diagonalMovement, start, astarPath), is(expected));
+            }
+        }
+    }
+
+    @ParameterizedTest
+    @EnumSource(value = DiagonalMovement.class, names = { "NO_CORNER_CUTTING", "ALLOW_CORNER_CUTTING" })
+    public void testFewerExpansionsThanAStarOnOpenField(DiagonalMovement diagonalMovement) {
+        var openField = new AStarGrid(100, 100);
+
+        var jps = new JPSPathfinder(openField, diagonalMovement);
+        var astar = new AStarPathfinder(openField, diagonalMovement);
+
+        // a single obstacle between start and target
+        for (int y = 20; y < 80; y++) {
+            openField.get(50, y).setState(CellState.NOT_WALKABLE);
+        }
+
+        var jpsPath = jps.findPath(10, 50, 90, 50);
+        var astarPath = astar.findPath(10, 50, 90, 50);
+
+        assertThat(jpsPath.size(), is(astarPath.size()));
+        assertThat(jps.getNumExpandedCells(), is(lessThan(astar.getNumExpandedCells())));
+    }
+
+    /**
+     * Asserts that each step is a legal move to an adjacent walkable cell.
+     *
+     * @return cost of the path
+     */
+    private static int assertValidPath(AStarGrid grid, DiagonalMovement diagonalMovement, AStarCell start, List<AStarCell> path) {
+        int cost = 0;
+
+        AStarCell prev = start;
+        for (AStarCell cell : path) {
+            int dx = cell.getX() - prev.getX();
+            int dy = cell.getY() - prev.getY();
+
+            assertTrue(cell.isWalkable());
+            assertTrue(Math.abs(dx) <= 1 && Math.abs(dy) <= 1 && (dx != 0 || dy != 0));
+
+            if (dx != 0 && dy != 0) {
+                assertTrue(canMoveDiagonally(grid, diagonalMovement, prev.getX(), prev.getY(), dx, dy));
+                cost += 14;
+            } else {
+                cost += 10;
+            }
+
+            prev = cell;
+        }
+
+        return cost;
+    }
+
+    private static boolean canMoveDiagonally(AStarGrid grid, DiagonalMovement diagonalMovement, int x, int y, int dx, int dy) {
+        boolean isHorizontalWalkable = grid.isWithin(x + dx, y) && grid.get(x + dx, y).isWalkable();
+        boolean isVerticalWalkable = grid.isWithin(x, y + dy) && grid.get(x, y + dy).isWalkable();
+
+        switch (diagonalMovement) {
+            case NEVER:
+                return false;
+            case NO_CORNER_CUTTING:
+                return isHorizontalWalkable && isVerticalWalkable;
+            default:
+                return isHorizontalWalkable || isVerticalWalkable;
+        }
+    }
+
+    /**
+     * Dijkstra's algorithm.
+     *
+     * @return cost of the shortest path or -1 if no path
+     */
+    private static int shortestPathCost(AStarGrid grid, DiagonalMovement diagonalMovement, AStarCell start, AStarCell target) {
+        if (!target.isWalkable())
+            return -1;
+
+        int[][] dist = new int[grid.getWidth()][grid.getHeight()];
+        for (int[] column : dist)
+            Arrays.fill(column, Integer.MAX_VALUE);
+
+        var queue = new PriorityQueue<int[]>((a, b) -> Integer.compare(a[2], b[2]));
+        queue.add(new int[] { start.getX(), start.getY(), 0 });
+        dist[start.getX()][start.getY()] = 0;
+
+        while (!queue.isEmpty()) {
+            int[] item = queue.poll();
+            int x = item[0];
+            int y = item[1];
+
+            if (item[2] > dist[x][y])
+                continue;
+
+            for (int dx = -1; dx <= 1; dx++) {
+                for (int dy = -1; dy <= 1; dy++) {
+                    if (dx == 0 && dy == 0)
+                        continue;
+
+                    int nx = x + dx;
+                    int ny = y + dy;
+
+                    if (!grid.isWithin(nx, ny) || !grid.get(nx, ny).isWalkable())
+                        continue;
+
+                    boolean isDiagonal = dx != 0 && dy != 0;
+
+                    if (isDiagonal && !canMoveDiagonally(grid, diagonalMovement, x, y, dx, dy))
+                        continue;
+
+                    int newDist = dist[x][y] + (isDiagonal ? 14 : 10);
+
+                    if (newDist < dist[nx][ny]) {
+                        dist[nx][ny] = newDist;
+                        queue.add(new int[] { nx, ny, newDist });
+                    }
+                }
+            }
+        }
+
+        int result = dist[target.getX()][target.getY()];
+        return result == Integer.MAX_VALUE ? -1 : result;
+    }
+
+    private void assertPathEquals(List<AStarCell> path, int... points) {
+        assertEquals(points.length / 2, path.size());
+
+        int i = 0;
+        for (AStarCell cell : path) {
+            assertEquals(points[i++], cell.getX());
+            assertEquals(points[i++], cell.getY());
+        }
+
+        assertEquals(points.length, i);
+    }
+}
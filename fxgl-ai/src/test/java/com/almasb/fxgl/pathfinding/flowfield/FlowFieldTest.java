@@ -0,0 +1,188 @@
+/*
+ * FXGL - JavaFX Game Library. The MIT License (MIT).
+ * Copyright (c) AlmasB (almaslvl@gmail.com).
+ * See LICENSE for details.
+ */
+
+package com.almasb.fxgl.pathfinding.flowfield;
+
+import com.almasb.fxgl.pathfinding.CellState;
+import com.almasb.fxgl.pathfinding.DiagonalMovement;
+import com.almasb.fxgl.pathfinding.astar.AStarCell;
+import com.almasb.fxgl.pathfinding.astar.AStarGrid;
+import com.almasb.fxgl.pathfinding.astar.AStarPathfinder;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+
+import java.util.List;
+import java.util.Random;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class FlowFieldTest {
+
+    private static final int GRID_SIZE = 20;
+    private AStarGrid grid;
+
+    @BeforeEach
+    public void setUp() {
+        grid = new AStarGrid(GRID_SIZE, GRID_SIZE);
+    }
+
+    @Test
+    public void testCosts() {
+        var field = new FlowField<>(grid, AStarCell::isWalkable, 5, 5);
+
+        assertThat(field.getCost(5, 5), is(0));
+        assertThat(field.getCost(6, 5), is(10));
+        assertThat(field.getCost(7, 7), is(40));
+        assertThat(field.getCost(0, 0), is(100));
+
+        var diagonalField = new FlowField<>(grid, AStarCell::isWalkable, DiagonalMovement.NO_CORNER_CUTTING, 5, 5);
+
+        assertThat(diagonalField.getCost(7, 7), is(28));
+        assertThat(diagonalField.getCost(0, 0), is(70));
+    }
+
+    @Test
+    public void testGoalMustBeWithinGrid() {
+        assertThrows(IllegalArgumentException.class, () -> new FlowField<>(grid, AStarCell::isWalkable, GRID_SIZE, 0));
+    }
+
+    @Test
+    public void testNextCell() {
+        var field = new FlowField<>(grid, AStarCell::isWalkable, 3, 0);
+
+        assertSame(grid.get(2, 0), field.getNextCell(1, 0).get());
+        assertSame(grid.get(3, 0), field.getNextCell(3, 1).get());
+        assertTrue(field.getNextCell(3, 0).isEmpty());
+    }
+
+    @Test
+    public void testUnreachableCells() {
+        for (int y = 0; y < GRID_SIZE; y++) {
+            grid.get(10, y).setState(CellState.NOT_WALKABLE);
+        }
+
+        var field = new FlowField<>(grid, AStarCell::isWalkable, 0, 0);
+
+        assertTrue(field.isReachable(9, 19));
+        assertFalse(field.isReachable(11, 0));
+        assertFalse(field.isReachable(10, 0));
+        assertTrue(field.getNextCell(11, 0).isEmpty());
+
+        // open a gap
+        grid.get(10, 19).setState(CellState.WALKABLE);
+        field.markChanged(10, 19);
+
+        assertTrue(field.isReachable(11, 0));
+        assertThat(field.getCost(11, 0), is(10 * (11 + 19 + 19)));
+    }
+
+    @Test
+    public void testMovingOutOfNonWalkableCell() {
+        var field = new FlowField<>(grid, AStarCell::isWalkable, 0, 0);
+
+        grid.get(5, 5).setState(CellState.NOT_WALKABLE);
+        field.markChanged(5, 5);
+
+        assertFalse(field.isReachable(5, 5));
+        assertTrue(field.getNextCell(5, 5).isPresent());
+    }
+
+    @ParameterizedTest
+    @EnumSource(DiagonalMovement.class)
+    public void testIncrementalUpdatesMatchRebuild(DiagonalMovement diagonalMovement) {
+        var random = new Random(4);
+
+        var bigGrid = new AStarGrid(40, 30);
+        bigGrid.forEach(c -> c.setState(random.nextDouble() < 0.25 ? CellState.NOT_WALKABLE : CellState.WALKABLE));
+
+        var field = new FlowField<>(bigGrid, AStarCell::isWalkable, diagonalMovement, 20, 15);
+
+        for (int i = 0; i < 200; i++) {
+            int numChanges = 1 + random.nextInt(5);
+
+            for (int j = 0; j < numChanges; j++) {
+                var cell = bigGrid.getRandomCell(random);
+                cell.setState(cell.isWalkable() ? CellState.NOT_WALKABLE : CellState.WALKABLE);
+
+                // use both ways of reporting changes
+                if (i % 2 == 0) {
+                    field.markChanged(cell.getX(), cell.getY());
+                }
+            }
+
+            if (i % 2 == 1) {
+                field.refresh();
+            }
+
+            var expected = new FlowField<>(bigGrid, AStarCell::isWalkable, diagonalMovement, 20, 15);
+
+            for (int y = 0; y < bigGrid.getHeight(); y++) {
+                for (int x = 0; x < bigGrid.getWidth(); x++) {
+                    assertThat(field.getCost(x, y), is(expected.getCost(x, y)));
+                }
+            }
+        }
+    }
+
+    @ParameterizedTest
+    @EnumSource(DiagonalMovement.class)
+    public void testFollowingNextCellsGivesShortestPath(DiagonalMovement diagonalMovement) {
+        var random = new Random(9);
+
+        var bigGrid = new AStarGrid(40, 30);
+        bigGrid.forEach(c -> c.setState(random.nextDouble() < 0.25 ? CellState.NOT_WALKABLE : CellState.WALKABLE));
+        bigGrid.get(20, 15).setState(CellState.WALKABLE);
+
+        var field = new FlowField<>(bigGrid, AStarCell::isWalkable, diagonalMovement, 20, 15);
+        var pathfinder = new AStarPathfinder(bigGrid, diagonalMovement);
+
+        for (int i = 0; i < 100; i++) {
+            var start = bigGrid.getRandomCell(random, AStarCell::isWalkable).get();
+
+            var path = pathfinder.findPath(start.getX(), start.getY(), 20, 15);
+
+            if (path.isEmpty()) {
+                assertTrue(start.getX() == 20 && start.getY() == 15 || !field.isReachable(start.getX(), start.getY()));
+                continue;
+            }
+
+            int expectedCost = cost(start, path);
+
+            assertThat(field.getCost(start.getX(), start.getY()), is(expectedCost));
+
+            int actualCost = 0;
+            int numSteps = 0;
+
+            AStarCell cell = start;
+            while (cell.getX() != 20 || cell.getY() != 15) {
+                AStarCell next = field.getNextCell(cell.getX(), cell.getY()).get();
+
+                actualCost += next.getX() != cell.getX() && next.getY() != cell.getY() ? 14 : 10;
+                cell = next;
+
+                assertTrue(++numSteps <= path.size());
+            }
+
+            assertThat(actualCost, is(expectedCost));
+        }
+    }
+
+    private static int cost(AStarCell start, List<AStarCell> path) {
+        int cost = 0;
+
+        AStarCell prev = start;
+        for (AStarCell cell : path) {
+            cost += cell.getX() != prev.getX() && cell.getY() != prev.getY() ? 14 : 10;
+            prev = cell;
+        }
+
+        return cost;
+    }
+}
@@ -0,0 +1,94 @@
+/*
+ * FXGL - JavaFX Game Library. The MIT License (MIT).
+ * Copyright (c) AlmasB (almaslvl@gmail.com).
+ * See LICENSE for details.
+ */
+
+package com.almasb.fxgl.pathfinding.flowfield
+
+import com.almasb.fxgl.entity.Entity
+import com.almasb.fxgl.pathfinding.CellMoveComponent
+import com.almasb.fxgl.pathfinding.CellState
+import com.almasb.fxgl.pathfinding.astar.AStarCell
+import com.almasb.fxgl.pathfinding.astar.AStarGrid
+import org.hamcrest.CoreMatchers.`is`
+import org.hamcrest.MatcherAssert.assertThat
+import org.junit.jupiter.api.Assertions.assertFalse
+import org.junit.jupiter.api.Assertions.assertTrue
+import org.junit.jupiter.api.BeforeEach
+import org.junit.jupiter.api.Test
+
+/**
+ *
+ * @author Almas Baimagambetov (almaslvl@gmail.com)
+ */
+class FlowFieldMoveComponentTest {
+
+    private lateinit var grid: AStarGrid
+    private lateinit var field: FlowField<AStarCell>
+
+    @BeforeEach
+    fun setUp() {
+        grid = AStarGrid(10, 10)
+
+        // wall with a gap at the bottom
+        for (y in 0..8) {
+            grid[5, y].state = CellState.NOT_WALKABLE
+        }
+
+        field = FlowField(grid, AStarCell::isWalkable, 9, 0)
+    }
+
+    @Test
+    fun `Entities sharing a flow field reach the goal`() {
+        val entities = (0..2).map {
+            val e = Entity()
+            e.addComponent(CellMoveComponent(10, 10, 200.0))
+            e.addComponent(FlowFieldMoveComponent(field))
+
+            e.getComponent(CellMoveComponent::class.java).setPositionToCell(0, it * 3)
+            e
+        }
+
+        entities.forEach { assertFalse(it.getComponent(FlowFieldMoveComponent::class.java).isAtGoal) }
+
+        repeat(300) {
+            entities.forEach { update(it) }
+        }
+
+        entities.forEach {
+            val move = it.getComponent(CellMoveComponent::class.java)
+
+            assertThat(move.cellX, `is`(9))
+            assertThat(move.cellY, `is`(0))
+            assertTrue(it.getComponent(FlowFieldMoveComponent::class.java).isAtGoal)
+        }
+    }
+
+    @Test
+    fun `Switching flow field changes the goal`() {
+        val e = Entity()
+        e.addComponent(CellMoveComponent(10, 10, 200.0))
+        e.addComponent(FlowFieldMoveComponent(field))
+
+        val move = e.getComponent(CellMoveComponent::class.java)
+        move.setPositionToCell(0, 0)
+
+        val flowMove = e.getComponent(FlowFieldMoveComponent::class.java)
+        flowMove.flowField = FlowField(grid, AStarCell::isWalkable, 0, 5)
+
+        repeat(100) {
+            update(e)
+        }
+
+        assertThat(move.cellX, `is`(0))
+        assertThat(move.cellY, `is`(5))
+        assertTrue(flowMove.isAtGoal)
+        assertFalse(flowMove.isMoving)
+    }
+
+    private fun update(e: Entity) {
+        e.getComponent(FlowFieldMoveComponent::class.java).onUpdate(0.016)
+        e.getComponent(CellMoveComponent::class.java).onUpdate(0.016)
+    }
+}
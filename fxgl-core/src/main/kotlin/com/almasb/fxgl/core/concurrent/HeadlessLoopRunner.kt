@@ -0,0 +1,186 @@
+/*
+ * FXGL - JavaFX Game Library. The MIT License (MIT).
+ * Copyright (c) AlmasB (almaslvl@gmail.com).
+ * See LICENSE for details.
+ */
+
+package com.almasb.fxgl.core.concurrent
+
+import com.almasb.fxgl.core.Updatable
+import com.almasb.fxgl.logging.Logger
+import java.util.concurrent.locks.LockSupport
+
+/**
+ * Drives an [Updatable] from a plain thread, without JavaFX (e.g. no AnimationTimer or display).
+ * Each tick advances simulation time by exactly 1 / [ticksPerSecond] seconds.
+ *
+ * If [isThrottled] is true, ticks are paced to run [ticksPerSecond] times per real second.
+ * Otherwise, ticks are run as fast as possible, which is useful for soak tests and throughput benchmarks.
+ *
+ * @author Almas Baimagambetov (almaslvl@gmail.com)
+ */
+class HeadlessLoopRunner
+@JvmOverloads constructor(
+        val ticksPerSecond: Int,
+        private val runnable: Updatable,
+        val isThrottled: Boolean = true) {
+
+    companion object {
+        private val log = Logger.get<HeadlessLoopRunner>()
+
+        private const val NANOS_PER_SECOND = 1_000_000_000L
+
+        /**
+         * If a throttled loop falls behind by more than this many ticks, it stops trying to catch up.
+         */
+        private const val MAX_CATCH_UP_TICKS = 5
+    }
+
+    /**
+     * Simulation time (in seconds) per tick.
+     */
+    val tpf: Double
+
+    private val nanosPerTick: Long
+
+    @Volatile
+    private var isStopRequested = false
+
+    @Volatile
+    private var thread: Thread? = null
+
+    /**
+     * Total number of ticks run.
+     */
+    @Volatile
+    var numTicks = 0L
+        private set
+
+    /**
+     * Ticks run per real second, measured over the last second (or over the last [runTicks] call).
+     */
+    @Volatile
+    var measuredTicksPerSecond = 0.0
+        private set
+
+    private var measureStartNanos = 0L
+    private var measureStartTicks = 0L
+
+    val isRunning: Boolean
+        get() = thread?.isAlive ?: false
+
+    init {
+        require(ticksPerSecond > 0) { "Ticks per second must be positive: $ticksPerSecond" }
+
+        tpf = 1.0 / ticksPerSecond
+        nanosPerTick = NANOS_PER_SECOND / ticksPerSecond
+    }
+
+    /**
+     * Starts the loop on a new thread.
+     * The loop runs until [stop] is called or the runnable throws an exception,
+     * after which it can be started again.
+     */
+    fun start() {
+        check(thread == null) { "Loop is already running" }
+
+        log.debug("Starting headless loop: $ticksPerSecond ticks/sec, throttled: $isThrottled")
+
+        isStopRequested = false
+
+        val t = Thread({ loop() }, "FXGL Headless Loop")
+
+        // set before starting, since the loop clears it when it exits
+        thread = t
+        t.start()
+    }
+
+    /**
+     * Stops the loop and waits for the current tick to complete.
+     * Has no effect if the loop is not running.
+     */
+    fun stop() {
+        val t = thread ?: return
+
+        log.debug("Stopping headless loop")
+
+        isStopRequested = true
+
+        if (t !== Thread.currentThread())
+            t.join()
+
+        thread = null
+    }
+
+    /**
+     * Runs given number of ticks on the calling thread as fast as possible,
+     * regardless of [isThrottled].
+     */
+    fun runTicks(numTicks: Int) {
+        check(thread == null) { "Cannot run ticks while the loop is running" }
+
+        val start = System.nanoTime()
+
+        repeat(numTicks) {
+            tick()
+        }
+
+        val elapsed = System.nanoTime() - start
+
+        if (elapsed > 0)
+            measuredTicksPerSecond = numTicks * NANOS_PER_SECOND.toDouble() / elapsed
+    }
+
+    private fun loop() {
+        measureStartNanos = System.nanoTime()
+        measureStartTicks = numTicks
+
+        var nextTickNanos = measureStartNanos
+
+        try {
+            while (!isStopRequested) {
+                tick()
+
+                val now = System.nanoTime()
+
+                measure(now)
+
+                if (isThrottled) {
+                    nextTickNanos += nanosPerTick
+
+                    val sleepNanos = nextTickNanos - now
+
+                    if (sleepNanos > 0) {
+                        LockSupport.parkNanos(sleepNanos)
+                    } else if (-sleepNanos > nanosPerTick * MAX_CATCH_UP_TICKS) {
+                        // too far behind, so drop the missed ticks
+                        nextTickNanos = now
+                    }
+                }
+            }
+        } catch (e: Exception) {
+            log.warning("Headless loop stopped due to error", e)
+        } finally {
+            // allow the loop to be started again, unless stop() has already cleared or replaced the thread
+            if (thread === Thread.currentThread())
+                thread = null
+        }
+    }
+
+    private fun tick() {
+        runnable.onUpdate(tpf)
+
+        numTicks++
+    }
+
+    private fun measure(now: Long) {
+        val elapsed = now - measureStartNanos
+
+        if (elapsed >= NANOS_PER_SECOND) {
+            measuredTicksPerSecond = (numTicks - measureStartTicks) * NANOS_PER_SECOND.toDouble() / elapsed
+
+            measureStartNanos = now
+            measureStartTicks = numTicks
+        }
+    }
+}
@@ -0,0 +1,60 @@
+/*
+ * FXGL - JavaFX Game Library. The MIT License (MIT).
+ * Copyright (c) AlmasB (almaslvl@gmail.com).
+ * See LICENSE for details.
+ */
+
+package com.almasb.fxgl.core.serialization
+
+/**
+ * Constants of the binary bundle format used by [BundleWriter] and [BundleReader].
+ *
+ * A stream starts with [MAGIC] and [VERSION], followed by bundles.
+ * Each bundle is prefixed with its size in bytes (varint) and consists of
+ * name (string ref), number of entries (varint) and entries: key (string ref), tag (byte), value.
+ *
+ * A string ref is a varint: 0 means a new string (varint length, UTF-8 bytes) follows,
+ * n > 0 refers to the (n - 1)th string previously interned in this stream.
+ * Ints and longs are zigzag varints, other numbers are big-endian.
+ *
+ * @author Almas Baimagambetov (almaslvl@gmail.com)
+ */
+internal object BundleFormat {
+
+    val MAGIC = byteArrayOf('F'.toByte(), 'X'.toByte(), 'B'.toByte())
+
+    const val VERSION = 1
+
+    /**
+     * Max number of strings interned per stream, further new strings are written inline.
+     */
+    const val MAX_INTERNED_STRINGS = 4096
+
+    /**
+     * Default max size (in bytes) of a bundle body accepted by [BundleReader].
+     */
+    const val MAX_BUNDLE_SIZE = 64 * 1024 * 1024
+
+    const val TAG_NULL = 0
+    const val TAG_TRUE = 1
+    const val TAG_FALSE = 2
+    const val TAG_BYTE = 3
+    const val TAG_SHORT = 4
+    const val TAG_CHAR = 5
+    const val TAG_INT = 6
+    const val TAG_LONG = 7
+    const val TAG_FLOAT = 8
+    const val TAG_DOUBLE = 9
+    const val TAG_STRING = 10
+    const val TAG_BYTE_ARRAY = 11
+    const val TAG_INT_ARRAY = 12
+    const val TAG_DOUBLE_ARRAY = 13
+    const val TAG_BUNDLE = 14
+    const val TAG_LIST = 15
+    const val TAG_MAP = 16
+
+    /**
+     * Any other value, written with Java serialization.
+     */
+    const val TAG_SERIALIZABLE = 17
+}
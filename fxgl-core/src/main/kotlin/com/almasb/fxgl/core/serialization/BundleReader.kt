@@ -0,0 +1,314 @@
+/*
+ * FXGL - JavaFX Game Library. The MIT License (MIT).
+ * Copyright (c) AlmasB (almaslvl@gmail.com).
+ * See LICENSE for details.
+ */
+
+package com.almasb.fxgl.core.serialization
+
+import com.almasb.fxgl.core.serialization.BundleFormat.MAGIC
+import com.almasb.fxgl.core.serialization.BundleFormat.MAX_BUNDLE_SIZE
+import com.almasb.fxgl.core.serialization.BundleFormat.MAX_INTERNED_STRINGS
+import com.almasb.fxgl.core.serialization.BundleFormat.TAG_BUNDLE
+import com.almasb.fxgl.core.serialization.BundleFormat.TAG_BYTE
+import com.almasb.fxgl.core.serialization.BundleFormat.TAG_BYTE_ARRAY
+import com.almasb.fxgl.core.serialization.BundleFormat.TAG_CHAR
+import com.almasb.fxgl.core.serialization.BundleFormat.TAG_DOUBLE
+import com.almasb.fxgl.core.serialization.BundleFormat.TAG_DOUBLE_ARRAY
+import com.almasb.fxgl.core.serialization.BundleFormat.TAG_FALSE
+import com.almasb.fxgl.core.serialization.BundleFormat.TAG_FLOAT
+import com.almasb.fxgl.core.serialization.BundleFormat.TAG_INT
+import com.almasb.fxgl.core.serialization.BundleFormat.TAG_INT_ARRAY
+import com.almasb.fxgl.core.serialization.BundleFormat.TAG_LIST
+import com.almasb.fxgl.core.serialization.BundleFormat.TAG_LONG
+import com.almasb.fxgl.core.serialization.BundleFormat.TAG_MAP
+import com.almasb.fxgl.core.serialization.BundleFormat.TAG_NULL
+import com.almasb.fxgl.core.serialization.BundleFormat.TAG_SERIALIZABLE
+import com.almasb.fxgl.core.serialization.BundleFormat.TAG_SHORT
+import com.almasb.fxgl.core.serialization.BundleFormat.TAG_STRING
+import com.almasb.fxgl.core.serialization.BundleFormat.TAG_TRUE
+import com.almasb.fxgl.core.serialization.BundleFormat.VERSION
+import java.io.ByteArrayInputStream
+import java.io.EOFException
+import java.io.IOException
+import java.io.InputStream
+import java.io.ObjectInputStream
+import java.io.Serializable
+
+/**
+ * Reads bundles written by [BundleWriter] from [input].
+ * Never reads past the end of the last requested bundle, so it can be used with blocking streams.
+ * Since the data may come from an untrusted source, sizes are validated before anything is allocated:
+ * a bundle larger than [maxBundleSize] bytes is rejected,
+ * and so is an array, list or map that has more elements than the remaining bytes can hold.
+ *
+ * This class is not thread-safe.
+ *
+ * @author Almas Baimagambetov (almaslvl@gmail.com)
+ */
+class BundleReader
+@JvmOverloads constructor(private val input: InputStream,
+                          private val maxBundleSize: Int = MAX_BUNDLE_SIZE) {
+
+    companion object {
+
+        /**
+         * @return true if [bytes] start with the header of a stream written by [BundleWriter]
+         */
+        @JvmStatic fun isBundleStream(bytes: ByteArray): Boolean {
+            return bytes.size >= MAGIC.size && MAGIC.indices.all { bytes[it] == MAGIC[it] }
+        }
+    }
+
+    private var buffer = ByteArray(1024)
+    private var position = 0
+    private var limit = 0
+
+    private val internedStrings = arrayListOf<String>()
+
+    private var isHeaderRead = false
+
+    /**
+     * @throws EOFException if the stream ended before a bundle was read
+     */
+    fun read(): Bundle {
+        if (!isHeaderRead) {
+            readHeader()
+            isHeaderRead = true
+        }
+
+        val bodySize = readVarIntFromStream()
+
+        if (bodySize < 0 || bodySize > maxBundleSize)
+            throw IOException("Invalid bundle size: $bodySize, max: $maxBundleSize")
+
+        if (buffer.size < bodySize) {
+            buffer = ByteArray(bodySize)
+        }
+
+        readFully(bodySize)
+
+        position = 0
+        limit = bodySize
+
+        return readBundle()
+    }
+
+    private fun readHeader() {
+        readFully(MAGIC.size + 1)
+
+        if (!isBundleStream(buffer))
+            throw IOException("Not a bundle stream")
+
+        val version = buffer[MAGIC.size].toInt()
+
+        if (version != VERSION)
+            throw IOException("Unsupported bundle format version: $version")
+    }
+
+    private fun readFully(numBytes: Int) {
+        var numRead = 0
+
+        while (numRead < numBytes) {
+            val n = input.read(buffer, numRead, numBytes - numRead)
+
+            if (n == -1)
+                throw EOFException()
+
+            numRead += n
+        }
+    }
+
+    private fun readVarIntFromStream(): Int {
+        var result = 0
+        var shift = 0
+
+        while (shift < 32) {
+            val b = input.read()
+
+            if (b == -1)
+                throw EOFException()
+
+            result = result or ((b and 0x7F) shl shift)
+
+            if (b and 0x80 == 0)
+                return result
+
+            shift += 7
+        }
+
+        throw IOException("Malformed varint")
+    }
+
+    private fun readBundle(): Bundle {
+        val bundle = Bundle(readStringRef())
+
+        // each entry is at least a key ref and a value tag
+        repeat(readCount(2)) {
+            val key = readStringRef()
+
+            // the map of bundle does not allow nulls, but Java callers can put them
+            @Suppress("UNCHECKED_CAST")
+            (bundle.data as MutableMap<String, Serializable?>)[key] = readValue() as Serializable?
+        }
+
+        return bundle
+    }
+
+    private fun readValue(): Any? {
+        return when (val tag = readByte()) {
+            TAG_NULL -> null
+            TAG_TRUE -> true
+            TAG_FALSE -> false
+            TAG_BYTE -> readByte().toByte()
+            TAG_SHORT -> unzigzag(readVarInt()).toShort()
+            TAG_CHAR -> readVarInt().toChar()
+            TAG_INT -> unzigzag(readVarInt())
+            TAG_LONG -> readVarLong().let { (it ushr 1) xor -(it and 1) }
+            TAG_FLOAT -> java.lang.Float.intBitsToFloat(readFixedInt())
+            TAG_DOUBLE -> java.lang.Double.longBitsToDouble(readFixedLong())
+            TAG_STRING -> readString()
+            TAG_BYTE_ARRAY -> readBytes(readVarInt())
+            TAG_INT_ARRAY -> IntArray(readCount(1)) { unzigzag(readVarInt()) }
+            TAG_DOUBLE_ARRAY -> DoubleArray(readCount(8)) { java.lang.Double.longBitsToDouble(readFixedLong()) }
+            TAG_BUNDLE -> readBundle()
+
+            TAG_LIST -> {
+                val size = readCount(1)
+                val list = ArrayList<Any?>(size)
+
+                repeat(size) { list.add(readValue()) }
+
+                list
+            }
+
+            TAG_MAP -> {
+                val size = readCount(2)
+                val map = HashMap<Any?, Any?>()
+
+                repeat(size) { map[readValue()] = readValue() }
+
+                map
+            }
+
+            TAG_SERIALIZABLE -> {
+                val bytes = readBytes(readVarInt())
+
+                ObjectInputStream(ByteArrayInputStream(bytes)).use { it.readObject() }
+            }
+
+            else -> throw IOException("Unknown value tag: $tag")
+        }
+    }
+
+    private fun readStringRef(): String {
+        val ref = readVarInt()
+
+        if (ref > 0)
+            return internedStrings.getOrNull(ref - 1) ?: throw IOException("Unknown string ref: $ref")
+
+        val value = readString()
+
+        // must mirror the writer
+        if (internedStrings.size < MAX_INTERNED_STRINGS) {
+            internedStrings.add(value)
+        }
+
+        return value
+    }
+
+    private fun readString(): String {
+        val length = readVarInt()
+
+        checkAvailable(length)
+
+        val value = String(buffer, position, length, Charsets.UTF_8)
+        position += length
+        return value
+    }
+
+    /**
+     * Reads the number of elements that follow, each of which takes at least [minElementSize] bytes.
+     */
+    private fun readCount(minElementSize: Int): Int {
+        val count = readVarInt()
+
+        if (count < 0 || count > (limit - position) / minElementSize)
+            throw IOException("Malformed bundle: invalid number of elements: $count")
+
+        return count
+    }
+
+    private fun unzigzag(value: Int) = (value ushr 1) xor -(value and 1)
+
+    private fun readVarInt(): Int {
+        var result = 0
+        var shift = 0
+
+        while (shift < 32) {
+            val b = readByte()
+
+            result = result or ((b and 0x7F) shl shift)
+
+            if (b and 0x80 == 0)
+                return result
+
+            shift += 7
+        }
+
+        throw IOException("Malformed varint")
+    }
+
+    private fun readVarLong(): Long {
+        var result = 0L
+        var shift = 0
+
+        while (shift < 64) {
+            val b = readByte()
+
+            result = result or ((b and 0x7F).toLong() shl shift)
+
+            if (b and 0x80 == 0)
+                return result
+
+            shift += 7
+        }
+
+        throw IOException("Malformed varint")
+    }
+
+    private fun readFixedInt(): Int {
+        checkAvailable(4)
+
+        return (buffer[position++].toInt() and 0xFF shl 24) or
+                (buffer[position++].toInt() and 0xFF shl 16) or
+                (buffer[position++].toInt() and 0xFF shl 8) or
+                (buffer[position++].toInt() and 0xFF)
+    }
+
+    private fun readFixedLong(): Long {
+        val high = readFixedInt().toLong()
+        val low = readFixedInt().toLong() and 0xFFFFFFFFL
+
+        return (high shl 32) or low
+    }
+
+    private fun readByte(): Int {
+        checkAvailable(1)
+
+        return buffer[position++].toInt() and 0xFF
+    }
+
+    private fun readBytes(length: Int): ByteArray {
+        checkAvailable(length)
+
+        val bytes = buffer.copyOfRange(position, position + length)
+        position += length
+        return bytes
+    }
+
+    private fun checkAvailable(numBytes: Int) {
+        if (numBytes < 0 || position + numBytes > limit)
+            throw IOException("Malformed bundle: unexpected end of data")
+    }
+}
@@ -0,0 +1,295 @@
+/*
+ * FXGL - JavaFX Game Library. The MIT License (MIT).
+ * Copyright (c) AlmasB (almaslvl@gmail.com).
+ * See LICENSE for details.
+ */
+
+package com.almasb.fxgl.core.serialization
+
+import com.almasb.fxgl.core.serialization.BundleFormat.MAGIC
+import com.almasb.fxgl.core.serialization.BundleFormat.MAX_INTERNED_STRINGS
+import com.almasb.fxgl.core.serialization.BundleFormat.TAG_BUNDLE
+import com.almasb.fxgl.core.serialization.BundleFormat.TAG_BYTE
+import com.almasb.fxgl.core.serialization.BundleFormat.TAG_BYTE_ARRAY
+import com.almasb.fxgl.core.serialization.BundleFormat.TAG_CHAR
+import com.almasb.fxgl.core.serialization.BundleFormat.TAG_DOUBLE
+import com.almasb.fxgl.core.serialization.BundleFormat.TAG_DOUBLE_ARRAY
+import com.almasb.fxgl.core.serialization.BundleFormat.TAG_FALSE
+import com.almasb.fxgl.core.serialization.BundleFormat.TAG_FLOAT
+import com.almasb.fxgl.core.serialization.BundleFormat.TAG_INT
+import com.almasb.fxgl.core.serialization.BundleFormat.TAG_INT_ARRAY
+import com.almasb.fxgl.core.serialization.BundleFormat.TAG_LIST
+import com.almasb.fxgl.core.serialization.BundleFormat.TAG_LONG
+import com.almasb.fxgl.core.serialization.BundleFormat.TAG_MAP
+import com.almasb.fxgl.core.serialization.BundleFormat.TAG_NULL
+import com.almasb.fxgl.core.serialization.BundleFormat.TAG_SERIALIZABLE
+import com.almasb.fxgl.core.serialization.BundleFormat.TAG_SHORT
+import com.almasb.fxgl.core.serialization.BundleFormat.TAG_STRING
+import com.almasb.fxgl.core.serialization.BundleFormat.TAG_TRUE
+import com.almasb.fxgl.core.serialization.BundleFormat.VERSION
+import java.io.ByteArrayOutputStream
+import java.io.ObjectOutputStream
+import java.io.OutputStream
+
+/**
+ * Writes bundles to [out] in a compact binary format, readable by [BundleReader].
+ * Values of common types (primitives, strings, arrays, lists, maps, bundles) are written with a type tag,
+ * any other value is written with Java serialization.
+ * Keys and bundle names are interned per stream, so repeated keys cost 1-2 bytes.
+ *
+ * Each bundle is written to [out] with a single call and [out] is not flushed.
+ * This class is not thread-safe.
+ *
+ * @author Almas Baimagambetov (almaslvl@gmail.com)
+ */
+class BundleWriter(private val out: OutputStream) {
+
+    companion object {
+
+        /**
+         * Space reserved before the body for stream header and body size.
+         */
+        private const val PREFIX_SIZE = 4 + 5
+    }
+
+    private var buffer = ByteArray(1024)
+    private var position = 0
+
+    private val internedStrings = hashMapOf<String, Int>()
+
+    private var isHeaderWritten = false
+
+    fun write(bundle: Bundle) {
+        position = PREFIX_SIZE
+
+        writeBundle(bundle)
+
+        val end = position
+        val bodySize = end - PREFIX_SIZE
+
+        // prefix body with its size, so that the reader never reads past the end of a bundle
+        var start = PREFIX_SIZE - varIntSize(bodySize)
+
+        position = start
+        writeVarInt(bodySize)
+
+        if (!isHeaderWritten) {
+            start -= MAGIC.size + 1
+
+            position = start
+            writeBytes(MAGIC, 0, MAGIC.size)
+            writeByte(VERSION)
+
+            isHeaderWritten = true
+        }
+
+        out.write(buffer, start, end - start)
+    }
+
+    private fun writeBundle(bundle: Bundle) {
+        writeStringRef(bundle.name)
+        writeVarInt(bundle.data.size)
+
+        bundle.data.forEach { (key, value) ->
+            writeStringRef(key)
+            writeValue(value)
+        }
+    }
+
+    private fun writeValue(value: Any?) {
+        when {
+            value == null -> writeByte(TAG_NULL)
+
+            value is Boolean -> writeByte(if (value) TAG_TRUE else TAG_FALSE)
+
+            value is Byte -> {
+                writeByte(TAG_BYTE)
+                writeByte(value.toInt())
+            }
+
+            value is Short -> {
+                writeByte(TAG_SHORT)
+                writeVarInt(zigzag(value.toInt()))
+            }
+
+            value is Char -> {
+                writeByte(TAG_CHAR)
+                writeVarInt(value.toInt())
+            }
+
+            value is Int -> {
+                writeByte(TAG_INT)
+                writeVarInt(zigzag(value))
+            }
+
+            value is Long -> {
+                writeByte(TAG_LONG)
+                writeVarLong((value shl 1) xor (value shr 63))
+            }
+
+            value is Float -> {
+                writeByte(TAG_FLOAT)
+                writeFixedInt(java.lang.Float.floatToIntBits(value))
+            }
+
+            value is Double -> {
+                writeByte(TAG_DOUBLE)
+                writeFixedLong(java.lang.Double.doubleToLongBits(value))
+            }
+
+            value is String -> {
+                writeByte(TAG_STRING)
+                writeString(value)
+            }
+
+            value is ByteArray -> {
+                writeByte(TAG_BYTE_ARRAY)
+                writeVarInt(value.size)
+                writeBytes(value, 0, value.size)
+            }
+
+            value is IntArray -> {
+                writeByte(TAG_INT_ARRAY)
+                writeVarInt(value.size)
+                value.forEach { writeVarInt(zigzag(it)) }
+            }
+
+            value is DoubleArray -> {
+                writeByte(TAG_DOUBLE_ARRAY)
+                writeVarInt(value.size)
+                value.forEach { writeFixedLong(java.lang.Double.doubleToLongBits(it)) }
+            }
+
+            value is Bundle -> {
+                writeByte(TAG_BUNDLE)
+                writeBundle(value)
+            }
+
+            // only exact types, so that the type is preserved when read
+            value.javaClass == java.util.ArrayList::class.java -> {
+                val list = value as List<*>
+
+                writeByte(TAG_LIST)
+                writeVarInt(list.size)
+                list.forEach { writeValue(it) }
+            }
+
+            value.javaClass == java.util.HashMap::class.java -> {
+                val map = value as Map<*, *>
+
+                writeByte(TAG_MAP)
+                writeVarInt(map.size)
+                map.forEach { (k, v) ->
+                    writeValue(k)
+                    writeValue(v)
+                }
+            }
+
+            else -> {
+                writeByte(TAG_SERIALIZABLE)
+                writeSerializable(value)
+            }
+        }
+    }
+
+    private fun writeSerializable(value: Any) {
+        val bytes = ByteArrayOutputStream()
+
+        ObjectOutputStream(bytes).use { it.writeObject(value) }
+
+        writeVarInt(bytes.size())
+        writeBytes(bytes.toByteArray(), 0, bytes.size())
+    }
+
+    private fun writeStringRef(value: String) {
+        val index = internedStrings[value]
+
+        if (index != null) {
+            writeVarInt(index + 1)
+            return
+        }
+
+        writeVarInt(0)
+        writeString(value)
+
+        if (internedStrings.size < MAX_INTERNED_STRINGS) {
+            internedStrings[value] = internedStrings.size
+        }
+    }
+
+    private fun writeString(value: String) {
+        val bytes = value.toByteArray(Charsets.UTF_8)
+
+        writeVarInt(bytes.size)
+        writeBytes(bytes, 0, bytes.size)
+    }
+
+    private fun zigzag(value: Int) = (value shl 1) xor (value shr 31)
+
+    private fun writeVarInt(value: Int) {
+        var v = value
+
+        while (v and 0x7F.inv() != 0) {
+            writeByte((v and 0x7F) or 0x80)
+            v = v ushr 7
+        }
+
+        writeByte(v)
+    }
+
+    private fun varIntSize(value: Int): Int {
+        var size = 1
+        var v = value ushr 7
+
+        while (v != 0) {
+            size++
+            v = v ushr 7
+        }
+
+        return size
+    }
+
+    private fun writeVarLong(value: Long) {
+        var v = value
+
+        while (v and 0x7FL.inv() != 0L) {
+            writeByte(((v and 0x7F) or 0x80).toInt())
+            v = v ushr 7
+        }
+
+        writeByte(v.toInt())
+    }
+
+    private fun writeFixedInt(value: Int) {
+        ensureCapacity(4)
+
+        buffer[position++] = (value ushr 24).toByte()
+        buffer[position++] = (value ushr 16).toByte()
+        buffer[position++] = (value ushr 8).toByte()
+        buffer[position++] = value.toByte()
+    }
+
+    private fun writeFixedLong(value: Long) {
+        writeFixedInt((value ushr 32).toInt())
+        writeFixedInt(value.toInt())
+    }
+
+    private fun writeByte(value: Int) {
+        ensureCapacity(1)
+
+        buffer[position++] = value.toByte()
+    }
+
+    private fun writeBytes(bytes: ByteArray, offset: Int, length: Int) {
+        ensureCapacity(length)
+
+        System.arraycopy(bytes, offset, buffer, position, length)
+        position += length
+    }
+
+    private fun ensureCapacity(numBytes: Int) {
+        if (position + numBytes > buffer.size) {
+            buffer = buffer.copyOf(maxOf(buffer.size * 2, position + numBytes))
+        }
+    }
+}
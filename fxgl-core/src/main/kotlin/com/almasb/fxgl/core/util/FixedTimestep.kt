@@ -0,0 +1,91 @@
+/*
+ * FXGL - JavaFX Game Library. The MIT License (MIT).
+ * Copyright (c) AlmasB (almaslvl@gmail.com).
+ * See LICENSE for details.
+ */
+
+package com.almasb.fxgl.core.util
+
+import com.almasb.fxgl.core.Updatable
+
+/**
+ * Accumulates variable frame times and runs [step] with a constant time step,
+ * so that the simulation does not depend on the frame rate.
+ * The time left over in the accumulator is exposed as [alpha], which views can use
+ * to interpolate between the previous and the current simulation state.
+ *
+ * If a frame is so long that more than [maxCatchUpSteps] steps are needed,
+ * the remaining time is dropped, so that the simulation slows down instead of
+ * falling further and further behind.
+ *
+ * @author Almas Baimagambetov (almaslvl@gmail.com)
+ */
+class FixedTimestep(
+        ticksPerSecond: Int,
+        val maxCatchUpSteps: Int,
+        private val step: Updatable) {
+
+    /**
+     * Time (in seconds) of a single step.
+     */
+    val tpf: Double
+
+    private var accumulator = 0.0
+
+    /**
+     * Fraction in [0..1) of a step that has accumulated but not yet been simulated.
+     */
+    var alpha = 0.0
+        private set
+
+    /**
+     * Total number of steps that were dropped because the catch-up limit was reached.
+     */
+    var numDroppedSteps = 0L
+        private set
+
+    init {
+        require(ticksPerSecond > 0) { "Ticks per second must be positive: $ticksPerSecond" }
+        require(maxCatchUpSteps > 0) { "Max catch-up steps must be positive: $maxCatchUpSteps" }
+
+        tpf = 1.0 / ticksPerSecond
+    }
+
+    /**
+     * Adds [frameTime] seconds to the accumulator and runs as many steps as fit in it.
+     *
+     * @return number of steps run
+     */
+    fun update(frameTime: Double): Int {
+        accumulator += frameTime
+
+        var numSteps = 0
+
+        while (accumulator >= tpf) {
+            if (numSteps == maxCatchUpSteps) {
+                val numLeft = (accumulator / tpf).toLong()
+
+                numDroppedSteps += numLeft
+                accumulator -= numLeft * tpf
+                break
+            }
+
+            step.onUpdate(tpf)
+
+            accumulator -= tpf
+            numSteps++
+        }
+
+        alpha = (accumulator / tpf).coerceIn(0.0, 1.0)
+
+        return numSteps
+    }
+
+    /**
+     * Clears any accumulated time, e.g. after the loop was paused.
+     */
+    fun reset() {
+        accumulator = 0.0
+        alpha = 0.0
+    }
+}
@@ -0,0 +1,153 @@
+/*
+ * FXGL - JavaFX Game Library. The MIT License (MIT).
+ * Copyright (c) AlmasB (almaslvl@gmail.com).
+ * See LICENSE for details.
+ */
+
+package com.almasb.fxgl.core.concurrent
+
+import com.almasb.fxgl.core.Updatable
+import org.hamcrest.MatcherAssert.assertThat
+import org.hamcrest.Matchers.*
+import org.junit.jupiter.api.Assertions.*
+import org.junit.jupiter.api.Test
+import org.junit.jupiter.api.condition.EnabledIfEnvironmentVariable
+import java.time.Duration.ofSeconds
+import java.util.concurrent.CountDownLatch
+
+/**
+ *
+ * @author Almas Baimagambetov (almaslvl@gmail.com)
+ */
+class HeadlessLoopRunnerTest {
+
+    @Test
+    fun `Run ticks on calling thread`() {
+        var t = 0.0
+        var threadID = -1L
+
+        val loop = HeadlessLoopRunner(50, Updatable {
+            t += it
+            threadID = Thread.currentThread().id
+        })
+
+        assertThat(loop.tpf, `is`(0.02))
+
+        loop.runTicks(100)
+
+        assertThat(loop.numTicks, `is`(100L))
+        assertThat(t, closeTo(2.0, 0.0001))
+        assertThat(threadID, `is`(Thread.currentThread().id))
+        assertThat(loop.measuredTicksPerSecond, greaterThan(0.0))
+    }
+
+    @Test
+    fun `Unthrottled loop runs on a separate thread until stopped`() {
+        assertTimeout(ofSeconds(2)) {
+            val latch = CountDownLatch(1000)
+            var threadID = -1L
+
+            val loop = HeadlessLoopRunner(60, Updatable {
+                threadID = Thread.currentThread().id
+                latch.countDown()
+            }, false)
+
+            loop.start()
+            assertTrue(loop.isRunning)
+
+            assertThrows(IllegalStateException::class.java) {
+                loop.start()
+            }
+
+            latch.await()
+
+            loop.stop()
+            assertFalse(loop.isRunning)
+
+            val numTicks = loop.numTicks
+
+            assertThat(numTicks, greaterThanOrEqualTo(1000L))
+            assertThat(threadID, `is`(not(Thread.currentThread().id)))
+
+            Thread.sleep(50)
+
+            // stopped loop does not tick
+            assertThat(loop.numTicks, `is`(numTicks))
+
+            // stop is no-op if not running
+            loop.stop()
+        }
+    }
+
+    @Test
+    fun `Loop stops if runnable throws`() {
+        assertTimeout(ofSeconds(2)) {
+            val loop = HeadlessLoopRunner(60, Updatable {
+                throw RuntimeException("Test")
+            }, false)
+
+            loop.start()
+
+            while (loop.isRunning) {
+                Thread.sleep(10)
+            }
+
+            assertThat(loop.numTicks, `is`(0L))
+
+            loop.stop()
+        }
+    }
+
+    @Test
+    fun `Loop can be restarted after runnable throws`() {
+        assertTimeout(ofSeconds(2)) {
+            var isFailing = true
+            val latch = CountDownLatch(10)
+
+            val loop = HeadlessLoopRunner(60, Updatable {
+                if (isFailing)
+                    throw RuntimeException("Test")
+
+                latch.countDown()
+            }, false)
+
+            loop.start()
+
+            while (loop.isRunning) {
+                Thread.sleep(10)
+            }
+
+            isFailing = false
+
+            // does not throw "Loop is already running"
+            loop.start()
+
+            latch.await()
+
+            loop.stop()
+            assertFalse(loop.isRunning)
+        }
+    }
+
+    @Test
+    fun `Ticks per second must be positive`() {
+        assertThrows(IllegalArgumentException::class.java) {
+            HeadlessLoopRunner(0, Updatable { })
+        }
+    }
+
+    @Test
+    @EnabledIfEnvironmentVariable(named = "CI", matches = "true")
+    fun `Throttled loop runs at target tick rate`() {
+        val loop = HeadlessLoopRunner(100, Updatable { })
+
+        loop.start()
+
+        Thread.sleep(1500)
+
+        loop.stop()
+
+        assertThat(loop.measuredTicksPerSecond, closeTo(100.0, 5.0))
+        assertThat(loop.numTicks.toDouble(), closeTo(150.0, 10.0))
+    }
+}
@@ -0,0 +1,238 @@
+/*
+ * FXGL - JavaFX Game Library. The MIT License (MIT).
+ * Copyright (c) AlmasB (almaslvl@gmail.com).
+ * See LICENSE for details.
+ */
+
+package com.almasb.fxgl.core.serialization
+
+import org.hamcrest.MatcherAssert.assertThat
+import org.hamcrest.Matchers.*
+import org.junit.jupiter.api.Assertions.assertThrows
+import org.junit.jupiter.api.Test
+import java.io.ByteArrayInputStream
+import java.io.ByteArrayOutputStream
+import java.io.EOFException
+import java.io.IOException
+import java.io.ObjectOutputStream
+import java.io.Serializable
+
+/**
+ *
+ * @author Almas Baimagambetov (almaslvl@gmail.com)
+ */
+class BundleWriterTest {
+
+    private enum class TestEnum { A, B }
+
+    private data class TestData(val id: Int, val name: String) : Serializable
+
+    @Test
+    fun `Values of all types survive round trip`() {
+        val bundle = Bundle("Test")
+        bundle.put("true", true)
+        bundle.put("false", false)
+        bundle.put("byte", (-5).toByte())
+        bundle.put("short", (-300).toShort())
+        bundle.put("char", 'ü')
+        bundle.put("int", Int.MIN_VALUE)
+        bundle.put("intSmall", -1)
+        bundle.put("long", Long.MAX_VALUE)
+        bundle.put("longNegative", -123456789012L)
+        bundle.put("float", 3.5f)
+        bundle.put("double", -0.1)
+        bundle.put("nan", Double.NaN)
+        bundle.put("string", "Hello ü 世界")
+        bundle.put("emptyString", "")
+        bundle.put("bytes", byteArrayOf(1, -2, 3))
+        bundle.put("ints", intArrayOf(0, -1, Int.MAX_VALUE))
+        bundle.put("doubles", doubleArrayOf(1.5, -2.25))
+        bundle.put("list", arrayListOf(1, "two", 3.0, null))
+        bundle.put("map", hashMapOf("a" to 1, 2 to arrayListOf("b")))
+        bundle.put("enum", TestEnum.B)
+        bundle.put("data", TestData(1, "a"))
+
+        val copy = roundTrip(bundle).single()
+
+        assertThat(copy.name, `is`("Test"))
+        assertThat(copy.data.keys, `is`(bundle.data.keys))
+
+        bundle.data.forEach { (key, value) ->
+            val copyValue = copy.get<Any>(key)
+
+            assertThat(key, copyValue.javaClass, `is`<Class<*>>(value.javaClass))
+
+            when (value) {
+                is ByteArray -> assertThat(copyValue as ByteArray, `is`(value))
+                is IntArray -> assertThat(copyValue as IntArray, `is`(value))
+                is DoubleArray -> assertThat(copyValue as DoubleArray, `is`(value))
+                else -> assertThat(key, copyValue, `is`<Any>(value))
+            }
+        }
+    }
+
+    @Test
+    fun `Nested bundles survive round trip`() {
+        val inner = Bundle("Inner")
+        inner.put("hp", 100)
+
+        val bundle = Bundle("Outer")
+        bundle.put("inner", inner)
+        bundle.put("inners", arrayListOf(inner, inner))
+
+        val copy = roundTrip(bundle).single()
+
+        assertThat(copy.get<Bundle>("inner").name, `is`("Inner"))
+        assertThat(copy.get<Bundle>("inner").get<Int>("hp"), `is`(100))
+        assertThat(copy.get<ArrayList<Bundle>>("inners").map { it.get<Int>("hp") }, contains(100, 100))
+    }
+
+    @Test
+    fun `Multiple bundles are read in order from the same stream`() {
+        val bundles = (0 until 100).map {
+            val bundle = Bundle("State")
+            bundle.put("x", it * 1.5)
+            bundle.put("name", "Entity $it")
+            bundle
+        }
+
+        val copies = roundTrip(*bundles.toTypedArray())
+
+        assertThat(copies.size, `is`(100))
+
+        copies.forEachIndexed { i, copy ->
+            assertThat(copy.get<Double>("x"), `is`(i * 1.5))
+            assertThat(copy.get<String>("name"), `is`("Entity $i"))
+        }
+    }
+
+    @Test
+    fun `Keys are interned per stream`() {
+        val out = ByteArrayOutputStream()
+        val writer = BundleWriter(out)
+
+        val bundle = Bundle("State")
+        bundle.put("positionX", 1)
+
+        writer.write(bundle)
+        val firstSize = out.size()
+
+        writer.write(bundle)
+        val secondSize = out.size() - firstSize
+
+        // no header, name and key are refs: size, name ref, count, key ref, tag, value
+        assertThat(secondSize, `is`(6))
+        assertThat(secondSize, lessThan(firstSize))
+    }
+
+    @Test
+    fun `Much smaller than Java serialization`() {
+        val bundle = Bundle("State")
+        bundle.put("x", 100.0)
+        bundle.put("y", 200.0)
+        bundle.put("hp", 90)
+        bundle.put("name", "Player")
+
+        val binary = ByteArrayOutputStream()
+        BundleWriter(binary).write(bundle)
+
+        val java = ByteArrayOutputStream()
+        ObjectOutputStream(java).use { it.writeObject(bundle) }
+
+        assertThat(binary.size() * 4, lessThan(java.size()))
+    }
+
+    @Test
+    fun `Reader does not read past the requested bundle`() {
+        val out = ByteArrayOutputStream()
+        val writer = BundleWriter(out)
+
+        writer.write(Bundle("First"))
+        val firstSize = out.size()
+
+        writer.write(Bundle("Second"))
+
+        val input = ByteArrayInputStream(out.toByteArray())
+
+        BundleReader(input).read()
+
+        assertThat(input.available(), `is`(out.size() - firstSize))
+    }
+
+    @Test
+    fun `Throw if stream ends or is not a bundle stream`() {
+        val out = ByteArrayOutputStream()
+        BundleWriter(out).write(Bundle("Test"))
+
+        val bytes = out.toByteArray()
+
+        assertThat(BundleReader.isBundleStream(bytes), `is`(true))
+
+        assertThrows(EOFException::class.java) {
+            BundleReader(ByteArrayInputStream(bytes.copyOf(bytes.size - 1))).read()
+        }
+
+        val java = ByteArrayOutputStream()
+        ObjectOutputStream(java).use { it.writeObject(Bundle("Test")) }
+
+        assertThat(BundleReader.isBundleStream(java.toByteArray()), `is`(false))
+
+        assertThrows(IOException::class.java) {
+            BundleReader(ByteArrayInputStream(java.toByteArray())).read()
+        }
+    }
+
+    @Test
+    fun `Throw if bundle is larger than max size`() {
+        val bundle = Bundle("Test")
+        bundle.put("data", ByteArray(2000))
+
+        val out = ByteArrayOutputStream()
+        BundleWriter(out).write(bundle)
+
+        assertThrows(IOException::class.java) {
+            BundleReader(ByteArrayInputStream(out.toByteArray()), 1000).read()
+        }
+
+        assertThat(BundleReader(ByteArrayInputStream(out.toByteArray()), 3000).read().get<ByteArray>("data").size, `is`(2000))
+    }
+
+    @Test
+    fun `Throw if element count does not fit in the remaining data`() {
+        // each array is empty, so its count is the last varint before the end of the body
+        for (value in listOf(IntArray(0), DoubleArray(0), arrayListOf<Int>(), hashMapOf<Int, Int>())) {
+            val bundle = Bundle("Test")
+            bundle.put("data", value as Serializable)
+
+            val out = ByteArrayOutputStream()
+            BundleWriter(out).write(bundle)
+
+            val bytes = out.toByteArray()
+
+            // replace count 0 with Int.MAX_VALUE, and update the body size accordingly
+            val maxCount = byteArrayOf(0xFF.toByte(), 0xFF.toByte(), 0xFF.toByte(), 0xFF.toByte(), 0x07)
+            val headerSize = 4
+            val bodySize = bytes[headerSize].toInt()
+
+            val malformed = bytes.copyOf(headerSize) +
+                    byteArrayOf((bodySize + maxCount.size - 1).toByte()) +
+                    bytes.copyOfRange(headerSize + 1, bytes.size - 1) +
+                    maxCount
+
+            assertThrows(IOException::class.java) {
+                BundleReader(ByteArrayInputStream(malformed)).read()
+            }
+        }
+    }
+
+    private fun roundTrip(vararg bundles: Bundle): List<Bundle> {
+        val out = ByteArrayOutputStream()
+        val writer = BundleWriter(out)
+
+        bundles.forEach { writer.write(it) }
+
+        val reader = BundleReader(ByteArrayInputStream(out.toByteArray()))
+
+        return bundles.map { reader.read() }
+    }
+}
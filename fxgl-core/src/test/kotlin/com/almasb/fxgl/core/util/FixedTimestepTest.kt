@@ -0,0 +1,91 @@
+/*
+ * FXGL - JavaFX Game Library. The MIT License (MIT).
+ * Copyright (c) AlmasB (almaslvl@gmail.com).
+ * See LICENSE for details.
+ */
+
+package com.almasb.fxgl.core.util
+
+import com.almasb.fxgl.core.Updatable
+import org.hamcrest.MatcherAssert.assertThat
+import org.hamcrest.Matchers.`is`
+import org.hamcrest.Matchers.closeTo
+import org.junit.jupiter.api.Assertions.assertThrows
+import org.junit.jupiter.api.BeforeEach
+import org.junit.jupiter.api.Test
+
+/**
+ *
+ * @author Almas Baimagambetov (almaslvl@gmail.com)
+ */
+class FixedTimestepTest {
+
+    private lateinit var steps: MutableList<Double>
+    private lateinit var timestep: FixedTimestep
+
+    @BeforeEach
+    fun setUp() {
+        steps = arrayListOf()
+
+        // 1 / 64 is exact in binary, so the accumulator has no rounding errors
+        timestep = FixedTimestep(64, 4, Updatable { steps.add(it) })
+    }
+
+    @Test
+    fun `Steps are run with fixed tpf regardless of frame time`() {
+        assertThat(timestep.tpf, `is`(1.0 / 64))
+
+        assertThat(timestep.update(1.0 / 128), `is`(0))
+        assertThat(timestep.alpha, `is`(0.5))
+
+        assertThat(timestep.update(1.0 / 128), `is`(1))
+        assertThat(timestep.alpha, `is`(0.0))
+
+        assertThat(timestep.update(3.0 / 64 + 1.0 / 256), `is`(3))
+        assertThat(timestep.alpha, `is`(0.25))
+
+        assertThat(steps.size, `is`(4))
+        steps.forEach { assertThat(it, `is`(1.0 / 64)) }
+    }
+
+    @Test
+    fun `Simulated time matches real time at any frame rate`() {
+        // 144 Hz monitor
+        repeat(144) {
+            timestep.update(1.0 / 144)
+        }
+
+        // 144 frame times do not add up to exactly 1.0, so the last step may be left in the accumulator
+        assertThat(steps.sum(), closeTo(1.0, timestep.tpf))
+        assertThat(steps.size.toDouble(), closeTo(64.0, 1.0))
+    }
+
+    @Test
+    fun `Long frames are capped by max catch-up steps`() {
+        assertThat(timestep.update(10.0 / 64 + 1.0 / 128), `is`(4))
+        assertThat(timestep.numDroppedSteps, `is`(6L))
+        assertThat(timestep.alpha, `is`(0.5))
+
+        assertThat(timestep.update(1.0 / 128), `is`(1))
+    }
+
+    @Test
+    fun `Reset clears accumulated time`() {
+        timestep.update(1.0 / 128)
+        timestep.reset()
+
+        assertThat(timestep.alpha, `is`(0.0))
+        assertThat(timestep.update(1.0 / 128), `is`(0))
+    }
+
+    @Test
+    fun `Tick rate and catch-up steps must be positive`() {
+        assertThrows(IllegalArgumentException::class.java) {
+            FixedTimestep(0, 4, Updatable { })
+        }
+
+        assertThrows(IllegalArgumentException::class.java) {
+            FixedTimestep(60, 0, Updatable { })
+        }
+    }
+}
@@ -187,14 +187,33 @@ public class Particle implements Poolable {
         equation = null;
 
         control = null;
+        isDead = false;
     }
 
     private Vec2 moveVector = new Vec2();
 
+    /* VIEW STATE, computed by simulate() and applied by updateView() */
+
+    private boolean isDead = false;
+    private double viewX;
+    private double viewY;
+    private double opacity;
+    private Color fill = Color.TRANSPARENT;
+
     /**
      * @return true if particle died
      */
     boolean update(double tpf) {
+        simulate(tpf);
+
+        return updateView();
+    }
+
+    /**
+     * Computes new particle state without touching the view,
+     * so particles (without control) can be simulated on any thread.
+     */
+    void simulate(double tpf) {
         double progress = 1 - life / initialLife;
 
         // interpolate time based on progress
@@ -230,41 +249,56 @@ public class Particle implements Poolable {
 
         life -= tpf;
 
-        boolean dead = life <= 0 || radius.x <= 0 || radius.y <= 0;
-
-        if (!dead) {
-            double alpha = life / initialLife;
-
-            if (image != null) {
-                scaleTransform.setX(radius.x * 2 / image.getWidth());
-                scaleTransform.setY(radius.y * 2 / image.getHeight());
+        isDead = life <= 0 || radius.x <= 0 || radius.y <= 0;
 
-            } else {
-
-                view.setFill(colorAnimation.getValue(progress, interpolator));
+        if (!isDead) {
+            opacity = life / initialLife;
 
-                view.setRadiusX(radius.x);
-                view.setRadiusY(radius.y);
-                view.setCenterX(radius.x);
-                view.setCenterY(radius.y);
+            if (image == null) {
+                fill = colorAnimation.getValue(progress, interpolator);
             }
 
             // From https://stackoverflow.com/questions/17113234/affine-transform-scale-around-a-point
             // x = S(x – c) + c = Sx + (c – Sc)
-            var sx = (scaleOrigin.x + x - entityScale.x * (scaleOrigin.x + x)) + entityScale.y * x;
-            var sy = (scaleOrigin.y + y - entityScale.y * (scaleOrigin.y + y)) + entityScale.y * y;
+            viewX = (scaleOrigin.x + x - entityScale.x * (scaleOrigin.x + x)) + entityScale.y * x;
+            viewY = (scaleOrigin.y + y - entityScale.y * (scaleOrigin.y + y)) + entityScale.y * y;
+        }
+    }
 
-            getView().setLayoutX(sx);
-            getView().setLayoutY(sy);
+    /**
+     * Applies state computed by the last {@link #simulate(double)} to the view.
+     * Must be called on the JavaFX thread.
+     *
+     * @return true if particle died
+     */
+    boolean updateView() {
+        if (isDead)
+            return true;
 
-            getView().setOpacity(alpha);
-            getView().setBlendMode(blendMode);
+        if (image != null) {
+            scaleTransform.setX(radius.x * 2 / image.getWidth());
+            scaleTransform.setY(radius.y * 2 / image.getHeight());
 
-            if (allowRotation) {
-                getView().setRotate(moveVector.angle());
-            }
+        } else {
+
+            view.setFill(fill);
+
+            view.setRadiusX(radius.x);
+            view.setRadiusY(radius.y);
+            view.setCenterX(radius.x);
+            view.setCenterY(radius.y);
+        }
+
+        getView().setLayoutX(viewX);
+        getView().setLayoutY(viewY);
+
+        getView().setOpacity(opacity);
+        getView().setBlendMode(blendMode);
+
+        if (allowRotation) {
+            getView().setRotate(moveVector.angle());
         }
 
-        return dead;
+        return false;
     }
 }
@@ -0,0 +1,333 @@
+/*
+ * FXGL - JavaFX Game Library. The MIT License (MIT).
+ * Copyright (c) AlmasB (almaslvl@gmail.com).
+ * See LICENSE for details.
+ */
+package com.almasb.fxgl.particle;
+
+import javafx.animation.Interpolator;
+import javafx.geometry.Point2D;
+import javafx.scene.paint.Color;
+import javafx.scene.paint.Paint;
+import javafx.util.Duration;
+
+import java.util.Arrays;
+import java.util.function.Function;
+
+/**
+ * Particle storage used by {@link ParticleRenderMode#CANVAS}.
+ * Particle state is kept in primitive arrays (structure of arrays), where a particle is an index.
+ * Dead particles are removed by moving the last particle into their index.
+ * The simulation step is the same as {@link Particle}'s, without the control function.
+ *
+ * @author Almas Baimagambetov (almaslvl@gmail.com)
+ */
+final class ParticleBuffer {
+
+    private int size = 0;
+    private int capacity;
+
+    /* INITIAL STATE */
+
+    float[] startX;
+    float[] startY;
+    float[] velocityX;
+    float[] velocityY;
+    float[] accelerationX;
+    float[] accelerationY;
+
+    /**
+     * Radius change per update.
+     */
+    float[] scaleX;
+    float[] scaleY;
+
+    float[] scaleOriginX;
+    float[] scaleOriginY;
+    float[] entityScaleX;
+    float[] entityScaleY;
+
+    double[] initialLife;
+
+    float[] startRed;
+    float[] startGreen;
+    float[] startBlue;
+    float[] startOpacity;
+    float[] endRed;
+    float[] endGreen;
+    float[] endBlue;
+    float[] endOpacity;
+
+    /* CURRENT STATE */
+
+    float[] x;
+    float[] y;
+    float[] radiusX;
+    float[] radiusY;
+
+    /**
+     * When life <= 0, the particle dies.
+     */
+    double[] life;
+
+    /**
+     * Top left of the particle view.
+     */
+    float[] viewX;
+    float[] viewY;
+
+    /**
+     * Rotation (in degrees) based on the last move.
+     */
+    float[] angle;
+
+    float[] red;
+    float[] green;
+    float[] blue;
+    float[] opacity;
+
+    ParticleBuffer(int capacity) {
+        allocate(Math.max(capacity, 16));
+    }
+
+    /**
+     * @return number of particles
+     */
+    int size() {
+        return size;
+    }
+
+    boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Adds a particle, arguments are the same as in {@link Particle#init}.
+     */
+    void add(Point2D position,
+             Point2D velocity,
+             Point2D acceleration,
+             double radius,
+             Point2D scaleOrigin,
+             Point2D scale,
+             Point2D entityScale,
+             Duration expireTime,
+             Paint startColor,
+             Paint endColor) {
+
+        if (size == capacity) {
+            allocate(capacity * 2);
+        }
+
+        int i = size++;
+
+        startX[i] = (float) position.getX();
+        startY[i] = (float) position.getY();
+        x[i] = startX[i];
+        y[i] = startY[i];
+        velocityX[i] = (float) velocity.getX();
+        velocityY[i] = (float) velocity.getY();
+        accelerationX[i] = (float) acceleration.getX();
+        accelerationY[i] = (float) acceleration.getY();
+        radiusX[i] = (float) radius;
+        radiusY[i] = (float) radius;
+        scaleX[i] = (float) scale.getX();
+        scaleY[i] = (float) scale.getY();
+        scaleOriginX[i] = (float) scaleOrigin.getX();
+        scaleOriginY[i] = (float) scaleOrigin.getY();
+        entityScaleX[i] = (float) entityScale.getX();
+        entityScaleY[i] = (float) entityScale.getY();
+        initialLife[i] = expireTime.toSeconds();
+        life[i] = initialLife[i];
+        angle[i] = 0;
+
+        Color start = (Color) startColor;
+        Color end = (Color) endColor;
+
+        startRed[i] = (float) start.getRed();
+        startGreen[i] = (float) start.getGreen();
+        startBlue[i] = (float) start.getBlue();
+        startOpacity[i] = (float) start.getOpacity();
+        endRed[i] = (float) end.getRed();
+        endGreen[i] = (float) end.getGreen();
+        endBlue[i] = (float) end.getBlue();
+        endOpacity[i] = (float) end.getOpacity();
+    }
+
+    /**
+     * Updates all particles, dead particles are not removed.
+     */
+    void update(double tpf, Interpolator interpolator, Function<Double, Point2D> equation) {
+        update(0, size, tpf, interpolator, equation);
+    }
+
+    /**
+     * Updates particles with indices in [from, to).
+     * Only writes state of particles in the range, so disjoint ranges can be updated independently.
+     */
+    void update(int from, int to, double tpf, Interpolator interpolator, Function<Double, Point2D> equation) {
+        for (int i = from; i < to; i++) {
+            double progress = 1 - life[i] / initialLife[i];
+
+            // interpolate time based on progress
+            double t = interpolator.interpolate(0, initialLife[i], progress);
+
+            double newX;
+            double newY;
+
+            if (equation == null) {
+                // s = s0 + v0*t + 0.5*a*t^2
+                newX = startX[i] + velocityX[i] * t + 0.5 * accelerationX[i] * t * t;
+                newY = startY[i] + velocityY[i] * t + 0.5 * accelerationY[i] * t * t;
+            } else {
+                Point2D newPos = equation.apply(t);
+                newX = startX[i] + newPos.getX();
+                newY = startY[i] + newPos.getY();
+            }
+
+            float moveX = (float) newX - x[i];
+            float moveY = (float) newY - y[i];
+
+            x[i] = (float) newX;
+            y[i] = (float) newY;
+
+            radiusX[i] += scaleX[i];
+            radiusY[i] += scaleY[i];
+
+            life[i] -= tpf;
+
+            if (isDead(i))
+                continue;
+
+            double c = interpolator.interpolate(0.0, 1.0, progress);
+
+            red[i] = (float) (startRed[i] + (endRed[i] - startRed[i]) * c);
+            green[i] = (float) (startGreen[i] + (endGreen[i] - startGreen[i]) * c);
+            blue[i] = (float) (startBlue[i] + (endBlue[i] - startBlue[i]) * c);
+            opacity[i] = (float) (startOpacity[i] + (endOpacity[i] - startOpacity[i]) * c);
+
+            // scale around scale origin, see Particle
+            viewX[i] = (float) ((scaleOriginX[i] + newX - entityScaleX[i] * (scaleOriginX[i] + newX)) + entityScaleY[i] * newX);
+            viewY[i] = (float) ((scaleOriginY[i] + newY - entityScaleY[i] * (scaleOriginY[i] + newY)) + entityScaleY[i] * newY);
+
+            angle[i] = (float) Math.toDegrees(Math.atan2(moveY, moveX));
+        }
+    }
+
+    boolean isDead(int i) {
+        return life[i] <= 0 || radiusX[i] <= 0 || radiusY[i] <= 0;
+    }
+
+    /**
+     * Removes dead particles, the order of particles is not preserved.
+     *
+     * @return number of removed particles
+     */
+    int removeDead() {
+        int removed = 0;
+        int i = 0;
+
+        while (i < size) {
+            if (isDead(i)) {
+                move(size - 1, i);
+                size--;
+                removed++;
+            } else {
+                i++;
+            }
+        }
+
+        return removed;
+    }
+
+    void clear() {
+        size = 0;
+    }
+
+    private void move(int from, int to) {
+        if (from == to)
+            return;
+
+        startX[to] = startX[from];
+        startY[to] = startY[from];
+        velocityX[to] = velocityX[from];
+        velocityY[to] = velocityY[from];
+        accelerationX[to] = accelerationX[from];
+        accelerationY[to] = accelerationY[from];
+        scaleX[to] = scaleX[from];
+        scaleY[to] = scaleY[from];
+        scaleOriginX[to] = scaleOriginX[from];
+        scaleOriginY[to] = scaleOriginY[from];
+        entityScaleX[to] = entityScaleX[from];
+        entityScaleY[to] = entityScaleY[from];
+        initialLife[to] = initialLife[from];
+        startRed[to] = startRed[from];
+        startGreen[to] = startGreen[from];
+        startBlue[to] = startBlue[from];
+        startOpacity[to] = startOpacity[from];
+        endRed[to] = endRed[from];
+        endGreen[to] = endGreen[from];
+        endBlue[to] = endBlue[from];
+        endOpacity[to] = endOpacity[from];
+
+        x[to] = x[from];
+        y[to] = y[from];
+        radiusX[to] = radiusX[from];
+        radiusY[to] = radiusY[from];
+        life[to] = life[from];
+        viewX[to] = viewX[from];
+        viewY[to] = viewY[from];
+        angle[to] = angle[from];
+        red[to] = red[from];
+        green[to] = green[from];
+        blue[to] = blue[from];
+        opacity[to] = opacity[from];
+    }
+
+    private void allocate(int newCapacity) {
+        capacity = newCapacity;
+
+        startX = grow(startX);
+        startY = grow(startY);
+        velocityX = grow(velocityX);
+        velocityY = grow(velocityY);
+        accelerationX = grow(accelerationX);
+        accelerationY = grow(accelerationY);
+        scaleX = grow(scaleX);
+        scaleY = grow(scaleY);
+        scaleOriginX = grow(scaleOriginX);
+        scaleOriginY = grow(scaleOriginY);
+        entityScaleX = grow(entityScaleX);
+        entityScaleY = grow(entityScaleY);
+        initialLife = grow(initialLife);
+        startRed = grow(startRed);
+        startGreen = grow(startGreen);
+        startBlue = grow(startBlue);
+        startOpacity = grow(startOpacity);
+        endRed = grow(endRed);
+        endGreen = grow(endGreen);
+        endBlue = grow(endBlue);
+        endOpacity = grow(endOpacity);
+
+        x = grow(x);
+        y = grow(y);
+        radiusX = grow(radiusX);
+        radiusY = grow(radiusY);
+        life = grow(life);
+        viewX = grow(viewX);
+        viewY = grow(viewY);
+        angle = grow(angle);
+        red = grow(red);
+        green = grow(green);
+        blue = grow(blue);
+        opacity = grow(opacity);
+    }
+
+    private float[] grow(float[] array) {
+        return array == null ? new float[capacity] : Arrays.copyOf(array, capacity);
+    }
+
+    private double[] grow(double[] array) {
+        return array == null ? new double[capacity] : Arrays.copyOf(array, capacity);
+    }
+}
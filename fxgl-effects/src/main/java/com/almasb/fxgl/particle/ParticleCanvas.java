@@ -0,0 +1,188 @@
+/*
+ * FXGL - JavaFX Game Library. The MIT License (MIT).
+ * Copyright (c) AlmasB (almaslvl@gmail.com).
+ * See LICENSE for details.
+ */
+package com.almasb.fxgl.particle;
+
+import javafx.scene.canvas.Canvas;
+import javafx.scene.canvas.GraphicsContext;
+import javafx.scene.effect.BlendMode;
+import javafx.scene.image.Image;
+import javafx.scene.paint.Color;
+
+/**
+ * Simulates and renders particles of a single emitter in {@link ParticleRenderMode#CANVAS}.
+ * All particles are drawn in one pass into this canvas, which is moved and resized
+ * to cover the bounds of alive particles.
+ *
+ * @author Almas Baimagambetov (almaslvl@gmail.com)
+ */
+final class ParticleCanvas extends Canvas {
+
+    /**
+     * Maximum width / height of the canvas, particles outside are clipped.
+     */
+    private static final double MAX_SIZE = 4096;
+
+    /**
+     * Canvas size grows in steps to avoid reallocating it every frame.
+     */
+    private static final double SIZE_STEP = 128;
+
+    private final ParticleBuffer particles = new ParticleBuffer(256);
+
+    private double lastRed = -1;
+    private double lastGreen = -1;
+    private double lastBlue = -1;
+    private double lastOpacity = -1;
+    private Color lastColor = Color.TRANSPARENT;
+
+    ParticleCanvas() {
+        setMouseTransparent(true);
+        setManaged(false);
+    }
+
+    ParticleBuffer getParticles() {
+        return particles;
+    }
+
+    /**
+     * Updates particles, removes dead ones and renders the rest.
+     */
+    void onUpdate(ParticleEmitter emitter, double tpf) {
+        ParticleSimulation.simulate(particles, tpf, emitter);
+        particles.removeDead();
+
+        render(emitter.getSourceImage(), emitter.getBlendMode(), emitter.isAllowParticleRotation());
+    }
+
+    void render(Image image, BlendMode blendMode, boolean allowRotation) {
+        GraphicsContext g = getGraphicsContext2D();
+
+        // clearing the whole canvas also discards previously buffered draw commands
+        g.clearRect(0, 0, getWidth(), getHeight());
+
+        int size = particles.size();
+
+        if (size == 0) {
+            setVisible(false);
+            return;
+        }
+
+        setVisible(true);
+
+        double minX = Double.MAX_VALUE;
+        double minY = Double.MAX_VALUE;
+        double maxX = -Double.MAX_VALUE;
+        double maxY = -Double.MAX_VALUE;
+
+        float[] viewX = particles.viewX;
+        float[] viewY = particles.viewY;
+        float[] radiusX = particles.radiusX;
+        float[] radiusY = particles.radiusY;
+
+        for (int i = 0; i < size; i++) {
+            double rx = radiusX[i];
+            double ry = radiusY[i];
+            double centerX = viewX[i] + rx;
+            double centerY = viewY[i] + ry;
+
+            if (allowRotation) {
+                double r = Math.sqrt(rx * rx + ry * ry);
+                rx = r;
+                ry = r;
+            }
+
+            minX = Math.min(minX, centerX - rx);
+            minY = Math.min(minY, centerY - ry);
+            maxX = Math.max(maxX, centerX + rx);
+            maxY = Math.max(maxY, centerY + ry);
+        }
+
+        double originX = Math.floor(minX);
+        double originY = Math.floor(minY);
+
+        fitSize(Math.ceil(maxX) - originX, Math.ceil(maxY) - originY);
+
+        setLayoutX(originX);
+        setLayoutY(originY);
+
+        // blend particles with each other on the canvas, and the canvas with what is behind it
+        setBlendMode(blendMode);
+        g.setGlobalBlendMode(blendMode);
+
+        double[] life = particles.life;
+        double[] initialLife = particles.initialLife;
+        float[] angle = particles.angle;
+
+        for (int i = 0; i < size; i++) {
+            double x = viewX[i] - originX;
+            double y = viewY[i] - originY;
+            double w = radiusX[i] * 2;
+            double h = radiusY[i] * 2;
+
+            g.setGlobalAlpha(life[i] / initialLife[i]);
+
+            if (allowRotation) {
+                g.save();
+                g.translate(x + radiusX[i], y + radiusY[i]);
+                g.rotate(angle[i]);
+
+                x = -radiusX[i];
+                y = -radiusY[i];
+            }
+
+            if (image != null) {
+                g.drawImage(image, x, y, w, h);
+            } else {
+                g.setFill(color(i));
+                g.fillOval(x, y, w, h);
+            }
+
+            if (allowRotation) {
+                g.restore();
+            }
+        }
+    }
+
+    private void fitSize(double width, double height) {
+        width = Math.min(width, MAX_SIZE);
+        height = Math.min(height, MAX_SIZE);
+
+        if (width > getWidth() || width < getWidth() / 2) {
+            setWidth(Math.min(Math.ceil(width / SIZE_STEP) * SIZE_STEP, MAX_SIZE));
+        }
+
+        if (height > getHeight() || height < getHeight() / 2) {
+            setHeight(Math.min(Math.ceil(height / SIZE_STEP) * SIZE_STEP, MAX_SIZE));
+        }
+    }
+
+    /**
+     * @return color of particle i, the same object is reused while consecutive particles have the same color
+     */
+    private Color color(int i) {
+        double red = clamp(particles.red[i]);
+        double green = clamp(particles.green[i]);
+        double blue = clamp(particles.blue[i]);
+        double opacity = clamp(particles.opacity[i]);
+
+        if (red != lastRed || green != lastGreen || blue != lastBlue || opacity != lastOpacity) {
+            lastRed = red;
+            lastGreen = green;
+            lastBlue = blue;
+            lastOpacity = opacity;
+            lastColor = Color.color(red, green, blue, opacity);
+        }
+
+        return lastColor;
+    }
+
+    /**
+     * Interpolators may overshoot, e.g. elastic.
+     */
+    private static double clamp(float value) {
+        return Math.max(0, Math.min(1, value));
+    }
+}
@@ -337,6 +337,13 @@ public final class ParticleEmitter {
 
     private Image sourceImage = null;
 
+    /**
+     * @return source image or null if particles are shapes
+     */
+    public Image getSourceImage() {
+        return sourceImage;
+    }
+
     /**
      * Set source image for this emitter to produce particles.
      * Default: null.
@@ -356,6 +363,46 @@ public final class ParticleEmitter {
         setSourceImage(texture.getImage());
     }
 
+    private ParticleRenderMode renderMode = ParticleRenderMode.NODE;
+
+    public ParticleRenderMode getRenderMode() {
+        return renderMode;
+    }
+
+    /**
+     * Set how particles are stored and rendered.
+     * The mode applies to particles emitted after this call.
+     * Default: {@link ParticleRenderMode#NODE}.
+     *
+     * @param renderMode the render mode
+     */
+    public void setRenderMode(ParticleRenderMode renderMode) {
+        this.renderMode = renderMode;
+    }
+
+    private int parallelThreshold = Integer.MAX_VALUE;
+
+    public int getParallelThreshold() {
+        return parallelThreshold;
+    }
+
+    /**
+     * Set the number of alive particles of this emitter at which particles
+     * are simulated in parallel chunks on the common fork-join pool.
+     * Views are still updated on the JavaFX thread and results are the same as
+     * when simulated sequentially.
+     * In parallel mode, the parametric equation may be called from multiple threads,
+     * so it should not have side effects.
+     * Particles are never simulated in parallel if the emitter has a control function.
+     * Parallel simulation is opt-in, e.g. 4096 is a reasonable threshold for large emitters.
+     * Default: {@link Integer#MAX_VALUE}, i.e. always simulate sequentially.
+     *
+     * @param parallelThreshold minimum number of particles for parallel simulation
+     */
+    public void setParallelThreshold(int parallelThreshold) {
+        this.parallelThreshold = parallelThreshold;
+    }
+
     private boolean isPaused = false;
 
     boolean isPaused() {
@@ -395,15 +442,10 @@ public final class ParticleEmitter {
      * @implNote cached array is used, do not obtain ownership
      */
     Array<Particle> emit(double x, double y) {
-        double rate = getEmissionRate();
-
-        rateAC += rate;
-        if (rateAC < 1 || rate == 0 || isPaused || isFinished()) {
+        if (!isReadyToEmit()) {
             return Array.empty();
         }
 
-        rateAC = 0;
-        emissions++;
         emissionParticles.clear();
 
         int num = getNumParticles();
@@ -415,6 +457,54 @@ public final class ParticleEmitter {
         return emissionParticles;
     }
 
+    /**
+     * Emits {@link #numParticles} particles at x, y into given buffer,
+     * used by {@link ParticleRenderMode#CANVAS}.
+     * The same as {@link #emit(double, double)} otherwise.
+     *
+     * @param x x coordinate
+     * @param y y coordinate
+     * @param buffer particle storage
+     */
+    void emit(double x, double y, ParticleBuffer buffer) {
+        if (!isReadyToEmit()) {
+            return;
+        }
+
+        int num = getNumParticles();
+
+        for (int i = 0; i < num; i++) {
+            buffer.add(spawnPointFunction.apply(i).add(x, y),
+                    velocityFunction.apply(i),
+                    accelerationFunction.get(),
+                    getRandomSize(),
+                    scaleOriginFunction.apply(i),
+                    scaleFunction.apply(i),
+                    entityScaleFunction.get(),
+                    expireFunction.apply(i),
+                    getStartColor(),
+                    getEndColor());
+        }
+    }
+
+    /**
+     * Advances the emission rate accumulator.
+     *
+     * @return true if particles should be emitted this frame
+     */
+    private boolean isReadyToEmit() {
+        double rate = getEmissionRate();
+
+        rateAC += rate;
+        if (rateAC < 1 || rate == 0 || isPaused || isFinished()) {
+            return false;
+        }
+
+        rateAC = 0;
+        emissions++;
+        return true;
+    }
+
     /**
      * Emits a single particle with index i.
      * X and Y are coordinates of the particle entity this emitter is attached to.
@@ -0,0 +1,29 @@
+/*
+ * FXGL - JavaFX Game Library. The MIT License (MIT).
+ * Copyright (c) AlmasB (almaslvl@gmail.com).
+ * See LICENSE for details.
+ */
+package com.almasb.fxgl.particle;
+
+/**
+ * Defines how particles of an emitter are stored and rendered.
+ *
+ * @author Almas Baimagambetov (almaslvl@gmail.com)
+ */
+public enum ParticleRenderMode {
+
+    /**
+     * Each particle is an object with its own scene graph node (Ellipse or ImageView).
+     * Supports all emitter features.
+     */
+    NODE,
+
+    /**
+     * Particle state is kept in primitive arrays and all particles of an emitter
+     * are drawn in a single pass into one Canvas, so no nodes are created per particle.
+     * Scales to many more particles than {@link #NODE}.
+     * The control function ({@link ParticleEmitter#setControl}) is not supported,
+     * since there are no particle objects to pass to it.
+     */
+    CANVAS
+}
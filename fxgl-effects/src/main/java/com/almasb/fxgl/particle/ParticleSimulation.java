@@ -0,0 +1,83 @@
+/*
+ * FXGL - JavaFX Game Library. The MIT License (MIT).
+ * Copyright (c) AlmasB (almaslvl@gmail.com).
+ * See LICENSE for details.
+ */
+package com.almasb.fxgl.particle;
+
+import com.almasb.fxgl.core.collection.Array;
+
+import java.util.List;
+import java.util.stream.IntStream;
+
+/**
+ * Runs the simulation step of particles, in parallel chunks on the common fork-join pool
+ * once the number of particles reaches {@link ParticleEmitter#getParallelThreshold()}.
+ * Each particle is only written by the chunk that contains it, so the results
+ * are the same as those of the sequential simulation.
+ *
+ * @author Almas Baimagambetov (almaslvl@gmail.com)
+ */
+final class ParticleSimulation {
+
+    /**
+     * Number of particles simulated by a single task.
+     */
+    static final int CHUNK_SIZE = 1024;
+
+    private ParticleSimulation() {}
+
+    /**
+     * Simulates particles, views are not updated.
+     */
+    static void simulate(Array<Particle> particles, double tpf, ParticleEmitter emitter) {
+        forEachChunk(particles.size(), emitter, (from, to) -> {
+            for (int i = from; i < to; i++) {
+                particles.get(i).simulate(tpf);
+            }
+        });
+    }
+
+    /**
+     * Simulates particles, views are not updated.
+     */
+    static void simulate(List<Particle> particles, double tpf, ParticleEmitter emitter) {
+        forEachChunk(particles.size(), emitter, (from, to) -> {
+            for (int i = from; i < to; i++) {
+                particles.get(i).simulate(tpf);
+            }
+        });
+    }
+
+    /**
+     * Simulates particles, dead particles are not removed.
+     */
+    static void simulate(ParticleBuffer particles, double tpf, ParticleEmitter emitter) {
+        var interpolator = emitter.getInterpolator();
+        var equation = emitter.getParametricEquation();
+
+        forEachChunk(particles.size(), emitter, (from, to) -> particles.update(from, to, tpf, interpolator, equation));
+    }
+
+    static boolean isParallel(int size, ParticleEmitter emitter) {
+        // control functions receive particle objects, which may be used in a non thread-safe way
+        return size >= emitter.getParallelThreshold() && size > CHUNK_SIZE && emitter.getControl() == null;
+    }
+
+    private static void forEachChunk(int size, ParticleEmitter emitter, RangeAction action) {
+        if (!isParallel(size, emitter)) {
+            action.run(0, size);
+            return;
+        }
+
+        int numChunks = (size + CHUNK_SIZE - 1) / CHUNK_SIZE;
+
+        IntStream.range(0, numChunks)
+                .parallel()
+                .forEach(chunk -> action.run(chunk * CHUNK_SIZE, Math.min(size, (chunk + 1) * CHUNK_SIZE)));
+    }
+
+    private interface RangeAction {
+        void run(int from, int to);
+    }
+}
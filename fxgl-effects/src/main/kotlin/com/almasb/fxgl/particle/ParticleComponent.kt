@@ -31,6 +31,11 @@ open class ParticleComponent(val emitter: ParticleEmitter) : Component() {
 
     private val particles = UnorderedArray<Particle>(256)
 
+    /**
+     * Renders particles emitted in [ParticleRenderMode.CANVAS], created when first needed.
+     */
+    private var canvas: ParticleCanvas? = null
+
     val isEmitterPaused: Boolean
         get() = emitter.isPaused
 
@@ -39,13 +44,19 @@ open class ParticleComponent(val emitter: ParticleEmitter) : Component() {
             entity.world.addEntity(parent)
         }
 
-        particles.addAll(emitter.emit(entity.x, entity.y))
+        if (emitter.renderMode == ParticleRenderMode.CANVAS) {
+            emitter.emit(entity.x, entity.y, getCanvas().particles)
+        } else {
+            particles.addAll(emitter.emit(entity.x, entity.y))
+        }
+
+        ParticleSimulation.simulate(particles, tpf, emitter)
 
         val iter = particles.iterator()
         while (iter.hasNext()) {
             val p = iter.next()
 
-            if (p.update(tpf)) {
+            if (p.updateView()) {
                 iter.remove()
 
                 parent.viewComponent.removeChild(p.view)
@@ -56,11 +67,20 @@ open class ParticleComponent(val emitter: ParticleEmitter) : Component() {
             }
         }
 
-        if (particles.isEmpty && emitter.isFinished) {
+        canvas?.onUpdate(emitter, tpf)
+
+        if (particles.isEmpty && (canvas?.particles?.isEmpty ?: true) && emitter.isFinished) {
             onFinished.run();
         }
     }
 
+    private fun getCanvas(): ParticleCanvas {
+        return canvas ?: ParticleCanvas().also {
+            canvas = it
+            parent.viewComponent.addChild(it)
+        }
+    }
+
     fun pauseEmitter() {
         emitter.pause()
     }
@@ -73,6 +93,12 @@ open class ParticleComponent(val emitter: ParticleEmitter) : Component() {
         particles.forEach { Pools.free(it) }
         particles.clear()
 
+        canvas?.let {
+            it.particles.clear()
+            parent.viewComponent.removeChild(it)
+        }
+        canvas = null
+
         parent.removeFromWorld()
     }
 }
\ No newline at end of file
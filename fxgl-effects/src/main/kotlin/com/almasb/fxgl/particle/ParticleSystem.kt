@@ -24,6 +24,11 @@ class ParticleSystem : Updatable {
     private val emitters = hashMapOf<ParticleEmitter, Point2D>()
     private val particles = hashMapOf<ParticleEmitter, MutableList<Particle>>()
 
+    /**
+     * Canvases of emitters in [ParticleRenderMode.CANVAS], created when first needed.
+     */
+    private val canvases = hashMapOf<ParticleEmitter, ParticleCanvas>()
+
     fun addParticleEmitter(emitter: ParticleEmitter, x: Double, y: Double) {
         emitters[emitter] = Point2D(x, y)
         particles[emitter] = arrayListOf()
@@ -31,29 +36,50 @@ class ParticleSystem : Updatable {
 
     fun removeParticleEmitter(emitter: ParticleEmitter) {
         emitters.remove(emitter)
-        particles.remove(emitter)?.let { it.forEach { Pools.free(it) } }
+        particles.remove(emitter)?.let {
+            it.forEach {
+                pane.children.remove(it.view)
+                Pools.free(it)
+            }
+        }
+
+        canvases.remove(emitter)?.let { pane.children.remove(it) }
     }
 
     override fun onUpdate(tpf: Double) {
         emitters.forEach { (emitter, p) ->
             val particlesList = particles[emitter]!!
 
-            particlesList.addAll(emitter.emit(p.x, p.y))
+            if (emitter.renderMode == ParticleRenderMode.CANVAS) {
+                emitter.emit(p.x, p.y, getCanvas(emitter).particles)
+            } else {
+                particlesList.addAll(emitter.emit(p.x, p.y))
+            }
+
+            ParticleSimulation.simulate(particlesList, tpf, emitter)
 
             val iter = particlesList.iterator()
             while (iter.hasNext()) {
                 val particle = iter.next()
 
-                if (particle.update(tpf)) {
+                if (particle.updateView()) {
                     iter.remove()
 
                     pane.children.remove(particle.view)
-                    Pools.free(p)
+                    Pools.free(particle)
                 } else {
                     if (particle.view.parent == null)
                         pane.children.add(particle.view)
                 }
             }
+
+            canvases[emitter]?.onUpdate(emitter, tpf)
+        }
+    }
+
+    private fun getCanvas(emitter: ParticleEmitter): ParticleCanvas {
+        return canvases.getOrPut(emitter) {
+            ParticleCanvas().also { pane.children.add(it) }
         }
     }
 }
\ No newline at end of file
@@ -0,0 +1,110 @@
+/*
+ * FXGL - JavaFX Game Library. The MIT License (MIT).
+ * Copyright (c) AlmasB (almaslvl@gmail.com).
+ * See LICENSE for details.
+ */
+
+package com.almasb.fxgl.particle
+
+import javafx.animation.Interpolator
+import javafx.geometry.Point2D
+import javafx.scene.effect.BlendMode
+import javafx.scene.paint.Color
+import javafx.scene.shape.Ellipse
+import javafx.util.Duration
+import org.hamcrest.CoreMatchers.`is`
+import org.hamcrest.MatcherAssert.assertThat
+import org.hamcrest.Matchers.closeTo
+import org.junit.jupiter.api.Test
+
+/**
+ *
+ * @author Almas Baimagambetov (almaslvl@gmail.com)
+ */
+class ParticleBufferTest {
+
+    @Test
+    fun `Simulation matches particle`() {
+        val buffer = ParticleBuffer(4)
+        val particle = Particle()
+
+        val position = Point2D(10.0, 20.0)
+        val velocity = Point2D(30.0, -15.0)
+        val acceleration = Point2D(2.0, 5.0)
+        val scale = Point2D(-0.05, -0.1)
+        val scaleOrigin = Point2D(3.0, 4.0)
+        val entityScale = Point2D(1.0, 1.0)
+        val life = Duration.seconds(1.0)
+
+        particle.init(null, null, position, velocity, acceleration, 10.0, scaleOrigin, scale, entityScale, life,
+                Color.RED, Color.BLUE, BlendMode.ADD, Interpolator.EASE_IN, true, null)
+
+        buffer.add(position, velocity, acceleration, 10.0, scaleOrigin, scale, entityScale, life, Color.RED, Color.BLUE)
+
+        repeat(59) {
+            particle.update(1 / 60.0)
+            buffer.update(1 / 60.0, Interpolator.EASE_IN, null)
+
+            val view = particle.view as Ellipse
+            val fill = view.fill as Color
+
+            assertThat(buffer.viewX[0].toDouble(), closeTo(view.layoutX, 0.001))
+            assertThat(buffer.viewY[0].toDouble(), closeTo(view.layoutY, 0.001))
+            assertThat(buffer.radiusX[0].toDouble(), closeTo(view.radiusX, 0.001))
+            assertThat(buffer.radiusY[0].toDouble(), closeTo(view.radiusY, 0.001))
+            assertThat(buffer.angle[0].toDouble(), closeTo(view.rotate, 0.001))
+            assertThat(buffer.red[0].toDouble(), closeTo(fill.red, 0.01))
+            assertThat(buffer.blue[0].toDouble(), closeTo(fill.blue, 0.01))
+            assertThat(buffer.life[0] / buffer.initialLife[0], closeTo(view.opacity, 0.001))
+        }
+
+        assertThat(particle.update(1.0), `is`(true))
+
+        buffer.update(1.0, Interpolator.EASE_IN, null)
+
+        assertThat(buffer.isDead(0), `is`(true))
+    }
+
+    @Test
+    fun `Parametric equation`() {
+        val buffer = ParticleBuffer(4)
+
+        buffer.add(Point2D(10.0, 10.0), Point2D.ZERO, Point2D.ZERO, 5.0, Point2D.ZERO, Point2D.ZERO, Point2D(1.0, 1.0),
+                Duration.seconds(1.0), Color.RED, Color.RED)
+
+        buffer.update(0.5, Interpolator.LINEAR) { t -> Point2D(t * 100, 0.0) }
+        buffer.update(0.25, Interpolator.LINEAR) { t -> Point2D(t * 100, 0.0) }
+
+        // time is taken before the update, so after the second update the particle is at t = 0.5
+        assertThat(buffer.x[0].toDouble(), closeTo(60.0, 0.001))
+        assertThat(buffer.y[0].toDouble(), closeTo(10.0, 0.001))
+    }
+
+    @Test
+    fun `Dead particles are removed and buffer grows`() {
+        val buffer = ParticleBuffer(4)
+
+        for (i in 0 until 100) {
+            val life = if (i % 2 == 0) 0.5 else 2.0
+
+            buffer.add(Point2D(i.toDouble(), 0.0), Point2D.ZERO, Point2D.ZERO, 5.0, Point2D.ZERO, Point2D.ZERO, Point2D(1.0, 1.0),
+                    Duration.seconds(life), Color.RED, Color.RED)
+        }
+
+        assertThat(buffer.size(), `is`(100))
+
+        buffer.update(1.0, Interpolator.LINEAR, null)
+
+        assertThat(buffer.removeDead(), `is`(50))
+        assertThat(buffer.size(), `is`(50))
+
+        for (i in 0 until buffer.size()) {
+            assertThat(buffer.startX[i].toInt() % 2, `is`(1))
+            assertThat(buffer.life[i], closeTo(1.0, 0.0001))
+        }
+
+        buffer.clear()
+
+        assertThat(buffer.isEmpty, `is`(true))
+    }
+}
@@ -0,0 +1,118 @@
+/*
+ * FXGL - JavaFX Game Library. The MIT License (MIT).
+ * Copyright (c) AlmasB (almaslvl@gmail.com).
+ * See LICENSE for details.
+ */
+
+package com.almasb.fxgl.particle
+
+import javafx.animation.Interpolator
+import javafx.geometry.Point2D
+import javafx.scene.paint.Color
+import javafx.util.Duration
+import org.hamcrest.CoreMatchers.`is`
+import org.hamcrest.MatcherAssert.assertThat
+import org.junit.jupiter.api.Test
+
+/**
+ *
+ * @author Almas Baimagambetov (almaslvl@gmail.com)
+ */
+class ParticleSimulationTest {
+
+    private fun newEmitter(parallelThreshold: Int): ParticleEmitter {
+        val emitter = ParticleEmitter()
+        emitter.numParticles = 5000
+        emitter.parallelThreshold = parallelThreshold
+        emitter.setSize(5.0, 5.0)
+        emitter.startColor = Color.RED
+        emitter.endColor = Color.BLUE
+        emitter.interpolator = Interpolator.EASE_BOTH
+        emitter.isAllowParticleRotation = true
+        emitter.setVelocityFunction { Point2D(it % 100 - 50.0, it % 37 * 2.0) }
+        emitter.setAccelerationFunction { Point2D(0.0, 9.8) }
+        emitter.setScaleFunction { Point2D(-0.01 * (it % 3), -0.02) }
+        emitter.setExpireFunction { Duration.seconds(0.2 + it % 50 / 100.0) }
+        return emitter
+    }
+
+    @Test
+    fun `Parallel simulation of particles matches sequential`() {
+        val sequentialEmitter = newEmitter(Int.MAX_VALUE)
+        val parallelEmitter = newEmitter(0)
+
+        val sequential = sequentialEmitter.emit(0.0, 0.0).toList()
+        val parallel = parallelEmitter.emit(0.0, 0.0).toList()
+
+        assertThat(ParticleSimulation.isParallel(parallel.size, parallelEmitter), `is`(true))
+        assertThat(ParticleSimulation.isParallel(sequential.size, sequentialEmitter), `is`(false))
+
+        repeat(40) {
+            ParticleSimulation.simulate(sequential, 1 / 60.0, sequentialEmitter)
+            ParticleSimulation.simulate(parallel, 1 / 60.0, parallelEmitter)
+
+            for (i in sequential.indices) {
+                val p1 = sequential[i]
+                val p2 = parallel[i]
+
+                assertThat(p2.updateView(), `is`(p1.updateView()))
+                assertThat(p2.position, `is`(p1.position))
+                assertThat(p2.life, `is`(p1.life))
+                assertThat(p2.view.layoutX, `is`(p1.view.layoutX))
+                assertThat(p2.view.layoutY, `is`(p1.view.layoutY))
+                assertThat(p2.view.rotate, `is`(p1.view.rotate))
+                assertThat(p2.view.opacity, `is`(p1.view.opacity))
+            }
+        }
+    }
+
+    @Test
+    fun `Parallel simulation of particle buffer matches sequential`() {
+        val sequentialEmitter = newEmitter(Int.MAX_VALUE)
+        val parallelEmitter = newEmitter(0)
+
+        sequentialEmitter.setParametricEquation { t -> Point2D(t * 30, Math.sin(t * 10) * 20) }
+        parallelEmitter.setParametricEquation { t -> Point2D(t * 30, Math.sin(t * 10) * 20) }
+
+        val sequential = ParticleBuffer(256)
+        val parallel = ParticleBuffer(256)
+
+        sequentialEmitter.emit(0.0, 0.0, sequential)
+        parallelEmitter.emit(0.0, 0.0, parallel)
+
+        repeat(40) {
+            ParticleSimulation.simulate(sequential, 1 / 60.0, sequentialEmitter)
+            ParticleSimulation.simulate(parallel, 1 / 60.0, parallelEmitter)
+
+            sequential.removeDead()
+            parallel.removeDead()
+
+            assertThat(parallel.size(), `is`(sequential.size()))
+
+            for (i in 0 until sequential.size()) {
+                assertThat(parallel.viewX[i], `is`(sequential.viewX[i]))
+                assertThat(parallel.viewY[i], `is`(sequential.viewY[i]))
+                assertThat(parallel.radiusX[i], `is`(sequential.radiusX[i]))
+                assertThat(parallel.angle[i], `is`(sequential.angle[i]))
+                assertThat(parallel.red[i], `is`(sequential.red[i]))
+                assertThat(parallel.life[i], `is`(sequential.life[i]))
+            }
+        }
+    }
+
+    @Test
+    fun `Particles with control are not simulated in parallel`() {
+        val emitter = newEmitter(0)
+        emitter.setControl { }
+
+        assertThat(ParticleSimulation.isParallel(10000, emitter), `is`(false))
+    }
+
+    @Test
+    fun `Parallel simulation is disabled by default`() {
+        val emitter = ParticleEmitter()
+
+        assertThat(emitter.parallelThreshold, `is`(Int.MAX_VALUE))
+        assertThat(ParticleSimulation.isParallel(100_000, emitter), `is`(false))
+    }
+}
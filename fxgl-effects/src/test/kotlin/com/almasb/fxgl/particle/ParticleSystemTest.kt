@@ -6,6 +6,7 @@
 
 package com.almasb.fxgl.particle
 
+import javafx.scene.paint.Color
 import javafx.util.Duration
 import org.hamcrest.CoreMatchers.`is`
 import org.hamcrest.MatcherAssert.assertThat
@@ -51,4 +52,46 @@ class ParticleSystemTest {
 
         system.removeParticleEmitter(emitter)
     }
-}
\ No newline at end of file
+
+    @Test
+    fun `Particles are drawn to a single canvas in canvas mode`() {
+        val system = ParticleSystem()
+
+        val emitter = ParticleEmitter()
+        emitter.renderMode = ParticleRenderMode.CANVAS
+        emitter.emissionRate = 1.0
+        emitter.numParticles = 15
+        emitter.maxEmissions = 3
+        emitter.setExpireFunction { Duration.seconds(2.0) }
+        emitter.setColor(Color.BLUE)
+
+        system.addParticleEmitter(emitter, 100.0, 100.0)
+
+        system.onUpdate(1.0)
+
+        assertThat(system.pane.children.size, `is`(1))
+
+        val canvas = system.pane.children[0] as ParticleCanvas
+
+        assertThat(canvas.particles.size(), `is`(15))
+        assertThat(canvas.isVisible, `is`(true))
+
+        system.onUpdate(0.5)
+
+        assertThat(canvas.particles.size(), `is`(30))
+
+        system.onUpdate(0.5)
+
+        assertThat(canvas.particles.size(), `is`(30))
+        assertThat(system.pane.children.size, `is`(1))
+
+        system.onUpdate(2.0)
+
+        assertThat(canvas.particles.size(), `is`(0))
+        assertThat(canvas.isVisible, `is`(false))
+
+        system.removeParticleEmitter(emitter)
+
+        assertThat(system.pane.children.size, `is`(0))
+    }
+}
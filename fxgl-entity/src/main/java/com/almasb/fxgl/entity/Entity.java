@@ -126,6 +126,8 @@ public class Entity {
 
     private GameWorld world = null;
 
+    private EntityPool pool = null;
+
     public Entity() {
         addComponentNoChecks(type);
         addComponentNoChecks(transform);
@@ -166,6 +168,7 @@ public class Entity {
         componentMethods.clear();
 
         world = null;
+        pool = null;
         onActive = EmptyRunnable.INSTANCE;
         onNotActive = EmptyRunnable.INSTANCE;
 
@@ -175,6 +178,39 @@ public class Entity {
         active.set(false);
     }
 
+    /**
+     * @return pool this entity is returned to when cleaned, or null if not pooled
+     */
+    EntityPool getPool() {
+        return pool;
+    }
+
+    void setPool(EntityPool pool) {
+        this.pool = pool;
+    }
+
+    /**
+     * Detaches this entity from the world, but keeps its components and properties,
+     * so that it can be reused by the pool.
+     */
+    void recycle() {
+        world = null;
+
+        updateEnabled = true;
+        updating = false;
+
+        active.set(false);
+    }
+
+    /**
+     * Notifies components that this (recycled) entity is reused for a new spawn.
+     */
+    void reset(SpawnData data) {
+        for (Component c : components.componentList) {
+            c.onReset(data);
+        }
+    }
+
     /**
      * Equivalent to world?.removeEntity(this);
      */
@@ -12,6 +12,12 @@ import java.lang.annotation.RetentionPolicy;
 import java.lang.annotation.Target;
 
 /**
+ * Marks an entity factory method annotated with {@link Spawns} to have its entities pooled,
+ * if {@link GameWorld#isEntityPoolingEnabled()} is true.
+ * The pool is filled with the given number of entities when the factory is added to the world.
+ * Entities removed from the world are returned to the pool and reused by subsequent spawns,
+ * see {@link com.almasb.fxgl.entity.component.Component#onReset(SpawnData)}.
+ *
  * @author Almas Baimagambetov (almaslvl@gmail.com)
  */
 @Retention(RetentionPolicy.RUNTIME)
@@ -19,7 +25,7 @@ import java.lang.annotation.Target;
 public @interface Preload {
 
     /**
-     * @return the number of preloaded entities of given type
+     * @return the number of entities of given type created when the factory is added
      */
     int value();
 }
@@ -7,6 +7,7 @@
 package com.almasb.fxgl.entity.component;
 
 import com.almasb.fxgl.entity.Entity;
+import com.almasb.fxgl.entity.SpawnData;
 import javafx.beans.property.BooleanProperty;
 import javafx.beans.property.SimpleBooleanProperty;
 
@@ -71,6 +72,21 @@ public abstract class Component {
 
     }
 
+    /**
+     * Called when the entity is taken from its pool to be spawned again.
+     * The entity keeps the components it had when it was removed from the world,
+     * so override this to restore the state that was changed during the entity's last "life",
+     * e.g. health, timers or animations.
+     * Position and properties are already set from data.
+     * Only called for entities spawned by factory methods annotated with {@link com.almasb.fxgl.entity.Preload}
+     * when entity pooling is enabled.
+     *
+     * @param data spawn data of the new spawn
+     */
+    public void onReset(SpawnData data) {
+
+    }
+
     /**
      * To gain performance during entity creation / component addition, you can override this to return false.
      * Then components will not be injected, so you will need to manage dependencies manually.
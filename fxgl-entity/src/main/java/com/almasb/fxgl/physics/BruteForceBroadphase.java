@@ -0,0 +1,36 @@
+/*
+ * FXGL - JavaFX Game Library. The MIT License (MIT).
+ * Copyright (c) AlmasB (almaslvl@gmail.com).
+ * See LICENSE for details.
+ */
+package com.almasb.fxgl.physics;
+
+import com.almasb.fxgl.core.collection.Array;
+import com.almasb.fxgl.entity.Entity;
+
+import java.util.function.BiConsumer;
+
+/**
+ * Reports every pair of collidable entities, i.e. O(n^2) pairs per tick.
+ * Useful when there are only a few collidable entities or as a reference implementation.
+ *
+ * @author Almas Baimagambetov (almaslvl@gmail.com)
+ */
+public final class BruteForceBroadphase implements CollisionBroadphase {
+
+    @Override
+    public void findPairs(Array<Entity> collidables, BiConsumer<Entity, Entity> callback) {
+        for (int i = 0; i < collidables.size(); i++) {
+            Entity e1 = collidables.get(i);
+
+            for (int j = i + 1; j < collidables.size(); j++) {
+                Entity e2 = collidables.get(j);
+
+                callback.accept(e1, e2);
+            }
+        }
+    }
+
+    @Override
+    public void clear() { }
+}
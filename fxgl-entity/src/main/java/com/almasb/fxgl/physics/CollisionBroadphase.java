@@ -0,0 +1,34 @@
+/*
+ * FXGL - JavaFX Game Library. The MIT License (MIT).
+ * Copyright (c) AlmasB (almaslvl@gmail.com).
+ * See LICENSE for details.
+ */
+package com.almasb.fxgl.physics;
+
+import com.almasb.fxgl.core.collection.Array;
+import com.almasb.fxgl.entity.Entity;
+
+import java.util.function.BiConsumer;
+
+/**
+ * Finds candidate pairs for the manual (non-Box2D) collision check performed by {@link PhysicsWorld}.
+ * A broadphase may report pairs that are not colliding, but it must report every pair
+ * whose bounds (including scale and rotation) overlap, and it must report each pair at most once per call.
+ *
+ * @author Almas Baimagambetov (almaslvl@gmail.com)
+ */
+public interface CollisionBroadphase {
+
+    /**
+     * Called once per physics tick.
+     *
+     * @param collidables all entities that are collidable in this tick
+     * @param callback to be called with each candidate pair
+     */
+    void findPairs(Array<Entity> collidables, BiConsumer<Entity, Entity> callback);
+
+    /**
+     * Clears any state that the broadphase keeps between ticks.
+     */
+    void clear();
+}
@@ -12,6 +12,16 @@ final class CollisionPair extends Pair<Entity> implements Poolable {
 
     private CollisionHandler handler;
 
+    /**
+     * Manual collision check tick when this pair was last confirmed as colliding.
+     */
+    private int tick;
+
+    /**
+     * Index of this pair in the array of active collisions.
+     */
+    private int index;
+
     CollisionPair() {
         super(null, null);
     }
@@ -33,6 +43,22 @@ final class CollisionPair extends Pair<Entity> implements Poolable {
         }
     }
 
+    int getTick() {
+        return tick;
+    }
+
+    void setTick(int tick) {
+        this.tick = tick;
+    }
+
+    int getIndex() {
+        return index;
+    }
+
+    void setIndex(int index) {
+        this.index = index;
+    }
+
     void collisionBegin() {
         handler.onCollisionBegin(getA(), getB());
     }
@@ -48,6 +74,8 @@ final class CollisionPair extends Pair<Entity> implements Poolable {
     @Override
     public void reset() {
         handler = null;
+        tick = 0;
+        index = 0;
         setA(null);
         setB(null);
     }
@@ -27,9 +27,10 @@ import javafx.geometry.Point2D;
 
 import java.io.Serializable;
 import java.util.HashMap;
-import java.util.Iterator;
+import java.util.IdentityHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.function.BiConsumer;
 
 /**
  * Manages collision handling and performs the physics tick.
@@ -51,8 +52,26 @@ public final class PhysicsWorld implements EntityWorldListener, ContactListener,
 
     private Array<CollisionHandler> collisionHandlers = new UnorderedArray<>(16);
 
+    /**
+     * Type A -> (type B -> handler), rebuilt from collisionHandlers whenever they change.
+     * Entity types are compared by identity, same as in {@link CollisionHandler#equal(Object, Object)}.
+     */
+    private Map<Object, Map<Object, CollisionHandler>> handlerTable = new IdentityHashMap<>();
+
     private Array<CollisionPair> collisions = new UnorderedArray<>(128);
 
+    /**
+     * Active collision pairs keyed by themselves, since a pair is equal to any pair with the same entities.
+     */
+    private Map<Pair<Entity>, CollisionPair> collisionsMap = new HashMap<>();
+
+    /**
+     * Reusable key to look up active collision pairs without allocating.
+     */
+    private Pair<Entity> pairKey = new Pair<>(null, null);
+
+    private CollisionBroadphase broadphase = new SpatialHashBroadphase();
+
     private int appHeight;
 
     public PhysicsWorld(int appHeight, double ppm) {
@@ -208,10 +227,13 @@ public final class PhysicsWorld implements EntityWorldListener, ContactListener,
 
         entities.clear();
         collisions.clear();
+        collisionsMap.clear();
+        broadphase.clear();
     }
 
     public void clearCollisionHandlers() {
         collisionHandlers.clear();
+        rebuildHandlerTable();
     }
 
     @Override
@@ -245,7 +267,7 @@ public final class PhysicsWorld implements EntityWorldListener, ContactListener,
                 pair.init(e1, e2, handler);
 
                 // add pair to list of collisions so we still use it
-                collisions.add(pair);
+                addPair(pair);
 
                 HitBox boxA = contact.getFixtureA().getHitBox();
                 HitBox boxB = contact.getFixtureB().getHitBox();
@@ -282,13 +304,11 @@ public final class PhysicsWorld implements EntityWorldListener, ContactListener,
         CollisionHandler handler = getHandler(e1, e2);
         if (handler != null) {
 
-            int pairIndex = getPairIndex(e1, e2);
+            CollisionPair pair = getPair(e1, e2);
 
             // collision registered, so remove it and put pair back to pool
-            if (pairIndex != -1) {
-                CollisionPair pair = collisions.get(pairIndex);
-
-                collisions.removeIndex(pairIndex);
+            if (pair != null) {
+                removePair(pair);
                 pair.collisionEnd();
                 Pools.free(pair);
             }
@@ -350,30 +370,60 @@ public final class PhysicsWorld implements EntityWorldListener, ContactListener,
         if (!e1.isActive() || !e2.isActive())
             return null;
 
+        Map<Object, CollisionHandler> handlers = handlerTable.get(e1.getType());
+
+        return handlers == null ? null : handlers.get(e2.getType());
+    }
+
+    /**
+     * Populates the handler table such that the first registered handler for a pair of types
+     * is used, same as a linear scan of collisionHandlers would.
+     */
+    private void rebuildHandlerTable() {
+        handlerTable.clear();
+
         for (CollisionHandler handler : collisionHandlers) {
-            if (handler.equal(e1.getType(), e2.getType())) {
-                return handler;
-            }
+            handlerTable.computeIfAbsent(handler.getA(), type -> new IdentityHashMap<>()).putIfAbsent(handler.getB(), handler);
+            handlerTable.computeIfAbsent(handler.getB(), type -> new IdentityHashMap<>()).putIfAbsent(handler.getA(), handler);
         }
-
-        return null;
     }
 
+    /**
+     * @return active collision pair of e1 and e2 (in any order) or null if e1 and e2 are not colliding
+     */
     private CollisionPair getPair(Entity e1, Entity e2) {
-        int index = getPairIndex(e1, e2);
+        pairKey.setA(e1);
+        pairKey.setB(e2);
+
+        CollisionPair pair = collisionsMap.get(pairKey);
 
-        return index == -1 ? null : collisions.get(index);
+        pairKey.setA(null);
+        pairKey.setB(null);
+
+        return pair;
     }
 
-    private int getPairIndex(Entity e1, Entity e2) {
-        for (int i = 0; i < collisions.size(); i++) {
-            CollisionPair pair = collisions.get(i);
-            if (pair.equal(e1, e2)) {
-                return i;
-            }
-        }
+    private void addPair(CollisionPair pair) {
+        pair.setIndex(collisions.size());
 
-        return -1;
+        collisions.add(pair);
+        collisionsMap.put(pair, pair);
+    }
+
+    /**
+     * Removes given pair from active collisions.
+     * Must be called before the pair is reset.
+     */
+    private void removePair(CollisionPair pair) {
+        int index = pair.getIndex();
+
+        collisionsMap.remove(pair);
+        collisions.removeIndex(index);
+
+        // the last pair has been moved into the removed slot
+        if (index < collisions.size()) {
+            collisions.get(index).setIndex(index);
+        }
     }
 
     private void notifySensorCollisionBegin(Entity eWithSensor, Entity eTriggered, HitBox box) {
@@ -394,6 +444,13 @@ public final class PhysicsWorld implements EntityWorldListener, ContactListener,
 
     private Array<Entity> collidables = new UnorderedArray<>(128);
     private CollisionResult collisionResult = new CollisionResult();
+    private BiConsumer<Entity, Entity> candidatePairCallback = this::checkCollision;
+
+    /**
+     * Incremented every time manual collision check is performed.
+     * Allows to detect collision pairs that the broadphase did not report.
+     */
+    private int tick = 0;
 
     /**
      * Perform collision detection for all entities that have
@@ -402,45 +459,72 @@ public final class PhysicsWorld implements EntityWorldListener, ContactListener,
      * setCollidable(true).
      */
     private void checkCollisions() {
+        tick++;
+
         for (Entity e : entities) {
             if (isCollidable(e)) {
                 collidables.add(e);
             }
         }
 
-        for (int i = 0; i < collidables.size(); i++) {
-            Entity e1 = collidables.get(i);
+        broadphase.findPairs(collidables, candidatePairCallback);
 
-            for (int j = i + 1; j < collidables.size(); j++) {
-                Entity e2 = collidables.get(j);
+        endUnreportedCollisions();
 
-                CollisionHandler handler = getHandler(e1, e2);
+        collidables.clear();
+    }
 
-                // if no handler registered, no need to check for this pair
-                if (handler == null)
-                    continue;
+    private void checkCollision(Entity e1, Entity e2) {
+        CollisionHandler handler = getHandler(e1, e2);
 
-                // if no need for manual check, let jbox handle it
-                if (!needManualCheck(e1, e2)) {
-                    continue;
-                }
+        // if no handler registered, no need to check for this pair
+        if (handler == null)
+            return;
+
+        // if no need for manual check, let jbox handle it
+        if (!needManualCheck(e1, e2))
+            return;
 
-                // check if e1 ignores e2, or e2 ignores e1
-                if (isIgnored(e1, e2))
-                    continue;
+        // check if e1 ignores e2, or e2 ignores e1
+        if (isIgnored(e1, e2))
+            return;
 
-                // check if colliding
-                var collision = e1.getBoundingBoxComponent().checkCollision(e2.getBoundingBoxComponent(), collisionResult);
+        // check if colliding
+        var collision = e1.getBoundingBoxComponent().checkCollision(e2.getBoundingBoxComponent(), collisionResult);
 
-                if (collision) {
-                    collisionBeginFor(handler, e1, e2, collisionResult.getBoxA(), collisionResult.getBoxB());
-                } else {
-                    collisionEndFor(e1, e2);
-                }
-            }
+        if (collision) {
+            collisionBeginFor(handler, e1, e2, collisionResult.getBoxA(), collisionResult.getBoxB());
+        } else {
+            collisionEndFor(e1, e2);
         }
+    }
 
-        collidables.clear();
+    /**
+     * A pair that was colliding in the previous tick may not have been reported by the broadphase
+     * in this tick, which means its bounds no longer overlap, so end the collision
+     * the same way a failed manual check would.
+     */
+    private void endUnreportedCollisions() {
+        for (int i = collisions.size() - 1; i >= 0; i--) {
+            CollisionPair pair = collisions.get(i);
+
+            if (pair.getTick() == tick)
+                continue;
+
+            Entity e1 = pair.getA();
+            Entity e2 = pair.getB();
+
+            // such pairs are handled in notifyCollisions()
+            if (!isCollidable(e1) || !isCollidable(e2))
+                continue;
+
+            if (getHandler(e1, e2) == null || !needManualCheck(e1, e2) || isIgnored(e1, e2))
+                continue;
+
+            removePair(pair);
+            pair.collisionEnd();
+            Pools.free(pair);
+        }
     }
 
     private boolean isIgnored(Entity e1, Entity e2) {
@@ -476,23 +560,26 @@ public final class PhysicsWorld implements EntityWorldListener, ContactListener,
             pair.init(e1, e2, handler);
 
             // add pair to list of collisions so we still use it
-            collisions.add(pair);
+            addPair(pair);
+
+            handler.onHitBoxTrigger(pair.getA(), pair.getB(),
+                    e1 == pair.getA() ? a : b,
+                    e2 == pair.getB() ? b : a);
 
-            handler.onHitBoxTrigger(pair.getA(), pair.getB(), a, b);
             pair.collisionBegin();
         }
+
+        pair.setTick(tick);
     }
 
     private void collisionEndFor(Entity e1, Entity e2) {
-        int pairIndex = getPairIndex(e1, e2);
+        CollisionPair pair = getPair(e1, e2);
 
-        // if not -1, then collision registered, so end the collision
+        // if not null, then collision registered, so end the collision
         // and remove it and put pair back to pool
-        // if -1 then collision was not present before either
-        if (pairIndex != -1) {
-            CollisionPair pair = collisions.get(pairIndex);
-
-            collisions.removeIndex(pairIndex);
+        // if null then collision was not present before either
+        if (pair != null) {
+            removePair(pair);
             pair.collisionEnd();
             Pools.free(pair);
         }
@@ -502,8 +589,8 @@ public final class PhysicsWorld implements EntityWorldListener, ContactListener,
      * Fires all collision handlers' collision() callback based on currently registered collisions.
      */
     private void notifyCollisions() {
-        for (Iterator<CollisionPair> it = collisions.iterator(); it.hasNext(); ) {
-            CollisionPair pair = it.next();
+        for (int i = 0; i < collisions.size(); ) {
+            CollisionPair pair = collisions.get(i);
 
             // if a pair no longer qualifies for collision then just remove it
             if (!isCollidable(pair.getA()) || !isCollidable(pair.getB())) {
@@ -511,12 +598,14 @@ public final class PhysicsWorld implements EntityWorldListener, ContactListener,
                 // tell the pair that collision ended
                 pair.collisionEnd();
 
-                it.remove();
+                // the last pair is moved into slot i, so do not advance
+                removePair(pair);
                 Pools.free(pair);
                 continue;
             }
 
             pair.collision();
+            i++;
         }
     }
 
@@ -546,6 +635,7 @@ public final class PhysicsWorld implements EntityWorldListener, ContactListener,
      */
     public void addCollisionHandler(CollisionHandler handler) {
         collisionHandlers.add(handler);
+        rebuildHandlerTable();
     }
 
     /**
@@ -555,6 +645,25 @@ public final class PhysicsWorld implements EntityWorldListener, ContactListener,
      */
     public void removeCollisionHandler(CollisionHandler handler) {
         collisionHandlers.removeValueByIdentity(handler);
+        rebuildHandlerTable();
+    }
+
+    /**
+     * Sets the broadphase used to find candidate pairs for the manual (non-Box2D) collision check.
+     * By default, {@link SpatialHashBroadphase} is used.
+     *
+     * @param broadphase collision broadphase
+     */
+    public void setBroadphase(CollisionBroadphase broadphase) {
+        this.broadphase.clear();
+        this.broadphase = broadphase;
+    }
+
+    /**
+     * @return broadphase used to find candidate pairs for the manual collision check
+     */
+    public CollisionBroadphase getBroadphase() {
+        return broadphase;
     }
 
     /**
@@ -0,0 +1,360 @@
+/*
+ * FXGL - JavaFX Game Library. The MIT License (MIT).
+ * Copyright (c) AlmasB (almaslvl@gmail.com).
+ * See LICENSE for details.
+ */
+package com.almasb.fxgl.physics;
+
+import com.almasb.fxgl.core.collection.Array;
+import com.almasb.fxgl.core.collection.UnorderedArray;
+import com.almasb.fxgl.entity.Entity;
+import com.almasb.fxgl.entity.components.BoundingBoxComponent;
+import com.almasb.fxgl.entity.components.TransformComponent;
+import javafx.beans.InvalidationListener;
+import javafx.beans.Observable;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.BiConsumer;
+
+/**
+ * Places entities into a uniform grid of square cells, so that only entities that
+ * share a cell are reported as candidate pairs.
+ * Cell membership of an entity is only recomputed after its transform or bounding box changed,
+ * hence entities that do not move cost O(1) per tick.
+ * Entities that span too many cells (e.g. large static walls) are kept aside and
+ * paired with every other entity instead.
+ *
+ * @author Almas Baimagambetov (almaslvl@gmail.com)
+ */
+public final class SpatialHashBroadphase implements CollisionBroadphase {
+
+    private static final double DEFAULT_CELL_SIZE = 64.0;
+    private static final int DEFAULT_MAX_CELLS_PER_ENTITY = 64;
+
+    private final double cellSize;
+    private final int maxCellsPerEntity;
+
+    private final Map<Entity, Proxy> proxyMap = new HashMap<>();
+    private final Array<Proxy> proxies = new UnorderedArray<>(128);
+    private final Array<Proxy> oversized = new UnorderedArray<>(16);
+    private final Array<Proxy> dirtyProxies = new UnorderedArray<>(128);
+
+    private final Map<Long, Cell> cellMap = new HashMap<>();
+    private final Array<Cell> cells = new UnorderedArray<>(128);
+    private final Array<Cell> freeCells = new UnorderedArray<>(128);
+
+    private int tick = 0;
+
+    // min x, min y, max x, max y of the entity currently being processed
+    private final double[] bounds = new double[4];
+
+    public SpatialHashBroadphase() {
+        this(DEFAULT_CELL_SIZE);
+    }
+
+    /**
+     * @param cellSize size of a cell in pixels, ideally close to the size of a typical collidable entity
+     */
+    public SpatialHashBroadphase(double cellSize) {
+        this(cellSize, DEFAULT_MAX_CELLS_PER_ENTITY);
+    }
+
+    /**
+     * @param cellSize size of a cell in pixels, ideally close to the size of a typical collidable entity
+     * @param maxCellsPerEntity entities spanning more cells than this are paired with all other entities
+     */
+    public SpatialHashBroadphase(double cellSize, int maxCellsPerEntity) {
+        if (cellSize <= 0)
+            throw new IllegalArgumentException("Cell size must be positive: " + cellSize);
+
+        if (maxCellsPerEntity < 1)
+            throw new IllegalArgumentException("Max cells per entity must be at least 1: " + maxCellsPerEntity);
+
+        this.cellSize = cellSize;
+        this.maxCellsPerEntity = maxCellsPerEntity;
+    }
+
+    public double getCellSize() {
+        return cellSize;
+    }
+
+    /**
+     * @return number of non-empty cells
+     */
+    public int getNumCells() {
+        return cells.size();
+    }
+
+    @Override
+    public void findPairs(Array<Entity> collidables, BiConsumer<Entity, Entity> callback) {
+        tick++;
+
+        for (int i = 0; i < collidables.size(); i++) {
+            Entity e = collidables.get(i);
+
+            Proxy proxy = proxyMap.get(e);
+            if (proxy == null) {
+                proxy = new Proxy(e);
+                proxy.index = proxies.size();
+
+                proxyMap.put(e, proxy);
+                proxies.add(proxy);
+
+                proxy.setListening(true);
+                proxy.markDirty();
+            }
+
+            proxy.tick = tick;
+        }
+
+        // remove proxies of entities that are no longer collidable or no longer in the world
+        for (int i = proxies.size() - 1; i >= 0; i--) {
+            Proxy proxy = proxies.get(i);
+
+            if (proxy.tick != tick) {
+                removeProxy(proxy);
+            }
+        }
+
+        // only entities that moved since the last tick are placed into cells again
+        for (int i = 0; i < dirtyProxies.size(); i++) {
+            Proxy proxy = dirtyProxies.get(i);
+            proxy.isDirty = false;
+
+            if (!proxy.isRemoved) {
+                updateProxy(proxy);
+            }
+        }
+
+        dirtyProxies.clear();
+
+        for (int c = 0; c < cells.size(); c++) {
+            Cell cell = cells.get(c);
+            Array<Proxy> cellProxies = cell.proxies;
+
+            for (int i = 0; i < cellProxies.size(); i++) {
+                Proxy p1 = cellProxies.get(i);
+
+                for (int j = i + 1; j < cellProxies.size(); j++) {
+                    Proxy p2 = cellProxies.get(j);
+
+                    // a pair may share multiple cells, so only report it from the first shared cell
+                    if (Math.max(p1.minCellX, p2.minCellX) == cell.x && Math.max(p1.minCellY, p2.minCellY) == cell.y) {
+                        callback.accept(p1.entity, p2.entity);
+                    }
+                }
+            }
+        }
+
+        for (int i = 0; i < oversized.size(); i++) {
+            Proxy p1 = oversized.get(i);
+
+            for (int j = i + 1; j < oversized.size(); j++) {
+                callback.accept(p1.entity, oversized.get(j).entity);
+            }
+
+            for (int j = 0; j < proxies.size(); j++) {
+                Proxy p2 = proxies.get(j);
+
+                if (!p2.isOversized) {
+                    callback.accept(p1.entity, p2.entity);
+                }
+            }
+        }
+    }
+
+    @Override
+    public void clear() {
+        for (int i = 0; i < proxies.size(); i++) {
+            proxies.get(i).setListening(false);
+        }
+
+        proxyMap.clear();
+        proxies.clear();
+        oversized.clear();
+        dirtyProxies.clear();
+        cellMap.clear();
+        cells.clear();
+        freeCells.clear();
+    }
+
+    private void updateProxy(Proxy proxy) {
+        proxy.entity.getBoundingBoxComponent().computeTransformedBoundsWorld(bounds);
+
+        int minCellX = toCell(bounds[0]);
+        int minCellY = toCell(bounds[1]);
+        int maxCellX = toCell(bounds[2]);
+        int maxCellY = toCell(bounds[3]);
+
+        if (proxy.isInserted
+                && proxy.minCellX == minCellX && proxy.minCellY == minCellY
+                && proxy.maxCellX == maxCellX && proxy.maxCellY == maxCellY) {
+            return;
+        }
+
+        removeFromCells(proxy);
+
+        proxy.minCellX = minCellX;
+        proxy.minCellY = minCellY;
+        proxy.maxCellX = maxCellX;
+        proxy.maxCellY = maxCellY;
+
+        insertIntoCells(proxy);
+    }
+
+    private void insertIntoCells(Proxy proxy) {
+        long numCells = (long) (proxy.maxCellX - proxy.minCellX + 1) * (proxy.maxCellY - proxy.minCellY + 1);
+
+        if (numCells > maxCellsPerEntity) {
+            proxy.isOversized = true;
+            oversized.add(proxy);
+        } else {
+            for (int x = proxy.minCellX; x <= proxy.maxCellX; x++) {
+                for (int y = proxy.minCellY; y <= proxy.maxCellY; y++) {
+                    obtainCell(x, y).proxies.add(proxy);
+                }
+            }
+        }
+
+        proxy.isInserted = true;
+    }
+
+    private void removeFromCells(Proxy proxy) {
+        if (!proxy.isInserted)
+            return;
+
+        if (proxy.isOversized) {
+            proxy.isOversized = false;
+            oversized.removeValueByIdentity(proxy);
+        } else {
+            for (int x = proxy.minCellX; x <= proxy.maxCellX; x++) {
+                for (int y = proxy.minCellY; y <= proxy.maxCellY; y++) {
+                    Cell cell = cellMap.get(key(x, y));
+                    cell.proxies.removeValueByIdentity(proxy);
+
+                    if (cell.proxies.isEmpty()) {
+                        freeCell(cell);
+                    }
+                }
+            }
+        }
+
+        proxy.isInserted = false;
+    }
+
+    private void removeProxy(Proxy proxy) {
+        proxy.setListening(false);
+        proxy.isRemoved = true;
+
+        removeFromCells(proxy);
+
+        proxyMap.remove(proxy.entity);
+
+        proxies.removeIndex(proxy.index);
+
+        // the last proxy has been moved into the removed slot
+        if (proxy.index < proxies.size()) {
+            proxies.get(proxy.index).index = proxy.index;
+        }
+    }
+
+    private Cell obtainCell(int x, int y) {
+        long key = key(x, y);
+
+        Cell cell = cellMap.get(key);
+        if (cell == null) {
+            cell = freeCells.isEmpty() ? new Cell() : freeCells.pop();
+            cell.x = x;
+            cell.y = y;
+            cell.index = cells.size();
+
+            cellMap.put(key, cell);
+            cells.add(cell);
+        }
+
+        return cell;
+    }
+
+    private void freeCell(Cell cell) {
+        cellMap.remove(key(cell.x, cell.y));
+
+        cells.removeIndex(cell.index);
+
+        if (cell.index < cells.size()) {
+            cells.get(cell.index).index = cell.index;
+        }
+
+        freeCells.add(cell);
+    }
+
+    private int toCell(double value) {
+        return (int) Math.floor(value / cellSize);
+    }
+
+    private static long key(int x, int y) {
+        // multiplying by an odd constant is a bijection, so keys remain unique,
+        // but Long.hashCode() (x ^ y) no longer collides for neighbouring cells
+        return ((long) (x * 0x9E3779B9) << 32) | (y & 0xFFFFFFFFL);
+    }
+
+    /**
+     * Marks itself dirty when any property that affects the bounds of the entity changes.
+     */
+    private final class Proxy implements InvalidationListener {
+        private final Entity entity;
+
+        private int index;
+        private int tick;
+
+        private boolean isInserted = false;
+        private boolean isOversized = false;
+        private boolean isDirty = false;
+        private boolean isRemoved = false;
+
+        private int minCellX, minCellY, maxCellX, maxCellY;
+
+        private Proxy(Entity entity) {
+            this.entity = entity;
+        }
+
+        @Override
+        public void invalidated(Observable observable) {
+            markDirty();
+        }
+
+        private void markDirty() {
+            if (!isDirty) {
+                isDirty = true;
+                dirtyProxies.add(this);
+            }
+        }
+
+        private void setListening(boolean isListening) {
+            TransformComponent t = entity.getTransformComponent();
+            BoundingBoxComponent bbox = entity.getBoundingBoxComponent();
+
+            Observable[] properties = {
+                    t.xProperty(), t.yProperty(), t.angleProperty(), t.scaleXProperty(), t.scaleYProperty(),
+                    t.scaleOriginXProperty(), t.scaleOriginYProperty(), t.rotationOriginXProperty(), t.rotationOriginYProperty(),
+                    bbox.minXLocalProperty(), bbox.minYLocalProperty(), bbox.widthProperty(), bbox.heightProperty()
+            };
+
+            for (Observable property : properties) {
+                if (isListening) {
+                    property.addListener(this);
+                } else {
+                    property.removeListener(this);
+                }
+            }
+        }
+    }
+
+    private static final class Cell {
+        private final Array<Proxy> proxies = new UnorderedArray<>(8);
+
+        private int x;
+        private int y;
+        private int index;
+    }
+}
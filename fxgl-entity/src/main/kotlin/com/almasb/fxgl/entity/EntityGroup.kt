@@ -13,69 +13,146 @@ import java.util.function.Consumer
  * A group of entities of particular types.
  * The group always contains active entities and listens
  * for changes in the game world.
+ * Groups obtained via [GameWorld.getGroup] are updated by the world's type index,
+ * so they also follow entities whose type changes.
+ *
+ * Entities are added / removed in O(1), so the order of entities is not preserved.
+ * Iteration does not allocate and entities may be added / removed during iteration:
+ * removed entities are not visited, added entities are visited from the next iteration.
  *
  * @author Almas Baimagambetov (almaslvl@gmail.com)
  */
-class EntityGroup(
+class EntityGroup internal constructor(
         private val world: GameWorld,
         initialEntities: List<Entity>,
-        vararg entityTypes: Enum<*>
+        private val isIndexed: Boolean,
+        entityTypes: Array<out Enum<*>>
 
 ) : EntityWorldListener, Disposable {
 
-    private val types: List<Enum<*>> = entityTypes.toList()
+    constructor(world: GameWorld, initialEntities: List<Entity>, vararg entityTypes: Enum<*>)
+            : this(world, initialEntities, false, entityTypes)
+
+    internal val types: List<Enum<*>> = entityTypes.toList()
+
+    /**
+     * Swap-remove storage, [indices] maps each entity to its index.
+     */
+    private val entities = ArrayList<Entity>(initialEntities.size)
+    private val indices = HashMap<Entity, Int>(initialEntities.size)
+
+    private var numIterations = 0
 
-    private val entities = ArrayList<Entity>(initialEntities)
-    private val addList = ArrayList<Entity>()
-    private val removeList = ArrayList<Entity>()
+    /**
+     * Entities removed during iteration, removed from storage once the (outermost) iteration finishes.
+     */
+    private val pendingRemovals = HashSet<Entity>()
+
+    /**
+     * @return number of entities in this group
+     */
+    val size: Int
+        get() = entities.size - pendingRemovals.size
 
     /**
      * @return shallow copy of the entities list (new list)
      */
     val entitiesCopy: List<Entity>
         get(): List<Entity> {
-            update()
-            return entities.filter { it.isActive }
+            if (pendingRemovals.isEmpty())
+                return ArrayList(entities)
+
+            return entities.filter { it !in pendingRemovals }
         }
 
     init {
-        world.addWorldListener(this)
+        initialEntities.forEach { add(it) }
+
+        if (!isIndexed) {
+            world.addWorldListener(this)
+        }
     }
 
     fun forEach(action: (Entity) -> Unit) {
-        entitiesCopy.forEach(action)
+        forEach(Consumer(action))
     }
 
     fun forEach(action: Consumer<Entity>) {
-        entitiesCopy.forEach(action)
+        numIterations++
+
+        try {
+            // entities added during iteration are appended, so are not visited
+            val size = entities.size
+
+            for (i in 0 until size) {
+                val entity = entities[i]
+
+                if (pendingRemovals.isEmpty() || entity !in pendingRemovals) {
+                    action.accept(entity)
+                }
+            }
+        } finally {
+            numIterations--
+
+            if (numIterations == 0 && pendingRemovals.isNotEmpty()) {
+                pendingRemovals.forEach { remove(it) }
+                pendingRemovals.clear()
+            }
+        }
+    }
+
+    operator fun contains(entity: Entity): Boolean = entity in indices && entity !in pendingRemovals
+
+    internal fun add(entity: Entity) {
+        // re-added during iteration, e.g. removed and spawned from a pool
+        if (pendingRemovals.remove(entity))
+            return
+
+        if (entity in indices)
+            return
+
+        indices[entity] = entities.size
+        entities.add(entity)
     }
 
-    private fun update() {
-        entities.addAll(addList)
-        entities.removeAll(removeList)
-        addList.clear()
-        removeList.clear()
+    internal fun remove(entity: Entity) {
+        if (numIterations > 0) {
+            if (entity in indices) {
+                pendingRemovals.add(entity)
+            }
+            return
+        }
+
+        val index = indices.remove(entity) ?: return
+        val last = entities.removeAt(entities.size - 1)
+
+        if (last !== entity) {
+            entities[index] = last
+            indices[last] = index
+        }
     }
 
-    @Suppress("UNCHECKED_CAST")
     override fun onEntityAdded(entity: Entity) {
         if (types.any { entity.isType(it) }) {
-            addList.add(entity)
+            add(entity)
         }
     }
 
-    @Suppress("UNCHECKED_CAST")
     override fun onEntityRemoved(entity: Entity) {
         if (types.any { entity.isType(it) }) {
-            removeList.add(entity)
+            remove(entity)
         }
     }
 
     override fun dispose() {
-        world.removeWorldListener(this)
+        if (isIndexed) {
+            world.removeGroup(this)
+        } else {
+            world.removeWorldListener(this)
+        }
 
         entities.clear()
-        addList.clear()
-        removeList.clear()
+        indices.clear()
+        pendingRemovals.clear()
     }
-}
\ No newline at end of file
+}
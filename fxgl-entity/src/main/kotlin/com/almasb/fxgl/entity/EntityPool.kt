@@ -0,0 +1,127 @@
+/*
+ * FXGL - JavaFX Game Library. The MIT License (MIT).
+ * Copyright (c) AlmasB (almaslvl@gmail.com).
+ * See LICENSE for details.
+ */
+
+package com.almasb.fxgl.entity
+
+import com.almasb.fxgl.core.util.tryCatchRoot
+import java.util.*
+import java.util.function.Function
+
+/**
+ * Entities of a single spawn name, whose factory method is annotated with [Preload],
+ * if [GameWorld.isEntityPoolingEnabled] is true.
+ * Entities removed from the world are returned to the pool (in the next world tick) and are reused
+ * by subsequent spawns, so the factory method only runs when the pool is empty.
+ *
+ * A reused entity keeps its components.
+ * Its position and properties are set from the new spawn data,
+ * its rotation, scale, opacity and visibility are restored to the values after it was created
+ * and then [com.almasb.fxgl.entity.component.Component.onReset] is called on its components.
+ * Since the factory method does not run again, any other per-spawn state (e.g. a random position)
+ * must come from the spawn data or be set in onReset.
+ *
+ * @author Almas Baimagambetov (almaslvl@gmail.com)
+ */
+class EntityPool internal constructor(
+        val spawnName: String,
+        private val spawner: Function<SpawnData, Entity>) {
+
+    private val freeEntities = ArrayDeque<Entity>()
+
+    /**
+     * State of each entity created by this pool, as it was after the factory method.
+     * Weak keys, since created entities may be discarded by the user without ever being added to the world.
+     */
+    private val initialStates = WeakHashMap<Entity, InitialState>()
+
+    /**
+     * @return number of entities in the pool, ready to be reused
+     */
+    val size: Int
+        get() = freeEntities.size
+
+    /**
+     * Number of spawns that reused an entity from the pool.
+     */
+    var numHits = 0L
+        private set
+
+    /**
+     * Number of spawns that found the pool empty and ran the factory method.
+     */
+    var numMisses = 0L
+        private set
+
+    /**
+     * Creates [count] entities at 0, 0 and puts them into the pool.
+     */
+    internal fun preload(count: Int) {
+        repeat(count) {
+            freeEntities.addLast(create(SpawnData(0.0, 0.0).put("type", spawnName)))
+        }
+    }
+
+    internal fun obtain(data: SpawnData): Entity {
+        val entity = freeEntities.pollLast()
+
+        if (entity == null) {
+            numMisses++
+            return create(data)
+        }
+
+        numHits++
+
+        initialStates[entity]?.restore(entity)
+
+        entity.setPosition(data.x, data.y)
+        data.data.forEach { (key, value) -> entity.setProperty(key, value) }
+
+        entity.reset(data)
+
+        return entity
+    }
+
+    /**
+     * Returns the (recycled) entity to the pool.
+     */
+    internal fun free(entity: Entity) {
+        freeEntities.addLast(entity)
+    }
+
+    internal fun clear() {
+        freeEntities.clear()
+        initialStates.clear()
+    }
+
+    private fun create(data: SpawnData): Entity {
+        val entity = tryCatchRoot { spawner.apply(data) }
+        entity.pool = this
+
+        initialStates[entity] = InitialState(entity)
+
+        return entity
+    }
+
+    override fun toString(): String {
+        return "EntityPool($spawnName, size=$size, hits=$numHits, misses=$numMisses)"
+    }
+
+    private class InitialState(entity: Entity) {
+        private val rotation = entity.rotation
+        private val scaleX = entity.scaleX
+        private val scaleY = entity.scaleY
+        private val opacity = entity.opacity
+        private val isVisible = entity.isVisible
+
+        fun restore(entity: Entity) {
+            entity.rotation = rotation
+            entity.scaleX = scaleX
+            entity.scaleY = scaleY
+            entity.opacity = opacity
+            entity.isVisible = isVisible
+        }
+    }
+}
@@ -0,0 +1,225 @@
+/*
+ * FXGL - JavaFX Game Library. The MIT License (MIT).
+ * Copyright (c) AlmasB (almaslvl@gmail.com).
+ * See LICENSE for details.
+ */
+
+package com.almasb.fxgl.entity
+
+import com.almasb.fxgl.entity.component.Component
+import com.almasb.fxgl.entity.component.ComponentListener
+import com.almasb.fxgl.entity.component.CoreComponent
+import com.almasb.fxgl.entity.components.IDComponent
+import javafx.beans.value.ChangeListener
+import java.io.Serializable
+import java.util.function.Consumer
+
+/**
+ * Indices of entities in the world by type, by component class and by [IDComponent],
+ * kept in sync as entities are added to / removed from the world and as their type and components change.
+ * Only enum types are indexed, since type queries take enums.
+ * Core components are not indexed, since every entity has them.
+ * Groups registered by type are updated along with the type index.
+ *
+ * @author Almas Baimagambetov (almaslvl@gmail.com)
+ */
+internal class EntityQueryIndex : EntityWorldListener, ComponentListener {
+
+    val byType = EntityIndex<Enum<*>> { entity, type -> entity.isType(type) }
+
+    val byComponent = EntityIndex<Class<out Component>> { entity, type -> entity.hasComponent(type) }
+
+    private val byID = hashMapOf<String, HashMap<Int, Entity>>()
+
+    private val typeListeners = hashMapOf<Entity, ChangeListener<Serializable>>()
+
+    private val groupsByType = hashMapOf<Enum<*>, ArrayList<EntityGroup>>()
+
+    override fun onEntityAdded(entity: Entity) {
+        addType(entity.type, entity)
+
+        entity.components.forEach { onAdded(it) }
+        entity.addComponentListener(this)
+
+        val listener = ChangeListener<Serializable> { _, oldType, newType ->
+            removeType(oldType, entity)
+            addType(newType, entity)
+        }
+
+        entity.typeComponent.valueProperty().addListener(listener)
+        typeListeners[entity] = listener
+    }
+
+    override fun onEntityRemoved(entity: Entity) {
+        typeListeners.remove(entity)?.let { entity.typeComponent.valueProperty().removeListener(it) }
+
+        entity.removeComponentListener(this)
+        entity.components.forEach { onRemoved(it) }
+
+        removeType(entity.type, entity)
+    }
+
+    private fun addType(type: Serializable, entity: Entity) {
+        if (type is Enum<*>) {
+            byType.add(type, entity)
+
+            groupsByType[type]?.forEach { it.add(entity) }
+        }
+    }
+
+    private fun removeType(type: Serializable, entity: Entity) {
+        if (type is Enum<*>) {
+            byType.remove(type, entity)
+
+            groupsByType[type]?.forEach { it.remove(entity) }
+        }
+    }
+
+    override fun onAdded(component: Component) {
+        val type = component.javaClass
+
+        if (type.isAnnotationPresent(CoreComponent::class.java))
+            return
+
+        byComponent.add(type, component.entity)
+
+        if (component is IDComponent) {
+            byID.getOrPut(component.name) { hashMapOf() }[component.id] = component.entity
+        }
+    }
+
+    override fun onRemoved(component: Component) {
+        val type = component.javaClass
+
+        if (type.isAnnotationPresent(CoreComponent::class.java))
+            return
+
+        byComponent.remove(type, component.entity)
+
+        if (component is IDComponent) {
+            val ids = byID[component.name] ?: return
+
+            // only remove if not replaced by another entity with the same (non-unique) id
+            if (ids[component.id] === component.entity) {
+                ids.remove(component.id)
+            }
+        }
+    }
+
+    fun getByID(name: String, id: Int): Entity? = byID[name]?.get(id)
+
+    fun addGroup(group: EntityGroup) {
+        group.types.forEach { groupsByType.getOrPut(it) { arrayListOf() }.add(group) }
+    }
+
+    fun removeGroup(group: EntityGroup) {
+        group.types.forEach { groupsByType[it]?.remove(group) }
+    }
+
+    fun clear() {
+        typeListeners.forEach { (entity, listener) ->
+            entity.typeComponent.valueProperty().removeListener(listener)
+            entity.removeComponentListener(this)
+        }
+
+        typeListeners.clear()
+        byType.clear()
+        byComponent.clear()
+        byID.clear()
+        groupsByType.clear()
+    }
+}
+
+/**
+ * Entities grouped by key, in the order they were added.
+ * Updates made while entities are being visited are deferred until the (outermost) visit ends,
+ * so that the visitor can add / remove entities or change their components.
+ * Until then, visits and queries skip entities that no longer match their key.
+ */
+internal class EntityIndex<K : Any>(private val matches: (Entity, K) -> Boolean) {
+
+    private val buckets = hashMapOf<K, LinkedHashSet<Entity>>()
+
+    private var numVisits = 0
+
+    private val pendingUpdates = arrayListOf<PendingUpdate<K>>()
+
+    fun add(key: K, entity: Entity) {
+        if (numVisits > 0) {
+            pendingUpdates.add(PendingUpdate(true, key, entity))
+            return
+        }
+
+        buckets.getOrPut(key) { LinkedHashSet() }.add(entity)
+    }
+
+    fun remove(key: K, entity: Entity) {
+        if (numVisits > 0) {
+            pendingUpdates.add(PendingUpdate(false, key, entity))
+            return
+        }
+
+        buckets[key]?.remove(entity)
+    }
+
+    /**
+     * @return number of entities with given key (including those pending removal during a visit)
+     */
+    fun size(key: K): Int = buckets[key]?.size ?: 0
+
+    fun first(key: K): Entity? {
+        val bucket = buckets[key] ?: return null
+
+        return bucket.find { isValid(it, key) }
+    }
+
+    fun forEach(key: K, action: Consumer<Entity>) {
+        val bucket = buckets[key] ?: return
+
+        numVisits++
+
+        try {
+            bucket.forEach {
+                if (isValid(it, key)) {
+                    action.accept(it)
+                }
+            }
+        } finally {
+            numVisits--
+
+            if (numVisits == 0 && pendingUpdates.isNotEmpty()) {
+                applyPendingUpdates()
+            }
+        }
+    }
+
+    fun collect(key: K, result: MutableList<Entity>) {
+        forEach(key, Consumer { result.add(it) })
+    }
+
+    fun clear() {
+        buckets.clear()
+        pendingUpdates.clear()
+    }
+
+    /**
+     * Buckets are exact unless there are pending updates, so only check entities in that case.
+     */
+    private fun isValid(entity: Entity, key: K): Boolean {
+        return pendingUpdates.isEmpty() || (entity.isActive && matches(entity, key))
+    }
+
+    private fun applyPendingUpdates() {
+        pendingUpdates.forEach {
+            if (it.isAdd) {
+                add(it.key, it.entity)
+            } else {
+                remove(it.key, it.entity)
+            }
+        }
+
+        pendingUpdates.clear()
+    }
+
+    private class PendingUpdate<K>(val isAdd: Boolean, val key: K, val entity: Entity)
+}
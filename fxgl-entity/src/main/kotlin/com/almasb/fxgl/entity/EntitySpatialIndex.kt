@@ -0,0 +1,459 @@
+/*
+ * FXGL - JavaFX Game Library. The MIT License (MIT).
+ * Copyright (c) AlmasB (almaslvl@gmail.com).
+ * See LICENSE for details.
+ */
+
+package com.almasb.fxgl.entity
+
+import com.almasb.fxgl.core.collection.UnorderedArray
+import javafx.beans.InvalidationListener
+import javafx.beans.Observable
+
+/**
+ * Places entities into a uniform grid of square cells, so that spatial queries only visit entities in nearby cells.
+ * An entity is placed into all cells covered by its position, its bounding box and its scaled / rotated hit boxes,
+ * hence every spatial query of the world can be answered from the cells.
+ * Cells of an entity are only recomputed (before the next query) after its transform or bounding box changed.
+ * Entities that span too many cells (e.g. large static walls) are kept aside and visited by every query.
+ *
+ * @author Almas Baimagambetov (almaslvl@gmail.com)
+ */
+internal class EntitySpatialIndex(val cellSize: Double) : EntityWorldListener {
+
+    companion object {
+        private const val MAX_CELLS_PER_ENTITY = 64
+    }
+
+    private val entries = hashMapOf<Entity, Entry>()
+    private val dirtyEntries = ArrayList<Entry>()
+    private val oversized = UnorderedArray<Entry>(16)
+
+    private val cellMap = hashMapOf<Long, Cell>()
+    private val cells = UnorderedArray<Cell>(128)
+    private val freeCells = UnorderedArray<Cell>(128)
+
+    /**
+     * Cell range that has ever been occupied, bounds the search of nearest queries.
+     */
+    private var minOccupiedX = Int.MAX_VALUE
+    private var minOccupiedY = Int.MAX_VALUE
+    private var maxOccupiedX = Int.MIN_VALUE
+    private var maxOccupiedY = Int.MIN_VALUE
+
+    /**
+     * Incremented every query, so that entities spanning multiple cells are only visited once.
+     */
+    private var stamp = 0
+
+    private val bounds = DoubleArray(4)
+
+    init {
+        require(cellSize > 0) { "Cell size must be positive: $cellSize" }
+    }
+
+    val size: Int
+        get() = entries.size
+
+    override fun onEntityAdded(entity: Entity) {
+        val entry = Entry(entity)
+        entries[entity] = entry
+
+        entry.setListening(true)
+        update(entry)
+    }
+
+    override fun onEntityRemoved(entity: Entity) {
+        val entry = entries.remove(entity) ?: return
+
+        entry.setListening(false)
+        entry.isRemoved = true
+
+        removeFromCells(entry)
+    }
+
+    fun clear() {
+        entries.values.forEach { it.setListening(false) }
+        entries.clear()
+
+        dirtyEntries.clear()
+        oversized.clear()
+        cellMap.clear()
+        cells.clear()
+        freeCells.clear()
+
+        minOccupiedX = Int.MAX_VALUE
+        minOccupiedY = Int.MAX_VALUE
+        maxOccupiedX = Int.MIN_VALUE
+        maxOccupiedY = Int.MIN_VALUE
+    }
+
+    /**
+     * Computes bounds (min x, min y, max x, max y) of the entity as used by this index:
+     * bounds that contain the entity's position, bounding box and scaled / rotated hit boxes.
+     */
+    fun computeBounds(entity: Entity, result: DoubleArray) {
+        val bbox = entity.boundingBoxComponent
+        val x = entity.x
+        val y = entity.y
+
+        bbox.computeTransformedBoundsWorld(result)
+
+        result[0] = minOf(result[0], x + bbox.getMinXLocal(), x)
+        result[1] = minOf(result[1], y + bbox.getMinYLocal(), y)
+        result[2] = maxOf(result[2], x + bbox.getMinXLocal() + bbox.getWidth(), x)
+        result[3] = maxOf(result[3], y + bbox.getMinYLocal() + bbox.getHeight(), y)
+    }
+
+    /**
+     * Visits each entity whose cells overlap given bounds (at least once, at most once).
+     * The action must not add or remove entities.
+     */
+    fun forEachInBounds(minX: Double, minY: Double, maxX: Double, maxY: Double, action: (Entity) -> Unit) {
+        flush()
+
+        stamp++
+
+        val minCellX = toCell(minX)
+        val minCellY = toCell(minY)
+        val maxCellX = toCell(maxX)
+        val maxCellY = toCell(maxY)
+
+        val numQueryCells = (maxCellX.toLong() - minCellX + 1) * (maxCellY.toLong() - minCellY + 1)
+
+        if (numQueryCells > cells.size()) {
+            // the query covers more cells than are occupied, so only visit the occupied ones
+            for (i in 0 until cells.size()) {
+                val cell = cells.get(i)
+
+                if (cell.x in minCellX..maxCellX && cell.y in minCellY..maxCellY) {
+                    visit(cell, action)
+                }
+            }
+        } else {
+            for (x in minCellX..maxCellX) {
+                for (y in minCellY..maxCellY) {
+                    cellMap[key(x, y)]?.let { visit(it, action) }
+                }
+            }
+        }
+
+        for (i in 0 until oversized.size()) {
+            visit(oversized.get(i), action)
+        }
+    }
+
+    /**
+     * Collects up to [result].k entities closest (by position) to x, y that satisfy the filter.
+     * Searches rings of cells around x, y until no unvisited cell can contain a closer entity.
+     */
+    fun findClosest(x: Double, y: Double, filter: (Entity) -> Boolean, result: ClosestEntities) {
+        flush()
+
+        stamp++
+
+        val action: (Entity) -> Unit = {
+            if (filter(it)) {
+                result.offer(it, distance(it, x, y))
+            }
+        }
+
+        for (i in 0 until oversized.size()) {
+            visit(oversized.get(i), action)
+        }
+
+        if (cells.isEmpty())
+            return
+
+        val cellX = toCell(x)
+        val cellY = toCell(y)
+
+        val maxRadius = maxOf(
+                maxOf(Math.abs(cellX.toLong() - minOccupiedX), Math.abs(maxOccupiedX.toLong() - cellX)),
+                maxOf(Math.abs(cellY.toLong() - minOccupiedY), Math.abs(maxOccupiedY.toLong() - cellY))
+        )
+
+        var r = 0L
+
+        while (r <= maxRadius) {
+            val numSearchedCells = (2 * r + 1) * (2 * r + 1)
+
+            if (numSearchedCells > cells.size()) {
+                // searching further rings costs more than visiting all occupied cells
+                for (i in 0 until cells.size()) {
+                    visit(cells.get(i), action)
+                }
+                return
+            }
+
+            visitRing(cellX, cellY, r.toInt(), action)
+
+            if (result.isFull) {
+                // distance from x, y to the nearest cell outside the searched square
+                val searchedDistance = minOf(
+                        minOf(x - (cellX - r) * cellSize, (cellX + r + 1) * cellSize - x),
+                        minOf(y - (cellY - r) * cellSize, (cellY + r + 1) * cellSize - y)
+                )
+
+                if (result.maxDistance <= searchedDistance)
+                    return
+            }
+
+            r++
+        }
+    }
+
+    private fun visitRing(cellX: Int, cellY: Int, r: Int, action: (Entity) -> Unit) {
+        if (r == 0) {
+            cellMap[key(cellX, cellY)]?.let { visit(it, action) }
+            return
+        }
+
+        for (x in cellX - r..cellX + r) {
+            cellMap[key(x, cellY - r)]?.let { visit(it, action) }
+            cellMap[key(x, cellY + r)]?.let { visit(it, action) }
+        }
+
+        for (y in cellY - r + 1 until cellY + r) {
+            cellMap[key(cellX - r, y)]?.let { visit(it, action) }
+            cellMap[key(cellX + r, y)]?.let { visit(it, action) }
+        }
+    }
+
+    private fun visit(cell: Cell, action: (Entity) -> Unit) {
+        for (i in 0 until cell.entries.size()) {
+            visit(cell.entries.get(i), action)
+        }
+    }
+
+    private fun visit(entry: Entry, action: (Entity) -> Unit) {
+        if (entry.stamp != stamp) {
+            entry.stamp = stamp
+            action(entry.entity)
+        }
+    }
+
+    /**
+     * Recomputes cells of entities that moved since the last query.
+     */
+    private fun flush() {
+        for (i in dirtyEntries.indices) {
+            val entry = dirtyEntries[i]
+            entry.isDirty = false
+
+            if (!entry.isRemoved) {
+                update(entry)
+            }
+        }
+
+        dirtyEntries.clear()
+    }
+
+    private fun update(entry: Entry) {
+        computeBounds(entry.entity, bounds)
+
+        val minCellX = toCell(bounds[0])
+        val minCellY = toCell(bounds[1])
+        val maxCellX = toCell(bounds[2])
+        val maxCellY = toCell(bounds[3])
+
+        if (entry.isInserted
+                && entry.minCellX == minCellX && entry.minCellY == minCellY
+                && entry.maxCellX == maxCellX && entry.maxCellY == maxCellY) {
+            return
+        }
+
+        removeFromCells(entry)
+
+        entry.minCellX = minCellX
+        entry.minCellY = minCellY
+        entry.maxCellX = maxCellX
+        entry.maxCellY = maxCellY
+
+        insertIntoCells(entry)
+    }
+
+    private fun insertIntoCells(entry: Entry) {
+        val numCells = (entry.maxCellX.toLong() - entry.minCellX + 1) * (entry.maxCellY.toLong() - entry.minCellY + 1)
+
+        if (numCells > MAX_CELLS_PER_ENTITY) {
+            entry.isOversized = true
+            oversized.add(entry)
+        } else {
+            for (x in entry.minCellX..entry.maxCellX) {
+                for (y in entry.minCellY..entry.maxCellY) {
+                    obtainCell(x, y).entries.add(entry)
+                }
+            }
+
+            minOccupiedX = minOf(minOccupiedX, entry.minCellX)
+            minOccupiedY = minOf(minOccupiedY, entry.minCellY)
+            maxOccupiedX = maxOf(maxOccupiedX, entry.maxCellX)
+            maxOccupiedY = maxOf(maxOccupiedY, entry.maxCellY)
+        }
+
+        entry.isInserted = true
+    }
+
+    private fun removeFromCells(entry: Entry) {
+        if (!entry.isInserted)
+            return
+
+        if (entry.isOversized) {
+            entry.isOversized = false
+            oversized.removeValueByIdentity(entry)
+        } else {
+            for (x in entry.minCellX..entry.maxCellX) {
+                for (y in entry.minCellY..entry.maxCellY) {
+                    val cell = cellMap[key(x, y)]!!
+                    cell.entries.removeValueByIdentity(entry)
+
+                    if (cell.entries.isEmpty()) {
+                        freeCell(cell)
+                    }
+                }
+            }
+        }
+
+        entry.isInserted = false
+    }
+
+    private fun obtainCell(x: Int, y: Int): Cell {
+        val key = key(x, y)
+
+        cellMap[key]?.let { return it }
+
+        val cell = if (freeCells.isEmpty()) Cell() else freeCells.pop()
+        cell.x = x
+        cell.y = y
+        cell.index = cells.size()
+
+        cellMap[key] = cell
+        cells.add(cell)
+
+        return cell
+    }
+
+    private fun freeCell(cell: Cell) {
+        cellMap.remove(key(cell.x, cell.y))
+
+        cells.removeIndex(cell.index)
+
+        // the last cell has been moved into the removed slot
+        if (cell.index < cells.size()) {
+            cells.get(cell.index).index = cell.index
+        }
+
+        freeCells.add(cell)
+    }
+
+    private fun toCell(value: Double): Int = Math.floor(value / cellSize).toInt()
+
+    private fun key(x: Int, y: Int): Long {
+        // same hashing as SpatialHashBroadphase, so that neighbouring cells do not collide
+        return ((x * -0x61c88647).toLong() shl 32) or (y.toLong() and 0xFFFFFFFFL)
+    }
+
+    private fun distance(entity: Entity, x: Double, y: Double): Double {
+        val dx = entity.x - x
+        val dy = entity.y - y
+        return Math.sqrt(dx * dx + dy * dy)
+    }
+
+    /**
+     * Marks itself dirty when any property that affects the bounds of the entity changes.
+     */
+    private inner class Entry(val entity: Entity) : InvalidationListener {
+
+        var minCellX = 0
+        var minCellY = 0
+        var maxCellX = 0
+        var maxCellY = 0
+
+        var isInserted = false
+        var isOversized = false
+        var isDirty = false
+        var isRemoved = false
+
+        var stamp = 0
+
+        override fun invalidated(observable: Observable) {
+            if (!isDirty) {
+                isDirty = true
+                dirtyEntries.add(this)
+            }
+        }
+
+        fun setListening(isListening: Boolean) {
+            val t = entity.transformComponent
+            val bbox = entity.boundingBoxComponent
+
+            val properties = arrayOf<Observable>(
+                    t.xProperty(), t.yProperty(), t.angleProperty(), t.scaleXProperty(), t.scaleYProperty(),
+                    t.scaleOriginXProperty(), t.scaleOriginYProperty(), t.rotationOriginXProperty(), t.rotationOriginYProperty(),
+                    bbox.minXLocalProperty(), bbox.minYLocalProperty(), bbox.widthProperty(), bbox.heightProperty()
+            )
+
+            properties.forEach {
+                if (isListening) it.addListener(this) else it.removeListener(this)
+            }
+        }
+    }
+
+    private class Cell {
+        val entries = UnorderedArray<Entry>(8)
+
+        var x = 0
+        var y = 0
+        var index = 0
+    }
+}
+
+/**
+ * Keeps up to [k] entities with the smallest distances offered, sorted by distance,
+ * without sorting all offered entities.
+ * Storage grows with the number of kept entities, so [k] may be arbitrarily large.
+ */
+internal class ClosestEntities(val k: Int) {
+
+    private val entities = ArrayList<Entity>(minOf(k, INITIAL_CAPACITY))
+    private var distances = DoubleArray(minOf(k, INITIAL_CAPACITY))
+
+    val isFull: Boolean
+        get() = entities.size == k
+
+    /**
+     * Distance of the farthest kept entity.
+     */
+    val maxDistance: Double
+        get() = if (entities.isEmpty()) Double.MAX_VALUE else distances[entities.size - 1]
+
+    fun offer(entity: Entity, distance: Double) {
+        if (k == 0 || (isFull && distance >= maxDistance))
+            return
+
+        if (isFull) {
+            entities.removeAt(k - 1)
+        }
+
+        var i = entities.size
+
+        if (i == distances.size) {
+            distances = distances.copyOf(minOf(k.toLong(), i * 2L).toInt())
+        }
+
+        while (i > 0 && distances[i - 1] > distance) {
+            distances[i] = distances[i - 1]
+            i--
+        }
+
+        distances[i] = distance
+        entities.add(i, entity)
+    }
+
+    fun toList(): List<Entity> = entities
+
+    private companion object {
+        const val INITIAL_CAPACITY = 16
+    }
+}
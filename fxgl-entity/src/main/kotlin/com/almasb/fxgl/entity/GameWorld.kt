@@ -13,7 +13,7 @@ import com.almasb.fxgl.core.math.FXGLMath
 import com.almasb.fxgl.core.reflect.ReflectionUtils
 import com.almasb.fxgl.core.util.tryCatchRoot
 import com.almasb.fxgl.entity.component.Component
-import com.almasb.fxgl.entity.components.IDComponent
+import com.almasb.fxgl.entity.component.CoreComponent
 import com.almasb.fxgl.entity.components.IrremovableComponent
 import com.almasb.fxgl.entity.components.TimeComponent
 import com.almasb.fxgl.entity.level.Level
@@ -21,6 +21,7 @@ import com.almasb.fxgl.logging.Logger
 import javafx.geometry.Point2D
 import javafx.geometry.Rectangle2D
 import java.util.*
+import java.util.function.Consumer
 import java.util.function.Function
 import java.util.function.Predicate
 import kotlin.NoSuchElementException
@@ -47,6 +48,16 @@ class GameWorld {
      */
     private val waitingList = UnorderedArray<Entity>()
 
+    /**
+     * Indices for type, component and ID queries.
+     */
+    private val queryIndex = EntityQueryIndex()
+
+    /**
+     * Optional index for spatial queries.
+     */
+    private var spatialIndex: EntitySpatialIndex? = null
+
     /**
      * List of entities in the world.
      *
@@ -146,7 +157,7 @@ class GameWorld {
 
             if (!e.isActive) {
                 // clean entities removed in the last frame
-                e.clean()
+                cleanOrRecycle(e)
                 it.remove()
             } else {
                 val tpfRatio = e.getComponentOptional(TimeComponent::class.java)
@@ -158,6 +169,20 @@ class GameWorld {
         }
     }
 
+    /**
+     * Returns pooled entities to their pool, cleans the rest.
+     */
+    private fun cleanOrRecycle(entity: Entity) {
+        val pool = entity.pool
+
+        if (pool != null && entityPools[pool.spawnName] === pool) {
+            entity.recycle()
+            pool.free(entity)
+        } else {
+            entity.clean()
+        }
+    }
+
     /**
      * Resets this game world to its original state (as if newly constructed) by
      * removing all (including with IrremovableComponent) entities, properties, entity factories and world listeners.
@@ -193,8 +218,12 @@ class GameWorld {
 
         properties.clear()
         entities.clear()
+        queryIndex.clear()
+        spatialIndex?.clear()
         entityFactories.clear()
         entitySpawners.clear()
+        entityPools.values.forEach { it.clear() }
+        entityPools.clear()
         worldListeners.clear()
     }
 
@@ -209,10 +238,15 @@ class GameWorld {
     }
 
     private fun notifyEntityAdded(e: Entity) {
+        // index first, so that listeners can query the world
+        queryIndex.onEntityAdded(e)
+        spatialIndex?.onEntityAdded(e)
         worldListeners.forEach { it.onEntityAdded(e) }
     }
 
     private fun notifyEntityRemoved(e: Entity) {
+        queryIndex.onEntityRemoved(e)
+        spatialIndex?.onEntityRemoved(e)
         worldListeners.forEach { it.onEntityRemoved(e) }
     }
 
@@ -248,7 +282,7 @@ class GameWorld {
                 if (canRemove(e)) {
                     if (!e.isActive) {
                         // clean it here because "entities" list does not have "e"
-                        e.clean()
+                        cleanOrRecycle(e)
                     }
 
                     it.remove()
@@ -265,7 +299,7 @@ class GameWorld {
             if (canRemove(e)) {
                 e.markForRemoval()
                 notifyEntityRemoved(e)
-                e.clean()
+                cleanOrRecycle(e)
 
                 it.remove()
             }
@@ -279,6 +313,18 @@ class GameWorld {
      */
     private val entitySpawners = hashMapOf<String, Function<SpawnData, Entity>>()
 
+    /**
+     * Maps entity spawn name to the pool of entities, for spawners annotated with [Preload].
+     */
+    private val entityPools = hashMapOf<String, EntityPool>()
+
+    /**
+     * If true, entities spawned by factory methods annotated with [Preload] are pooled, see [EntityPool].
+     * Only affects entity factories added after this is set.
+     * Default: false.
+     */
+    var isEntityPoolingEnabled = false
+
     /**
      * @param entityFactory factory for creating entities
      */
@@ -287,7 +333,7 @@ class GameWorld {
 
         ReflectionUtils.findMethodsMapToFunctions<SpawnData, Entity, Spawns>(entityFactory, Spawns::class.java)
                 .forEach { annotation, entitySpawner ->
-                    
+
                     val entityAliases = annotation.value.split(",".toRegex())
                     entityAliases.forEach { entityName ->
                         checkDuplicateSpawners(entityFactory, entityName)
@@ -297,18 +343,31 @@ class GameWorld {
                     }
                 }
 
-//        ReflectionUtils.findMethods(entityFactory, Preload::class.java)
-//                .forEach { preload, method ->
-//
-//                    val ann = method.getDeclaredAnnotation(Spawns::class.java)
-//                    val entityAliases = ann.value.split(",".toRegex())
-//
-//                    val numToPreload = preload.value
-//
-//                    entityPreloader.addForPreloading(entityAliases, numToPreload)
-//                }
-
         entityFactories.put(entityFactory, entityNames)
+
+        if (isEntityPoolingEnabled) {
+            addEntityPools(entityFactory)
+        }
+    }
+
+    private fun addEntityPools(entityFactory: EntityFactory) {
+        // not using ReflectionUtils.findMethods since methods with equal @Preload would collide
+        entityFactory.javaClass.declaredMethods
+                .filter { it.isAnnotationPresent(Preload::class.java) && it.isAnnotationPresent(Spawns::class.java) }
+                .forEach { method ->
+                    val numToPreload = method.getDeclaredAnnotation(Preload::class.java).value
+
+                    method.getDeclaredAnnotation(Spawns::class.java).value.split(",".toRegex()).forEach { entityName ->
+                        val spawner = entitySpawners[entityName] ?: return@forEach
+
+                        val pool = EntityPool(entityName, spawner)
+                        entityPools[entityName] = pool
+
+                        log.debug("Preloading $numToPreload entities: $entityName")
+
+                        pool.preload(numToPreload)
+                    }
+                }
     }
 
     private fun checkDuplicateSpawners(entityFactory: EntityFactory, entityName: String) {
@@ -324,9 +383,18 @@ class GameWorld {
     fun removeEntityFactory(entityFactory: EntityFactory) {
         entityFactories.remove(entityFactory)?.forEach {
             entitySpawners.remove(it)
+            entityPools.remove(it)?.clear()
         }
     }
 
+    /**
+     * @param entityName name of entity as specified by [Spawns]
+     * @return pool of entities with given name if the spawner is annotated with [Preload], else empty
+     */
+    fun getEntityPool(entityName: String): Optional<EntityPool> {
+        return Optional.ofNullable(entityPools[entityName])
+    }
+
     /**
      * Creates an entity with given name at 0, 0 using a previously added entity factory.
      * Adds created entity to this game world.
@@ -379,6 +447,7 @@ class GameWorld {
 
     /**
      * Creates an entity with given name and data using a previously added entity factory.
+     * If the factory method is annotated with [Preload], the entity is reused from the pool when possible.
      * Does NOT add created entity to the game world.
      *
      * @param entityName name of entity as specified by [Spawns]
@@ -395,17 +464,43 @@ class GameWorld {
             data.put("type", entityName)
         }
 
-//        if (entityPreloader.isPreloadingEnabled(entityName)) {
-//            return entityPreloader.obtain(entityName, data)
-//        }
+        val pool = entityPools[entityName]
+        if (pool != null) {
+            return pool.obtain(data)
+        }
 
         return tryCatchRoot { spawner.apply(data) }
     }
 
     /* QUERIES */
 
+    /**
+     * Enables a spatial index (a uniform grid of cells) that backs range, point, colliding and closest entity queries,
+     * so that these only visit entities near the queried area, rather than all entities.
+     * The index is kept up to date as entities move, so it pays off with many entities and frequent queries.
+     * If already enabled, the index is rebuilt with given cell size.
+     *
+     * @param cellSize size of a cell in pixels, ideally close to the size of a typical entity or query range
+     */
+    fun enableSpatialIndex(cellSize: Double) {
+        spatialIndex?.clear()
+
+        val index = EntitySpatialIndex(cellSize)
+        entities.forEach { index.onEntityAdded(it) }
+
+        spatialIndex = index
+    }
+
+    fun disableSpatialIndex() {
+        spatialIndex?.clear()
+        spatialIndex = null
+    }
+
+    val isSpatialIndexEnabled: Boolean
+        get() = spatialIndex != null
+
     fun getSingleton(type: Enum<*>): Entity {
-        return getSingleton(Predicate { it.isType(type) })
+        return queryIndex.byType.first(type) ?: throw NoSuchElementException("No entity found with type $type")
     }
 
     fun getSingleton(predicate: Predicate<Entity>): Entity {
@@ -418,7 +513,7 @@ class GameWorld {
      * @return first occurrence matching given type
      */
     fun getSingletonOptional(type: Enum<*>): Optional<Entity> {
-        return getSingletonOptional(Predicate { it.isType(type) })
+        return Optional.ofNullable(queryIndex.byType.first(type))
     }
 
     /**
@@ -445,7 +540,30 @@ class GameWorld {
      * @return array of entities that have given component
      */
     fun getEntitiesByComponent(type: Class<out Component>): List<Entity> {
-        return entities.filter { it.hasComponent(type) }
+        // core components are not indexed, all entities have them
+        if (type.isAnnotationPresent(CoreComponent::class.java))
+            return entitiesCopy
+
+        val result = ArrayList<Entity>(queryIndex.byComponent.size(type))
+        queryIndex.byComponent.collect(type, result)
+        return result
+    }
+
+    /**
+     * Calls [action] for each entity that has given component, without allocating a list.
+     * The action may add / remove entities and components, but such changes are only
+     * visible to queries after the (outermost) visit has finished.
+     *
+     * @param type component type
+     * @param action the action to call
+     */
+    fun forEachEntityByComponent(type: Class<out Component>, action: Consumer<Entity>) {
+        if (type.isAnnotationPresent(CoreComponent::class.java)) {
+            entitiesCopy.forEach { action.accept(it) }
+            return
+        }
+
+        queryIndex.byComponent.forEach(type, action)
     }
 
     /**
@@ -469,11 +587,24 @@ class GameWorld {
         if (types.isEmpty())
             return entitiesCopy
 
-        return entities.filter { isOneOfTypes(it, *types) }
+        val result = ArrayList<Entity>(types.sumBy { queryIndex.byType.size(it) })
+
+        // types are distinct per entity, so no entity is collected twice, unless the same type is passed twice
+        types.distinct().forEach { queryIndex.byType.collect(it, result) }
+
+        return result
     }
 
-    private fun isOneOfTypes(entity: Entity, vararg types: Enum<*>): Boolean {
-        return types.any { entity.isType(it) }
+    /**
+     * Calls [action] for each entity with given type, without allocating a list.
+     * The action may add / remove entities and components, but such changes are only
+     * visible to queries after the (outermost) visit has finished.
+     *
+     * @param type entity type
+     * @param action the action to call
+     */
+    fun forEachEntityByType(type: Enum<*>, action: Consumer<Entity>) {
+        queryIndex.byType.forEach(type, action)
     }
 
     /**
@@ -486,7 +617,46 @@ class GameWorld {
      * @return new list containing entities that satisfy query filters
      */
     fun getEntitiesInRange(selection: Rectangle2D): List<Entity> {
-        return entities.filter { it.boundingBoxComponent.isWithin(selection) }
+        val index = spatialIndex ?: return entities.filter { it.boundingBoxComponent.isWithin(selection) }
+
+        val result = ArrayList<Entity>()
+
+        index.forEachInBounds(selection.minX, selection.minY, selection.maxX, selection.maxY) {
+            if (it.boundingBoxComponent.isWithin(selection)) {
+                result.add(it)
+            }
+        }
+
+        return result
+    }
+
+    /**
+     * Returns a list of entities whose position is within given radius from center, e.g. for explosions.
+     * Position is the same as used by [Entity.distance].
+     *
+     * @param center center of the circle
+     * @param radius radius of the circle
+     * @return new list containing entities that satisfy query filters
+     */
+    fun getEntitiesInRadius(center: Point2D, radius: Double): List<Entity> {
+        val radiusSquared = radius * radius
+        val isInRadius = { e: Entity ->
+            val dx = e.x - center.x
+            val dy = e.y - center.y
+            dx * dx + dy * dy <= radiusSquared
+        }
+
+        val index = spatialIndex ?: return entities.filter(isInRadius)
+
+        val result = ArrayList<Entity>()
+
+        index.forEachInBounds(center.x - radius, center.y - radius, center.x + radius, center.y + radius) {
+            if (isInRadius(it)) {
+                result.add(it)
+            }
+        }
+
+        return result
     }
 
     /**
@@ -499,7 +669,20 @@ class GameWorld {
      * @return new list containing entities that satisfy query filters
      */
     fun getCollidingEntities(entity: Entity): List<Entity> {
-        return entities.filter { it.isColliding(entity) && it !== entity }
+        val index = spatialIndex ?: return entities.filter { it.isColliding(entity) && it !== entity }
+
+        val bounds = DoubleArray(4)
+        index.computeBounds(entity, bounds)
+
+        val result = ArrayList<Entity>()
+
+        index.forEachInBounds(bounds[0], bounds[1], bounds[2], bounds[3]) {
+            if (it !== entity && it.isColliding(entity)) {
+                result.add(it)
+            }
+        }
+
+        return result
     }
 
     /**
@@ -510,7 +693,17 @@ class GameWorld {
      * @return entities at given point
      */
     fun getEntitiesAt(position: Point2D): List<Entity> {
-        return entities.filter { it.position == position }
+        val index = spatialIndex ?: return entities.filter { it.position == position }
+
+        val result = ArrayList<Entity>()
+
+        index.forEachInBounds(position.x, position.y, position.x, position.y) {
+            if (it.position == position) {
+                result.add(it)
+            }
+        }
+
+        return result
     }
 
     /**
@@ -527,12 +720,49 @@ class GameWorld {
      */
     fun getClosestEntity(entity: Entity, filter: Predicate<Entity>): Optional<Entity> {
         return Optional.ofNullable(
-                entities.filter { filter.test(it) && it !== entity }
-                        .sortedBy { entity.distance(it) }
-                        .firstOrNull()
+                findClosestEntities(entity.x, entity.y, 1, Predicate { it !== entity && filter.test(it) }).firstOrNull()
         )
     }
 
+    /**
+     * Returns up to [k] entities closest to given position (as used by [Entity.distance]) with given filter,
+     * e.g. for target selection.
+     *
+     * @param position the position to measure distance from
+     * @param k max number of entities to return
+     * @param filter requirements
+     * @return new list of closest entities sorted by distance, closest first
+     */
+    fun getClosestEntities(position: Point2D, k: Int, filter: Predicate<Entity>): List<Entity> {
+        return ArrayList(findClosestEntities(position.x, position.y, k, filter))
+    }
+
+    private fun findClosestEntities(x: Double, y: Double, k: Int, filter: Predicate<Entity>): List<Entity> {
+        require(k >= 0) { "k must not be negative: $k" }
+
+        // no more than all entities can be found
+        val result = ClosestEntities(minOf(k, entities.size))
+
+        if (k == 0)
+            return result.toList()
+
+        val index = spatialIndex
+
+        if (index != null) {
+            index.findClosest(x, y, { filter.test(it) }, result)
+        } else {
+            entities.forEach {
+                if (filter.test(it)) {
+                    val dx = it.x - x
+                    val dy = it.y - y
+                    result.offer(it, Math.sqrt(dx * dx + dy * dy))
+                }
+            }
+        }
+
+        return result.toList()
+    }
+
     /**
      * Returns an entity whose IDComponent matches given name and id.
      *
@@ -545,17 +775,23 @@ class GameWorld {
      * @return entity that matches the query or [Optional.empty]
      */
     fun getEntityByID(name: String, id: Int): Optional<Entity> {
-        return Optional.ofNullable(
-                getEntitiesByComponent(IDComponent::class.java).find {
-                    val idComponent = it.getComponent(IDComponent::class.java)
-
-                    return@find idComponent.name == name && idComponent.id == id
-                }
-        )
+        return Optional.ofNullable(queryIndex.getByID(name, id))
     }
 
     /**
+     * The group is kept up to date by the type index of this world,
+     * including when types of entities change.
+     * Call [EntityGroup.dispose] when the group is no longer needed.
+     *
      * @return entity group of given types
      */
-    fun getGroup(vararg entityTypes: Enum<*>) = EntityGroup(this, getEntitiesByType(*entityTypes), *entityTypes)
+    fun getGroup(vararg entityTypes: Enum<*>): EntityGroup {
+        val group = EntityGroup(this, getEntitiesByType(*entityTypes), true, entityTypes)
+        queryIndex.addGroup(group)
+        return group
+    }
+
+    internal fun removeGroup(group: EntityGroup) {
+        queryIndex.removeGroup(group)
+    }
 }
\ No newline at end of file
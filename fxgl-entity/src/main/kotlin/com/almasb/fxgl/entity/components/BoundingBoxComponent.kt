@@ -389,6 +389,52 @@ class BoundingBoxComponent(vararg boxes: HitBox) :
         return Rectangle2D(minX, minY, maxX - minX, maxY - minY)
     }
 
+    /**
+     * Computes world bounds that contain all hit boxes of this entity, taking scale and rotation into account.
+     * Hit boxes of a rotated entity are bounded by the circle around the rotation origin
+     * that passes through the farthest corner, hence the bounds are conservative.
+     * Does not allocate.
+     *
+     * @param result array to store min x, min y, max x, max y (in that order)
+     */
+    fun computeTransformedBoundsWorld(result: DoubleArray) {
+        val x = transform.x
+        val y = transform.y
+
+        // same transformation as in HitBox.bindXY()
+        val scaleOriginX = transform.scaleOriginXProperty().get()
+        val scaleOriginY = transform.scaleOriginYProperty().get()
+
+        val x1 = scaleOriginX - (scaleOriginX - getMinXLocal()) * transform.scaleX + x
+        val x2 = scaleOriginX - (scaleOriginX - (getMinXLocal() + getWidth())) * transform.scaleX + x
+        val y1 = scaleOriginY - (scaleOriginY - getMinYLocal()) * transform.scaleY + y
+        val y2 = scaleOriginY - (scaleOriginY - (getMinYLocal() + getHeight())) * transform.scaleY + y
+
+        var minX = minOf(x1, x2)
+        var maxX = maxOf(x1, x2)
+        var minY = minOf(y1, y2)
+        var maxY = maxOf(y1, y2)
+
+        if (transform.angle != 0.0) {
+            val originX = transform.rotationOriginXProperty().get() + x
+            val originY = transform.rotationOriginYProperty().get() + y
+
+            val dx = maxOf(Math.abs(minX - originX), Math.abs(maxX - originX))
+            val dy = maxOf(Math.abs(minY - originY), Math.abs(maxY - originY))
+            val radius = Math.sqrt(dx * dx + dy * dy)
+
+            minX = originX - radius
+            maxX = originX + radius
+            minY = originY - radius
+            maxY = originY + radius
+        }
+
+        result[0] = minX
+        result[1] = minY
+        result[2] = maxX
+        result[3] = maxY
+    }
+
     override fun write(bundle: Bundle) {
         bundle.put("hitBoxes", ArrayList(hitBoxes))
     }
@@ -42,8 +42,7 @@ class IDComponent
     }
 
     override fun equals(other: Any?): Boolean {
-        // just assume it's IDComponent
-        return (other as IDComponent).fullID == fullID
+        return other is IDComponent && other.fullID == fullID
     }
 
     override fun toString(): String {
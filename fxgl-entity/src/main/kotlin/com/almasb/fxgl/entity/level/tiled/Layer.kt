@@ -18,9 +18,102 @@ data class Layer(var width: Int = 0,
             var visible: Boolean = false,
             var x: Int = 0,
             var y: Int = 0,
-            var data: List<Int> = arrayListOf(),
+
+            /**
+             * Tile gids, row by row, for layers of finite maps.
+             */
+            var data: IntArray = IntArray(0),
+
+            /**
+             * Tile data of layers of infinite maps, empty for finite maps.
+             */
+            var chunks: List<Chunk> = arrayListOf(),
+
+            /**
+             * Tile x where the layer content starts, non-zero only for infinite maps.
+             */
+            var startx: Int = 0,
+
+            /**
+             * Tile y where the layer content starts, non-zero only for infinite maps.
+             */
+            var starty: Int = 0,
             var objects: List<TiledObject> = arrayListOf(),
             var opacity: Float = 0.0f,
             var draworder: String = "") {
 
-}
\ No newline at end of file
+    // data class equality compares arrays by reference, so tile data is compared by content here
+
+    override fun equals(other: Any?): Boolean {
+        if (this === other) return true
+        if (other !is Layer) return false
+
+        return width == other.width
+                && height == other.height
+                && name == other.name
+                && type == other.type
+                && visible == other.visible
+                && x == other.x
+                && y == other.y
+                && data.contentEquals(other.data)
+                && chunks == other.chunks
+                && startx == other.startx
+                && starty == other.starty
+                && objects == other.objects
+                && opacity == other.opacity
+                && draworder == other.draworder
+    }
+
+    override fun hashCode(): Int {
+        var result = width
+        result = 31 * result + height
+        result = 31 * result + name.hashCode()
+        result = 31 * result + type.hashCode()
+        result = 31 * result + visible.hashCode()
+        result = 31 * result + x
+        result = 31 * result + y
+        result = 31 * result + data.contentHashCode()
+        result = 31 * result + chunks.hashCode()
+        result = 31 * result + startx
+        result = 31 * result + starty
+        result = 31 * result + objects.hashCode()
+        result = 31 * result + opacity.hashCode()
+        result = 31 * result + draworder.hashCode()
+        return result
+    }
+}
+
+/**
+ * Tile data of a rectangular area of an infinite map.
+ * Specification: https://doc.mapeditor.org/en/stable/reference/tmx-map-format/#chunk
+ */
+data class Chunk(var x: Int = 0,
+            var y: Int = 0,
+            var width: Int = 0,
+            var height: Int = 0,
+
+            /**
+             * Tile gids, row by row.
+             */
+            var data: IntArray = IntArray(0)) {
+
+    override fun equals(other: Any?): Boolean {
+        if (this === other) return true
+        if (other !is Chunk) return false
+
+        return x == other.x
+                && y == other.y
+                && width == other.width
+                && height == other.height
+                && data.contentEquals(other.data)
+    }
+
+    override fun hashCode(): Int {
+        var result = x
+        result = 31 * result + y
+        result = 31 * result + width
+        result = 31 * result + height
+        result = 31 * result + data.contentHashCode()
+        return result
+    }
+}
@@ -16,7 +16,6 @@ import com.almasb.fxgl.entity.level.LevelLoadingException
 import com.almasb.fxgl.logging.Logger
 import javafx.scene.paint.Color
 import javafx.scene.shape.Polygon
-import java.io.ByteArrayOutputStream
 import java.io.InputStream
 import java.net.URL
 import java.nio.ByteBuffer
@@ -25,6 +24,7 @@ import java.util.*
 import java.util.zip.GZIPInputStream
 import java.util.zip.InflaterInputStream
 import javax.xml.namespace.QName
+import javax.xml.stream.XMLEventReader
 import javax.xml.stream.XMLInputFactory
 import javax.xml.stream.events.StartElement
 
@@ -40,6 +40,24 @@ class TMXLevelLoader : LevelLoader {
 
     private val log = Logger.get<TMXLevelLoader>()
 
+    private var isObjectStreamingEnabled = false
+    private var objectStreamingDistance = 0.0
+
+    /**
+     * Objects of object layers will not be spawned when the level is loaded.
+     * Instead, an object is spawned when it comes within [distance] pixels of the visible area.
+     * The level then contains a single "TiledMapObjects" entity in place of the object entities,
+     * see [TiledObjectStreamingComponent].
+     */
+    fun enableObjectStreaming(distance: Double) {
+        isObjectStreamingEnabled = true
+        objectStreamingDistance = distance
+    }
+
+    fun disableObjectStreaming() {
+        isObjectStreamingEnabled = false
+    }
+
     override fun load(url: URL, world: GameWorld): Level {
         try {
             val map = url.openStream().use { parse(it) }
@@ -50,7 +68,10 @@ class TMXLevelLoader : LevelLoader {
 
             val tileLayerEntities = createTileLayerEntities(map, tilesetLoader)
 
-            val objectEntities = createObjectLayerEntities(map, tilesetLoader, world)
+            val objectEntities = if (isObjectStreamingEnabled)
+                listOf(createObjectStreamingEntity(map, tilesetLoader, world))
+            else
+                createObjectLayerEntities(map, tilesetLoader, world)
 
             val level = Level(map.width * map.tilewidth, map.height * map.tileheight, tileLayerEntities + objectEntities)
 
@@ -77,10 +98,12 @@ class TMXLevelLoader : LevelLoader {
 
         return map.layers.filter { it.type == "tilelayer" }
                 .map { layer ->
+                    val view = tilesetLoader.loadView(layer.name)
+
                     Entity().also {
                         it.type = "TiledMapLayer"
                         it.setProperty("layer", layer)
-                        it.viewComponent.addChild(tilesetLoader.loadView(layer.name))
+                        it.viewComponent.addChild(view)
                     }
                 }
     }
@@ -90,45 +113,64 @@ class TMXLevelLoader : LevelLoader {
 
         return map.layers.filter { it.type == "objectgroup" }
                 .flatMap { it.objects }
-                .map { tiledObject ->
-                    val data = SpawnData(
-                            tiledObject.x.toDouble(),
-                            // it appears that if object has non-zero gid then its y is flipped
-                            (tiledObject.y - if (tiledObject.gid == 0) 0 else tiledObject.height).toDouble()
-                    )
-
-                    // make data available when inside factory's spawn methods
-                    data.run {
-                        put("name", tiledObject.name)
-                        put("type", tiledObject.type)
-                        put("width", tiledObject.width)
-                        put("height", tiledObject.height)
-                        put("rotation", tiledObject.rotation)
-                        put("id", tiledObject.id)
-                        put("gid", tiledObject.gid)
-
-                        tiledObject.properties.forEach {
-                            put(it.key, it.value)
-                        }
-                    }
+                .map { createObjectEntity(it, tilesetLoader, world) }
+    }
 
-                    // we populate the entity properties in case the factory didn't make use of them
-                    world.create(tiledObject.type, data).also { e ->
-                        data.data.forEach {
-                            e.setProperty(it.key, it.value)
-                        }
-                        
-                        e.addComponent(IDComponent(tiledObject.name, tiledObject.id))
+    private fun createObjectStreamingEntity(map: TiledMap, tilesetLoader: TilesetLoader, world: GameWorld): Entity {
+        log.debug("Creating object streaming entity")
 
-                        e.setPosition(data.x, data.y)
-                        e.rotation = tiledObject.rotation.toDouble()
+        val objects = map.layers.filter { it.type == "objectgroup" }
+                .flatMap { it.objects }
 
-                        // non-zero gid means view is read from the tileset
-                        if (tiledObject.gid != 0) {
-                            e.viewComponent.addChild(tilesetLoader.loadView(tiledObject.gid, tiledObject.isFlippedHorizontal, tiledObject.isFlippedVertical))
-                        }
-                    }
-                }
+        // regions are the same size as tile layer chunks
+        val regionSize = TileLayerView.DEFAULT_CHUNK_SIZE * maxOf(map.tilewidth, map.tileheight, 1).toDouble()
+
+        return Entity().also {
+            it.type = "TiledMapObjects"
+            it.addComponent(TiledObjectStreamingComponent(objects, regionSize, objectStreamingDistance) { tiledObject ->
+                world.addEntity(createObjectEntity(tiledObject, tilesetLoader, world))
+            })
+        }
+    }
+
+    private fun createObjectEntity(tiledObject: TiledObject, tilesetLoader: TilesetLoader, world: GameWorld): Entity {
+        val data = SpawnData(
+                tiledObject.x.toDouble(),
+                // it appears that if object has non-zero gid then its y is flipped
+                (tiledObject.y - if (tiledObject.gid == 0) 0 else tiledObject.height).toDouble()
+        )
+
+        // make data available when inside factory's spawn methods
+        data.run {
+            put("name", tiledObject.name)
+            put("type", tiledObject.type)
+            put("width", tiledObject.width)
+            put("height", tiledObject.height)
+            put("rotation", tiledObject.rotation)
+            put("id", tiledObject.id)
+            put("gid", tiledObject.gid)
+
+            tiledObject.properties.forEach {
+                put(it.key, it.value)
+            }
+        }
+
+        // we populate the entity properties in case the factory didn't make use of them
+        return world.create(tiledObject.type, data).also { e ->
+            data.data.forEach {
+                e.setProperty(it.key, it.value)
+            }
+
+            e.addComponent(IDComponent(tiledObject.name, tiledObject.id))
+
+            e.setPosition(data.x, data.y)
+            e.rotation = tiledObject.rotation.toDouble()
+
+            // non-zero gid means view is read from the tileset
+            if (tiledObject.gid != 0) {
+                e.viewComponent.addChild(tilesetLoader.loadView(tiledObject.gid, tiledObject.isFlippedHorizontal, tiledObject.isFlippedVertical))
+            }
+        }
     }
 
     fun parse(inputStream: InputStream): TiledMap {
@@ -183,7 +225,7 @@ class TMXLevelLoader : LevelLoader {
                     }
 
                     "data" -> {
-                        parseData(currentLayer, eventReader.elementText, start)
+                        parseData(currentLayer, eventReader, start)
                     }
 
                     "objectgroup" -> {
@@ -304,45 +346,85 @@ class TMXLevelLoader : LevelLoader {
         layer.visible = start.getInt("visible") == 1
     }
 
-    private fun parseData(layer: Layer, data: String, start: StartElement) {
-        when (start.getString("encoding")) {
-            "csv" -> {
-                layer.data = data.replace("\n", "").split(",").map { it.trim().toInt() }
-            }
+    /**
+     * Reads tile data up to and including the closing "data" tag.
+     * Infinite maps store tile data in "chunk" tags inside "data".
+     */
+    private fun parseData(layer: Layer, eventReader: XMLEventReader, start: StartElement) {
+        val encoding = start.getString("encoding")
+        val compression = start.getString("compression")
 
-            "base64" -> {
-                var bytes = Base64.getDecoder().decode(data.trim())
+        var reader = TileDataReader(encoding, compression, layer.width * layer.height)
 
-                when (start.getString("compression")) {
-                    "zlib" -> {
-                        val baos = ByteArrayOutputStream()
+        val chunks = arrayListOf<Chunk>()
+        var currentChunk = Chunk()
 
-                        InflaterInputStream(bytes.inputStream()).use {
-                            it.copyTo(baos)
-                        }
+        loop@ while (eventReader.hasNext()) {
+            val event = eventReader.nextEvent()
 
-                        bytes = baos.toByteArray()
-                    }
+            if (event.isCharacters) {
+                reader.append(event.asCharacters().data)
 
-                    "gzip" -> {
-                        val baos = ByteArrayOutputStream()
+            } else if (event.isStartElement) {
+                val element = event.asStartElement()
 
-                        GZIPInputStream(bytes.inputStream()).use {
-                            it.copyTo(baos)
-                        }
+                when (element.name.localPart) {
+                    "chunk" -> {
+                        currentChunk = Chunk()
+                        parseChunk(currentChunk, element)
 
-                        bytes = baos.toByteArray()
+                        reader = TileDataReader(encoding, compression, currentChunk.width * currentChunk.height)
                     }
-                }
 
-                val ints = ByteBuffer.wrap(bytes).order(ByteOrder.LITTLE_ENDIAN).asIntBuffer()
+                    // data without encoding is stored as a "tile" tag per tile
+                    "tile" -> {
+                        // gid is unsigned, parsing as long keeps the flip flags in the high bits
+                        reader.add((element.getString("gid").toLongOrNull() ?: 0L).toInt())
+                    }
+                }
 
-                val intArray = IntArray(ints.limit())
-                ints.get(intArray)
+            } else if (event.isEndElement) {
+                when (event.asEndElement().name.localPart) {
+                    "chunk" -> {
+                        currentChunk.data = reader.finish()
+                        chunks.add(currentChunk)
+                    }
 
-                layer.data = intArray.toList()
+                    "data" -> {
+                        break@loop
+                    }
+                }
             }
         }
+
+        if (chunks.isEmpty()) {
+            layer.data = reader.finish()
+        } else {
+            setChunks(layer, chunks)
+        }
+    }
+
+    private fun parseChunk(chunk: Chunk, start: StartElement) {
+        chunk.x = start.getInt("x")
+        chunk.y = start.getInt("y")
+        chunk.width = start.getInt("width")
+        chunk.height = start.getInt("height")
+    }
+
+    /**
+     * Sets layer bounds (in tiles) to the area covered by the chunks.
+     */
+    private fun setChunks(layer: Layer, chunks: List<Chunk>) {
+        val minX = chunks.map { it.x }.min()!!
+        val minY = chunks.map { it.y }.min()!!
+        val maxX = chunks.map { it.x + it.width }.max()!!
+        val maxY = chunks.map { it.y + it.height }.max()!!
+
+        layer.chunks = chunks
+        layer.startx = minX
+        layer.starty = minY
+        layer.width = maxX - minX
+        layer.height = maxY - minY
     }
 
     private fun parseObjectGroupLayer(layer: Layer, start: StartElement) {
@@ -462,6 +544,109 @@ class TMXLevelLoader : LevelLoader {
     }
 }
 
+/**
+ * Collects tile gids of a "data" or "chunk" tag, whose text may arrive in several parts.
+ * CSV is parsed as the text arrives, without creating intermediate strings.
+ */
+private class TileDataReader(private val encoding: String,
+                             private val compression: String,
+                             private val expectedSize: Int) {
+
+    // base64 data is decoded at once, so it does not need this buffer
+    private var data = IntArray(if (encoding == "base64") 0 else expectedSize)
+    private var size = 0
+
+    // CSV value being parsed, as long since gids with flip flags do not fit into a signed int
+    private var value = 0L
+    private var hasDigits = false
+
+    private val base64 = StringBuilder()
+
+    fun append(text: String) {
+        when (encoding) {
+            "csv" -> appendCSV(text)
+
+            "base64" -> base64.append(text)
+        }
+    }
+
+    private fun appendCSV(text: String) {
+        for (c in text) {
+            if (c in '0'..'9') {
+                value = value * 10 + (c - '0')
+                hasDigits = true
+            } else if (c == ',') {
+                addValue()
+            }
+
+            // whitespace between values is ignored
+        }
+    }
+
+    private fun addValue() {
+        if (hasDigits) {
+            add(value.toInt())
+
+            value = 0L
+            hasDigits = false
+        }
+    }
+
+    fun add(gid: Int) {
+        if (size == data.size) {
+            data = data.copyOf(maxOf(16, size * 2))
+        }
+
+        data[size++] = gid
+    }
+
+    fun finish(): IntArray {
+        if (encoding == "base64") {
+            return decodeBase64()
+        }
+
+        addValue()
+
+        return if (size == data.size) data else data.copyOf(size)
+    }
+
+    private fun decodeBase64(): IntArray {
+        val bytes = Base64.getDecoder().decode(base64.trim().toString())
+
+        val input = when (compression) {
+            "zlib" -> InflaterInputStream(bytes.inputStream())
+
+            "gzip" -> GZIPInputStream(bytes.inputStream())
+
+            else -> return toInts(bytes)
+        }
+
+        return input.use { toInts(readAll(it)) }
+    }
+
+    private fun readAll(input: InputStream): ByteArray {
+        // the uncompressed size is known unless the layer is malformed, so read into an array of that size
+        val bytes = ByteArray(expectedSize * 4)
+        val numRead = input.readNBytes(bytes, 0, bytes.size)
+
+        if (numRead < bytes.size)
+            return bytes.copyOf(numRead)
+
+        val rest = input.readAllBytes()
+
+        return if (rest.isEmpty()) bytes else bytes + rest
+    }
+
+    private fun toInts(bytes: ByteArray): IntArray {
+        val ints = ByteBuffer.wrap(bytes).order(ByteOrder.LITTLE_ENDIAN).asIntBuffer()
+
+        val intArray = IntArray(ints.limit())
+        ints.get(intArray)
+
+        return intArray
+    }
+}
+
 // these retrieve the value if exists or return a default
 
 private fun StartElement.getColor(attrName: String): Color {
@@ -0,0 +1,178 @@
+/*
+ * FXGL - JavaFX Game Library. The MIT License (MIT).
+ * Copyright (c) AlmasB (almaslvl@gmail.com).
+ * See LICENSE for details.
+ */
+
+package com.almasb.fxgl.entity.level.tiled
+
+import javafx.geometry.BoundingBox
+import javafx.geometry.Rectangle2D
+import javafx.scene.Group
+import javafx.scene.Node
+import javafx.scene.Parent
+import javafx.scene.Scene
+import kotlin.math.floor
+
+/**
+ * View of a tile layer split into chunks of chunkSize x chunkSize tiles.
+ * A chunk is built when it first intersects the visible area and is evicted
+ * when it is more than [evictionDistance] chunks away from the visible area.
+ * Only chunks that intersect the visible area are attached as children.
+ *
+ * The visible area is given in the local coordinates of this view,
+ * see [updateVisibleArea] and [updateVisibleAreaFromScene].
+ * While the view is in a scene and [isCulledToScene] is true,
+ * the visible area is updated from the scene before each layout pass.
+ *
+ * @author Almas Baimagambetov (almaslvl@gmail.com)
+ */
+class TileLayerView internal constructor(
+
+        /**
+         * Number of chunks along x.
+         */
+        val chunksX: Int,
+
+        /**
+         * Number of chunks along y.
+         */
+        val chunksY: Int,
+
+        /**
+         * Chunk width in pixels.
+         */
+        val chunkWidth: Int,
+
+        /**
+         * Chunk height in pixels.
+         */
+        val chunkHeight: Int,
+
+        /**
+         * Builds the view of chunk (x, y), or returns null if the chunk has no tiles.
+         */
+        private val chunkBuilder: (Int, Int) -> Node?) : Parent() {
+
+    companion object {
+        const val DEFAULT_CHUNK_SIZE = 16
+        const val DEFAULT_EVICTION_DISTANCE = 2
+
+        /**
+         * Marks chunks that were built but have no tiles, so they are not built again.
+         */
+        private val EMPTY_CHUNK: Node = Group()
+    }
+
+    /**
+     * How many chunks away from the visible area a built chunk is kept for reuse.
+     */
+    var evictionDistance = DEFAULT_EVICTION_DISTANCE
+
+    /**
+     * If true (default), the visible area follows the part of the scene that is on screen.
+     * Set to false to control the visible area via [updateVisibleArea] instead.
+     */
+    var isCulledToScene = true
+
+    /**
+     * Built chunks, keyed by y * chunksX + x.
+     */
+    private val chunks = hashMapOf<Int, Node>()
+
+    // visible chunk range, inclusive, empty when minX > maxX
+    private var minX = 0
+    private var minY = 0
+    private var maxX = -1
+    private var maxY = -1
+
+    /**
+     * @return number of chunks currently built (including empty ones)
+     */
+    val numBuiltChunks: Int
+        get() = chunks.size
+
+    /**
+     * @return number of chunks currently attached to the scene graph
+     */
+    val numAttachedChunks: Int
+        get() = children.size
+
+    private val pulseListener = Runnable {
+        if (isCulledToScene) {
+            updateVisibleAreaFromScene()
+        }
+    }
+
+    init {
+        sceneProperty().addListener { _, oldScene: Scene?, newScene: Scene? ->
+            oldScene?.removePreLayoutPulseListener(pulseListener)
+            newScene?.addPreLayoutPulseListener(pulseListener)
+        }
+    }
+
+    fun updateVisibleArea(area: Rectangle2D) {
+        updateVisibleArea(area.minX, area.minY, area.maxX, area.maxY)
+    }
+
+    /**
+     * Attaches chunks intersecting the given area (in local coordinates), building them if needed,
+     * and detaches all other chunks.
+     * This is a no-op if the set of visible chunks has not changed.
+     */
+    fun updateVisibleArea(areaMinX: Double, areaMinY: Double, areaMaxX: Double, areaMaxY: Double) {
+        val newMinX = maxOf(0, floor(areaMinX / chunkWidth).toInt())
+        val newMinY = maxOf(0, floor(areaMinY / chunkHeight).toInt())
+        val newMaxX = minOf(chunksX - 1, floor(areaMaxX / chunkWidth).toInt())
+        val newMaxY = minOf(chunksY - 1, floor(areaMaxY / chunkHeight).toInt())
+
+        if (newMinX == minX && newMinY == minY && newMaxX == maxX && newMaxY == maxY)
+            return
+
+        minX = newMinX
+        minY = newMinY
+        maxX = newMaxX
+        maxY = newMaxY
+
+        // only a few chunks are ever visible, so rebuilding the child list is cheap
+        val visible = arrayListOf<Node>()
+
+        for (y in minY..maxY) {
+            for (x in minX..maxX) {
+                val chunk = chunks.getOrPut(y * chunksX + x) { chunkBuilder(x, y) ?: EMPTY_CHUNK }
+
+                if (chunk !== EMPTY_CHUNK) {
+                    visible += chunk
+                }
+            }
+        }
+
+        children.setAll(visible)
+
+        evictChunks()
+    }
+
+    /**
+     * Computes the visible area from the bounds of the scene this view is in,
+     * so that all transforms applied to parents (e.g. viewport translation and zoom) are taken into account.
+     * Does nothing if this view is not in a scene.
+     */
+    fun updateVisibleAreaFromScene() {
+        val scene = scene ?: return
+
+        val bounds = sceneToLocal(BoundingBox(0.0, 0.0, scene.width, scene.height)) ?: return
+
+        updateVisibleArea(bounds.minX, bounds.minY, bounds.maxX, bounds.maxY)
+    }
+
+    private fun evictChunks() {
+        val d = evictionDistance
+
+        chunks.keys.removeIf { key ->
+            val x = key % chunksX
+            val y = key / chunksX
+
+            x < minX - d || x > maxX + d || y < minY - d || y > maxY + d
+        }
+    }
+}
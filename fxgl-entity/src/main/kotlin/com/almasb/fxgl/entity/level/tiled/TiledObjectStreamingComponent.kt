@@ -0,0 +1,120 @@
+/*
+ * FXGL - JavaFX Game Library. The MIT License (MIT).
+ * Copyright (c) AlmasB (almaslvl@gmail.com).
+ * See LICENSE for details.
+ */
+
+package com.almasb.fxgl.entity.level.tiled
+
+import com.almasb.fxgl.entity.component.Component
+import javafx.geometry.BoundingBox
+import javafx.geometry.Rectangle2D
+import kotlin.math.floor
+
+/**
+ * Spawns objects of Tiled object layers when they come within [distance] pixels of the visible area,
+ * instead of spawning all objects when the level is loaded.
+ * Each object is spawned once.
+ * Objects are bucketed into square regions of [regionSize] pixels,
+ * so only regions that newly come into range are checked.
+ *
+ * The entity with this component is expected to be at (0, 0), so that its local space is the world space.
+ *
+ * @author Almas Baimagambetov (almaslvl@gmail.com)
+ */
+class TiledObjectStreamingComponent internal constructor(
+        private val objects: List<TiledObject>,
+        val regionSize: Double,
+        val distance: Double,
+        private val spawn: (TiledObject) -> Unit) : Component() {
+
+    /**
+     * Indices of objects not yet spawned, keyed by region.
+     */
+    private val regions = hashMapOf<Long, MutableList<Int>>()
+
+    private val isSpawned = BooleanArray(objects.size)
+
+    // region range in spawn distance, inclusive, empty when minX > maxX
+    private var minX = 0
+    private var minY = 0
+    private var maxX = -1
+    private var maxY = -1
+
+    /**
+     * @return number of objects not yet spawned
+     */
+    var numPendingObjects = objects.size
+        private set
+
+    init {
+        objects.forEachIndexed { index, obj ->
+            // same as spawn position: if object has non-zero gid then its y is flipped
+            val x = obj.x.toDouble()
+            val y = (obj.y - if (obj.gid == 0) 0 else obj.height).toDouble()
+
+            // an object is in every region it overlaps, so large objects are spawned as soon as any part is in range
+            for (regionY in toRegion(y)..toRegion(y + obj.height)) {
+                for (regionX in toRegion(x)..toRegion(x + obj.width)) {
+                    regions.getOrPut(key(regionX, regionY)) { arrayListOf() }.add(index)
+                }
+            }
+        }
+    }
+
+    override fun onUpdate(tpf: Double) {
+        val scene = entity.viewComponent.parent.scene ?: return
+
+        val bounds = entity.viewComponent.parent.sceneToLocal(BoundingBox(0.0, 0.0, scene.width, scene.height)) ?: return
+
+        updateVisibleArea(bounds.minX, bounds.minY, bounds.maxX, bounds.maxY)
+    }
+
+    fun updateVisibleArea(area: Rectangle2D) {
+        updateVisibleArea(area.minX, area.minY, area.maxX, area.maxY)
+    }
+
+    /**
+     * Spawns objects in regions within [distance] of the given area (in world coordinates).
+     * This is a no-op if the set of regions in range has not changed.
+     */
+    fun updateVisibleArea(areaMinX: Double, areaMinY: Double, areaMaxX: Double, areaMaxY: Double) {
+        if (regions.isEmpty())
+            return
+
+        val newMinX = toRegion(areaMinX - distance)
+        val newMinY = toRegion(areaMinY - distance)
+        val newMaxX = toRegion(areaMaxX + distance)
+        val newMaxY = toRegion(areaMaxY + distance)
+
+        if (newMinX == minX && newMinY == minY && newMaxX == maxX && newMaxY == maxY)
+            return
+
+        minX = newMinX
+        minY = newMinY
+        maxX = newMaxX
+        maxY = newMaxY
+
+        for (regionY in minY..maxY) {
+            for (regionX in minX..maxX) {
+                // all objects of a region are spawned at once, so the region is no longer needed
+                val indices = regions.remove(key(regionX, regionY)) ?: continue
+
+                indices.forEach { index ->
+                    if (!isSpawned[index]) {
+                        isSpawned[index] = true
+                        numPendingObjects--
+
+                        spawn(objects[index])
+                    }
+                }
+            }
+        }
+    }
+
+    private fun toRegion(value: Double) = floor(value / regionSize).toInt()
+
+    private fun key(regionX: Int, regionY: Int) = (regionY.toLong() shl 32) or (regionX.toLong() and 0xFFFFFFFFL)
+
+    override fun isComponentInjectionRequired(): Boolean = false
+}
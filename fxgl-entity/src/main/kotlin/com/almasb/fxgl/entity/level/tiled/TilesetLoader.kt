@@ -18,6 +18,11 @@ import javafx.scene.paint.Color
 import java.lang.Exception
 import java.net.URL
 
+/**
+ * Clears the flipped horizontally, vertically and diagonally flags stored in the 3 highest bits of a gid.
+ */
+private const val GID_MASK = 0x1FFFFFFF
+
 /**
  *
  * @author Almas Baimagambetov (almaslvl@gmail.com)
@@ -28,120 +33,161 @@ class TilesetLoader(private val map: TiledMap, private val mapURL: URL) {
 
     private val imageCache = hashMapOf<String, Image>()
 
-    fun loadView(gidArg: Int, isFlippedHorizontal: Boolean, isFlippedVertical: Boolean): Node {
-        var gid = gidArg
-
-        val tileset = findTileset(gid, map.tilesets)
+    private val padX = maxOf(0, (map.tilesets.map { it.tilewidth }.max() ?: 0) - map.tilewidth)
+    private val padY = maxOf(0, (map.tilesets.map { it.tileheight }.max() ?: 0) - map.tileheight)
 
-        // we offset because data is encoded as continuous
-        gid -= tileset.firstgid
+    fun loadView(gidArg: Int, isFlippedHorizontal: Boolean, isFlippedVertical: Boolean): Node {
+        val tileset = findTileset(gidArg, map.tilesets)
 
-        val w = tileset.tilewidth
-        val h = tileset.tileheight
+        val buffer = WritableImage(tileset.tilewidth, tileset.tileheight)
 
-        val buffer = WritableImage(w, h)
+        drawTile(buffer, tileset, gidArg, 0, 0)
 
-        val sourceImage: Image
-        val srcx: Int
-        val srcy: Int
+        return ImageView(buffer).also {
+            it.scaleX = if (isFlippedHorizontal) -1.0 else 1.0
+            it.scaleY = if (isFlippedVertical) -1.0 else 1.0
+        }
+    }
 
-        if (tileset.isSpriteSheet) {
-            // image source
-            val tilex = gid % tileset.columns
-            val tiley = gid / tileset.columns
+    /**
+     * Loads a chunked view of the layer with given name.
+     * Once the returned view is in a scene, chunks are built for the part of the scene that is on screen.
+     * Layers of infinite maps use the chunk size of the map instead of [chunkSize].
+     */
+    @JvmOverloads fun loadView(layerName: String, chunkSize: Int = TileLayerView.DEFAULT_CHUNK_SIZE): TileLayerView {
+        log.debug("Loading view for layer $layerName")
 
-            sourceImage = loadImage(tileset.image, tileset.transparentcolor, tileset.imagewidth, tileset.imageheight)
+        val layer = map.getLayerByName(layerName)
 
-            srcx = tilex * w + tileset.margin + tilex * tileset.spacing
-            srcy = tiley * h + tileset.margin + tiley * tileset.spacing
-        } else {
-            // tileset is a collection of images
-            val tile = tileset.tiles.find { it.id == gid }
-                    ?: throw IllegalArgumentException("Tile with id=$gid not found")
+        if (layer.chunks.isNotEmpty())
+            return loadInfiniteLayerView(layer)
 
-            sourceImage = loadImage(tile.image, tile.transparentcolor, tile.imagewidth, tile.imageheight)
+        val chunksX = (layer.width + chunkSize - 1) / chunkSize
+        val chunksY = (layer.height + chunkSize - 1) / chunkSize
 
-            srcx = 0
-            srcy = 0
-        }
+        val chunkWidth = chunkSize * map.tilewidth
+        val chunkHeight = chunkSize * map.tileheight
 
-        buffer.pixelWriter.setPixels(0, 0,
-                w, h, sourceImage.pixelReader,
-                srcx,
-                srcy)
+        return TileLayerView(chunksX, chunksY, chunkWidth, chunkHeight) { chunkX, chunkY ->
+            val startX = chunkX * chunkSize
+            val startY = chunkY * chunkSize
 
-        return ImageView(buffer).also {
-            it.scaleX = if (isFlippedHorizontal) -1.0 else 1.0
-            it.scaleY = if (isFlippedVertical) -1.0 else 1.0
+            loadChunkView(layer.data, layer.width,
+                    startX, startY, minOf(startX + chunkSize, layer.width), minOf(startY + chunkSize, layer.height),
+                    chunkX * chunkWidth, chunkY * chunkHeight)
         }
     }
 
-    fun loadView(layerName: String): Node {
-        log.debug("Loading view for layer $layerName")
-
-        val layer = map.getLayerByName(layerName)
+    /**
+     * Each view chunk shows one chunk of the map, so tile data is not copied.
+     * Chunks of an infinite map are aligned to multiples of the chunk size.
+     */
+    private fun loadInfiniteLayerView(layer: Layer): TileLayerView {
+        val chunkSizeX = layer.chunks[0].width
+        val chunkSizeY = layer.chunks[0].height
 
-        val buffer = WritableImage(
-                layer.width * map.tilewidth,
-                layer.height * map.tileheight
-        )
+        val chunksX = (layer.width + chunkSizeX - 1) / chunkSizeX
+        val chunksY = (layer.height + chunkSizeY - 1) / chunkSizeY
 
-        log.debug("Created buffer with size ${buffer.width}x${buffer.height}")
+        val chunkWidth = chunkSizeX * map.tilewidth
+        val chunkHeight = chunkSizeY * map.tileheight
 
-        for (i in 0 until layer.data.size) {
+        val chunks = hashMapOf<Int, Chunk>()
 
-            var gid = layer.data.get(i)
+        layer.chunks.forEach {
+            val chunkX = (it.x - layer.startx) / chunkSizeX
+            val chunkY = (it.y - layer.starty) / chunkSizeY
 
-            // empty tile
-            if (gid == 0)
-                continue
+            chunks[chunkY * chunksX + chunkX] = it
+        }
 
-            val tileset = findTileset(gid, map.tilesets)
+        return TileLayerView(chunksX, chunksY, chunkWidth, chunkHeight) { chunkX, chunkY ->
+            chunks[chunkY * chunksX + chunkX]?.let {
+                loadChunkView(it.data, it.width, 0, 0, it.width, it.height, chunkX * chunkWidth, chunkY * chunkHeight)
+            }
+        }.also {
+            it.translateX = layer.startx * map.tilewidth.toDouble()
+            it.translateY = layer.starty * map.tileheight.toDouble()
+        }
+    }
 
-            // we offset because data is encoded as continuous
-            gid -= tileset.firstgid
+    /**
+     * @return view of tiles in [startX, endX) x [startY, endY) of row by row [data] with [dataWidth] columns,
+     * placed at (viewX, viewY), or null if there are no tiles
+     */
+    private fun loadChunkView(data: IntArray, dataWidth: Int,
+                              startX: Int, startY: Int, endX: Int, endY: Int,
+                              viewX: Int, viewY: Int): Node? {
+
+        var buffer: WritableImage? = null
+
+        for (y in startY until endY) {
+            for (x in startX until endX) {
+                // flip flags are not supported for tile layers, so strip them to get the tile id
+                val gid = data[y * dataWidth + x] and GID_MASK
+
+                // empty tile
+                if (gid == 0)
+                    continue
+
+                if (buffer == null) {
+                    // tiles larger than map tiles extend into the neighbouring chunks, so chunk images are padded
+                    buffer = WritableImage(
+                            (endX - startX) * map.tilewidth + padX,
+                            (endY - startY) * map.tileheight + padY
+                    )
+                }
+
+                drawTile(buffer, findTileset(gid, map.tilesets), gid,
+                        (x - startX) * map.tilewidth, (y - startY) * map.tileheight)
+            }
+        }
 
-            // image destination
-            val x = i % layer.width
-            val y = i / layer.width
+        if (buffer == null)
+            return null
 
-            val w = tileset.tilewidth
-            val h = tileset.tileheight
+        return ImageView(buffer).also {
+            it.translateX = viewX.toDouble()
+            it.translateY = viewY.toDouble()
+        }
+    }
 
-            val sourceImage: Image
-            val srcx: Int
-            val srcy: Int
+    private fun drawTile(buffer: WritableImage, tileset: Tileset, gidArg: Int, dstX: Int, dstY: Int) {
+        // we offset because data is encoded as continuous
+        val gid = gidArg - tileset.firstgid
 
-            if (tileset.isSpriteSheet) {
-                sourceImage = loadImage(tileset.image, tileset.transparentcolor, tileset.imagewidth, tileset.imageheight)
+        val w = tileset.tilewidth
+        val h = tileset.tileheight
 
-                // image source
-                val tilex = gid % tileset.columns
-                val tiley = gid / tileset.columns
+        val sourceImage: Image
+        val srcx: Int
+        val srcy: Int
 
-                srcx = tilex * w + tileset.margin + tilex * tileset.spacing
-                srcy = tiley * h + tileset.margin + tiley * tileset.spacing
-            } else {
+        if (tileset.isSpriteSheet) {
+            sourceImage = loadImage(tileset.image, tileset.transparentcolor, tileset.imagewidth, tileset.imageheight)
 
-                // tileset is a collection of images
-                val tile = tileset.tiles.find { it.id == gid }
-                        ?: throw IllegalArgumentException("Tile with id=$gid not found")
+            // image source
+            val tilex = gid % tileset.columns
+            val tiley = gid / tileset.columns
 
-                sourceImage = loadImage(tile.image, tile.transparentcolor, tile.imagewidth, tile.imageheight)
+            srcx = tilex * w + tileset.margin + tilex * tileset.spacing
+            srcy = tiley * h + tileset.margin + tiley * tileset.spacing
+        } else {
 
-                srcx = 0
-                srcy = 0
-            }
+            // tileset is a collection of images
+            val tile = tileset.tiles.find { it.id == gid }
+                    ?: throw IllegalArgumentException("Tile with id=$gid not found")
 
-            log.debug("Writing to buffer: dst=${x * map.tilewidth},${y * map.tileheight}, w=$w,h=$h, src=$srcx,$srcy")
+            sourceImage = loadImage(tile.image, tile.transparentcolor, tile.imagewidth, tile.imageheight)
 
-            buffer.pixelWriter.setPixels(x * map.tilewidth, y * map.tileheight,
-                    w, h, sourceImage.pixelReader,
-                    srcx,
-                    srcy)
+            srcx = 0
+            srcy = 0
         }
 
-        return ImageView(buffer)
+        buffer.pixelWriter.setPixels(dstX, dstY,
+                w, h, sourceImage.pixelReader,
+                srcx,
+                srcy)
     }
 
     /**
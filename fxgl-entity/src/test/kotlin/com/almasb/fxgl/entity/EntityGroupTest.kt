@@ -137,4 +137,89 @@ class EntityGroupTest {
 
         assertThat(count, `is`(3))
     }
-}
\ No newline at end of file
+
+    @Test
+    fun `Size`() {
+        val e1 = Entity()
+        e1.type = EntityType.T1
+
+        val e2 = Entity()
+        e2.type = EntityType.T2
+
+        assertThat(group.size, `is`(0))
+
+        world.addEntities(e1, e2)
+
+        assertThat(group.size, `is`(2))
+        assertThat(e1 in group, `is`(true))
+
+        world.removeEntity(e1)
+
+        assertThat(group.size, `is`(1))
+        assertThat(e1 in group, `is`(false))
+        assertThat(group.entitiesCopy, `is`(listOf(e2)))
+    }
+
+    @Test
+    fun `Entities can be removed and added during iteration`() {
+        val entities = (0 until 10).map {
+            val e = Entity()
+            e.type = EntityType.T1
+            e
+        }
+
+        world.addEntities(*entities.toTypedArray())
+
+        val added = Entity()
+        added.type = EntityType.T2
+
+        val visited = arrayListOf<Entity>()
+
+        group.forEach {
+            visited.add(it)
+
+            // remove self and one of the not yet visited entities
+            world.removeEntity(it)
+            entities.find { e -> e.isActive && e !in visited }?.let { e -> world.removeEntity(e) }
+
+            if (!added.isActive) {
+                world.addEntity(added)
+            }
+        }
+
+        assertThat(visited.size, `is`(5))
+        assertThat(visited.distinct().size, `is`(5))
+        assertThat(group.size, `is`(1))
+        assertThat(group.entitiesCopy, `is`(listOf(added)))
+    }
+
+    @Test
+    fun `Group from world follows type changes`() {
+        val e1 = Entity()
+        e1.type = EntityType.T1
+
+        val e3 = Entity()
+        e3.type = EntityType.T3
+
+        world.addEntities(e1, e3)
+
+        val worldGroup = world.getGroup(EntityType.T1, EntityType.T2)
+
+        assertThat(worldGroup.entitiesCopy, `is`(listOf(e1)))
+
+        e3.type = EntityType.T2
+        e1.type = EntityType.T3
+
+        assertThat(worldGroup.entitiesCopy, `is`(listOf(e3)))
+
+        world.removeEntity(e3)
+
+        assertThat(worldGroup.size, `is`(0))
+
+        worldGroup.dispose()
+
+        e1.type = EntityType.T1
+
+        assertThat(worldGroup.size, `is`(0))
+    }
+}
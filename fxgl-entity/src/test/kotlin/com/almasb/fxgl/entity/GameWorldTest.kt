@@ -7,6 +7,8 @@
 package com.almasb.fxgl.entity
 
 import java.util.Optional
+import java.util.Random
+import java.util.function.Consumer
 import java.util.function.Predicate
 import com.almasb.fxgl.entity.component.Component
 import com.almasb.fxgl.entity.components.IDComponent
@@ -569,6 +571,132 @@ class GameWorldTest {
         })
     }
 
+    @Test
+    fun `Preload fills entity pool when factory is added`() {
+        gameWorld.isEntityPoolingEnabled = true
+        gameWorld.addEntityFactory(PooledEntityFactory())
+
+        val pool = gameWorld.getEntityPool("bullet").get()
+
+        assertThat(pool.spawnName, `is`("bullet"))
+        assertThat(pool.size, `is`(3))
+        assertThat(gameWorld.getEntityPool("bomb").get().size, `is`(3))
+        assertFalse(gameWorld.getEntityPool("enemy").isPresent)
+    }
+
+    @Test
+    fun `Pooled entity is reused after removal`() {
+        gameWorld.isEntityPoolingEnabled = true
+        gameWorld.addEntityFactory(PooledEntityFactory())
+        val pool = gameWorld.getEntityPool("bullet").get()
+
+        val e = gameWorld.spawn("bullet", SpawnData(10.0, 15.0).put("speed", 5))
+
+        assertThat(pool.size, `is`(2))
+        assertThat(pool.numHits, `is`(1L))
+        assertThat(e.position, `is`(Point2D(10.0, 15.0)))
+        assertThat(e.getInt("speed"), `is`(5))
+
+        val component = e.getComponent(PooledComponent::class.java)
+        component.value = 10
+
+        e.rotation = 90.0
+        e.opacity = 0.0
+
+        gameWorld.removeEntity(e)
+
+        // entity is returned to the pool only when it is cleaned in the next tick
+        assertThat(pool.size, `is`(2))
+
+        gameWorld.onUpdate(0.016)
+
+        assertThat(pool.size, `is`(3))
+        assertFalse(e.isActive)
+        assertNull(e.world)
+        assertTrue(e.hasComponent(PooledComponent::class.java))
+
+        // free entities are reused in LIFO order
+        val e2 = gameWorld.spawn("bullet", SpawnData(30.0, 35.0).put("speed", 7))
+
+        assertThat(e2, `is`(e))
+        assertThat(e2.position, `is`(Point2D(30.0, 35.0)))
+        assertThat(e2.getInt("speed"), `is`(7))
+        assertThat(e2.rotation, `is`(45.0))
+        assertThat(e2.opacity, `is`(1.0))
+        assertTrue(e2.isActive)
+
+        // preloaded entities are also reset when first spawned
+        assertThat(component.value, `is`(0))
+        assertThat(component.numResets, `is`(2))
+        assertThat(component.numAdded, `is`(1))
+    }
+
+    @Test
+    fun `Pool misses when empty`() {
+        gameWorld.isEntityPoolingEnabled = true
+        gameWorld.addEntityFactory(PooledEntityFactory())
+        val pool = gameWorld.getEntityPool("bullet").get()
+
+        val entities = (1..5).map { gameWorld.spawn("bullet") }
+
+        assertThat(entities.distinct().size, `is`(5))
+        assertThat(pool.numHits, `is`(3L))
+        assertThat(pool.numMisses, `is`(2L))
+        assertThat(pool.size, `is`(0))
+
+        gameWorld.removeEntities(entities)
+        gameWorld.onUpdate(0.016)
+
+        // entities created on a miss are returned to the pool too
+        assertThat(pool.size, `is`(5))
+    }
+
+    @Test
+    fun `Set level returns pooled entities to pool`() {
+        gameWorld.isEntityPoolingEnabled = true
+        gameWorld.addEntityFactory(PooledEntityFactory())
+        val pool = gameWorld.getEntityPool("bullet").get()
+
+        gameWorld.spawn("bullet")
+        gameWorld.spawn("bullet")
+
+        assertThat(pool.size, `is`(1))
+
+        gameWorld.setLevel(Level(0, 0, listOf()))
+
+        assertThat(pool.size, `is`(3))
+    }
+
+    @Test
+    fun `Reset clears entity pools`() {
+        gameWorld.isEntityPoolingEnabled = true
+        gameWorld.addEntityFactory(PooledEntityFactory())
+        val pool = gameWorld.getEntityPool("bullet").get()
+
+        val e = gameWorld.spawn("bullet")
+
+        gameWorld.reset()
+
+        assertFalse(gameWorld.getEntityPool("bullet").isPresent)
+        assertThat(pool.size, `is`(0))
+        assertFalse(e.hasComponent(PooledComponent::class.java))
+    }
+
+    @Test
+    fun `Entities are not pooled by default`() {
+        assertFalse(gameWorld.isEntityPoolingEnabled)
+
+        gameWorld.addEntityFactory(PooledEntityFactory())
+
+        assertFalse(gameWorld.getEntityPool("bullet").isPresent)
+
+        val e = gameWorld.spawn("bullet")
+        gameWorld.removeEntity(e)
+        gameWorld.onUpdate(0.016)
+
+        assertFalse(e.hasComponent(PooledComponent::class.java))
+    }
+
     /* QUERIES */
 
     @Test
@@ -733,6 +861,122 @@ class GameWorldTest {
         )
     }
 
+    @Test
+    fun `By ID is updated when entity or component is removed`() {
+        val e1 = Entity()
+        e1.addComponent(IDComponent("e", 1))
+
+        val e2 = Entity()
+        e2.addComponent(IDComponent("e", 2))
+
+        gameWorld.addEntities(e1, e2)
+
+        gameWorld.removeEntity(e1)
+        e2.removeComponent(IDComponent::class.java)
+
+        assertFalse(gameWorld.getEntityByID("e", 1).isPresent)
+        assertFalse(gameWorld.getEntityByID("e", 2).isPresent)
+
+        e2.addComponent(IDComponent("e", 3))
+
+        assertThat(gameWorld.getEntityByID("e", 3).get(), `is`(e2))
+    }
+
+    @Test
+    fun `By Type is updated when type changes`() {
+        val e1 = Entity()
+        e1.type = TestType.T1
+
+        val e2 = Entity()
+
+        gameWorld.addEntities(e1, e2)
+
+        e1.type = TestType.T2
+        e2.type = TestType.T2
+
+        assertTrue(gameWorld.getEntitiesByType(TestType.T1).isEmpty())
+        assertThat(gameWorld.getEntitiesByType(TestType.T2), contains(e1, e2))
+        assertThat(gameWorld.getSingleton(TestType.T2), `is`(e1))
+
+        gameWorld.removeEntity(e1)
+
+        assertThat(gameWorld.getEntitiesByType(TestType.T2), contains(e2))
+
+        // changes to a removed entity do not affect the world
+        e1.type = TestType.T3
+
+        assertTrue(gameWorld.getEntitiesByType(TestType.T3).isEmpty())
+    }
+
+    @Test
+    fun `By component is updated when components are added and removed`() {
+        val e1 = Entity()
+        e1.addComponent(TestValueComponent())
+
+        val e2 = Entity()
+
+        gameWorld.addEntities(e1, e2)
+
+        e2.addComponent(TestValueComponent())
+
+        assertThat(gameWorld.getEntitiesByComponent(TestValueComponent::class.java), contains(e1, e2))
+
+        e1.removeComponent(TestValueComponent::class.java)
+
+        assertThat(gameWorld.getEntitiesByComponent(TestValueComponent::class.java), contains(e2))
+        assertThat(gameWorld.getEntitiesByComponent(TypeComponent::class.java), contains(e1, e2))
+    }
+
+    @Test
+    fun `Visit entities by type and component`() {
+        val e1 = Entity()
+        e1.type = TestType.T1
+        e1.addComponent(TestValueComponent())
+
+        val e2 = Entity()
+        e2.type = TestType.T1
+
+        val e3 = Entity()
+        e3.type = TestType.T2
+        e3.addComponent(TestValueComponent())
+
+        gameWorld.addEntities(e1, e2, e3)
+
+        val visited = arrayListOf<Entity>()
+
+        gameWorld.forEachEntityByType(TestType.T1, Consumer { visited.add(it) })
+        assertThat(visited, contains(e1, e2))
+
+        visited.clear()
+
+        gameWorld.forEachEntityByComponent(TestValueComponent::class.java, Consumer { visited.add(it) })
+        assertThat(visited, contains(e1, e3))
+    }
+
+    @Test
+    fun `Visitor can remove and add entities`() {
+        val entities = (1..5).map { Entity().also { it.type = TestType.T1 } }
+        gameWorld.addEntities(*entities.toTypedArray())
+
+        val newEntity = Entity()
+        newEntity.type = TestType.T1
+
+        val visited = arrayListOf<Entity>()
+
+        gameWorld.forEachEntityByType(TestType.T1, Consumer {
+            visited.add(it)
+
+            if (it === entities[0]) {
+                gameWorld.removeEntity(entities[1])
+                gameWorld.addEntity(newEntity)
+            }
+        })
+
+        // removed entity is skipped, added entity is visible after the visit
+        assertThat(visited, contains(entities[0], entities[2], entities[3], entities[4]))
+        assertThat(gameWorld.getEntitiesByType(TestType.T1), contains(entities[0], entities[2], entities[3], entities[4], newEntity))
+    }
+
     @Test
     fun `By range List`() {
         val e1 = Entity()
@@ -774,6 +1018,155 @@ class GameWorldTest {
 
     /* SPECIAL CASES */
 
+    @Test
+    fun `Entities in radius`() {
+        val e1 = Entity()
+        e1.setPosition(10.0, 10.0)
+
+        val e2 = Entity()
+        e2.setPosition(20.0, 10.0)
+
+        val e3 = Entity()
+        e3.setPosition(100.0, 10.0)
+
+        gameWorld.addEntities(e1, e2, e3)
+
+        assertThat(gameWorld.getEntitiesInRadius(Point2D(0.0, 10.0), 20.0), containsInAnyOrder(e1, e2))
+
+        gameWorld.enableSpatialIndex(16.0)
+
+        assertThat(gameWorld.getEntitiesInRadius(Point2D(0.0, 10.0), 20.0), containsInAnyOrder(e1, e2))
+        assertThat(gameWorld.getEntitiesInRadius(Point2D(100.0, 0.0), 10.0), contains(e3))
+    }
+
+    @Test
+    fun `Closest entities are sorted by distance`() {
+        val entities = listOf(50.0, 10.0, 40.0, 20.0, 30.0).map { Entity().also { e -> e.x = it } }
+
+        gameWorld.addEntities(*entities.toTypedArray())
+
+        val expected = arrayOf(entities[1], entities[3], entities[4])
+
+        assertThat(gameWorld.getClosestEntities(Point2D(0.0, 0.0), 3, Predicate { true }), contains(*expected))
+
+        gameWorld.enableSpatialIndex(8.0)
+
+        assertTrue(gameWorld.isSpatialIndexEnabled)
+        assertThat(gameWorld.getClosestEntities(Point2D(0.0, 0.0), 3, Predicate { true }), contains(*expected))
+        assertThat(gameWorld.getClosestEntities(Point2D(0.0, 0.0), 10, Predicate { it.x > 25 }), contains(entities[4], entities[2], entities[0]))
+        assertTrue(gameWorld.getClosestEntities(Point2D(0.0, 0.0), 0, Predicate { true }).isEmpty())
+    }
+
+    @Test
+    fun `Closest entities with large k returns all entities sorted by distance`() {
+        val entities = (0 until 40).map { Entity().also { e -> e.x = ((it * 17) % 40).toDouble() } }
+
+        gameWorld.addEntities(*entities.toTypedArray())
+
+        val expected = entities.sortedBy { it.x }.toTypedArray()
+
+        assertThat(gameWorld.getClosestEntities(Point2D(0.0, 0.0), Integer.MAX_VALUE, Predicate { true }), contains(*expected))
+
+        gameWorld.enableSpatialIndex(8.0)
+
+        assertThat(gameWorld.getClosestEntities(Point2D(0.0, 0.0), Integer.MAX_VALUE, Predicate { true }), contains(*expected))
+
+        // storage grows as needed, regardless of k
+        val closest = ClosestEntities(Integer.MAX_VALUE)
+        entities.forEach { closest.offer(it, it.x) }
+
+        assertThat(closest.toList(), contains(*expected))
+    }
+
+    @Test
+    fun `Spatial index is updated when entities move and are removed`() {
+        gameWorld.enableSpatialIndex(32.0)
+
+        val e1 = Entity()
+        e1.boundingBoxComponent.addHitBox(HitBox("main", BoundingShape.box(20.0, 20.0)))
+
+        val e2 = Entity()
+        e2.setPosition(500.0, 500.0)
+        e2.boundingBoxComponent.addHitBox(HitBox("main", BoundingShape.box(20.0, 20.0)))
+
+        gameWorld.addEntities(e1, e2)
+
+        assertTrue(gameWorld.getCollidingEntities(e1).isEmpty())
+        assertThat(gameWorld.getEntitiesAt(Point2D(500.0, 500.0)), contains(e2))
+
+        e2.setPosition(10.0, 10.0)
+
+        assertThat(gameWorld.getCollidingEntities(e1), contains(e2))
+        assertTrue(gameWorld.getEntitiesAt(Point2D(500.0, 500.0)).isEmpty())
+        assertThat(gameWorld.getClosestEntity(e1, Predicate { true }).get(), `is`(e2))
+
+        // rotated hit box now reaches e1
+        e2.setPosition(25.0, 0.0)
+        assertTrue(gameWorld.getCollidingEntities(e1).isEmpty())
+
+        e2.rotation = 45.0
+        assertThat(gameWorld.getCollidingEntities(e1), contains(e2))
+
+        gameWorld.removeEntity(e2)
+
+        assertTrue(gameWorld.getCollidingEntities(e1).isEmpty())
+        assertFalse(gameWorld.getClosestEntity(e1, Predicate { true }).isPresent)
+
+        gameWorld.disableSpatialIndex()
+
+        assertFalse(gameWorld.isSpatialIndexEnabled)
+        assertThat(gameWorld.getEntitiesInRange(Rectangle2D(0.0, 0.0, 10.0, 10.0)), contains(e1))
+    }
+
+    @Test
+    fun `Spatial index queries match full scan`() {
+        val random = Random(7)
+
+        val entities = (1..300).map {
+            Entity().also {
+                it.setPosition(random.nextDouble() * 1000, random.nextDouble() * 1000)
+
+                // a few large entities exceed the max cells per entity
+                val size = if (random.nextInt(50) == 0) 800.0 else 5.0 + random.nextDouble() * 40
+                it.boundingBoxComponent.addHitBox(HitBox("main", BoundingShape.box(size, size)))
+            }
+        }
+
+        gameWorld.addEntities(*entities.toTypedArray())
+        gameWorld.enableSpatialIndex(32.0)
+
+        repeat(20) {
+            // move, rotate, scale and remove some entities
+            gameWorld.entitiesCopy.forEach {
+                when (random.nextInt(10)) {
+                    0 -> it.translate(random.nextDouble() * 200 - 100, random.nextDouble() * 200 - 100)
+                    1 -> it.rotation = random.nextDouble() * 360
+                    2 -> it.scaleX = 0.5 + random.nextDouble()
+                    3 -> if (random.nextInt(10) == 0) gameWorld.removeEntity(it)
+                }
+            }
+
+            val all = gameWorld.entities
+
+            repeat(10) {
+                val point = Point2D(random.nextDouble() * 1000, random.nextDouble() * 1000)
+                val range = Rectangle2D(point.x, point.y, random.nextDouble() * 300, random.nextDouble() * 300)
+                val radius = random.nextDouble() * 200
+                val entity = all[random.nextInt(all.size)]
+
+                assertThat(gameWorld.getEntitiesInRange(range), containsInAnyOrder(*all.filter { it.boundingBoxComponent.isWithin(range) }.toTypedArray()))
+                assertThat(gameWorld.getEntitiesInRadius(point, radius), containsInAnyOrder(*all.filter { it.position.distance(point) <= radius }.toTypedArray()))
+                assertThat(gameWorld.getCollidingEntities(entity), containsInAnyOrder(*all.filter { it !== entity && it.isColliding(entity) }.toTypedArray()))
+                assertThat(gameWorld.getEntitiesAt(entity.position), containsInAnyOrder(*all.filter { it.position == entity.position }.toTypedArray()))
+
+                val closest = gameWorld.getClosestEntities(point, 5, Predicate { true })
+                val expected = all.sortedBy { it.position.distance(point) }.take(5)
+
+                assertThat(closest.map { it.position.distance(point) }, `is`(expected.map { it.position.distance(point) }))
+            }
+        }
+    }
+
     @Test
     fun `Entities with IrremovableComponent are correctly added to update list after same frame setLevel`() {
         val e = Entity()
@@ -866,6 +1259,48 @@ class GameWorldTest {
         }
     }
 
+    class PooledEntityFactory : EntityFactory {
+
+        @Spawns("enemy")
+        fun makeEnemy(data: SpawnData): Entity {
+            val e = Entity()
+            e.setPosition(data.x, data.y)
+            return e
+        }
+
+        @Preload(3)
+        @Spawns("bullet")
+        fun makeBullet(data: SpawnData): Entity {
+            val e = Entity()
+            e.setPosition(data.x, data.y)
+            e.rotation = 45.0
+            e.addComponent(PooledComponent())
+            data.data.forEach { (key, value) -> e.setProperty(key, value) }
+            return e
+        }
+
+        @Preload(3)
+        @Spawns("bomb")
+        fun makeBomb(data: SpawnData): Entity {
+            return Entity()
+        }
+    }
+
+    class PooledComponent : Component() {
+        var value = 0
+        var numAdded = 0
+        var numResets = 0
+
+        override fun onAdded() {
+            numAdded++
+        }
+
+        override fun onReset(data: SpawnData) {
+            value = 0
+            numResets++
+        }
+    }
+
     class TestValueComponent : Component() {
         var count = 0
 
@@ -0,0 +1,45 @@
+/*
+ * FXGL - JavaFX Game Library. The MIT License (MIT).
+ * Copyright (c) AlmasB (almaslvl@gmail.com).
+ * See LICENSE for details.
+ */
+
+package com.almasb.fxgl.entity.level.tiled
+
+import org.hamcrest.CoreMatchers.`is`
+import org.hamcrest.CoreMatchers.not
+import org.hamcrest.MatcherAssert.assertThat
+import org.junit.jupiter.api.Test
+
+/**
+ * @author Almas Baimagambetov (almaslvl@gmail.com)
+ */
+class LayerTest {
+
+    @Test
+    fun `Layers are equal if tile data has equal content`() {
+        val layer1 = Layer(width = 2, height = 1, data = intArrayOf(1, 2))
+        val layer2 = Layer(width = 2, height = 1, data = intArrayOf(1, 2))
+
+        assertThat(layer1, `is`(layer2))
+        assertThat(layer1.hashCode(), `is`(layer2.hashCode()))
+
+        layer2.data[1] = 3
+
+        assertThat(layer1, `is`(not(layer2)))
+    }
+
+    @Test
+    fun `Chunks are equal if tile data has equal content`() {
+        val chunk1 = Chunk(16, 0, 1, 2, intArrayOf(5, 0))
+        val chunk2 = Chunk(16, 0, 1, 2, intArrayOf(5, 0))
+
+        assertThat(chunk1, `is`(chunk2))
+        assertThat(chunk1.hashCode(), `is`(chunk2.hashCode()))
+        assertThat(Layer(chunks = listOf(chunk1)), `is`(Layer(chunks = listOf(chunk2))))
+
+        chunk2.data[1] = 7
+
+        assertThat(chunk1, `is`(not(chunk2)))
+    }
+}
@@ -9,10 +9,13 @@ package com.almasb.fxgl.entity.level.tiled
 import com.almasb.fxgl.entity.*
 import com.almasb.fxgl.entity.components.IDComponent
 import com.almasb.fxgl.test.RunWithFX
+import javafx.application.Platform
 import javafx.geometry.Point2D
+import javafx.scene.Scene
 import javafx.scene.image.ImageView
 import javafx.scene.paint.Color
 import javafx.scene.shape.Polygon
+import javafx.stage.Stage
 import org.hamcrest.CoreMatchers.`is`
 import org.hamcrest.MatcherAssert.assertThat
 import org.junit.jupiter.api.Assertions.assertFalse
@@ -23,6 +26,8 @@ import org.junit.jupiter.params.ParameterizedTest
 import org.junit.jupiter.params.provider.CsvSource
 import java.nio.file.Files
 import java.nio.file.Paths
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.TimeUnit
 
 /**
  *
@@ -46,6 +51,39 @@ class TMXLevelLoaderTest {
         assertThat(level.entities.size, `is`(4 + 2))
     }
 
+    @Test
+    fun `Tile layer view builds chunks on screen once it is in a scene`() {
+        val world = GameWorld()
+        world.addEntityFactory(MyEntityFactory())
+
+        val level = TMXLevelLoader().load(javaClass.getResource("sewers_v1_2_3.tmx"), world)
+
+        val entity = level.entities.first { it.type == "TiledMapLayer" }
+        val view = entity.viewComponent.children[0] as TileLayerView
+
+        assertThat(view.numBuiltChunks, `is`(0))
+
+        val latch = CountDownLatch(1)
+        var stage: Stage? = null
+
+        Platform.runLater {
+            val scene = Scene(entity.viewComponent.parent, 100.0, 100.0)
+            scene.addPostLayoutPulseListener { latch.countDown() }
+
+            stage = Stage().also {
+                it.scene = scene
+                it.show()
+            }
+        }
+
+        assertTrue(latch.await(5, TimeUnit.SECONDS))
+
+        // 100x100 on screen is within the first chunk of 16x16 64px tiles
+        assertThat(view.numBuiltChunks, `is`(1))
+
+        Platform.runLater { stage?.close() }
+    }
+
     @ParameterizedTest
     @CsvSource("map_with_gid_objects.tmx", "map_with_indented_csv_data.tmx")
     fun `Load tmx level with gid objects`(mapName: String) {
@@ -155,7 +193,7 @@ class TMXLevelLoaderTest {
                 .split(", ")
                 .map { it.toInt() }
 
-        assertThat(layer1.data, `is`(layer1data))
+        assertThat(layer1.data.toList(), `is`(layer1data))
 
         val layer2 = map.layers[1]
 
@@ -168,7 +206,7 @@ class TMXLevelLoaderTest {
                 .split(", ")
                 .map { it.toInt() }
 
-        assertThat(layer2.data, `is`(layer2data))
+        assertThat(layer2.data.toList(), `is`(layer2data))
 
         val layer3 = map.layers[2]
 
@@ -221,6 +259,60 @@ class TMXLevelLoaderTest {
         assertThat(obj3.height, `is`(120))
     }
 
+    @Test
+    fun `Parse infinite map`() {
+        val map = javaClass.getResourceAsStream("map_infinite.tmx").use {
+            TMXLevelLoader().parse(it)
+        }
+
+        assertTrue(map.infinite)
+
+        val csvLayer = map.layers[0]
+
+        // bounds of chunks at (-4, 0) and (4, 4)
+        assertThat(csvLayer.startx, `is`(-4))
+        assertThat(csvLayer.starty, `is`(0))
+        assertThat(csvLayer.width, `is`(12))
+        assertThat(csvLayer.height, `is`(8))
+        assertThat(csvLayer.data.size, `is`(0))
+        assertThat(csvLayer.chunks.size, `is`(2))
+
+        val chunk1 = csvLayer.chunks[0]
+
+        assertThat(chunk1.x, `is`(-4))
+        assertThat(chunk1.y, `is`(0))
+        assertThat(chunk1.width, `is`(4))
+        assertThat(chunk1.height, `is`(4))
+
+        // last gid has the horizontal flip flag set
+        assertThat(chunk1.data.toList(), `is`(listOf(220, 0, 0, 0, 0, 220, 0, 0, 0, 0, 220, 0, 0, 0, 0, (2147483868L).toInt())))
+        assertThat(csvLayer.chunks[1].data.toList(), `is`(List(16) { 1 }))
+
+        val base64Layer = map.layers[1]
+
+        assertThat(base64Layer.startx, `is`(0))
+        assertThat(base64Layer.starty, `is`(-4))
+        assertThat(base64Layer.chunks[0].data.toList(), `is`((1..16).toList()))
+    }
+
+    @Test
+    fun `Parse csv data split over multiple text events`() {
+        val xml = """
+            <map width="3" height="2" tilewidth="16" tileheight="16">
+             <layer name="layer" width="3" height="2">
+              <data encoding="csv">
+            1,22,<!-- comment splits text -->333,
+            4,5<!-- inside a number -->5,6
+            </data>
+             </layer>
+            </map>
+        """.trimIndent()
+
+        val map = TMXLevelLoader().parse(xml.byteInputStream())
+
+        assertThat(map.layers[0].data.toList(), `is`(listOf(1, 22, 333, 4, 55, 6)))
+    }
+
     class MyEntityFactory : EntityFactory {
 
         @Spawns("no_type,type1")
@@ -0,0 +1,114 @@
+/*
+ * FXGL - JavaFX Game Library. The MIT License (MIT).
+ * Copyright (c) AlmasB (almaslvl@gmail.com).
+ * See LICENSE for details.
+ */
+
+package com.almasb.fxgl.entity.level.tiled
+
+import javafx.geometry.Rectangle2D
+import javafx.scene.shape.Rectangle
+import org.hamcrest.CoreMatchers.`is`
+import org.hamcrest.MatcherAssert.assertThat
+import org.junit.jupiter.api.BeforeEach
+import org.junit.jupiter.api.Test
+
+/**
+ * @author Almas Baimagambetov (almaslvl@gmail.com)
+ */
+class TileLayerViewTest {
+
+    private lateinit var view: TileLayerView
+    private val built = arrayListOf<Pair<Int, Int>>()
+
+    @BeforeEach
+    fun setUp() {
+        built.clear()
+
+        // 10x8 chunks of 100x50 pixels, chunk (0, 0) is empty
+        view = TileLayerView(10, 8, 100, 50) { x, y ->
+            built += x to y
+
+            if (x == 0 && y == 0) null else Rectangle(100.0, 50.0).also {
+                it.translateX = x * 100.0
+                it.translateY = y * 50.0
+            }
+        }
+    }
+
+    @Test
+    fun `No chunks are built until visible area is set`() {
+        assertThat(view.numBuiltChunks, `is`(0))
+        assertThat(view.numAttachedChunks, `is`(0))
+    }
+
+    @Test
+    fun `Only chunks intersecting visible area are built and attached`() {
+        view.updateVisibleArea(Rectangle2D(150.0, 60.0, 200.0, 80.0))
+
+        // x chunks 1..3, y chunks 1..2
+        assertThat(view.numBuiltChunks, `is`(6))
+        assertThat(view.numAttachedChunks, `is`(6))
+        assertThat(built.toSet(), `is`(setOf(1 to 1, 2 to 1, 3 to 1, 1 to 2, 2 to 2, 3 to 2)))
+    }
+
+    @Test
+    fun `Empty chunks are built once but not attached`() {
+        view.updateVisibleArea(Rectangle2D(0.0, 0.0, 150.0, 40.0))
+
+        assertThat(view.numBuiltChunks, `is`(2))
+        assertThat(view.numAttachedChunks, `is`(1))
+
+        view.updateVisibleArea(Rectangle2D(0.0, 0.0, 50.0, 40.0))
+        view.updateVisibleArea(Rectangle2D(0.0, 0.0, 150.0, 40.0))
+
+        assertThat(built.size, `is`(2))
+    }
+
+    @Test
+    fun `Visible area is clamped to the layer`() {
+        view.updateVisibleArea(Rectangle2D(-500.0, -500.0, 5000.0, 5000.0))
+
+        assertThat(view.numBuiltChunks, `is`(80))
+        assertThat(view.numAttachedChunks, `is`(79))
+
+        view.updateVisibleArea(Rectangle2D(2000.0, 2000.0, 100.0, 100.0))
+
+        assertThat(view.numAttachedChunks, `is`(0))
+    }
+
+    @Test
+    fun `Chunks near visible area are reused and far chunks are evicted`() {
+        view.evictionDistance = 1
+
+        view.updateVisibleArea(Rectangle2D(0.0, 0.0, 50.0, 40.0))
+
+        // move one chunk to the right, chunk (0, 0) is within eviction distance
+        view.updateVisibleArea(Rectangle2D(100.0, 0.0, 50.0, 40.0))
+        view.updateVisibleArea(Rectangle2D(0.0, 0.0, 50.0, 40.0))
+
+        assertThat(built, `is`(listOf(0 to 0, 1 to 0)))
+
+        // move far away, both chunks are evicted
+        view.updateVisibleArea(Rectangle2D(800.0, 300.0, 50.0, 40.0))
+
+        assertThat(view.numBuiltChunks, `is`(1))
+
+        view.updateVisibleArea(Rectangle2D(100.0, 0.0, 50.0, 40.0))
+
+        assertThat(built, `is`(listOf(0 to 0, 1 to 0, 8 to 6, 1 to 0)))
+    }
+
+    @Test
+    fun `Moving within the same chunks does not rebuild children`() {
+        view.updateVisibleArea(Rectangle2D(110.0, 60.0, 50.0, 20.0))
+
+        val child = view.childrenUnmodifiable[0]
+
+        view.updateVisibleArea(Rectangle2D(120.0, 70.0, 50.0, 20.0))
+
+        assertThat(view.childrenUnmodifiable.size, `is`(1))
+        assertThat(view.childrenUnmodifiable[0] === child, `is`(true))
+        assertThat(built.size, `is`(1))
+    }
+}
@@ -0,0 +1,87 @@
+/*
+ * FXGL - JavaFX Game Library. The MIT License (MIT).
+ * Copyright (c) AlmasB (almaslvl@gmail.com).
+ * See LICENSE for details.
+ */
+
+package com.almasb.fxgl.entity.level.tiled
+
+import javafx.geometry.Rectangle2D
+import org.hamcrest.CoreMatchers.`is`
+import org.hamcrest.MatcherAssert.assertThat
+import org.junit.jupiter.api.BeforeEach
+import org.junit.jupiter.api.Test
+
+/**
+ * @author Almas Baimagambetov (almaslvl@gmail.com)
+ */
+class TiledObjectStreamingComponentTest {
+
+    private lateinit var component: TiledObjectStreamingComponent
+    private val spawned = arrayListOf<Int>()
+
+    @BeforeEach
+    fun setUp() {
+        spawned.clear()
+
+        val objects = listOf(
+                TiledObject(id = 1, x = 10, y = 10, width = 20, height = 20),
+                TiledObject(id = 2, x = 700, y = 10, width = 20, height = 20),
+                // large wall spanning from x = 0 to x = 2000
+                TiledObject(id = 3, x = 0, y = 1000, width = 2000, height = 50),
+                // gid objects have y at the bottom, so this one is at y = 200..300
+                TiledObject(id = 4, gid = 5, x = 1000, y = 300, width = 40, height = 100),
+                TiledObject(id = 5, x = -300, y = -300, width = 0, height = 0)
+        )
+
+        component = TiledObjectStreamingComponent(objects, 256.0, 100.0) { spawned += it.id }
+    }
+
+    @Test
+    fun `Only objects within distance of visible area are spawned`() {
+        component.updateVisibleArea(Rectangle2D(0.0, 0.0, 200.0, 200.0))
+
+        // regions -1..1 in x and y, object 2 is at x = 700
+        assertThat(spawned, `is`(listOf(1)))
+        assertThat(component.numPendingObjects, `is`(4))
+
+        component.updateVisibleArea(Rectangle2D(300.0, 0.0, 200.0, 200.0))
+
+        assertThat(spawned, `is`(listOf(1, 2)))
+    }
+
+    @Test
+    fun `Objects are spawned once`() {
+        component.updateVisibleArea(Rectangle2D(0.0, 0.0, 200.0, 200.0))
+        component.updateVisibleArea(Rectangle2D(1000.0, 1000.0, 200.0, 200.0))
+        component.updateVisibleArea(Rectangle2D(0.0, 0.0, 200.0, 200.0))
+
+        assertThat(spawned, `is`(listOf(1, 3)))
+    }
+
+    @Test
+    fun `Large objects are spawned when any part is in range`() {
+        component.updateVisibleArea(Rectangle2D(1800.0, 800.0, 100.0, 100.0))
+
+        assertThat(spawned, `is`(listOf(3)))
+    }
+
+    @Test
+    fun `Gid objects are placed by their top`() {
+        component.updateVisibleArea(Rectangle2D(1000.0, 0.0, 10.0, 10.0))
+
+        assertThat(spawned, `is`(listOf(4)))
+    }
+
+    @Test
+    fun `Objects at negative coordinates are spawned`() {
+        component.updateVisibleArea(Rectangle2D(-500.0, -500.0, 100.0, 100.0))
+
+        assertThat(spawned, `is`(listOf(5)))
+
+        component.updateVisibleArea(Rectangle2D(-5000.0, -5000.0, 10000.0, 10000.0))
+
+        assertThat(spawned.sorted(), `is`(listOf(1, 2, 3, 4, 5)))
+        assertThat(component.numPendingObjects, `is`(0))
+    }
+}
@@ -687,4 +687,129 @@ class PhysicsWorldTest {
         assertFalse(result.entity.isPresent)
         assertFalse(result.point.isPresent)
     }
-}
\ No newline at end of file
+
+    @Test
+    fun `First registered handler for a pair of types is used`() {
+        val e1 = Entity()
+        e1.type = EntityType.TYPE1
+        e1.boundingBoxComponent.addHitBox(HitBox(BoundingShape.box(40.0, 40.0)))
+        e1.addComponent(CollidableComponent(true))
+
+        val e2 = Entity()
+        e2.type = EntityType.TYPE2
+        e2.position = Point2D(20.0, 0.0)
+        e2.boundingBoxComponent.addHitBox(HitBox(BoundingShape.box(40.0, 40.0)))
+        e2.addComponent(CollidableComponent(true))
+
+        val gameWorld = GameWorld()
+        gameWorld.addWorldListener(physicsWorld)
+        gameWorld.addEntities(e1, e2)
+
+        var count1 = 0
+        var count2 = 0
+
+        val handler1 = object : CollisionHandler(EntityType.TYPE2, EntityType.TYPE1) {
+            override fun onCollisionBegin(a: Entity, b: Entity) {
+                assertTrue(a === e2)
+                assertTrue(b === e1)
+                count1++
+            }
+        }
+
+        val handler2 = object : CollisionHandler(EntityType.TYPE1, EntityType.TYPE2) {
+            override fun onCollisionBegin(a: Entity, b: Entity) {
+                assertTrue(a === e1)
+                assertTrue(b === e2)
+                count2++
+            }
+        }
+
+        physicsWorld.addCollisionHandler(handler1)
+        physicsWorld.addCollisionHandler(handler2)
+        physicsWorld.onUpdate(0.016)
+
+        assertThat(count1, `is`(1))
+        assertThat(count2, `is`(0))
+
+        physicsWorld.removeCollisionHandler(handler1)
+
+        // move apart and back together
+        e2.translateX(100.0)
+        physicsWorld.onUpdate(0.016)
+        e2.translateX(-100.0)
+        physicsWorld.onUpdate(0.016)
+
+        assertThat(count1, `is`(1))
+        assertThat(count2, `is`(1))
+
+        physicsWorld.clearCollisionHandlers()
+
+        e2.translateX(100.0)
+        physicsWorld.onUpdate(0.016)
+        e2.translateX(-100.0)
+        physicsWorld.onUpdate(0.016)
+
+        assertThat(count1, `is`(1))
+        assertThat(count2, `is`(1))
+    }
+
+    @Test
+    fun `Many simultaneous collisions begin and end once`() {
+        val gameWorld = GameWorld()
+        gameWorld.addWorldListener(physicsWorld)
+
+        val entities1 = (0 until 50).map {
+            Entity().also {
+                it.type = EntityType.TYPE1
+                it.boundingBoxComponent.addHitBox(HitBox(BoundingShape.box(40.0, 40.0)))
+                it.addComponent(CollidableComponent(true))
+                gameWorld.addEntity(it)
+            }
+        }
+
+        val entities2 = (0 until 50).map {
+            Entity().also {
+                it.type = EntityType.TYPE2
+                it.position = Point2D(10.0, 10.0)
+                it.boundingBoxComponent.addHitBox(HitBox(BoundingShape.box(40.0, 40.0)))
+                it.addComponent(CollidableComponent(true))
+                gameWorld.addEntity(it)
+            }
+        }
+
+        var collisionBeginCount = 0
+        var collisionCount = 0
+        var collisionEndCount = 0
+
+        physicsWorld.addCollisionHandler(object : CollisionHandler(EntityType.TYPE1, EntityType.TYPE2) {
+            override fun onCollisionBegin(a: Entity, b: Entity) {
+                collisionBeginCount++
+            }
+
+            override fun onCollision(a: Entity, b: Entity) {
+                collisionCount++
+            }
+
+            override fun onCollisionEnd(a: Entity, b: Entity) {
+                collisionEndCount++
+            }
+        })
+
+        physicsWorld.onUpdate(0.016)
+        physicsWorld.onUpdate(0.016)
+
+        assertThat(collisionBeginCount, `is`(2500))
+        assertThat(collisionCount, `is`(5000))
+        assertThat(collisionEndCount, `is`(0))
+
+        // half of the pairs end because entities are no longer collidable, the other half because they moved apart
+        entities1.take(25).forEach { it.removeComponent(CollidableComponent::class.java) }
+        entities2.forEach { it.translateX(500.0) }
+
+        physicsWorld.onUpdate(0.016)
+
+        assertThat(collisionBeginCount, `is`(2500))
+        assertThat(collisionCount, `is`(5000))
+        assertThat(collisionEndCount, `is`(2500))
+    }
+}
@@ -0,0 +1,253 @@
+/*
+ * FXGL - JavaFX Game Library. The MIT License (MIT).
+ * Copyright (c) AlmasB (almaslvl@gmail.com).
+ * See LICENSE for details.
+ */
+
+package com.almasb.fxgl.physics
+
+import com.almasb.fxgl.core.collection.Array
+import com.almasb.fxgl.entity.Entity
+import com.almasb.fxgl.entity.GameWorld
+import com.almasb.fxgl.entity.components.CollidableComponent
+import javafx.geometry.Point2D
+import org.hamcrest.MatcherAssert.assertThat
+import org.hamcrest.Matchers.`is`
+import org.junit.jupiter.api.Assertions.assertFalse
+import org.junit.jupiter.api.Assertions.assertTrue
+import org.junit.jupiter.api.BeforeEach
+import org.junit.jupiter.api.Test
+import org.junit.jupiter.api.assertThrows
+import java.util.*
+
+/**
+ *
+ * @author Almas Baimagambetov (almaslvl@gmail.com)
+ */
+class SpatialHashBroadphaseTest {
+
+    private enum class EntityType {
+        TYPE1, TYPE2
+    }
+
+    private lateinit var broadphase: SpatialHashBroadphase
+
+    @BeforeEach
+    fun setUp() {
+        broadphase = SpatialHashBroadphase(50.0)
+    }
+
+    @Test
+    fun `Cell size must be positive`() {
+        assertThrows<IllegalArgumentException> {
+            SpatialHashBroadphase(0.0)
+        }
+
+        assertThrows<IllegalArgumentException> {
+            SpatialHashBroadphase(10.0, 0)
+        }
+    }
+
+    @Test
+    fun `Pairs that share multiple cells are reported once`() {
+        val e1 = newEntity(40.0, 40.0, 100.0, 100.0)
+        val e2 = newEntity(60.0, 60.0, 100.0, 100.0)
+        val e3 = newEntity(500.0, 500.0, 10.0, 10.0)
+
+        val pairs = findPairs(e1, e2, e3)
+
+        assertThat(pairs.size, `is`(1))
+        assertTrue(pairs[0].equal(e1, e2))
+    }
+
+    @Test
+    fun `Touching entities are reported`() {
+        val e1 = newEntity(0.0, 0.0, 50.0, 50.0)
+        val e2 = newEntity(50.0, 0.0, 50.0, 50.0)
+
+        assertThat(findPairs(e1, e2).size, `is`(1))
+    }
+
+    @Test
+    fun `Moving entities update their cells`() {
+        val e1 = newEntity(0.0, 0.0, 20.0, 20.0)
+        val e2 = newEntity(300.0, 300.0, 20.0, 20.0)
+
+        assertThat(findPairs(e1, e2).size, `is`(0))
+
+        e2.position = Point2D(10.0, 10.0)
+
+        assertThat(findPairs(e1, e2).size, `is`(1))
+        assertThat(broadphase.numCells, `is`(1))
+
+        e2.position = Point2D(-300.0, -300.0)
+
+        assertThat(findPairs(e1, e2).size, `is`(0))
+        assertThat(broadphase.numCells, `is`(2))
+    }
+
+    @Test
+    fun `Cells are updated after bounding box changes`() {
+        val e1 = newEntity(0.0, 0.0, 20.0, 20.0)
+        val e2 = newEntity(100.0, 0.0, 20.0, 20.0)
+
+        assertThat(findPairs(e1, e2).size, `is`(0))
+
+        e2.boundingBoxComponent.addHitBox(HitBox(Point2D(-100.0, 0.0), BoundingShape.box(20.0, 20.0)))
+
+        assertThat(findPairs(e1, e2).size, `is`(1))
+
+        // an entity that moved while it was not passed is placed again once it is passed
+        assertThat(findPairs(e1).size, `is`(0))
+
+        e2.position = Point2D(500.0, 500.0)
+
+        assertThat(findPairs(e1, e2).size, `is`(0))
+    }
+
+    @Test
+    fun `Entities that are no longer passed are removed`() {
+        val e1 = newEntity(0.0, 0.0, 20.0, 20.0)
+        val e2 = newEntity(10.0, 10.0, 20.0, 20.0)
+
+        assertThat(findPairs(e1, e2).size, `is`(1))
+        assertThat(findPairs(e1).size, `is`(0))
+        assertThat(broadphase.numCells, `is`(1))
+
+        broadphase.clear()
+
+        assertThat(broadphase.numCells, `is`(0))
+    }
+
+    @Test
+    fun `Oversized entities are paired with every entity`() {
+        broadphase = SpatialHashBroadphase(10.0, 4)
+
+        val wall = newEntity(0.0, 0.0, 1000.0, 1000.0)
+        val e1 = newEntity(5.0, 5.0, 5.0, 5.0)
+        val e2 = newEntity(900.0, 900.0, 5.0, 5.0)
+
+        val pairs = findPairs(wall, e1, e2)
+
+        assertThat(pairs.size, `is`(2))
+        assertTrue(pairs.any { it.equal(wall, e1) })
+        assertTrue(pairs.any { it.equal(wall, e2) })
+    }
+
+    @Test
+    fun `Scaled and rotated entities are reported`() {
+        val e1 = newEntity(0.0, 0.0, 20.0, 20.0)
+        val e2 = newEntity(90.0, 0.0, 20.0, 20.0)
+
+        assertThat(findPairs(e1, e2).size, `is`(0))
+
+        e1.scaleX = 5.0
+
+        assertThat(findPairs(e1, e2).size, `is`(1))
+
+        val e3 = newEntity(0.0, -60.0, 100.0, 2.0)
+        val e4 = newEntity(-10.0, 0.0, 20.0, 20.0)
+        e3.transformComponent.rotationOrigin = Point2D(0.0, 0.0)
+
+        assertThat(findPairs(e3, e4).size, `is`(0))
+
+        e3.rotation = 90.0
+
+        assertThat(findPairs(e3, e4).size, `is`(1))
+    }
+
+    @Test
+    fun `Reports a superset of colliding pairs`() {
+        val random = Random(7)
+
+        val entities = (0 until 300).map {
+            newEntity(random.nextDouble() * 1000, random.nextDouble() * 1000, 5.0 + random.nextDouble() * 120, 5.0 + random.nextDouble() * 30)
+        }
+
+        val expected = findPairs(BruteForceBroadphase(), entities)
+                .filter { it.a.boundingBoxComponent.isCollidingWith(it.b.boundingBoxComponent) }
+
+        val actual = findPairs(broadphase, entities)
+
+        assertTrue(expected.isNotEmpty())
+        assertTrue(actual.size < entities.size * (entities.size - 1) / 2)
+
+        expected.forEach { pair ->
+            assertTrue(actual.any { it.equal(pair.a, pair.b) })
+        }
+
+        // no duplicates
+        actual.forEachIndexed { i, p1 ->
+            actual.drop(i + 1).forEach { p2 ->
+                assertFalse(p1.equal(p2.a, p2.b))
+            }
+        }
+    }
+
+    @Test
+    fun `Physics world ends collision when entities are moved apart far`() {
+        val physicsWorld = PhysicsWorld(600, 50.0)
+        physicsWorld.broadphase = broadphase
+
+        val e1 = newEntity(100.0, 100.0, 40.0, 40.0)
+        e1.type = EntityType.TYPE1
+        e1.addComponent(CollidableComponent(true))
+
+        val e2 = newEntity(120.0, 100.0, 40.0, 40.0)
+        e2.type = EntityType.TYPE2
+        e2.addComponent(CollidableComponent(true))
+
+        val gameWorld = GameWorld()
+        gameWorld.addWorldListener(physicsWorld)
+        gameWorld.addEntities(e1, e2)
+
+        var collisionBeginCount = 0
+        var collisionEndCount = 0
+
+        physicsWorld.addCollisionHandler(object : CollisionHandler(EntityType.TYPE1, EntityType.TYPE2) {
+            override fun onCollisionBegin(a: Entity, b: Entity) {
+                collisionBeginCount++
+            }
+
+            override fun onCollisionEnd(a: Entity, b: Entity) {
+                collisionEndCount++
+            }
+        })
+
+        physicsWorld.onUpdate(0.016)
+
+        assertThat(collisionBeginCount, `is`(1))
+        assertThat(collisionEndCount, `is`(0))
+
+        physicsWorld.onUpdate(0.016)
+
+        assertThat(collisionBeginCount, `is`(1))
+        assertThat(collisionEndCount, `is`(0))
+
+        e2.position = Point2D(2000.0, 2000.0)
+
+        physicsWorld.onUpdate(0.016)
+
+        assertThat(collisionBeginCount, `is`(1))
+        assertThat(collisionEndCount, `is`(1))
+    }
+
+    private fun newEntity(x: Double, y: Double, width: Double, height: Double): Entity {
+        val e = Entity()
+        e.position = Point2D(x, y)
+        e.boundingBoxComponent.addHitBox(HitBox(BoundingShape.box(width, height)))
+        return e
+    }
+
+    private fun findPairs(vararg entities: Entity) = findPairs(broadphase, entities.toList())
+
+    private fun findPairs(broadphase: CollisionBroadphase, entities: List<Entity>): List<Pair<Entity>> {
+        val result = arrayListOf<Pair<Entity>>()
+
+        broadphase.findPairs(Array(entities)) { e1, e2 ->
+            result += Pair(e1, e2)
+        }
+
+        return result
+    }
+}
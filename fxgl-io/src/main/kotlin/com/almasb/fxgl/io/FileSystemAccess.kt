@@ -6,6 +6,9 @@
 
 package com.almasb.fxgl.io
 
+import com.almasb.fxgl.core.serialization.Bundle
+import com.almasb.fxgl.core.serialization.BundleReader
+import com.almasb.fxgl.core.serialization.BundleWriter
 import com.almasb.fxgl.logging.Logger
 import java.io.*
 
@@ -22,6 +25,10 @@ internal class FileSystemAccess(
          */
         private val rootStorage: File) {
 
+    companion object {
+        private const val HEADER_SIZE = 4
+    }
+
     private val log = Logger.get(javaClass)
 
     fun exists(pathName: String): Boolean {
@@ -39,9 +46,16 @@ internal class FileSystemAccess(
         // due to how toFile() constructs file, parentFile is always non-null
         file.parentFile.mkdirs()
 
-        ObjectOutputStream(FileOutputStream(file)).use {
-            log.debug("Writing to: $file")
-            it.writeObject(data)
+        log.debug("Writing to: $file")
+
+        if (data is Bundle) {
+            BufferedOutputStream(FileOutputStream(file)).use {
+                BundleWriter(it).write(data)
+            }
+        } else {
+            ObjectOutputStream(FileOutputStream(file)).use {
+                it.writeObject(data)
+            }
         }
     }
 
@@ -55,9 +69,21 @@ internal class FileSystemAccess(
     fun <T> readData(fileName: String): T {
         val file = toFile(fileName)
 
-        ObjectInputStream(FileInputStream(file)).use {
-            log.debug("Reading from: $file")
-            return it.readObject() as T
+        log.debug("Reading from: $file")
+
+        BufferedInputStream(FileInputStream(file)).use {
+            // bundles written before the binary format was introduced use Java serialization
+            val header = ByteArray(HEADER_SIZE)
+
+            it.mark(HEADER_SIZE)
+            val numRead = it.readNBytes(header, 0, HEADER_SIZE)
+            it.reset()
+
+            if (BundleReader.isBundleStream(header.copyOf(numRead))) {
+                return BundleReader(it).read() as T
+            }
+
+            return ObjectInputStream(it).readObject() as T
         }
     }
 
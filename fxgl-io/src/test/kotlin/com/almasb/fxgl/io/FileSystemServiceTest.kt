@@ -1,5 +1,6 @@
 package com.almasb.fxgl.io
 
+import com.almasb.fxgl.core.serialization.Bundle
 import com.almasb.fxgl.test.InjectInTest
 import org.hamcrest.CoreMatchers.`is`
 import org.hamcrest.MatcherAssert.assertThat
@@ -7,6 +8,7 @@ import org.hamcrest.collection.IsIterableContainingInAnyOrder.containsInAnyOrder
 import org.junit.jupiter.api.*
 import org.junit.jupiter.api.Assertions.*
 import org.junit.jupiter.api.condition.EnabledIfEnvironmentVariable
+import java.io.ObjectOutputStream
 import java.lang.RuntimeException
 import java.lang.invoke.MethodHandles
 import java.nio.file.Files
@@ -62,6 +64,8 @@ class FileSystemServiceTest {
             deleteIfExists(path("testdir/testexist"))
             deleteIfExists(path("testdir"))
             deleteIfExists(path("somefile.data"))
+            deleteIfExists(path("bundle.data"))
+            deleteIfExists(path("bundle_java.data"))
             deleteIfExists(path("somefile.txt"))
 
             deleteIfExists(path("parentdir/childfile.dat"))
@@ -108,6 +112,33 @@ class FileSystemServiceTest {
         assertThat(data, `is`(data2))
     }
 
+    @Test
+    fun `Write to and read from bundle file`() {
+        val bundle = Bundle("Save")
+        bundle.put("level", 3)
+        bundle.put("name", "Player")
+
+        fs.writeDataTask(bundle, "bundle.data").run()
+
+        val bundle2 = fs.readDataTask<Bundle>("bundle.data").run()
+
+        assertThat(bundle2.name, `is`("Save"))
+        assertThat(bundle2.get<Int>("level"), `is`(3))
+        assertThat(bundle2.get<String>("name"), `is`("Player"))
+    }
+
+    @Test
+    fun `Read bundle file written with Java serialization`() {
+        val bundle = Bundle("Save")
+        bundle.put("level", 3)
+
+        ObjectOutputStream(Files.newOutputStream(path("bundle_java.data"))).use { it.writeObject(bundle) }
+
+        val bundle2 = fs.readDataTask<Bundle>("bundle_java.data").run()
+
+        assertThat(bundle2.get<Int>("level"), `is`(3))
+    }
+
     @Test
     fun `Write to and read from text file`() {
         val text = listOf("Test Line1", "Test Line2")
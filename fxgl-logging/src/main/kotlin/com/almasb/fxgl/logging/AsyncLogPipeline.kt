@@ -0,0 +1,224 @@
+/*
+ * FXGL - JavaFX Game Library. The MIT License (MIT).
+ * Copyright (c) AlmasB (almaslvl@gmail.com).
+ * See LICENSE for details.
+ */
+
+package com.almasb.fxgl.logging
+
+import java.util.concurrent.TimeUnit
+import java.util.concurrent.atomic.AtomicLong
+import java.util.concurrent.locks.LockSupport
+
+/**
+ * A preallocated ring buffer of log records with multiple producers and a single consumer thread.
+ * Producers only copy the raw record data into a slot, while the consumer does the expensive work
+ * (formatting, I/O) off the producer threads.
+ * If the buffer is full, producers wait until the consumer frees a slot, so no records are lost.
+ *
+ * Records cannot be published from the consumer thread (e.g. by an output that logs)
+ * or once the pipeline is stopped, in which case the caller should write the record itself.
+ *
+ * @author Almas Baimagambetov (almaslvl@gmail.com)
+ */
+internal class AsyncLogPipeline(
+        capacity: Int,
+
+        /**
+         * Called on the consumer thread if [consumer] throws.
+         */
+        private val onError: (Throwable) -> Unit = { },
+        private val consumer: (LogRecord) -> Unit) {
+
+    companion object {
+
+        /**
+         * Set in [nextSequence] once the pipeline is stopped, so that no more sequences can be claimed.
+         */
+        private const val CLOSED = Long.MIN_VALUE
+    }
+
+    private val slots: Array<LogRecord>
+    private val mask: Int
+
+    /**
+     * Sequence number to be claimed by the next producer, with the [CLOSED] bit set once stopped.
+     */
+    private val nextSequence = AtomicLong(0)
+
+    /**
+     * Number of records fully consumed.
+     */
+    private val consumedSequence = AtomicLong(0)
+
+    @Volatile
+    private var isConsumerWaiting = false
+
+    @Volatile
+    private var isStopRequested = false
+
+    private val consumerThread = Thread({ consume() }, "FXGL Logger")
+
+    init {
+        require(capacity > 0 && capacity and (capacity - 1) == 0) { "Capacity must be a power of 2: $capacity" }
+
+        slots = Array(capacity) { LogRecord() }
+        mask = capacity - 1
+
+        consumerThread.isDaemon = true
+        consumerThread.start()
+    }
+
+    /**
+     * @return true if the record was published, false if called from the consumer thread or after [stop]
+     */
+    fun publish(timestamp: Long, threadName: String, level: LoggerLevel, loggerName: String, message: String): Boolean {
+        // the consumer would wait for itself if the buffer is full
+        if (Thread.currentThread() === consumerThread)
+            return false
+
+        var sequence: Long
+
+        do {
+            sequence = nextSequence.get()
+
+            if (sequence and CLOSED != 0L)
+                return false
+
+        } while (!nextSequence.compareAndSet(sequence, sequence + 1))
+
+        // wait for the consumer to free the slot
+        while (sequence - consumedSequence.get() >= slots.size) {
+            if (isConsumerWaiting)
+                wakeUpConsumer()
+
+            // do not spin, since producers may outnumber available cores
+            LockSupport.parkNanos(TimeUnit.MICROSECONDS.toNanos(10))
+        }
+
+        val record = slots[(sequence and mask.toLong()).toInt()]
+        record.timestamp = timestamp
+        record.threadName = threadName
+        record.level = level
+        record.loggerName = loggerName
+        record.message = message
+
+        // volatile write makes the above visible to the consumer
+        record.sequence = sequence
+
+        if (isConsumerWaiting) {
+            wakeUpConsumer()
+        }
+
+        return true
+    }
+
+    /**
+     * Blocks until all records published before this call are consumed.
+     * Has no effect if called from the consumer thread, since records are consumed in order,
+     * so all records published before the current one have already been consumed.
+     */
+    fun drain() {
+        if (Thread.currentThread() === consumerThread)
+            return
+
+        waitUntilConsumed(nextSequence.get() and CLOSED.inv())
+    }
+
+    /**
+     * Consumes all published records and stops the consumer thread.
+     * Records published after this call are rejected.
+     */
+    fun stop() {
+        // records claimed before this point are still consumed
+        val end = nextSequence.getAndUpdate { it or CLOSED } and CLOSED.inv()
+
+        if (Thread.currentThread() === consumerThread) {
+            isStopRequested = true
+            return
+        }
+
+        waitUntilConsumed(end)
+
+        isStopRequested = true
+        wakeUpConsumer()
+
+        consumerThread.join()
+    }
+
+    private fun waitUntilConsumed(sequence: Long) {
+        while (consumedSequence.get() < sequence && consumerThread.isAlive) {
+            wakeUpConsumer()
+            LockSupport.parkNanos(TimeUnit.MICROSECONDS.toNanos(100))
+        }
+    }
+
+    private fun wakeUpConsumer() {
+        LockSupport.unpark(consumerThread)
+    }
+
+    private fun consume() {
+        var sequence = 0L
+
+        while (true) {
+            val record = slots[(sequence and mask.toLong()).toInt()]
+
+            if (record.sequence == sequence) {
+                try {
+                    consumer(record)
+                } catch (e: Throwable) {
+                    // a failing output must not stop the pipeline
+                    reportError(e)
+                }
+
+                record.clear()
+
+                sequence++
+                consumedSequence.lazySet(sequence)
+                continue
+            }
+
+            if (isStopRequested)
+                return
+
+            isConsumerWaiting = true
+
+            // check again, since a producer may have published before seeing the flag
+            if (record.sequence != sequence) {
+                LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(10))
+            }
+
+            isConsumerWaiting = false
+        }
+    }
+
+    private fun reportError(e: Throwable) {
+        try {
+            onError(e)
+        } catch (ignored: Throwable) {
+            // nowhere else to report, but the consumer must keep running
+        }
+    }
+}
+
+/**
+ * A mutable log record, reused by [AsyncLogPipeline].
+ */
+internal class LogRecord {
+
+    @Volatile
+    var sequence = -1L
+
+    var timestamp = 0L
+    var threadName = ""
+    var level = LoggerLevel.DEBUG
+    var loggerName = ""
+    var message = ""
+
+    fun clear() {
+        // release references, so that messages can be collected
+        threadName = ""
+        loggerName = ""
+        message = ""
+    }
+}
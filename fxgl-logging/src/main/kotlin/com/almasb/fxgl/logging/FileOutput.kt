@@ -6,60 +6,258 @@
 
 package com.almasb.fxgl.logging
 
+import java.io.IOException
+import java.nio.ByteBuffer
+import java.nio.CharBuffer
+import java.nio.channels.FileChannel
+import java.nio.charset.CodingErrorAction
 import java.nio.file.Files
 import java.nio.file.Path
 import java.nio.file.Paths
+import java.nio.file.StandardOpenOption.CREATE_NEW
+import java.nio.file.StandardOpenOption.WRITE
 import java.time.LocalDateTime
 import java.time.format.DateTimeFormatter
+import java.util.*
 import java.util.stream.Collectors
+import kotlin.concurrent.timerTask
 
 /**
+ * Streams log messages to a file in [logDirectory].
+ * Messages are buffered in a fixed-size buffer, which is written to the file when it is full,
+ * every [flushIntervalMillis] and on JVM shutdown, so memory use does not grow with the session length.
+ * The file (and [logDirectory]) is only created once there are messages to write.
+ * Once the current file reaches [maxFileSize] bytes, a new file is started.
+ * At most [maxLogFiles] files are kept in [logDirectory], the oldest are deleted.
+ *
+ * If writing fails, the buffered messages are dropped, the error is reported once via [Logger]
+ * and later messages are written to a new file.
+ *
+ * This output can be used from multiple threads.
+ *
  * @author Almas Baimagambetov (almaslvl@gmail.com)
  */
 class FileOutput
 @JvmOverloads constructor(private val baseFileName: String,
                           private val logDirectory: String = "logs/",
-                          private val maxLogFiles: Int = 10) : LoggerOutput {
+                          private val maxLogFiles: Int = 10,
+                          private val maxFileSize: Long = 10L * 1024 * 1024,
+                          private val flushIntervalMillis: Long = 1000L) : LoggerOutput {
 
-    private val data = arrayListOf<String>()
+    companion object {
+        private const val BUFFER_SIZE = 64 * 1024
+    }
+
+    private val logDir = Paths.get(logDirectory)
+
+    private val buffer = ByteBuffer.allocate(BUFFER_SIZE)
+
+    private val encoder = Charsets.UTF_8.newEncoder()
+            .onMalformedInput(CodingErrorAction.REPLACE)
+            .onUnmappableCharacter(CodingErrorAction.REPLACE)
+
+    /**
+     * Current file, null until there is something to write.
+     */
+    private var channel: FileChannel? = null
+
+    /**
+     * Files started by this output, in order of creation.
+     */
+    private val createdFiles = arrayListOf<Path>()
+
+    /**
+     * Number of bytes in the current file, including those still in the buffer.
+     */
+    private var fileSize = 0L
+
+    private var isClosed = false
+
+    /**
+     * Last write error, which is reported outside of the lock.
+     */
+    @Volatile
+    private var error: Exception? = null
+
+    private val flushTimer = Timer("FXGL FileOutput Flush", true)
+
+    private val shutdownHook = Thread({ close() }, "FXGL FileOutput Shutdown")
 
     init {
-        val logDir = getOrCreateLogDir()
+        require(maxLogFiles > 0) { "Max log files must be positive: $maxLogFiles" }
+        require(maxFileSize > 0) { "Max file size must be positive: $maxFileSize" }
+
+        flushTimer.schedule(timerTask {
+            // an exception thrown here would cancel the timer
+            try {
+                flush()
+            } catch (e: Exception) {
+                Logger.reportOutputError(this@FileOutput, e)
+            }
+        }, flushIntervalMillis, flushIntervalMillis)
 
-        cleanOldLogs(logDir)
+        Runtime.getRuntime().addShutdownHook(shutdownHook)
     }
 
     override fun append(message: String) {
-        data.add(message)
+        synchronized(this) {
+            if (isClosed)
+                return
+
+            if (fileSize >= maxFileSize) {
+                writeBuffer()
+
+                // next write starts a new file
+                closeFile()
+            }
+
+            encode(CharBuffer.wrap(message))
+            encode(CharBuffer.wrap(System.lineSeparator()))
+        }
+
+        reportError()
+    }
+
+    /**
+     * Writes all buffered messages to the file.
+     */
+    fun flush() {
+        synchronized(this) {
+            if (isClosed)
+                return
+
+            writeBuffer()
+        }
+
+        reportError()
     }
 
     override fun close() {
-        val stamp = LocalDateTime.now().format(DateTimeFormatter.ofPattern("dd-MMM-yyyy-HH.mm.ss"))
-        val file = Paths.get("$logDirectory$baseFileName-$stamp.log")
+        synchronized(this) {
+            if (isClosed)
+                return
+
+            writeBuffer()
+            closeFile()
+
+            isClosed = true
+        }
+
+        reportError()
+
+        flushTimer.cancel()
+
+        if (Thread.currentThread() !== shutdownHook) {
+            try {
+                Runtime.getRuntime().removeShutdownHook(shutdownHook)
+            } catch (e: IllegalStateException) {
+                // JVM is already shutting down
+            }
+        }
+    }
+
+    private fun encode(chars: CharBuffer) {
+        encoder.reset()
+
+        while (true) {
+            val start = buffer.position()
+            val result = encoder.encode(chars, buffer, true)
+
+            fileSize += buffer.position() - start
+
+            if (!result.isOverflow)
+                break
 
-        Files.write(file, data)
+            writeBuffer()
+        }
     }
 
-    private fun getOrCreateLogDir(): Path {
-        val logDir = Paths.get(logDirectory)
+    private fun writeBuffer() {
+        buffer.flip()
+
+        try {
+            if (buffer.hasRemaining()) {
+                val ch = channel ?: openNewFile()
+
+                while (buffer.hasRemaining()) {
+                    ch.write(buffer)
+                }
+            }
+        } catch (e: IOException) {
+            error = e
+
+            // buffered messages are dropped and the next write starts a new file
+            closeFile()
+        } finally {
+            buffer.clear()
+        }
+    }
+
+    private fun closeFile() {
+        val ch = channel ?: return
+
+        channel = null
+        fileSize = 0L
+
+        try {
+            ch.close()
+        } catch (e: IOException) {
+            error = e
+        }
+    }
+
+    private fun openNewFile(): FileChannel {
         if (!Files.exists(logDir)) {
-            Files.createDirectory(logDir)
+            Files.createDirectories(logDir)
+        }
+
+        cleanOldLogs()
+
+        val stamp = LocalDateTime.now().format(DateTimeFormatter.ofPattern("dd-MMM-yyyy-HH.mm.ss"))
+
+        var file = logDir.resolve("$baseFileName-$stamp.log")
+        var index = 1
+
+        // several files may be started within the same second
+        while (Files.exists(file)) {
+            file = logDir.resolve("$baseFileName-$stamp-${index++}.log")
         }
 
-        return logDir
+        val ch = FileChannel.open(file, CREATE_NEW, WRITE)
+
+        createdFiles.add(file)
+        channel = ch
+
+        return ch
     }
 
-    private fun cleanOldLogs(logDir: Path) {
+    private fun cleanOldLogs() {
+        createdFiles.removeIf { !Files.exists(it) }
+
+        // files of previous sessions are older than those created by this output,
+        // whose modified times may be equal if they were written within the same tick
         val logs = Files.walk(logDir, 1)
-                .filter { Files.isRegularFile(it) }
+                .filter { Files.isRegularFile(it) && it !in createdFiles }
                 .sorted { file1, file2 -> Files.getLastModifiedTime(file1).compareTo(Files.getLastModifiedTime(file2)) }
                 .collect(Collectors.toList<Path>())
 
+        logs.addAll(createdFiles)
+
         val logSize = logs.size
         if (logSize >= maxLogFiles) {
             for (i in 0 until logSize + 1 - maxLogFiles) {
                 Files.delete(logs[i])
+
+                createdFiles.remove(logs[i])
             }
         }
     }
-}
\ No newline at end of file
+
+    private fun reportError() {
+        val e = error ?: return
+
+        error = null
+
+        Logger.reportOutputError(this, e)
+    }
+}
@@ -8,7 +8,12 @@ package com.almasb.fxgl.logging
 
 import java.io.PrintWriter
 import java.io.StringWriter
+import java.time.Instant
 import java.time.LocalTime
+import java.time.ZoneId
+import java.util.*
+import java.util.concurrent.ConcurrentHashMap
+import java.util.concurrent.CopyOnWriteArrayList
 
 /**
  *
@@ -18,19 +23,44 @@ import java.time.LocalTime
 class Logger
 private constructor(private val name: String) {
 
+    /**
+     * True if at least one output accepts debug messages.
+     * Use this to avoid building expensive messages that would be discarded.
+     */
+    val isDebugEnabled: Boolean
+        get() = isEnabled(LoggerLevel.DEBUG)
+
+    val isInfoEnabled: Boolean
+        get() = isEnabled(LoggerLevel.INFO)
+
+    val isWarningEnabled: Boolean
+        get() = isEnabled(LoggerLevel.WARNING)
+
+    val isFatalEnabled: Boolean
+        get() = isEnabled(LoggerLevel.FATAL)
+
     companion object {
 
-        private val outputs = ArrayList<LoggerOutput>()
+        // outputs are read by the async pipeline thread, so these lists need to be thread-safe
+        private val outputs = CopyOnWriteArrayList<LoggerOutput>()
+
+        private val debug = CopyOnWriteArrayList<LoggerOutput>()
+        private val info = CopyOnWriteArrayList<LoggerOutput>()
+        private val warning = CopyOnWriteArrayList<LoggerOutput>()
+        private val fatal = CopyOnWriteArrayList<LoggerOutput>()
 
-        private val debug = ArrayList<LoggerOutput>()
-        private val info = ArrayList<LoggerOutput>()
-        private val warning = ArrayList<LoggerOutput>()
-        private val fatal = ArrayList<LoggerOutput>()
+        /**
+         * Outputs that failed to write, so that an error is only reported once per output.
+         */
+        private val failedOutputs: MutableSet<LoggerOutput> = Collections.newSetFromMap(ConcurrentHashMap())
 
         private var config = LoggerConfig()
         private var isConfigured = false
         private var isClosed = false
 
+        @Volatile
+        private var pipeline: AsyncLogPipeline? = null
+
         @JvmStatic fun isConfigured(): Boolean = isConfigured
 
         @JvmStatic fun configure(config: LoggerConfig) {
@@ -42,6 +72,18 @@ private constructor(private val name: String) {
             this.config = config.copy()
             isConfigured = true
 
+            if (this.config.isAsync) {
+                pipeline = AsyncLogPipeline(this.config.asyncBufferSize, onError = {
+                    doLog("Logger", "Failed to write log record. Error: $it", LoggerLevel.WARNING)
+                }) {
+                    val time = LocalTime.ofInstant(Instant.ofEpochMilli(it.timestamp), ZoneId.systemDefault())
+
+                    val message = makeMessage(time, it.threadName, it.loggerName, it.message, it.level)
+
+                    append(outputsOf(it.level), message)
+                }
+            }
+
             doLog("Logger", "Configured Logger", LoggerLevel.DEBUG)
         }
 
@@ -73,32 +115,64 @@ private constructor(private val name: String) {
             }
         }
 
+        private fun outputsOf(level: LoggerLevel): List<LoggerOutput> {
+            return when(level) {
+                LoggerLevel.DEBUG -> debug
+                LoggerLevel.INFO -> info
+                LoggerLevel.WARNING -> warning
+                LoggerLevel.FATAL -> fatal
+            }
+        }
+
+        @JvmStatic fun isEnabled(level: LoggerLevel): Boolean = outputsOf(level).isNotEmpty()
+
         private fun doLog(loggerName: String, loggerMessage: String, level: LoggerLevel) {
-            val message = lazy { makeMessage(loggerName, loggerMessage, level) }
+            val levelOutputs = outputsOf(level)
 
-            when(level) {
-                LoggerLevel.DEBUG -> {
-                    debug.forEach { it.append(message.value) }
-                }
+            if (levelOutputs.isEmpty())
+                return
 
-                LoggerLevel.INFO -> {
-                    info.forEach { it.append(message.value) }
-                }
+            val p = pipeline
 
-                LoggerLevel.WARNING -> {
-                    warning.forEach { it.append(message.value) }
-                }
+            if (p != null && p.publish(System.currentTimeMillis(), Thread.currentThread().name, level, loggerName, loggerMessage)) {
 
-                LoggerLevel.FATAL -> {
-                    fatal.forEach { it.append(message.value) }
+                // the application may be about to crash, so make sure fatal messages are written
+                if (level == LoggerLevel.FATAL)
+                    p.drain()
+
+                return
+            }
+
+            // not async, or the pipeline rejected the record (logged by an output or after close), so write here
+            val message = makeMessage(LocalTime.now(), Thread.currentThread().name, loggerName, loggerMessage, level)
+
+            append(levelOutputs, message)
+        }
+
+        private fun append(levelOutputs: List<LoggerOutput>, message: String) {
+            levelOutputs.forEach {
+                try {
+                    it.append(message)
+                } catch (e: Exception) {
+                    reportOutputError(it, e)
                 }
             }
         }
 
-        private fun makeMessage(loggerName: String, loggerMessage: String, level: LoggerLevel): String {
-            val time = LocalTime.now().format(config.dateTimeFormatter)
-            val threadName = Thread.currentThread().name
-            return config.messageFormatter.makeMessage(time, threadName, "$level", loggerName, loggerMessage)
+        /**
+         * Reports (once per output) that [output] failed to write a message.
+         * The output is expected to keep accepting messages.
+         */
+        internal fun reportOutputError(output: LoggerOutput, error: Throwable) {
+            // mark first, since the warning is also sent to the failed output
+            if (!failedOutputs.add(output))
+                return
+
+            doLog("Logger", "Failed to write to ${output.javaClass.simpleName}. Error: $error", LoggerLevel.WARNING)
+        }
+
+        private fun makeMessage(time: LocalTime, threadName: String, loggerName: String, loggerMessage: String, level: LoggerLevel): String {
+            return config.messageFormatter.makeMessage(time.format(config.dateTimeFormatter), threadName, "$level", loggerName, loggerMessage)
         }
 
         @JvmStatic fun get(name: String): Logger {
@@ -118,6 +192,10 @@ private constructor(private val name: String) {
 
             doLog("Logger", "Closing Logger", LoggerLevel.DEBUG)
 
+            // write all pending records before closing outputs
+            pipeline?.stop()
+            pipeline = null
+
             outputs.forEach(LoggerOutput::close)
             isClosed = true
         }
@@ -139,7 +217,8 @@ private constructor(private val name: String) {
      * @param args arguments
      */
     fun infof(format: String, vararg args: Any) {
-        info(String.format(format, *args))
+        if (isInfoEnabled)
+            info(String.format(format, *args))
     }
 
     /**
@@ -158,7 +237,8 @@ private constructor(private val name: String) {
      * @param args arguments
      */
     fun debugf(format: String, vararg args: Any) {
-        debug(String.format(format, *args))
+        if (isDebugEnabled)
+            debug(String.format(format, *args))
     }
 
     /**
@@ -174,7 +254,8 @@ private constructor(private val name: String) {
      * Log a warning level message.
      */
     fun warning(message: String, error: Throwable) {
-        warning("$message Error: $error")
+        if (isWarningEnabled)
+            warning("$message Error: $error")
     }
 
     /**
@@ -184,7 +265,8 @@ private constructor(private val name: String) {
      * @param args arguments
      */
     fun warningf(format: String, vararg args: Any) {
-        warning(String.format(format, *args))
+        if (isWarningEnabled)
+            warning(String.format(format, *args))
     }
 
     /**
@@ -200,6 +282,9 @@ private constructor(private val name: String) {
      * Log a fatal level message.
      */
     fun fatal(message: String, error: Throwable) {
+        if (!isFatalEnabled)
+            return
+
         val trace = error.stackTraceToString()
 
         fatal("$message\n$trace")
@@ -212,7 +297,8 @@ private constructor(private val name: String) {
      * @param args arguments
      */
     fun fatalf(format: String, vararg args: Any) {
-        fatal(String.format(format, *args))
+        if (isFatalEnabled)
+            fatal(String.format(format, *args))
     }
 }
 
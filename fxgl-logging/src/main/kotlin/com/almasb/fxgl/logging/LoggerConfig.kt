@@ -16,10 +16,25 @@ class LoggerConfig {
     var dateTimeFormatter = DateTimeFormatter.ofPattern("HH:mm:ss.SSS")
     var messageFormatter = DefaultMessageFormatter()
 
+    /**
+     * If true, logging calls only publish records into a ring buffer,
+     * while formatting and writing to outputs happen on a background thread.
+     * Fatal messages still wait until they are written.
+     */
+    var isAsync = false
+
+    /**
+     * Number of records the ring buffer can hold in async mode, must be a power of 2.
+     * If the buffer is full, logging calls wait for the background thread.
+     */
+    var asyncBufferSize = 8192
+
     internal fun copy(): LoggerConfig {
         val copy = LoggerConfig()
         copy.dateTimeFormatter = dateTimeFormatter
         copy.messageFormatter = messageFormatter
+        copy.isAsync = isAsync
+        copy.asyncBufferSize = asyncBufferSize
         return copy
     }
 }
\ No newline at end of file
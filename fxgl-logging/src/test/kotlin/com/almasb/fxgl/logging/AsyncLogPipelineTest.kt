@@ -0,0 +1,164 @@
+/*
+ * FXGL - JavaFX Game Library. The MIT License (MIT).
+ * Copyright (c) AlmasB (almaslvl@gmail.com).
+ * See LICENSE for details.
+ */
+
+package com.almasb.fxgl.logging
+
+import org.hamcrest.CoreMatchers.`is`
+import org.hamcrest.MatcherAssert.assertThat
+import org.hamcrest.Matchers.contains
+import org.hamcrest.Matchers.not
+import org.junit.jupiter.api.Assertions.assertDoesNotThrow
+import org.junit.jupiter.api.Assertions.assertFalse
+import org.junit.jupiter.api.Assertions.assertThrows
+import org.junit.jupiter.api.Assertions.assertTimeout
+import org.junit.jupiter.api.Assertions.assertTrue
+import org.junit.jupiter.api.Test
+import java.time.Duration.ofSeconds
+import java.util.concurrent.ConcurrentHashMap
+import java.util.concurrent.CopyOnWriteArrayList
+import java.util.concurrent.atomic.AtomicBoolean
+
+/**
+ *
+ * @author Almas Baimagambetov (almaslvl@gmail.com)
+ */
+class AsyncLogPipelineTest {
+
+    @Test
+    fun `Records are consumed in order on a background thread`() {
+        val messages = CopyOnWriteArrayList<String>()
+        val threads = CopyOnWriteArrayList<String>()
+
+        val pipeline = AsyncLogPipeline(4) {
+            messages.add("${it.level} ${it.loggerName} ${it.message} ${it.timestamp} ${it.threadName}")
+            threads.add(Thread.currentThread().name)
+        }
+
+        // more than capacity, so producer has to wait for the consumer
+        for (i in 0 until 10) {
+            pipeline.publish(i.toLong(), "Main", LoggerLevel.INFO, "Test", "Message $i")
+        }
+
+        pipeline.drain()
+
+        assertThat(messages, contains(*(0 until 10).map { "INFO Test Message $it $it Main" }.toTypedArray()))
+        threads.forEach { assertThat(it, `is`(not(Thread.currentThread().name))) }
+
+        pipeline.stop()
+    }
+
+    @Test
+    fun `Records from multiple producers are not lost`() {
+        assertTimeout(ofSeconds(10)) {
+            val counts = ConcurrentHashMap<String, Int>()
+            val lastMessage = ConcurrentHashMap<String, Int>()
+            val isOrdered = AtomicBoolean(true)
+
+            val pipeline = AsyncLogPipeline(64) {
+                counts.merge(it.threadName, 1, Int::plus)
+
+                // records from the same producer stay in order
+                val message = it.message.toInt()
+                val last = lastMessage.put(it.threadName, message) ?: -1
+                if (message != last + 1)
+                    isOrdered.set(false)
+            }
+
+            val producers = (0 until 4).map { id ->
+                Thread {
+                    for (i in 0 until 20000) {
+                        pipeline.publish(0L, "Producer $id", LoggerLevel.DEBUG, "Test", "$i")
+                    }
+                }
+            }
+
+            producers.forEach { it.start() }
+            producers.forEach { it.join() }
+
+            pipeline.stop()
+
+            assertTrue(isOrdered.get())
+            assertThat(counts.size, `is`(4))
+            counts.values.forEach { assertThat(it, `is`(20000)) }
+        }
+    }
+
+    @Test
+    fun `Failing consumer does not stop pipeline`() {
+        val messages = CopyOnWriteArrayList<String>()
+        val errors = CopyOnWriteArrayList<Throwable>()
+
+        val pipeline = AsyncLogPipeline(8, onError = { errors.add(it) }) {
+            if (it.message == "Fail")
+                throw RuntimeException("Test")
+
+            messages.add(it.message)
+        }
+
+        pipeline.publish(0L, "Main", LoggerLevel.INFO, "Test", "Fail")
+        pipeline.publish(0L, "Main", LoggerLevel.INFO, "Test", "OK")
+
+        pipeline.stop()
+
+        assertThat(messages, contains("OK"))
+        assertThat(errors.size, `is`(1))
+        assertThat(errors[0].message, `is`("Test"))
+    }
+
+    @Test
+    fun `Consumer thread cannot publish or wait for itself`() {
+        assertTimeout(ofSeconds(2)) {
+            val results = CopyOnWriteArrayList<Boolean>()
+
+            lateinit var pipeline: AsyncLogPipeline
+
+            // capacity 1, so the buffer is full while the consumer handles a record
+            pipeline = AsyncLogPipeline(1) {
+                if (it.level == LoggerLevel.FATAL) {
+                    // e.g. an output that logs a fatal message while writing
+                    results.add(pipeline.publish(0L, "Logger", LoggerLevel.INFO, "Test", "Nested"))
+                    pipeline.drain()
+                }
+            }
+
+            assertTrue(pipeline.publish(0L, "Main", LoggerLevel.FATAL, "Test", "Fatal"))
+
+            pipeline.drain()
+            pipeline.stop()
+
+            assertThat(results, contains(false))
+        }
+    }
+
+    @Test
+    fun `Publish after stop is rejected`() {
+        val messages = CopyOnWriteArrayList<String>()
+
+        val pipeline = AsyncLogPipeline(4) {
+            messages.add(it.message)
+        }
+
+        assertTrue(pipeline.publish(0L, "Main", LoggerLevel.INFO, "Test", "Before"))
+
+        pipeline.stop()
+
+        assertFalse(pipeline.publish(0L, "Main", LoggerLevel.INFO, "Test", "After"))
+
+        assertThat(messages, contains("Before"))
+
+        assertDoesNotThrow {
+            pipeline.drain()
+            pipeline.stop()
+        }
+    }
+
+    @Test
+    fun `Capacity must be a power of 2`() {
+        assertThrows(IllegalArgumentException::class.java) {
+            AsyncLogPipeline(100) { }
+        }
+    }
+}
@@ -0,0 +1,212 @@
+/*
+ * FXGL - JavaFX Game Library. The MIT License (MIT).
+ * Copyright (c) AlmasB (almaslvl@gmail.com).
+ * See LICENSE for details.
+ */
+
+package com.almasb.fxgl.logging
+
+import org.hamcrest.CoreMatchers.`is`
+import org.hamcrest.MatcherAssert.assertThat
+import org.hamcrest.Matchers.*
+import org.junit.jupiter.api.Assertions.assertFalse
+import org.junit.jupiter.api.Assertions.assertThrows
+import org.junit.jupiter.api.Test
+import org.junit.jupiter.api.assertDoesNotThrow
+import org.junit.jupiter.api.io.TempDir
+import java.nio.file.Files
+import java.nio.file.Path
+import java.util.stream.Collectors
+
+/**
+ *
+ * @author Almas Baimagambetov (almaslvl@gmail.com)
+ */
+class FileOutputTest {
+
+    @TempDir
+    lateinit var tempDir: Path
+
+    private val logDir: String
+        get() = "$tempDir/logs/"
+
+    @Test
+    fun `Messages are written to file on close`() {
+        val output = FileOutput("test", logDir)
+
+        output.append("Line 1")
+        output.append("Line 2 ü")
+
+        output.close()
+
+        assertThat(readAllLines(), contains("Line 1", "Line 2 ü"))
+    }
+
+    @Test
+    fun `Messages are written to file on flush`() {
+        val output = FileOutput("test", logDir)
+
+        output.append("Line 1")
+
+        assertThat(readAllLines().size, `is`(0))
+
+        output.flush()
+
+        assertThat(readAllLines(), contains("Line 1"))
+
+        output.close()
+    }
+
+    @Test
+    fun `Messages are flushed periodically`() {
+        val output = FileOutput("test", logDir, flushIntervalMillis = 50)
+
+        output.append("Line 1")
+
+        Thread.sleep(300)
+
+        assertThat(readAllLines(), contains("Line 1"))
+
+        output.close()
+    }
+
+    @Test
+    fun `Messages larger than buffer are written fully`() {
+        val output = FileOutput("test", logDir)
+
+        val message = "x".repeat(200_000)
+
+        repeat(3) {
+            output.append(message)
+        }
+
+        output.close()
+
+        val lines = readAllLines()
+
+        assertThat(lines.size, `is`(3))
+        lines.forEach { assertThat(it, `is`(message)) }
+    }
+
+    @Test
+    fun `Files are rotated by size and count`() {
+        val output = FileOutput("test", logDir, maxLogFiles = 3, maxFileSize = 1000)
+
+        // each message is 101 or 102 bytes with line separator, so 10 messages per file
+        for (i in 0 until 100) {
+            output.append("$i".padEnd(100, '.'))
+        }
+
+        output.close()
+
+        val files = logFiles()
+
+        assertThat(files.size, `is`(3))
+        files.forEach { assertThat(Files.size(it), lessThan(1200L)) }
+
+        // only the latest messages are kept
+        val numbers = readAllLines().map { it.substringBefore('.').toInt() }
+
+        assertThat(numbers, containsInAnyOrder(*(70 until 100).toList().toTypedArray()))
+    }
+
+    @Test
+    fun `File is not created until messages are written`() {
+        val output = FileOutput("test", logDir)
+
+        assertFalse(Files.exists(tempDir.resolve("logs")))
+
+        output.flush()
+
+        assertFalse(Files.exists(tempDir.resolve("logs")))
+
+        output.append("Line 1")
+        output.flush()
+
+        assertThat(readAllLines(), contains("Line 1"))
+
+        output.close()
+    }
+
+    @Test
+    fun `Write errors are reported once and do not stop logging`() {
+        val messages = arrayListOf<String>()
+
+        Logger.addOutput(object : LoggerOutput {
+            override fun append(message: String) {
+                messages.add(message)
+            }
+
+            override fun close() { }
+        }, LoggerLevel.WARNING)
+
+        // a regular file cannot be used as a log directory
+        val file = Files.createFile(tempDir.resolve("logs"))
+
+        val output = FileOutput("test", logDir, flushIntervalMillis = 50)
+
+        assertDoesNotThrow {
+            output.append("Line 1")
+            output.flush()
+            output.append("Line 2")
+            output.flush()
+        }
+
+        assertThat(messages.filter { "Failed to write to FileOutput" in it }.size, `is`(1))
+
+        // once the directory can be created, messages are written again
+        Files.delete(file)
+
+        output.append("Line 3")
+
+        Thread.sleep(300)
+
+        assertThat(readAllLines(), contains("Line 3"))
+
+        output.close()
+    }
+
+    @Test
+    fun `Appending after close is ignored`() {
+        val output = FileOutput("test", logDir)
+
+        output.close()
+
+        assertDoesNotThrow {
+            output.append("Line 1")
+            output.flush()
+            output.close()
+        }
+
+        assertThat(readAllLines().size, `is`(0))
+    }
+
+    @Test
+    fun `Max log files and file size must be positive`() {
+        assertThrows(IllegalArgumentException::class.java) {
+            FileOutput("test", logDir, maxLogFiles = 0)
+        }
+
+        assertThrows(IllegalArgumentException::class.java) {
+            FileOutput("test", logDir, maxFileSize = 0)
+        }
+    }
+
+    private fun logFiles(): List<Path> {
+        if (!Files.isDirectory(tempDir.resolve("logs")))
+            return emptyList()
+
+        val stream = Files.list(tempDir.resolve("logs"))
+
+        try {
+            return stream.collect(Collectors.toList<Path>())
+                    .sortedWith(Comparator { file1, file2 -> Files.getLastModifiedTime(file1).compareTo(Files.getLastModifiedTime(file2)) })
+        } finally {
+            stream.close()
+        }
+    }
+
+    private fun readAllLines(): List<String> {
+        return logFiles().flatMap { Files.readAllLines(it) }
+    }
+}
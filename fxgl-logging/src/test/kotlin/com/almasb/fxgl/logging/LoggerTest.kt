@@ -37,4 +37,39 @@ class LoggerTest {
             Logger.close()
         }
     }
-}
\ No newline at end of file
+
+    @Test
+    fun `Disabled levels do not format messages`() {
+        val messages = arrayListOf<String>()
+
+        Logger.addOutput(object : LoggerOutput {
+            override fun append(message: String) {
+                messages.add(message)
+            }
+
+            override fun close() { }
+        }, LoggerLevel.INFO)
+
+        val log = Logger.get("Test")
+
+        assertFalse(log.isDebugEnabled)
+        assertTrue(log.isInfoEnabled)
+        assertTrue(log.isWarningEnabled)
+        assertTrue(log.isFatalEnabled)
+
+        val failingArg = object {
+            override fun toString(): String {
+                throw IllegalStateException("Should not be formatted")
+            }
+        }
+
+        assertDoesNotThrow {
+            log.debugf("Value: %s", failingArg)
+        }
+
+        log.infof("Value: %d", 5)
+
+        assertThat(messages.size, `is`(1))
+        assertTrue(messages[0].endsWith("Value: 5"))
+    }
+}
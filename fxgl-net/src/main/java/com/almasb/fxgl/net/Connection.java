@@ -15,13 +15,17 @@ import javafx.beans.property.ReadOnlyBooleanWrapper;
 import java.io.EOFException;
 import java.net.Socket;
 import java.net.SocketException;
-import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
 import java.util.concurrent.ArrayBlockingQueue;
 import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
 
 /**
  * The socket closing (incl. out and in streams) responsibility lies within this class.
+ * Connections of UDP endpoints have no socket of their own, so {@link #getSocket()} returns null.
  *
  * @author Almas Baimagambetov (almaslvl@gmail.com)
  * @author Jordan O'Hara (jordanohara96@gmail.com)
@@ -38,20 +42,76 @@ public final class Connection<T> {
 
     private PropertyMap localSessionData = new PropertyMap();
 
-    private List<MessageHandler<T>> messageHandlers = new ArrayList<>();
-    private List<MessageHandler<T>> messageHandlersFX = new ArrayList<>();
+    // handlers may be added from a thread other than the receiving thread
+    private List<MessageHandler<T>> messageHandlers = new CopyOnWriteArrayList<>();
+    private List<MessageHandler<T>> messageHandlersFX = new CopyOnWriteArrayList<>();
 
-    private BlockingQueue<T> messageQueue = new ArrayBlockingQueue<>(100);
+    static final int DEFAULT_SEND_QUEUE_CAPACITY = 1024;
+
+    /**
+     * Lossless by default, since every message of a TCP connection is expected to be delivered.
+     */
+    static final OverflowPolicy DEFAULT_OVERFLOW_POLICY = OverflowPolicy.DISCONNECT;
+
+    private BlockingQueue<QueuedMessage<T>> messageQueue;
+
+    private OverflowPolicy overflowPolicy;
+
+    private boolean isAutoFlush = true;
+
+    private AtomicLong numMessagesSent = new AtomicLong(0);
+    private AtomicLong numBytesSent = new AtomicLong(0);
+    private AtomicLong numDroppedMessages = new AtomicLong(0);
+
+    private volatile double roundTripTime = 0.0;
+    private volatile double packetLoss = 0.0;
+
+    /**
+     * Called when queued messages should be written, so that the transport can wake up.
+     */
+    private Runnable onFlush = () -> {};
+
+    /**
+     * Called once the connection was terminated, from either endpoint.
+     */
+    private Runnable onTerminated = () -> {};
+
+    /**
+     * Encodes messages when they are sent, so that the transport can reject messages it cannot deliver.
+     * Null if the transport encodes messages itself (TCP).
+     */
+    private Function<T, byte[]> encoder = null;
 
     public Connection(Socket socket, int connectionNum) {
+        this(socket, connectionNum, DEFAULT_SEND_QUEUE_CAPACITY, DEFAULT_OVERFLOW_POLICY);
+    }
+
+    Connection(Socket socket, int connectionNum, int sendQueueCapacity, OverflowPolicy overflowPolicy) {
         this.socket = socket;
         this.connectionNum = connectionNum;
+        this.messageQueue = new ArrayBlockingQueue<>(sendQueueCapacity);
+        this.overflowPolicy = overflowPolicy;
+    }
+
+    void setTransportCallbacks(Runnable onFlush, Runnable onTerminated) {
+        this.onFlush = onFlush;
+        this.onTerminated = onTerminated;
+    }
+
+    /**
+     * @param encoder encodes a message or throws IllegalArgumentException if it cannot be sent
+     */
+    void setEncoder(Function<T, byte[]> encoder) {
+        this.encoder = encoder;
     }
 
     public PropertyMap getLocalSessionData() {
         return localSessionData;
     }
 
+    /**
+     * @return underlying TCP socket or null if this connection does not have one (UDP)
+     */
     public Socket getSocket() {
         return socket;
     }
@@ -84,42 +144,191 @@ public final class Connection<T> {
         messageHandlersFX.remove(handler);
     }
 
-    void send(MessageWriter<T> writer) {
-        try {
-            var message = messageQueue.take();
+    public OverflowPolicy getOverflowPolicy() {
+        return overflowPolicy;
+    }
 
-            writer.write(message);
-        } catch (Exception e) {
+    /**
+     * Set what happens when a message is sent while the send queue is full.
+     * Default is {@link OverflowPolicy#DISCONNECT}, so messages are never silently lost.
+     */
+    public void setOverflowPolicy(OverflowPolicy overflowPolicy) {
+        this.overflowPolicy = overflowPolicy;
+    }
 
-            // TODO:
+    public boolean isAutoFlush() {
+        return isAutoFlush;
+    }
 
-            e.printStackTrace();
-        }
+    /**
+     * If true (default), messages are written as soon as possible after {@link #send(Object)}.
+     * If false, queued messages are only written after {@link #flush()},
+     * e.g. once per game tick, so that all messages of a tick are written together.
+     */
+    public void setAutoFlush(boolean isAutoFlush) {
+        this.isAutoFlush = isAutoFlush;
     }
 
+    /**
+     * @return number of messages queued but not yet written
+     */
+    public int getSendQueueSize() {
+        return messageQueue.size();
+    }
+
+    /**
+     * @return number of messages written to the socket
+     */
+    public long getNumMessagesSent() {
+        return numMessagesSent.get();
+    }
+
+    /**
+     * @return number of bytes written to the socket
+     */
+    public long getNumBytesSent() {
+        return numBytesSent.get();
+    }
+
+    /**
+     * @return number of messages dropped because the send queue was full
+     */
+    public long getNumDroppedMessages() {
+        return numDroppedMessages.get();
+    }
+
+    /**
+     * @return smoothed round trip time in seconds, only measured by UDP connections (0 otherwise)
+     */
+    public double getRoundTripTime() {
+        return roundTripTime;
+    }
+
+    /**
+     * @return fraction [0..1] of recently sent packets that were lost, only measured by UDP connections (0 otherwise)
+     */
+    public double getPacketLoss() {
+        return packetLoss;
+    }
+
+    void updateStats(double roundTripTime, double packetLoss) {
+        this.roundTripTime = roundTripTime;
+        this.packetLoss = packetLoss;
+    }
+
+    /**
+     * Queues given message to be sent reliably and in order. This call never blocks.
+     * If the send queue is full, the overflow policy is applied.
+     * Messages sent after the connection was terminated are ignored.
+     */
     public void send(T message) {
-        try {
-            messageQueue.put(message);
-        } catch (InterruptedException e) {
+        send(message, DeliveryMode.RELIABLE_ORDERED);
+    }
+
+    /**
+     * Queues given message to be sent with given delivery mode. This call never blocks.
+     * Stream-based (TCP) connections deliver all messages reliably and in order, regardless of the mode.
+     * Datagram-based (UDP) connections encode the message immediately, since it must fit into a single packet.
+     *
+     * @throws IllegalArgumentException if the message cannot be sent by this connection,
+     * e.g. its encoded size exceeds the max size of a UDP message
+     */
+    public void send(T message, DeliveryMode deliveryMode) {
+        if (!isConnected())
+            return;
+
+        var bytes = encoder != null ? encoder.apply(message) : null;
+
+        var queuedMessage = new QueuedMessage<>(message, deliveryMode, bytes);
+
+        while (!messageQueue.offer(queuedMessage)) {
+            switch (overflowPolicy) {
+                case DROP_OLDEST:
+                    if (messageQueue.poll() != null) {
+                        onMessageDropped();
+                    }
+                    break;
+
+                case DROP_NEWEST:
+                    onMessageDropped();
+                    return;
 
-            // TODO:
+                case DISCONNECT:
+                default:
+                    log.warning("Connection " + connectionNum + " send queue is full (" + messageQueue.size()
+                            + " messages), disconnecting. Set a larger send queue capacity or a drop overflow policy");
 
-            e.printStackTrace();
+                    terminate();
+                    return;
+            }
+        }
+
+        if (isAutoFlush) {
+            flush();
         }
     }
 
-    @SuppressWarnings("PMD.EmptyCatchBlock")
+    /**
+     * Requests all queued messages to be written.
+     * Messages queued after this call may be written together with them.
+     */
+    public void flush() {
+        onFlush.run();
+    }
+
+    private void onMessageDropped() {
+        if (numDroppedMessages.getAndIncrement() == 0) {
+            log.warning("Connection " + connectionNum + " send queue is full, dropping messages");
+        }
+    }
+
+    /**
+     * Moves all queued messages into given collection.
+     *
+     * @return number of messages moved
+     */
+    int drainMessages(Collection<? super T> batch) {
+        int numMessages = 0;
+
+        QueuedMessage<T> queuedMessage;
+
+        while ((queuedMessage = messageQueue.poll()) != null) {
+            batch.add(queuedMessage.message);
+            numMessages++;
+        }
+
+        return numMessages;
+    }
+
+    /**
+     * @return next queued message or null if there are none
+     */
+    T pollMessage() {
+        var queuedMessage = messageQueue.poll();
+
+        return queuedMessage != null ? queuedMessage.message : null;
+    }
+
+    /**
+     * @return next queued message with its delivery mode or null if there are none
+     */
+    QueuedMessage<T> pollQueuedMessage() {
+        return messageQueue.poll();
+    }
+
+    void onMessagesSent(int numMessages) {
+        numMessagesSent.addAndGet(numMessages);
+    }
+
+    void onBytesSent(long numBytes) {
+        numBytesSent.addAndGet(numBytes);
+    }
+
     void receive(MessageReader<T> reader) {
         try {
             var message = reader.read();
 
-            messageHandlers.forEach(h -> h.onReceive(this, message));
-
-            try {
-                Platform.runLater(() -> messageHandlersFX.forEach(h -> h.onReceive(this, message)));
-            } catch (IllegalStateException e) {
-                // if javafx is not initialized then ignore
-            }
+            notifyMessageHandlers(message);
 
         } catch (EOFException e) {
             log.debug("Connection " + connectionNum + " was correctly closed from remote endpoint.");
@@ -140,6 +349,17 @@ public final class Connection<T> {
         }
     }
 
+    @SuppressWarnings("PMD.EmptyCatchBlock")
+    void notifyMessageHandlers(T message) {
+        messageHandlers.forEach(h -> h.onReceive(this, message));
+
+        try {
+            Platform.runLater(() -> messageHandlersFX.forEach(h -> h.onReceive(this, message)));
+        } catch (IllegalStateException e) {
+            // if javafx is not initialized then ignore
+        }
+    }
+
     public void terminate() {
         if (!isConnected()) {
             log.warning("Attempted to close connection " + connectionNum + " but it is already closed.");
@@ -148,15 +368,35 @@ public final class Connection<T> {
 
         log.debug("Closing connection " + connectionNum);
 
-        try {
-            // closing socket auto-closes in and out streams
-            socket.close();
+        if (socket != null) {
+            try {
+                // closing socket auto-closes in and out streams
+                socket.close();
 
-            log.debug("Connection " + connectionNum + " was correctly closed from local endpoint.");
-        } catch (Exception e) {
-            log.warning("Error during socket.close()", e);
+                log.debug("Connection " + connectionNum + " was correctly closed from local endpoint.");
+            } catch (Exception e) {
+                log.warning("Error during socket.close()", e);
+            }
         }
 
         isConnectedProperty.set(false);
+
+        onTerminated.run();
+    }
+
+    static final class QueuedMessage<T> {
+        final T message;
+        final DeliveryMode deliveryMode;
+
+        /**
+         * Encoded message or null if the transport has no encoder.
+         */
+        final byte[] bytes;
+
+        QueuedMessage(T message, DeliveryMode deliveryMode, byte[] bytes) {
+            this.message = message;
+            this.deliveryMode = deliveryMode;
+            this.bytes = bytes;
+        }
     }
 }
\ No newline at end of file
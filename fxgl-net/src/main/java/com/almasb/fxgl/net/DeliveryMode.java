@@ -0,0 +1,34 @@
+/*
+ * FXGL - JavaFX Game Library. The MIT License (MIT).
+ * Copyright (c) AlmasB (almaslvl@gmail.com).
+ * See LICENSE for details.
+ */
+
+package com.almasb.fxgl.net;
+
+/**
+ * Defines how a message is delivered by datagram-based (UDP) connections.
+ * Stream-based (TCP) connections always deliver messages reliably and in order.
+ *
+ * @author Almas Baimagambetov (almaslvl@gmail.com)
+ */
+public enum DeliveryMode {
+
+    /**
+     * The message may be lost, but is never received after a newer message of this mode.
+     * Suitable for frequent state updates, e.g. positions, where only the latest value matters.
+     */
+    UNRELIABLE_SEQUENCED,
+
+    /**
+     * The message is resent until received and messages of this mode are received in the order they were sent.
+     * A lost message delays the following messages of this mode, but not messages of other modes.
+     */
+    RELIABLE_ORDERED,
+
+    /**
+     * The message is resent until received, but may be received before messages sent earlier.
+     * Suitable for independent events, e.g. chat messages or sounds.
+     */
+    RELIABLE_UNORDERED
+}
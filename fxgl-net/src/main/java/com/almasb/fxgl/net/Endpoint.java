@@ -8,9 +8,15 @@ package com.almasb.fxgl.net;
 
 import com.almasb.fxgl.logging.Logger;
 
+import java.io.BufferedOutputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
 import java.net.Socket;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Semaphore;
 import java.util.function.Consumer;
 
 /**
@@ -24,21 +30,65 @@ public abstract class Endpoint<T> {
 
     private static final Logger log = Logger.get(Endpoint.class);
 
+    private static final int SEND_BUFFER_SIZE = 64 * 1024;
+
     // TODO: observable?
-    private List<Connection<T>> connections = new ArrayList<>();
+    // connections may be opened and closed from different I/O threads
+    private List<Connection<T>> connections = new CopyOnWriteArrayList<>();
 
     private Consumer<Connection<T>> onConnected = c -> {};
     private Consumer<Connection<T>> onDisconnected = c -> {};
 
+    private int sendQueueCapacity = Connection.DEFAULT_SEND_QUEUE_CAPACITY;
+    private OverflowPolicy overflowPolicy = Connection.DEFAULT_OVERFLOW_POLICY;
+    private boolean isAutoFlush = true;
+
     /**
      * Send given message to all active connections.
      */
     public final void broadcast(T message) {
-        for (int i = 0; i < connections.size(); i++) {
-            connections.get(i).send(message);
+        for (var connection : connections) {
+            connection.send(message);
+        }
+    }
+
+    /**
+     * Requests queued messages of all active connections to be written.
+     * Typically called once per game tick if auto flush is disabled.
+     */
+    public final void flush() {
+        for (var connection : connections) {
+            connection.flush();
         }
     }
 
+    /**
+     * Set max number of queued messages per connection.
+     * Applies to connections opened after this call.
+     */
+    public final void setSendQueueCapacity(int sendQueueCapacity) {
+        if (sendQueueCapacity <= 0)
+            throw new IllegalArgumentException("Send queue capacity must be positive: " + sendQueueCapacity);
+
+        this.sendQueueCapacity = sendQueueCapacity;
+    }
+
+    /**
+     * Set overflow policy of connections opened after this call.
+     * Default is {@link OverflowPolicy#DISCONNECT}, dropping messages has to be enabled explicitly.
+     */
+    public final void setOverflowPolicy(OverflowPolicy overflowPolicy) {
+        this.overflowPolicy = overflowPolicy;
+    }
+
+    /**
+     * Set auto flush of connections opened after this call.
+     * See {@link Connection#setAutoFlush(boolean)}.
+     */
+    public final void setAutoFlush(boolean isAutoFlush) {
+        this.isAutoFlush = isAutoFlush;
+    }
+
     /**
      * The given callback function is called when a new connection with another Endpoint has been established.
      * Message handlers should be added within the callback function.
@@ -59,17 +109,40 @@ public abstract class Endpoint<T> {
 
         socket.setTcpNoDelay(true);
 
-        var connection = new Connection<T>(socket, connectionNum);
+        var connection = newConnection(socket, connectionNum);
+
+        // released when messages should be written or the connection was terminated
+        var flushSignal = new Semaphore(0);
+
+        connection.setTransportCallbacks(flushSignal::release, flushSignal::release);
 
         onConnectionOpened(connection);
 
         new ConnectionThread(getClass().getSimpleName() + "_SendThread-" + connectionNum, () -> {
 
             try {
-                var writer = Writers.INSTANCE.getWriter(messageType, socket.getOutputStream());
+                var countingOut = new CountingOutputStream(socket.getOutputStream());
+                var out = new BufferedOutputStream(countingOut, SEND_BUFFER_SIZE);
+                var writer = Writers.INSTANCE.getWriter(messageType, out);
+                var batch = new ArrayList<T>();
 
                 while (connection.isConnected()) {
-                    connection.send(writer);
+                    flushSignal.acquire();
+                    flushSignal.drainPermits();
+
+                    // all messages queued so far are written with a single flush
+                    connection.drainMessages(batch);
+
+                    for (var message : batch) {
+                        writer.write(message);
+                    }
+
+                    out.flush();
+
+                    connection.onMessagesSent(batch.size());
+                    connection.onBytesSent(countingOut.getAndResetCount());
+
+                    batch.clear();
                 }
             } catch (Exception e) {
 
@@ -95,7 +168,13 @@ public abstract class Endpoint<T> {
         }).start();
     }
 
-    private void onConnectionOpened(Connection<T> connection) {
+    Connection<T> newConnection(Socket socket, int connectionNum) {
+        var connection = new Connection<T>(socket, connectionNum, sendQueueCapacity, overflowPolicy);
+        connection.setAutoFlush(isAutoFlush);
+        return connection;
+    }
+
+    void onConnectionOpened(Connection<T> connection) {
         log.debug(getClass().getSimpleName() + " successfully opened connection (" + connection.getConnectionNum() + ")");
 
         connections.add(connection);
@@ -103,7 +182,7 @@ public abstract class Endpoint<T> {
         onConnected.accept(connection);
     }
 
-    private void onConnectionClosed(Connection<T> connection) {
+    void onConnectionClosed(Connection<T> connection) {
         log.debug(getClass().getSimpleName() + " connection (" + connection.getConnectionNum() + ") was closed");
 
         connections.remove(connection);
@@ -118,6 +197,33 @@ public abstract class Endpoint<T> {
         return List.copyOf(connections);
     }
 
+    private static final class CountingOutputStream extends FilterOutputStream {
+
+        private long count = 0;
+
+        CountingOutputStream(OutputStream out) {
+            super(out);
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            out.write(b);
+            count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+            count += len;
+        }
+
+        long getAndResetCount() {
+            long result = count;
+            count = 0;
+            return result;
+        }
+    }
+
     private static class ConnectionThread extends Thread {
 
         ConnectionThread(String name, Runnable action) {
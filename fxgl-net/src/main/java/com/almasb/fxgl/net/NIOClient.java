@@ -0,0 +1,64 @@
+/*
+ * FXGL - JavaFX Game Library. The MIT License (MIT).
+ * Copyright (c) AlmasB (almaslvl@gmail.com).
+ * See LICENSE for details.
+ */
+
+package com.almasb.fxgl.net;
+
+import com.almasb.fxgl.logging.Logger;
+
+import java.net.InetSocketAddress;
+import java.nio.channels.SocketChannel;
+
+/**
+ * A TCP client whose connection is served by a shared selector thread, see {@link NIOServer}.
+ * When {@link #connect()} returns, the connection is open and the onConnected callback has been called.
+ *
+ * @author Almas Baimagambetov (almaslvl@gmail.com)
+ */
+public class NIOClient<T> extends Client<T> {
+
+    private static final Logger log = Logger.get(NIOClient.class);
+
+    private String ip;
+    private int port;
+    private Class<T> messageType;
+
+    public NIOClient(String ip, int port, Class<T> messageType) {
+        this.ip = ip;
+        this.port = port;
+        this.messageType = messageType;
+    }
+
+    @Override
+    public void connect() {
+        log.debug("Connecting to " + ip + ":" + port + " type: " + messageType);
+
+        try {
+            // connect in blocking mode, the channel becomes non-blocking once registered
+            var channel = SocketChannel.open(new InetSocketAddress(ip, port));
+
+            var loop = SelectorLoop.next();
+            var handler = new NIOConnectionHandler<>(this, channel, 1, messageType, loop);
+
+            try {
+                loop.call(() -> {
+                    handler.open();
+                    return null;
+                });
+            } catch (Exception e) {
+                channel.close();
+                throw e;
+            }
+
+        } catch (Exception e) {
+            throw new RuntimeException("Failed to connect: " + e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public void disconnect() {
+        getConnections().forEach(Connection::terminate);
+    }
+}
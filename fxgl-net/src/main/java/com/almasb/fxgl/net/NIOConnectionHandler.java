@@ -0,0 +1,333 @@
+/*
+ * FXGL - JavaFX Game Library. The MIT License (MIT).
+ * Copyright (c) AlmasB (almaslvl@gmail.com).
+ * See LICENSE for details.
+ */
+
+package com.almasb.fxgl.net;
+
+import com.almasb.fxgl.logging.Logger;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.SocketChannel;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Performs non-blocking I/O of a single connection on its selector loop.
+ * Each message is sent as a frame: 4 byte length, followed by the bytes produced by the message writer.
+ * Both read and write buffers are direct and only grow if a single frame does not fit.
+ *
+ * @author Almas Baimagambetov (almaslvl@gmail.com)
+ */
+final class NIOConnectionHandler<T> implements SelectorLoop.Handler {
+
+    private static final Logger log = Logger.get(NIOConnectionHandler.class);
+
+    private static final int HEADER_SIZE = 4;
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    /**
+     * Frames larger than this are treated as a protocol error.
+     */
+    static final int MAX_FRAME_SIZE = 64 * 1024 * 1024;
+
+    private final Endpoint<T> endpoint;
+    private final SocketChannel channel;
+    private final int connectionNum;
+    private final Class<T> messageType;
+    private final SelectorLoop loop;
+
+    private SelectionKey key;
+    private Connection<T> connection;
+
+    private ByteBuffer readBuffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+    private ByteBuffer writeBuffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+
+    /**
+     * Captures the bytes of a single message, before they are copied into the write buffer.
+     */
+    private final FrameOutputStream out = new FrameOutputStream();
+
+    /**
+     * Exposes the frame currently being read from the read buffer.
+     */
+    private final InputStream in = new FrameInputStream();
+
+    private MessageWriter<T> writer;
+    private MessageReader<T> reader;
+
+    private final AtomicBoolean isFlushScheduled = new AtomicBoolean(false);
+    private boolean isWriteInterested = false;
+    private boolean isClosed = false;
+
+    NIOConnectionHandler(Endpoint<T> endpoint, SocketChannel channel, int connectionNum, Class<T> messageType, SelectorLoop loop) {
+        this.endpoint = endpoint;
+        this.channel = channel;
+        this.connectionNum = connectionNum;
+        this.messageType = messageType;
+        this.loop = loop;
+    }
+
+    /**
+     * Registers the channel with the loop and notifies the endpoint.
+     * Must be called on the loop thread.
+     */
+    void open() throws IOException {
+        channel.configureBlocking(false);
+        channel.socket().setTcpNoDelay(true);
+
+        log.debug(endpoint.getClass().getSimpleName() + " opening new connection (" + connectionNum + ") from " + channel.getRemoteAddress() + " type: " + messageType);
+
+        connection = endpoint.newConnection(channel.socket(), connectionNum);
+        connection.setTransportCallbacks(this::scheduleFlush, this::scheduleClose);
+
+        // some writers (e.g. object streams) write a header on construction, which is then sent with the first frame
+        writer = Writers.INSTANCE.getWriter(messageType, out);
+
+        key = channel.register(loop.getSelector(), SelectionKey.OP_READ, this);
+
+        endpoint.onConnectionOpened(connection);
+    }
+
+    @Override
+    public void onSelected(SelectionKey key) {
+        perform(() -> {
+            if (key.isReadable()) {
+                read();
+            }
+
+            if (key.isValid() && key.isWritable()) {
+                flush();
+            }
+        });
+    }
+
+    private void perform(IOAction action) {
+        try {
+            action.run();
+        } catch (IOException e) {
+            if (connection.isConnected()) {
+                log.debug("Connection " + connectionNum + " was unexpectedly disconnected: " + e.getMessage());
+
+                connection.terminate();
+            }
+
+        } catch (Exception e) {
+            if (connection.isConnected()) {
+                log.warning("Connection " + connectionNum + " had unspecified error during I/O", e);
+
+                connection.terminate();
+            }
+        }
+    }
+
+    private void read() throws Exception {
+        int numRead = channel.read(readBuffer);
+
+        if (numRead == -1) {
+            log.debug("Connection " + connectionNum + " was correctly closed from remote endpoint.");
+
+            connection.terminate();
+            return;
+        }
+
+        readBuffer.flip();
+
+        boolean isFrameRead = true;
+
+        while (isFrameRead && connection.isConnected()) {
+            isFrameRead = readFrame();
+        }
+
+        readBuffer.compact();
+    }
+
+    /**
+     * Reads a single frame from the read buffer (in read mode), if fully received.
+     *
+     * @return true if a frame was read
+     */
+    private boolean readFrame() throws Exception {
+        if (readBuffer.remaining() < HEADER_SIZE)
+            return false;
+
+        int frameSize = readBuffer.getInt(readBuffer.position());
+
+        if (frameSize < 0 || frameSize > MAX_FRAME_SIZE)
+            throw new IOException("Invalid frame size: " + frameSize);
+
+        if (readBuffer.remaining() < HEADER_SIZE + frameSize) {
+            if (readBuffer.capacity() < HEADER_SIZE + frameSize) {
+                var newBuffer = ByteBuffer.allocateDirect(HEADER_SIZE + frameSize);
+                newBuffer.put(readBuffer);
+                newBuffer.flip();
+
+                readBuffer = newBuffer;
+            }
+
+            return false;
+        }
+
+        int limit = readBuffer.limit();
+        int frameEnd = readBuffer.position() + HEADER_SIZE + frameSize;
+
+        readBuffer.position(readBuffer.position() + HEADER_SIZE);
+        readBuffer.limit(frameEnd);
+
+        T message;
+
+        try {
+            if (reader == null) {
+                reader = Readers.INSTANCE.getReader(messageType, in);
+            }
+
+            message = reader.read();
+        } finally {
+            readBuffer.limit(limit);
+            readBuffer.position(frameEnd);
+        }
+
+        connection.notifyMessageHandlers(message);
+        return true;
+    }
+
+    private void scheduleFlush() {
+        if (isFlushScheduled.compareAndSet(false, true)) {
+            loop.execute(() -> {
+                if (key.isValid()) {
+                    perform(this::flush);
+                }
+            });
+        }
+    }
+
+    /**
+     * Writes as many queued messages as the socket accepts.
+     * If the socket cannot accept more, the rest is written when the channel becomes writable.
+     */
+    private void flush() throws Exception {
+        isFlushScheduled.set(false);
+
+        while (true) {
+            fillWriteBuffer();
+
+            if (writeBuffer.position() == 0) {
+                setWriteInterest(false);
+                return;
+            }
+
+            writeBuffer.flip();
+            connection.onBytesSent(channel.write(writeBuffer));
+            writeBuffer.compact();
+
+            if (writeBuffer.position() > 0) {
+                setWriteInterest(true);
+                return;
+            }
+        }
+    }
+
+    /**
+     * Moves queued messages into the write buffer (in write mode), so that many small messages
+     * are written with a single system call.
+     * Stops once the buffer is half full, the remaining messages stay queued.
+     */
+    private void fillWriteBuffer() throws Exception {
+        T message;
+
+        while (writeBuffer.position() < writeBuffer.capacity() / 2 && (message = connection.pollMessage()) != null) {
+            writer.write(message);
+
+            int frameSize = out.size();
+
+            if (frameSize > MAX_FRAME_SIZE)
+                throw new IOException("Message too large: " + frameSize + " bytes");
+
+            if (writeBuffer.remaining() < HEADER_SIZE + frameSize) {
+                var newBuffer = ByteBuffer.allocateDirect(Math.max(writeBuffer.capacity() * 2, writeBuffer.position() + HEADER_SIZE + frameSize));
+                writeBuffer.flip();
+                newBuffer.put(writeBuffer);
+
+                writeBuffer = newBuffer;
+            }
+
+            writeBuffer.putInt(frameSize);
+            out.writeTo(writeBuffer);
+            out.reset();
+
+            connection.onMessagesSent(1);
+        }
+    }
+
+    private void setWriteInterest(boolean isInterested) {
+        if (isWriteInterested == isInterested)
+            return;
+
+        isWriteInterested = isInterested;
+
+        if (isInterested) {
+            key.interestOps(key.interestOps() | SelectionKey.OP_WRITE);
+        } else {
+            key.interestOps(key.interestOps() & ~SelectionKey.OP_WRITE);
+        }
+    }
+
+    private void scheduleClose() {
+        loop.execute(() -> {
+            if (isClosed)
+                return;
+
+            isClosed = true;
+
+            if (key != null)
+                key.cancel();
+
+            endpoint.onConnectionClosed(connection);
+        });
+    }
+
+    private interface IOAction {
+        void run() throws Exception;
+    }
+
+    private static final class FrameOutputStream extends ByteArrayOutputStream {
+
+        FrameOutputStream() {
+            super(1024);
+        }
+
+        void writeTo(ByteBuffer buffer) {
+            buffer.put(buf, 0, count);
+        }
+    }
+
+    private final class FrameInputStream extends InputStream {
+
+        @Override
+        public int read() {
+            return readBuffer.hasRemaining() ? readBuffer.get() & 0xFF : -1;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) {
+            if (len == 0)
+                return 0;
+
+            if (!readBuffer.hasRemaining())
+                return -1;
+
+            int n = Math.min(len, readBuffer.remaining());
+            readBuffer.get(b, off, n);
+            return n;
+        }
+
+        @Override
+        public int available() {
+            return readBuffer.remaining();
+        }
+    }
+}
@@ -0,0 +1,120 @@
+/*
+ * FXGL - JavaFX Game Library. The MIT License (MIT).
+ * Copyright (c) AlmasB (almaslvl@gmail.com).
+ * See LICENSE for details.
+ */
+
+package com.almasb.fxgl.net;
+
+import com.almasb.fxgl.logging.Logger;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.concurrent.CountDownLatch;
+
+/**
+ * A TCP server that multiplexes all connections over a small shared pool of selector threads,
+ * rather than using two threads per connection.
+ * Messages are sent with length-prefixed framing, so this server can only talk to an {@link NIOClient}.
+ *
+ * Message handlers are called on a selector thread, so they should not block.
+ * Similar to the blocking TCP server, {@link #start()} returns only after the server is stopped.
+ *
+ * @author Almas Baimagambetov (almaslvl@gmail.com)
+ */
+public final class NIOServer<T> extends Server<T> {
+
+    private static final Logger log = Logger.get(NIOServer.class);
+
+    private volatile boolean isStopped = false;
+
+    private int port;
+    private Class<T> messageType;
+    private ServerSocketChannel serverChannel;
+
+    private final CountDownLatch stopLatch = new CountDownLatch(1);
+
+    private int connectionNum = 1;
+
+    public NIOServer(int port, Class<T> messageType) {
+        this.port = port;
+        this.messageType = messageType;
+    }
+
+    @Override
+    protected void start() {
+        log.debug("Starting to listen at: " + port + " type: " + messageType);
+
+        try (ServerSocketChannel serverChannel = ServerSocketChannel.open()) {
+            this.serverChannel = serverChannel;
+
+            serverChannel.bind(new InetSocketAddress(port));
+            serverChannel.configureBlocking(false);
+
+            var loop = SelectorLoop.next();
+
+            loop.call(() -> serverChannel.register(loop.getSelector(), SelectionKey.OP_ACCEPT, (SelectorLoop.Handler) key -> accept()));
+
+            onStartedListening();
+
+            if (!isStopped) {
+                stopLatch.await();
+            }
+
+        } catch (Exception e) {
+            if (!isStopped) {
+                throw new RuntimeException("Failed to start: " + e.getMessage(), e);
+            }
+        }
+
+        onStoppedListening();
+    }
+
+    private void accept() {
+        try {
+            SocketChannel channel;
+
+            while ((channel = serverChannel.accept()) != null) {
+                var loop = SelectorLoop.next();
+                var handler = new NIOConnectionHandler<>(this, channel, connectionNum++, messageType, loop);
+
+                var acceptedChannel = channel;
+
+                loop.execute(() -> {
+                    try {
+                        handler.open();
+                    } catch (IOException e) {
+                        log.warning("Failed to open connection: " + e.getMessage(), e);
+
+                        try {
+                            acceptedChannel.close();
+                        } catch (IOException ex) {
+                            log.warning("IOException when closing channel: " + ex.getMessage(), ex);
+                        }
+                    }
+                });
+            }
+        } catch (IOException e) {
+            if (!isStopped) {
+                log.warning("IOException when accepting connection: " + e.getMessage(), e);
+            }
+        }
+    }
+
+    @Override
+    public void stop() {
+        isStopped = true;
+
+        try {
+            if (serverChannel != null)
+                serverChannel.close();
+        } catch (IOException e) {
+            log.warning("IOException when closing server channel: " + e.getMessage(), e);
+        }
+
+        stopLatch.countDown();
+    }
+}
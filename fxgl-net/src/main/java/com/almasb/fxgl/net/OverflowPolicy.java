@@ -0,0 +1,35 @@
+/*
+ * FXGL - JavaFX Game Library. The MIT License (MIT).
+ * Copyright (c) AlmasB (almaslvl@gmail.com).
+ * See LICENSE for details.
+ */
+
+package com.almasb.fxgl.net;
+
+/**
+ * Defines what happens when a message is sent via a connection whose send queue is full,
+ * i.e. the remote endpoint does not receive messages as fast as they are sent.
+ *
+ * @author Almas Baimagambetov (almaslvl@gmail.com)
+ */
+public enum OverflowPolicy {
+
+    /**
+     * Remove the oldest queued message to make space for the new one.
+     * Suitable when newer messages supersede older ones, e.g. state updates.
+     * Note: dropped messages are lost, even if they were sent reliably.
+     */
+    DROP_OLDEST,
+
+    /**
+     * Discard the new message.
+     * Note: dropped messages are lost, even if they were sent reliably.
+     */
+    DROP_NEWEST,
+
+    /**
+     * Terminate the connection (default).
+     * Suitable when every message matters and a lagging endpoint cannot recover.
+     */
+    DISCONNECT
+}
@@ -0,0 +1,169 @@
+/*
+ * FXGL - JavaFX Game Library. The MIT License (MIT).
+ * Copyright (c) AlmasB (almaslvl@gmail.com).
+ * See LICENSE for details.
+ */
+
+package com.almasb.fxgl.net;
+
+import com.almasb.fxgl.logging.Logger;
+
+import java.io.IOException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.util.Queue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A single thread that multiplexes I/O of many channels via a selector.
+ * All operations on channels registered with this loop are performed on the loop thread,
+ * other threads submit them via {@link #execute(Runnable)}.
+ * Loops are shared by all NIO endpoints, see {@link #next()}.
+ *
+ * @author Almas Baimagambetov (almaslvl@gmail.com)
+ */
+final class SelectorLoop {
+
+    private static final Logger log = Logger.get(SelectorLoop.class);
+
+    private static final int NUM_LOOPS = Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+
+    private static final AtomicInteger nextIndex = new AtomicInteger(0);
+
+    private static SelectorLoop[] pool;
+
+    /**
+     * @return next loop from the shared pool, in round-robin order
+     */
+    static synchronized SelectorLoop next() {
+        if (pool == null) {
+            pool = new SelectorLoop[NUM_LOOPS];
+
+            for (int i = 0; i < NUM_LOOPS; i++) {
+                pool[i] = new SelectorLoop("FXGL NIO Selector-" + i);
+            }
+        }
+
+        return pool[Math.floorMod(nextIndex.getAndIncrement(), NUM_LOOPS)];
+    }
+
+    /**
+     * Called on the loop thread when the channel of the given key is ready for I/O.
+     */
+    interface Handler {
+        void onSelected(SelectionKey key);
+    }
+
+    private final Selector selector;
+    private final Queue<Runnable> tasks = new ConcurrentLinkedQueue<>();
+    private final Thread thread;
+
+    private SelectorLoop(String name) {
+        try {
+            selector = Selector.open();
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to open selector: " + e.getMessage(), e);
+        }
+
+        thread = new Thread(this::run, name);
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    Selector getSelector() {
+        return selector;
+    }
+
+    boolean isInLoop() {
+        return Thread.currentThread() == thread;
+    }
+
+    /**
+     * Runs given task on the loop thread.
+     * Tasks are run in submission order.
+     */
+    void execute(Runnable task) {
+        tasks.add(task);
+
+        if (!isInLoop()) {
+            selector.wakeup();
+        }
+    }
+
+    /**
+     * Runs given task on the loop thread and blocks until it completes.
+     * If called on the loop thread, the task is run immediately.
+     */
+    <R> R call(Callable<R> task) throws Exception {
+        if (isInLoop())
+            return task.call();
+
+        var future = new CompletableFuture<R>();
+
+        execute(() -> {
+            try {
+                future.complete(task.call());
+            } catch (Throwable e) {
+                future.completeExceptionally(e);
+            }
+        });
+
+        try {
+            return future.get();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof Exception)
+                throw (Exception) e.getCause();
+
+            throw e;
+        }
+    }
+
+    private void run() {
+        while (true) {
+            runTasks();
+
+            try {
+                // do not block if tasks were submitted from this thread
+                if (tasks.isEmpty()) {
+                    selector.select();
+                } else {
+                    selector.selectNow();
+                }
+            } catch (IOException e) {
+                log.warning("Selector failed: " + e.getMessage(), e);
+                continue;
+            }
+
+            var keys = selector.selectedKeys();
+
+            for (var key : keys) {
+                if (!key.isValid())
+                    continue;
+
+                try {
+                    ((Handler) key.attachment()).onSelected(key);
+                } catch (Exception e) {
+                    log.warning("Unhandled error in selector handler", e);
+                }
+            }
+
+            keys.clear();
+        }
+    }
+
+    private void runTasks() {
+        Runnable task;
+
+        while ((task = tasks.poll()) != null) {
+            try {
+                task.run();
+            } catch (Exception e) {
+                log.warning("Unhandled error in selector task", e);
+            }
+        }
+    }
+}
@@ -0,0 +1,88 @@
+/*
+ * FXGL - JavaFX Game Library. The MIT License (MIT).
+ * Copyright (c) AlmasB (almaslvl@gmail.com).
+ * See LICENSE for details.
+ */
+
+package com.almasb.fxgl.net;
+
+import com.almasb.fxgl.logging.Logger;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * A UDP client, see {@link UDPServer}.
+ * Each client has its own socket thread.
+ * When {@link #connect()} returns, the connection is open and the onConnected callback has been called.
+ *
+ * @author Almas Baimagambetov (almaslvl@gmail.com)
+ */
+public class UDPClient<T> extends Client<T> {
+
+    private static final Logger log = Logger.get(UDPClient.class);
+
+    private String ip;
+    private int port;
+    private Class<T> messageType;
+
+    private double dropChance = 0.0;
+    private double reorderChance = 0.0;
+
+    public UDPClient(String ip, int port, Class<T> messageType) {
+        this.ip = ip;
+        this.port = port;
+        this.messageType = messageType;
+    }
+
+    /**
+     * Simulates an unreliable network by dropping or reordering packets sent by this client.
+     * Intended for testing, must be called before connecting.
+     *
+     * @param dropChance chance [0..1] that a packet is lost
+     * @param reorderChance chance [0..1] that a packet is delayed, so that it arrives after packets sent later
+     */
+    public void setSimulatedPacketLoss(double dropChance, double reorderChance) {
+        this.dropChance = dropChance;
+        this.reorderChance = reorderChance;
+    }
+
+    @Override
+    public void connect() {
+        log.debug("Connecting to " + ip + ":" + port + " type: " + messageType);
+
+        try {
+            var address = new InetSocketAddress(ip, port);
+
+            if (address.isUnresolved())
+                throw new IOException("Unknown host: " + ip);
+
+            var socket = new UDPSocket("FXGL UDP Client", new InetSocketAddress(0), (a, type) -> {}, dropChance, reorderChance);
+
+            var opened = new CompletableFuture<Void>();
+
+            var handler = new UDPConnectionHandler<>(this, socket, address, 1, messageType);
+            handler.setOnOpened(() -> opened.complete(null));
+            handler.setOnClosed(() -> {
+                socket.close();
+
+                opened.completeExceptionally(new IOException("Connection timed out"));
+            });
+
+            socket.execute(() -> socket.addHandler(address, handler));
+
+            opened.get();
+
+        } catch (Exception e) {
+            var cause = e.getCause() != null ? e.getCause() : e;
+
+            throw new RuntimeException("Failed to connect: " + cause.getMessage(), cause);
+        }
+    }
+
+    @Override
+    public void disconnect() {
+        getConnections().forEach(Connection::terminate);
+    }
+}
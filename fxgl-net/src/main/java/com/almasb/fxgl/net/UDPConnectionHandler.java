@@ -0,0 +1,670 @@
+/*
+ * FXGL - JavaFX Game Library. The MIT License (MIT).
+ * Copyright (c) AlmasB (almaslvl@gmail.com).
+ * See LICENSE for details.
+ */
+
+package com.almasb.fxgl.net;
+
+import com.almasb.fxgl.logging.Logger;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.net.SocketAddress;
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Implements delivery modes of a single UDP connection on top of its socket.
+ * All methods are called on the socket thread.
+ *
+ * Each data packet carries its sequence number, the sequence number of the latest packet received
+ * from the remote endpoint and a bit field of the 32 packets received before that.
+ * So every packet acknowledges up to 33 packets, which is used to measure round trip time and packet loss.
+ * Reliable messages are resent in new packets until a packet containing them is acknowledged.
+ * Messages queued together are aggregated into as few packets as possible.
+ *
+ * Each message is encoded on its own, since messages may be lost or received out of order.
+ * A message must fit into a single packet, see {@link #MAX_MESSAGE_SIZE}.
+ * Messages are encoded when they are sent, so larger messages are rejected by {@link Connection#send(Object, DeliveryMode)}.
+ *
+ * @author Almas Baimagambetov (almaslvl@gmail.com)
+ */
+final class UDPConnectionHandler<T> {
+
+    private static final Logger log = Logger.get(UDPConnectionHandler.class);
+
+    private static final int DATA_HEADER_SIZE = UDPSocket.HEADER_SIZE + 12;
+    private static final int MESSAGE_HEADER_SIZE = 7;
+
+    /**
+     * Max size of an encoded message in bytes.
+     */
+    static final int MAX_MESSAGE_SIZE = UDPSocket.MAX_PACKET_SIZE - DATA_HEADER_SIZE - MESSAGE_HEADER_SIZE;
+
+    /**
+     * Max distance between the sequence of a reliable message being sent
+     * and the oldest unacknowledged message of the same delivery mode.
+     * Once reached, further messages stay in the send queue of the connection.
+     * The receiver drops reliable messages further ahead of the next one it expects,
+     * so that its buffers stay bounded.
+     */
+    static final int MAX_RELIABLE_IN_FLIGHT = 1024;
+
+    /**
+     * Unreliable sequenced messages further ahead of the last received one are dropped,
+     * so that a single bogus sequence cannot block all later messages.
+     */
+    static final int MAX_SEQUENCED_GAP = 1 << 16;
+
+    private static final int LOSS_WINDOW_SIZE = 256;
+
+    private static final long CONNECT_INTERVAL_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+    private static final long CONNECT_TIMEOUT_NANOS = TimeUnit.SECONDS.toNanos(5);
+    private static final long KEEP_ALIVE_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+    private static final long TIMEOUT_NANOS = TimeUnit.SECONDS.toNanos(10);
+    private static final long LOST_PACKET_NANOS = TimeUnit.SECONDS.toNanos(1);
+    private static final long MIN_RESEND_NANOS = TimeUnit.MILLISECONDS.toNanos(50);
+
+    private static final DeliveryMode[] MODES = DeliveryMode.values();
+
+    private final Endpoint<T> endpoint;
+    private final UDPSocket socket;
+    private final SocketAddress address;
+    private final int connectionNum;
+    private final Class<T> messageType;
+
+    private Connection<T> connection;
+
+    private Runnable onOpened = () -> {};
+    private Runnable onClosed = () -> {};
+
+    private boolean isOpen = false;
+    private boolean isClosed = false;
+    private boolean isClosedByRemote = false;
+
+    private final long createdAt;
+    private long lastConnectAttemptAt = 0;
+    private long lastReceivedAt;
+    private long lastSentAt;
+
+    // sending
+
+    private int localSequence = 0;
+    private final int[] nextMessageSequence = new int[MODES.length];
+
+    private final Map<Integer, SentPacket> sentPackets = new HashMap<>();
+    private SentPacket currentPacket;
+
+    private final List<OutgoingMessage> reliableMessages = new ArrayList<>();
+    private final Queue<OutgoingMessage> unreliableMessages = new ArrayDeque<>();
+    private boolean hasAckedMessages = false;
+
+    // receiving
+
+    /**
+     * Latest received packet sequence, -1 if none were received.
+     */
+    private int remoteSequence = -1;
+
+    /**
+     * Bit i is set if packet (remoteSequence - 1 - i) was received.
+     */
+    private int receivedBits = 0;
+
+    private boolean isAckPending = false;
+
+    private int lastSequencedReceived = -1;
+
+    private int nextOrderedSequence = 0;
+    private final Map<Integer, byte[]> orderedBuffer = new HashMap<>();
+
+    private int unorderedBase = 0;
+    private final Set<Integer> unorderedReceived = new HashSet<>();
+
+    // stats
+
+    private double roundTripNanos = -1;
+
+    private final boolean[] lossWindow = new boolean[LOSS_WINDOW_SIZE];
+    private int lossWindowIndex = 0;
+    private int numLossSamples = 0;
+    private int numLost = 0;
+
+    UDPConnectionHandler(Endpoint<T> endpoint, UDPSocket socket, SocketAddress address, int connectionNum, Class<T> messageType) {
+        this.endpoint = endpoint;
+        this.socket = socket;
+        this.address = address;
+        this.connectionNum = connectionNum;
+        this.messageType = messageType;
+
+        createdAt = System.nanoTime();
+        lastReceivedAt = createdAt;
+        lastSentAt = createdAt;
+    }
+
+    void setOnOpened(Runnable onOpened) {
+        this.onOpened = onOpened;
+    }
+
+    void setOnClosed(Runnable onClosed) {
+        this.onClosed = onClosed;
+    }
+
+    Connection<T> getConnection() {
+        return connection;
+    }
+
+    /**
+     * Opens the connection and notifies the endpoint.
+     */
+    void open() {
+        if (isOpen)
+            return;
+
+        isOpen = true;
+
+        log.debug(endpoint.getClass().getSimpleName() + " opening new connection (" + connectionNum + ") from " + address + " type: " + messageType);
+
+        connection = endpoint.newConnection(null, connectionNum);
+        connection.setTransportCallbacks(socket::requestFlush, () -> socket.execute(this::close));
+        connection.setEncoder(this::encode);
+
+        endpoint.onConnectionOpened(connection);
+
+        onOpened.run();
+    }
+
+    void sendControlPacket(byte type) {
+        try {
+            socket.beginPacket(type);
+            socket.sendPacket(address);
+        } catch (IOException e) {
+            log.debug("Failed to send packet to " + address + ": " + e.getMessage());
+        }
+    }
+
+    void onPacket(byte type, ByteBuffer packet, long now) {
+        if (isClosed)
+            return;
+
+        lastReceivedAt = now;
+
+        switch (type) {
+            case UDPSocket.TYPE_CONNECT:
+                // the remote endpoint did not receive our accept
+                if (isOpen)
+                    sendControlPacket(UDPSocket.TYPE_ACCEPT);
+                break;
+
+            case UDPSocket.TYPE_ACCEPT:
+                open();
+                break;
+
+            case UDPSocket.TYPE_DATA:
+                // data also means the connection was accepted, even if the accept itself was lost
+                open();
+
+                try {
+                    onData(packet, now);
+                } catch (Exception e) {
+                    if (connection.isConnected()) {
+                        log.warning("Connection " + connectionNum + " received invalid data", e);
+
+                        connection.terminate();
+                    }
+                }
+                break;
+
+            case UDPSocket.TYPE_DISCONNECT:
+                if (isOpen && connection.isConnected()) {
+                    log.debug("Connection " + connectionNum + " was correctly closed from remote endpoint.");
+
+                    isClosedByRemote = true;
+                    connection.terminate();
+                }
+                break;
+
+            default:
+                log.debug("Unknown packet type " + type + " from " + address);
+        }
+    }
+
+    /**
+     * Sends queued messages, resends unacknowledged reliable messages and acknowledges received packets.
+     *
+     * @param isTick true if called on a regular tick, rather than on a flush request
+     */
+    void update(long now, boolean isTick) {
+        if (isClosed)
+            return;
+
+        if (!isOpen) {
+            updateConnecting(now);
+            return;
+        }
+
+        if (!connection.isConnected())
+            return;
+
+        if (now - lastReceivedAt > TIMEOUT_NANOS) {
+            log.debug("Connection " + connectionNum + " timed out");
+
+            connection.terminate();
+            return;
+        }
+
+        if (isTick) {
+            detectLostPackets(now);
+        }
+
+        try {
+            queueMessages();
+            sendPackets(now);
+        } catch (Exception e) {
+            if (connection.isConnected()) {
+                log.warning("Connection " + connectionNum + " had unspecified error during send", e);
+
+                connection.terminate();
+            }
+        }
+    }
+
+    private void updateConnecting(long now) {
+        if (now - createdAt > CONNECT_TIMEOUT_NANOS) {
+            close();
+            return;
+        }
+
+        if (lastConnectAttemptAt == 0 || now - lastConnectAttemptAt >= CONNECT_INTERVAL_NANOS) {
+            lastConnectAttemptAt = now;
+
+            sendControlPacket(UDPSocket.TYPE_CONNECT);
+        }
+    }
+
+    private void queueMessages() {
+        if (hasAckedMessages) {
+            hasAckedMessages = false;
+
+            reliableMessages.removeIf(m -> m.isAcked);
+        }
+
+        int orderedLimit = oldestReliableSequence(DeliveryMode.RELIABLE_ORDERED) + MAX_RELIABLE_IN_FLIGHT;
+        int unorderedLimit = oldestReliableSequence(DeliveryMode.RELIABLE_UNORDERED) + MAX_RELIABLE_IN_FLIGHT;
+
+        Connection.QueuedMessage<T> queuedMessage;
+
+        // the mode of the next queued message is not known before polling, so both limits are checked
+        while (nextMessageSequence[DeliveryMode.RELIABLE_ORDERED.ordinal()] < orderedLimit
+                && nextMessageSequence[DeliveryMode.RELIABLE_UNORDERED.ordinal()] < unorderedLimit
+                && (queuedMessage = connection.pollQueuedMessage()) != null) {
+            var mode = queuedMessage.deliveryMode;
+            var message = new OutgoingMessage(mode, nextMessageSequence[mode.ordinal()]++, queuedMessage.bytes);
+
+            if (mode == DeliveryMode.UNRELIABLE_SEQUENCED) {
+                unreliableMessages.add(message);
+            } else {
+                reliableMessages.add(message);
+            }
+        }
+    }
+
+    /**
+     * @return sequence of the oldest unacknowledged message of given mode, or the next sequence if there are none
+     */
+    private int oldestReliableSequence(DeliveryMode mode) {
+        // messages of each mode are added in sequence order
+        for (var message : reliableMessages) {
+            if (message.mode == mode)
+                return message.sequence;
+        }
+
+        return nextMessageSequence[mode.ordinal()];
+    }
+
+    /**
+     * Called from the thread that sends the message.
+     */
+    private byte[] encode(T message) {
+        var out = new ByteArrayOutputStream(256);
+
+        try {
+            // messages may be lost or reordered, so no writer state is shared between messages
+            Writers.INSTANCE.getWriter(messageType, out).write(message);
+        } catch (Exception e) {
+            throw new IllegalArgumentException("Failed to encode message: " + e, e);
+        }
+
+        if (out.size() > MAX_MESSAGE_SIZE)
+            throw new IllegalArgumentException("Message of " + out.size() + " bytes exceeds max UDP message size of " + MAX_MESSAGE_SIZE + " bytes");
+
+        return out.toByteArray();
+    }
+
+    private void sendPackets(long now) throws IOException {
+        ByteBuffer packet = null;
+
+        long resendNanos = roundTripNanos < 0 ? MIN_RESEND_NANOS * 2 : Math.max(MIN_RESEND_NANOS, (long) roundTripNanos * 2);
+
+        for (var message : reliableMessages) {
+            if (message.isAcked)
+                continue;
+
+            if (message.isSent && now - message.lastSentAt < resendNanos)
+                continue;
+
+            packet = writeMessage(packet, message, now);
+        }
+
+        OutgoingMessage message;
+
+        while ((message = unreliableMessages.poll()) != null) {
+            packet = writeMessage(packet, message, now);
+        }
+
+        if (packet == null && (isAckPending || now - lastSentAt >= KEEP_ALIVE_NANOS)) {
+            packet = beginDataPacket(now);
+        }
+
+        if (packet != null) {
+            sendDataPacket(now);
+        }
+    }
+
+    /**
+     * Writes given message into the current packet, sending the current packet first if the message does not fit.
+     *
+     * @return current packet
+     */
+    private ByteBuffer writeMessage(ByteBuffer packet, OutgoingMessage message, long now) throws IOException {
+        if (packet != null && packet.remaining() < MESSAGE_HEADER_SIZE + message.bytes.length) {
+            sendDataPacket(now);
+            packet = null;
+        }
+
+        if (packet == null) {
+            packet = beginDataPacket(now);
+        }
+
+        packet.put((byte) message.mode.ordinal());
+        packet.putInt(message.sequence);
+        packet.putShort((short) message.bytes.length);
+        packet.put(message.bytes);
+
+        if (!message.isSent) {
+            message.isSent = true;
+            connection.onMessagesSent(1);
+        }
+
+        message.lastSentAt = now;
+
+        if (message.mode != DeliveryMode.UNRELIABLE_SEQUENCED) {
+            currentPacket.messages.add(message);
+        }
+
+        return packet;
+    }
+
+    private ByteBuffer beginDataPacket(long now) {
+        var packet = socket.beginPacket(UDPSocket.TYPE_DATA);
+        packet.putInt(localSequence);
+        packet.putInt(remoteSequence);
+        packet.putInt(receivedBits);
+
+        currentPacket = new SentPacket(now);
+
+        return packet;
+    }
+
+    private void sendDataPacket(long now) throws IOException {
+        sentPackets.put(localSequence++, currentPacket);
+        currentPacket = null;
+
+        connection.onBytesSent(socket.sendPacket(address));
+
+        lastSentAt = now;
+        isAckPending = false;
+    }
+
+    private void onData(ByteBuffer packet, long now) throws Exception {
+        if (packet.remaining() < DATA_HEADER_SIZE - UDPSocket.HEADER_SIZE)
+            throw new IOException("Invalid data packet size: " + packet.remaining());
+
+        int sequence = packet.getInt();
+        int ack = packet.getInt();
+        int ackBits = packet.getInt();
+
+        if (!onPacketReceived(sequence))
+            return;
+
+        onAcksReceived(ack, ackBits, now);
+
+        while (packet.remaining() >= MESSAGE_HEADER_SIZE && connection.isConnected()) {
+            int modeIndex = packet.get();
+            int messageSequence = packet.getInt();
+            int size = packet.getShort() & 0xFFFF;
+
+            if (modeIndex < 0 || modeIndex >= MODES.length || size > packet.remaining())
+                throw new IOException("Invalid message header");
+
+            int offset = packet.arrayOffset() + packet.position();
+            packet.position(packet.position() + size);
+
+            onMessageReceived(MODES[modeIndex], messageSequence, packet.array(), offset, size);
+
+            isAckPending = true;
+        }
+    }
+
+    /**
+     * Records given packet sequence as received.
+     *
+     * @return false if the packet is a duplicate or too old to be acknowledged
+     */
+    private boolean onPacketReceived(int sequence) {
+        if (sequence > remoteSequence) {
+            int shift = sequence - remoteSequence;
+
+            receivedBits = shift >= 32 ? 0 : receivedBits << shift;
+
+            if (remoteSequence >= 0 && shift <= 32) {
+                receivedBits |= 1 << (shift - 1);
+            }
+
+            remoteSequence = sequence;
+            return true;
+        }
+
+        int distance = remoteSequence - sequence;
+
+        if (distance == 0 || distance > 32)
+            return false;
+
+        int bit = 1 << (distance - 1);
+
+        if ((receivedBits & bit) != 0)
+            return false;
+
+        receivedBits |= bit;
+        return true;
+    }
+
+    private void onAcksReceived(int ack, int ackBits, long now) {
+        if (ack < 0)
+            return;
+
+        onPacketAcked(ack, now);
+
+        for (int i = 0; i < 32; i++) {
+            if ((ackBits & (1 << i)) != 0) {
+                onPacketAcked(ack - 1 - i, now);
+            }
+        }
+    }
+
+    private void onPacketAcked(int sequence, long now) {
+        var packet = sentPackets.remove(sequence);
+
+        if (packet == null)
+            return;
+
+        long sample = now - packet.sentAt;
+
+        if (roundTripNanos < 0) {
+            roundTripNanos = sample;
+        } else {
+            roundTripNanos += (sample - roundTripNanos) * 0.125;
+        }
+
+        for (var message : packet.messages) {
+            message.isAcked = true;
+        }
+
+        hasAckedMessages |= !packet.messages.isEmpty();
+
+        addLossSample(false);
+    }
+
+    /**
+     * Packets not acknowledged within a second are considered lost.
+     * Their reliable messages are resent independently, see {@link #sendPackets(long)}.
+     */
+    private void detectLostPackets(long now) {
+        var it = sentPackets.values().iterator();
+
+        while (it.hasNext()) {
+            if (now - it.next().sentAt > LOST_PACKET_NANOS) {
+                it.remove();
+
+                addLossSample(true);
+            }
+        }
+    }
+
+    private void addLossSample(boolean isLost) {
+        if (numLossSamples == LOSS_WINDOW_SIZE) {
+            if (lossWindow[lossWindowIndex])
+                numLost--;
+        } else {
+            numLossSamples++;
+        }
+
+        lossWindow[lossWindowIndex] = isLost;
+        lossWindowIndex = (lossWindowIndex + 1) % LOSS_WINDOW_SIZE;
+
+        if (isLost)
+            numLost++;
+
+        connection.updateStats(Math.max(0, roundTripNanos) / TimeUnit.SECONDS.toNanos(1), numLost / (double) numLossSamples);
+    }
+
+    private void onMessageReceived(DeliveryMode mode, int sequence, byte[] data, int offset, int size) throws Exception {
+        switch (mode) {
+            case UNRELIABLE_SEQUENCED:
+                if (sequence > lastSequencedReceived && sequence - lastSequencedReceived <= MAX_SEQUENCED_GAP) {
+                    lastSequencedReceived = sequence;
+                    deliver(data, offset, size);
+                }
+                break;
+
+            case RELIABLE_ORDERED:
+                if (sequence < nextOrderedSequence || sequence >= nextOrderedSequence + MAX_RELIABLE_IN_FLIGHT
+                        || orderedBuffer.containsKey(sequence))
+                    break;
+
+                if (sequence != nextOrderedSequence) {
+                    var bytes = new byte[size];
+                    System.arraycopy(data, offset, bytes, 0, size);
+
+                    orderedBuffer.put(sequence, bytes);
+                    break;
+                }
+
+                deliver(data, offset, size);
+                nextOrderedSequence++;
+
+                byte[] bufferedBytes;
+
+                while ((bufferedBytes = orderedBuffer.remove(nextOrderedSequence)) != null && connection.isConnected()) {
+                    deliver(bufferedBytes, 0, bufferedBytes.length);
+                    nextOrderedSequence++;
+                }
+                break;
+
+            case RELIABLE_UNORDERED:
+            default:
+                if (sequence < unorderedBase || sequence >= unorderedBase + MAX_RELIABLE_IN_FLIGHT
+                        || !unorderedReceived.add(sequence))
+                    break;
+
+                deliver(data, offset, size);
+
+                while (unorderedReceived.remove(unorderedBase)) {
+                    unorderedBase++;
+                }
+                break;
+        }
+    }
+
+    private void deliver(byte[] data, int offset, int size) throws Exception {
+        T message = Readers.INSTANCE.getReader(messageType, new ByteArrayInputStream(data, offset, size)).read();
+
+        connection.notifyMessageHandlers(message);
+    }
+
+    private void close() {
+        if (isClosed)
+            return;
+
+        isClosed = true;
+
+        socket.removeHandler(address);
+
+        if (isOpen) {
+            if (!isClosedByRemote) {
+                // best effort, since the packet may be lost, the remote endpoint also times out
+                sendControlPacket(UDPSocket.TYPE_DISCONNECT);
+                sendControlPacket(UDPSocket.TYPE_DISCONNECT);
+            }
+
+            endpoint.onConnectionClosed(connection);
+        }
+
+        onClosed.run();
+    }
+
+    private static final class SentPacket {
+        private final long sentAt;
+        private final List<OutgoingMessage> messages = new ArrayList<>(4);
+
+        SentPacket(long sentAt) {
+            this.sentAt = sentAt;
+        }
+    }
+
+    private static final class OutgoingMessage {
+        private final DeliveryMode mode;
+        private final int sequence;
+        private final byte[] bytes;
+
+        private boolean isSent = false;
+        private long lastSentAt = 0;
+        private boolean isAcked = false;
+
+        OutgoingMessage(DeliveryMode mode, int sequence, byte[] bytes) {
+            this.mode = mode;
+            this.sequence = sequence;
+            this.bytes = bytes;
+        }
+    }
+}
@@ -0,0 +1,111 @@
+/*
+ * FXGL - JavaFX Game Library. The MIT License (MIT).
+ * Copyright (c) AlmasB (almaslvl@gmail.com).
+ * See LICENSE for details.
+ */
+
+package com.almasb.fxgl.net;
+
+import com.almasb.fxgl.logging.Logger;
+
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.util.concurrent.CountDownLatch;
+
+/**
+ * A UDP server, where messages can be sent unreliably, which avoids head-of-line blocking
+ * of stream-based connections, see {@link DeliveryMode}.
+ * All connections are served by a single thread, so message handlers should not block.
+ * This server can only accept connections from a {@link UDPClient}.
+ *
+ * Similar to the TCP server, {@link #start()} returns only after the server is stopped.
+ * The socket is closed once the server is stopped and all its connections are closed.
+ *
+ * @author Almas Baimagambetov (almaslvl@gmail.com)
+ */
+public final class UDPServer<T> extends Server<T> {
+
+    private static final Logger log = Logger.get(UDPServer.class);
+
+    private volatile boolean isStopped = false;
+
+    private int port;
+    private Class<T> messageType;
+    private UDPSocket socket;
+
+    private double dropChance = 0.0;
+    private double reorderChance = 0.0;
+
+    private final CountDownLatch stopLatch = new CountDownLatch(1);
+
+    private int connectionNum = 1;
+
+    public UDPServer(int port, Class<T> messageType) {
+        this.port = port;
+        this.messageType = messageType;
+    }
+
+    /**
+     * Simulates an unreliable network by dropping or reordering packets sent by this server.
+     * Intended for testing, must be called before the server is started.
+     *
+     * @param dropChance chance [0..1] that a packet is lost
+     * @param reorderChance chance [0..1] that a packet is delayed, so that it arrives after packets sent later
+     */
+    public void setSimulatedPacketLoss(double dropChance, double reorderChance) {
+        this.dropChance = dropChance;
+        this.reorderChance = reorderChance;
+    }
+
+    @Override
+    protected void start() {
+        log.debug("Starting to listen at: " + port + " type: " + messageType);
+
+        try {
+            socket = new UDPSocket("FXGL UDP Server-" + port, new InetSocketAddress(port), this::onUnknownPacket, dropChance, reorderChance);
+
+            onStartedListening();
+
+            if (!isStopped) {
+                stopLatch.await();
+            }
+
+        } catch (Exception e) {
+            if (!isStopped) {
+                throw new RuntimeException("Failed to start: " + e.getMessage(), e);
+            }
+        }
+
+        onStoppedListening();
+    }
+
+    private void onUnknownPacket(SocketAddress address, byte type) {
+        if (type != UDPSocket.TYPE_CONNECT || isStopped)
+            return;
+
+        var handler = new UDPConnectionHandler<>(this, socket, address, connectionNum++, messageType);
+        handler.setOnClosed(this::closeSocketIfDone);
+
+        socket.addHandler(address, handler);
+
+        handler.open();
+        handler.sendControlPacket(UDPSocket.TYPE_ACCEPT);
+    }
+
+    private void closeSocketIfDone() {
+        if (isStopped && socket.getNumHandlers() == 0) {
+            socket.close();
+        }
+    }
+
+    @Override
+    public void stop() {
+        isStopped = true;
+
+        if (socket != null) {
+            socket.execute(this::closeSocketIfDone);
+        }
+
+        stopLatch.countDown();
+    }
+}
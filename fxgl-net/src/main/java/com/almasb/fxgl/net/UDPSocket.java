@@ -0,0 +1,340 @@
+/*
+ * FXGL - JavaFX Game Library. The MIT License (MIT).
+ * Copyright (c) AlmasB (almaslvl@gmail.com).
+ * See LICENSE for details.
+ */
+
+package com.almasb.fxgl.net;
+
+import com.almasb.fxgl.logging.Logger;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.DatagramChannel;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Random;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * A datagram channel with its own thread, shared by all UDP connections of an endpoint.
+ * Incoming packets are dispatched to connection handlers by remote address.
+ * Handlers are updated every tick and whenever a flush is requested, all on the socket thread.
+ *
+ * Every packet starts with a protocol id and a packet type.
+ * Optionally, outgoing packets are dropped or delayed (reordered) to simulate an unreliable network.
+ *
+ * @author Almas Baimagambetov (almaslvl@gmail.com)
+ */
+final class UDPSocket {
+
+    private static final Logger log = Logger.get(UDPSocket.class);
+
+    static final short PROTOCOL_ID = 0x4658;
+
+    static final byte TYPE_CONNECT = 1;
+    static final byte TYPE_ACCEPT = 2;
+    static final byte TYPE_DATA = 3;
+    static final byte TYPE_DISCONNECT = 4;
+
+    static final int HEADER_SIZE = 3;
+
+    /**
+     * Max size of a sent packet, chosen to avoid IP fragmentation on common networks.
+     */
+    static final int MAX_PACKET_SIZE = 1200;
+
+    static final long TICK_NANOS = TimeUnit.MILLISECONDS.toNanos(10);
+
+    /**
+     * Max time a reordered packet is delayed by when simulating an unreliable network.
+     */
+    private static final long MAX_REORDER_DELAY_NANOS = TimeUnit.MILLISECONDS.toNanos(30);
+
+    /**
+     * Called on the socket thread when a packet is received from an address without a handler.
+     */
+    interface UnknownPacketListener {
+        void onPacket(SocketAddress address, byte type);
+    }
+
+    private final DatagramChannel channel;
+    private final Selector selector;
+    private final Thread thread;
+
+    private final UnknownPacketListener unknownPacketListener;
+
+    // only accessed on the socket thread
+    private final Map<SocketAddress, UDPConnectionHandler<?>> handlers = new HashMap<>();
+    private final List<UDPConnectionHandler<?>> handlersToUpdate = new ArrayList<>();
+
+    private final Queue<Runnable> tasks = new ConcurrentLinkedQueue<>();
+    private final AtomicBoolean isFlushRequested = new AtomicBoolean(false);
+
+    private final ByteBuffer receiveBuffer = ByteBuffer.allocate(64 * 1024);
+    private final ByteBuffer sendBuffer = ByteBuffer.allocate(MAX_PACKET_SIZE);
+
+    private final double dropChance;
+    private final double reorderChance;
+    private final Random random = new Random();
+    private final List<DelayedPacket> delayedPackets = new ArrayList<>();
+
+    private volatile boolean isClosed = false;
+
+    /**
+     * @param dropChance chance [0..1] that an outgoing packet is silently dropped
+     * @param reorderChance chance [0..1] that an outgoing packet is delayed, so that it arrives after later packets
+     */
+    UDPSocket(String name, InetSocketAddress bindAddress, UnknownPacketListener unknownPacketListener,
+              double dropChance, double reorderChance) throws IOException {
+
+        this.unknownPacketListener = unknownPacketListener;
+        this.dropChance = dropChance;
+        this.reorderChance = reorderChance;
+
+        channel = DatagramChannel.open();
+
+        try {
+            channel.bind(bindAddress);
+            channel.configureBlocking(false);
+
+            selector = Selector.open();
+            channel.register(selector, SelectionKey.OP_READ);
+        } catch (IOException e) {
+            channel.close();
+            throw e;
+        }
+
+        thread = new Thread(this::run, name);
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * @return local port this socket is bound to
+     */
+    int getLocalPort() {
+        return channel.socket().getLocalPort();
+    }
+
+    boolean isInLoop() {
+        return Thread.currentThread() == thread;
+    }
+
+    /**
+     * Runs given task on the socket thread.
+     */
+    void execute(Runnable task) {
+        tasks.add(task);
+
+        if (!isInLoop()) {
+            selector.wakeup();
+        }
+    }
+
+    /**
+     * Requests all handlers to send queued messages without waiting for the next tick.
+     */
+    void requestFlush() {
+        if (isFlushRequested.compareAndSet(false, true) && !isInLoop()) {
+            selector.wakeup();
+        }
+    }
+
+    void addHandler(SocketAddress address, UDPConnectionHandler<?> handler) {
+        handlers.put(address, handler);
+    }
+
+    void removeHandler(SocketAddress address) {
+        handlers.remove(address);
+    }
+
+    int getNumHandlers() {
+        return handlers.size();
+    }
+
+    /**
+     * Clears the send buffer and writes the packet header.
+     * Must be called on the socket thread.
+     *
+     * @return send buffer (in write mode) to fill with the packet contents
+     */
+    ByteBuffer beginPacket(byte type) {
+        sendBuffer.clear();
+        sendBuffer.putShort(PROTOCOL_ID);
+        sendBuffer.put(type);
+        return sendBuffer;
+    }
+
+    /**
+     * Sends the packet in the send buffer to given address.
+     * Must be called on the socket thread.
+     *
+     * @return size of the packet in bytes
+     */
+    int sendPacket(SocketAddress address) throws IOException {
+        sendBuffer.flip();
+
+        int size = sendBuffer.remaining();
+
+        if (dropChance > 0 && random.nextDouble() < dropChance)
+            return size;
+
+        if (reorderChance > 0 && random.nextDouble() < reorderChance) {
+            var bytes = new byte[size];
+            sendBuffer.get(bytes);
+
+            long delay = (long) (random.nextDouble() * MAX_REORDER_DELAY_NANOS);
+
+            delayedPackets.add(new DelayedPacket(ByteBuffer.wrap(bytes), address, System.nanoTime() + delay));
+            return size;
+        }
+
+        // if the OS buffer is full, the packet is lost, as it could be on the network
+        channel.send(sendBuffer, address);
+        return size;
+    }
+
+    /**
+     * Closes the socket once all queued tasks have run.
+     */
+    void close() {
+        execute(() -> isClosed = true);
+    }
+
+    private void run() {
+        long nextTick = System.nanoTime();
+
+        while (!isClosed) {
+            runTasks();
+
+            if (isClosed)
+                break;
+
+            try {
+                long timeout = TimeUnit.NANOSECONDS.toMillis(nextTick - System.nanoTime());
+
+                if (tasks.isEmpty() && !isFlushRequested.get() && timeout > 0) {
+                    selector.select(timeout);
+                } else {
+                    selector.selectNow();
+                }
+
+                selector.selectedKeys().clear();
+
+                receive();
+
+            } catch (IOException e) {
+                log.warning("UDP socket failed: " + e.getMessage(), e);
+            }
+
+            long now = System.nanoTime();
+            boolean isTick = now - nextTick >= 0;
+
+            if (isTick) {
+                nextTick = now + TICK_NANOS;
+            }
+
+            if (isFlushRequested.getAndSet(false) || isTick) {
+                updateHandlers(now, isTick);
+            }
+
+            sendDelayedPackets(now);
+        }
+
+        try {
+            selector.close();
+            channel.close();
+        } catch (IOException e) {
+            log.warning("IOException when closing UDP socket: " + e.getMessage(), e);
+        }
+    }
+
+    private void runTasks() {
+        Runnable task;
+
+        while ((task = tasks.poll()) != null) {
+            try {
+                task.run();
+            } catch (Exception e) {
+                log.warning("Unhandled error in UDP socket task", e);
+            }
+        }
+    }
+
+    private void receive() throws IOException {
+        SocketAddress address;
+
+        while (!isClosed && (address = channel.receive(receiveBuffer)) != null) {
+            receiveBuffer.flip();
+
+            if (receiveBuffer.remaining() >= HEADER_SIZE && receiveBuffer.getShort() == PROTOCOL_ID) {
+                byte type = receiveBuffer.get();
+
+                var handler = handlers.get(address);
+
+                if (handler != null) {
+                    handler.onPacket(type, receiveBuffer, System.nanoTime());
+                } else {
+                    unknownPacketListener.onPacket(address, type);
+                }
+            }
+
+            receiveBuffer.clear();
+        }
+    }
+
+    private void updateHandlers(long now, boolean isTick) {
+        // handlers may be removed during update
+        handlersToUpdate.addAll(handlers.values());
+
+        for (var handler : handlersToUpdate) {
+            handler.update(now, isTick);
+        }
+
+        handlersToUpdate.clear();
+    }
+
+    private void sendDelayedPackets(long now) {
+        if (delayedPackets.isEmpty())
+            return;
+
+        Iterator<DelayedPacket> it = delayedPackets.iterator();
+
+        while (it.hasNext()) {
+            var packet = it.next();
+
+            if (now - packet.sendAt >= 0) {
+                it.remove();
+
+                try {
+                    channel.send(packet.data, packet.address);
+                } catch (IOException e) {
+                    log.debug("Failed to send delayed packet: " + e.getMessage());
+                }
+            }
+        }
+    }
+
+    private static final class DelayedPacket {
+        private final ByteBuffer data;
+        private final SocketAddress address;
+        private final long sendAt;
+
+        DelayedPacket(ByteBuffer data, SocketAddress address, long sendAt) {
+            this.data = data;
+            this.address = address;
+            this.sendAt = sendAt;
+        }
+    }
+}
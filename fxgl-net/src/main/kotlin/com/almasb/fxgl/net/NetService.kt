@@ -46,6 +46,46 @@ class NetService : EngineService() {
     fun <T> newTCPClient(ip: String, port: Int,  messageType: Class<T>): Client<T> {
         return TCPClient(ip, port, messageType)
     }
+
+    /**
+     * A non-blocking alternative to [newTCPServer] that serves all connections with a few shared threads.
+     * Can only accept connections from [newNIOClient].
+     */
+    fun newNIOServer(port: Int): Server<Bundle> {
+        return NIOServer(port, Bundle::class.java)
+    }
+
+    fun <T> newNIOServer(port: Int, messageType: Class<T>): Server<T> {
+        return NIOServer(port, messageType)
+    }
+
+    fun newNIOClient(ip: String, port: Int): Client<Bundle> {
+        return NIOClient(ip, port, Bundle::class.java)
+    }
+
+    fun <T> newNIOClient(ip: String, port: Int, messageType: Class<T>): Client<T> {
+        return NIOClient(ip, port, messageType)
+    }
+
+    /**
+     * A UDP server, where each message can be sent with a [DeliveryMode], e.g. unreliably for frequent state updates.
+     * Can only accept connections from [newUDPClient].
+     */
+    fun newUDPServer(port: Int): UDPServer<Bundle> {
+        return UDPServer(port, Bundle::class.java)
+    }
+
+    fun <T> newUDPServer(port: Int, messageType: Class<T>): UDPServer<T> {
+        return UDPServer(port, messageType)
+    }
+
+    fun newUDPClient(ip: String, port: Int): UDPClient<Bundle> {
+        return UDPClient(ip, port, Bundle::class.java)
+    }
+
+    fun <T> newUDPClient(ip: String, port: Int, messageType: Class<T>): UDPClient<T> {
+        return UDPClient(ip, port, messageType)
+    }
 }
 
 
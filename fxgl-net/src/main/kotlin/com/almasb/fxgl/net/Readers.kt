@@ -7,6 +7,7 @@
 package com.almasb.fxgl.net
 
 import com.almasb.fxgl.core.serialization.Bundle
+import com.almasb.fxgl.core.serialization.BundleReader
 import com.almasb.fxgl.logging.Logger
 import java.io.*
 
@@ -22,7 +23,7 @@ object Readers {
     private val map = hashMapOf<Class<*>, ReaderFactory<*>>()
 
     init {
-        addReader(Bundle::class.java, ReaderFactory { BundleMessageReader(it) })
+        addReader(Bundle::class.java, ReaderFactory { BinaryBundleMessageReader(it) })
         addReader(ByteArray::class.java, ReaderFactory { ByteArrayMessageReader(it) })
         addReader(String::class.java, ReaderFactory { StringMessageReader(it) })
     }
@@ -32,18 +33,35 @@ object Readers {
     }
 
     fun <T> getReader(type: Class<T>, inputStream: InputStream): MessageReader<T> {
-        log.debug("Getting MessageReader for $type")
+        if (log.isDebugEnabled)
+            log.debug("Getting MessageReader for $type")
 
         val readerFactory = map[type] ?: throw RuntimeException("No reader factory for type: $type")
 
         val reader = readerFactory.create(inputStream) as MessageReader<T>
 
-        log.debug("Constructed MessageReader for $type: " + reader.javaClass.simpleName)
+        if (log.isDebugEnabled)
+            log.debug("Constructed MessageReader for $type: " + reader.javaClass.simpleName)
 
         return reader
     }
 }
 
+/**
+ * Reads bundles written by [BinaryBundleMessageWriter].
+ */
+class BinaryBundleMessageReader(stream: InputStream) : MessageReader<Bundle> {
+
+    private val reader = BundleReader(stream)
+
+    override fun read(): Bundle {
+        return reader.read()
+    }
+}
+
+/**
+ * Reads bundles written by [BundleMessageWriter].
+ */
 class BundleMessageReader(stream: InputStream) : MessageReader<Bundle> {
     private val inputStream = ObjectInputStream(stream)
 
@@ -7,6 +7,7 @@
 package com.almasb.fxgl.net
 
 import com.almasb.fxgl.core.serialization.Bundle
+import com.almasb.fxgl.core.serialization.BundleWriter
 import com.almasb.fxgl.logging.Logger
 import java.io.*
 import java.lang.RuntimeException
@@ -22,7 +23,7 @@ object Writers {
     private val map = hashMapOf<Class<*>, WriterFactory<*>>()
 
     init {
-        addWriter(Bundle::class.java, WriterFactory { BundleMessageWriter(it) })
+        addWriter(Bundle::class.java, WriterFactory { BinaryBundleMessageWriter(it) })
         addWriter(ByteArray::class.java, WriterFactory { ByteArrayMessageWriter(it) })
         addWriter(String::class.java, WriterFactory { StringMessageWriter(it) })
     }
@@ -32,18 +33,36 @@ object Writers {
     }
 
     fun <T> getWriter(type: Class<T>, out: OutputStream): MessageWriter<T> {
-        log.debug("Getting MessageWriter for $type")
+        if (log.isDebugEnabled)
+            log.debug("Getting MessageWriter for $type")
 
         val writerFactory = map[type] ?: throw RuntimeException("No message writer factory for type: $type")
 
         val writer = writerFactory.create(out) as MessageWriter<T>
 
-        log.debug("Constructed MessageWriter for $type: " + writer.javaClass.simpleName)
+        if (log.isDebugEnabled)
+            log.debug("Constructed MessageWriter for $type: " + writer.javaClass.simpleName)
 
         return writer
     }
 }
 
+/**
+ * Writes bundles in the compact binary format of [BundleWriter].
+ */
+class BinaryBundleMessageWriter(out: OutputStream) : MessageWriter<Bundle> {
+
+    private val writer = BundleWriter(out)
+
+    override fun write(message: Bundle) {
+        writer.write(message)
+    }
+}
+
+/**
+ * Writes bundles with Java serialization.
+ * To use, register with [Writers.addWriter] and [BundleMessageReader] with [Readers.addReader].
+ */
 class BundleMessageWriter(out: OutputStream) : MessageWriter<Bundle> {
 
     private val out = ObjectOutputStream(out)
@@ -69,5 +88,6 @@ class StringMessageWriter(out: OutputStream) : MessageWriter<String> {
 
     override fun write(message: String) {
         out.write(message)
+        out.flush()
     }
 }
\ No newline at end of file
@@ -0,0 +1,142 @@
+/*
+ * FXGL - JavaFX Game Library. The MIT License (MIT).
+ * Copyright (c) AlmasB (almaslvl@gmail.com).
+ * See LICENSE for details.
+ */
+
+package com.almasb.fxgl.net
+
+import org.hamcrest.MatcherAssert.assertThat
+import org.hamcrest.Matchers.*
+import org.junit.jupiter.api.Assertions.assertFalse
+import org.junit.jupiter.api.Assertions.assertThrows
+import org.junit.jupiter.api.Test
+import java.net.Socket
+
+/**
+ *
+ * @author Almas Baimagambetov (almaslvl@gmail.com)
+ */
+class ConnectionTest {
+
+    @Test
+    fun `Drop oldest keeps newest messages`() {
+        val connection = Connection<String>(Socket(), 1, 3, OverflowPolicy.DROP_OLDEST)
+
+        (1..5).forEach { connection.send("$it") }
+
+        assertThat(connection.sendQueueSize, `is`(3))
+        assertThat(connection.numDroppedMessages, `is`(2L))
+        assertThat(drain(connection), contains("3", "4", "5"))
+    }
+
+    @Test
+    fun `Drop newest keeps oldest messages`() {
+        val connection = Connection<String>(Socket(), 1, 3, OverflowPolicy.DROP_NEWEST)
+
+        (1..5).forEach { connection.send("$it") }
+
+        assertThat(connection.numDroppedMessages, `is`(2L))
+        assertThat(drain(connection), contains("1", "2", "3"))
+    }
+
+    @Test
+    fun `Disconnect terminates connection when queue is full`() {
+        val connection = Connection<String>(Socket(), 1, 3, OverflowPolicy.DISCONNECT)
+
+        var isTerminated = false
+        connection.setTransportCallbacks(Runnable { }, Runnable { isTerminated = true })
+
+        (1..3).forEach { connection.send("$it") }
+
+        assertThat(connection.isConnected, `is`(true))
+
+        connection.send("4")
+
+        assertFalse(connection.isConnected)
+        assertThat(isTerminated, `is`(true))
+
+        // ignored after termination
+        connection.send("5")
+
+        assertThat(drain(connection), contains("1", "2", "3"))
+    }
+
+    @Test
+    fun `Messages are not dropped by default`() {
+        val connection = Connection<String>(Socket(), 1)
+
+        assertThat(connection.overflowPolicy, `is`(OverflowPolicy.DISCONNECT))
+
+        (1..Connection.DEFAULT_SEND_QUEUE_CAPACITY).forEach { connection.send("$it") }
+
+        assertThat(connection.numDroppedMessages, `is`(0L))
+        assertThat(connection.isConnected, `is`(true))
+
+        connection.send("Overflow")
+
+        assertThat(connection.numDroppedMessages, `is`(0L))
+        assertFalse(connection.isConnected)
+    }
+
+    @Test
+    fun `Flush is requested on send only with auto flush`() {
+        val connection = Connection<String>(Socket(), 1)
+
+        var numFlushes = 0
+        connection.setTransportCallbacks(Runnable { numFlushes++ }, Runnable { })
+
+        connection.send("1")
+
+        assertThat(numFlushes, `is`(1))
+
+        connection.isAutoFlush = false
+        connection.send("2")
+        connection.send("3")
+
+        assertThat(numFlushes, `is`(1))
+
+        connection.flush()
+
+        assertThat(numFlushes, `is`(2))
+        assertThat(connection.sendQueueSize, `is`(3))
+    }
+
+    @Test
+    fun `Messages rejected by encoder are not queued`() {
+        val connection = Connection<String>(Socket(), 1)
+
+        connection.setEncoder {
+            require(it.length <= 3) { "Too large" }
+            it.toByteArray()
+        }
+
+        connection.send("1")
+
+        assertThrows(IllegalArgumentException::class.java) {
+            connection.send("1234", DeliveryMode.RELIABLE_UNORDERED)
+        }
+
+        assertThat(connection.sendQueueSize, `is`(1))
+        assertThat(connection.pollQueuedMessage().bytes, `is`("1".toByteArray()))
+    }
+
+    @Test
+    fun `Sent counters`() {
+        val connection = Connection<String>(Socket(), 1)
+
+        connection.onMessagesSent(2)
+        connection.onBytesSent(100)
+        connection.onBytesSent(50)
+
+        assertThat(connection.numMessagesSent, `is`(2L))
+        assertThat(connection.numBytesSent, `is`(150L))
+        assertThat(connection.numDroppedMessages, `is`(0L))
+    }
+
+    private fun drain(connection: Connection<String>): List<String> {
+        val messages = arrayListOf<String>()
+        connection.drainMessages(messages)
+        return messages
+    }
+}
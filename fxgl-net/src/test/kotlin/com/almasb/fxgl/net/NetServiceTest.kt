@@ -16,15 +16,26 @@ import org.hamcrest.MatcherAssert
 import org.hamcrest.MatcherAssert.*
 import org.hamcrest.Matchers
 import org.hamcrest.Matchers.*
+import org.junit.jupiter.api.Assertions.assertThrows
+import org.junit.jupiter.api.Assertions.assertTrue
 import org.junit.jupiter.api.BeforeEach
 import org.junit.jupiter.api.Test
 import org.junit.jupiter.api.assertTimeoutPreemptively
 import org.junit.jupiter.api.condition.EnabledIfEnvironmentVariable
 import org.junit.jupiter.api.fail
+import org.junit.jupiter.params.ParameterizedTest
+import org.junit.jupiter.params.provider.EnumSource
+import org.junit.jupiter.params.provider.ValueSource
+import java.net.DatagramPacket
+import java.net.DatagramSocket
+import java.net.InetSocketAddress
+import java.nio.ByteBuffer
 import java.nio.file.Files
 import java.nio.file.Paths
 import java.time.Duration
 import java.util.*
+import java.util.concurrent.CopyOnWriteArrayList
+import java.util.concurrent.atomic.AtomicBoolean
 import java.util.concurrent.atomic.AtomicInteger
 
 /**
@@ -35,6 +46,9 @@ class NetServiceTest {
     companion object {
         private const val TEST_PORT = 60001
 
+        // each UDP test uses its own port, since a UDP server socket is closed asynchronously
+        private const val UDP_TEST_PORT = 60011
+
         private const val LOREM_IPSUM =
                 "Lorem ipsum dolor sit amet, consectetur adipiscing elit, sed do eiusmod tempor incididunt ut labore et dolore magna aliqua. " +
                 "Ut enim ad minim veniam, quis nostrud exercitation ullamco laboris nisi ut aliquip ex ea commodo consequat. " +
@@ -197,4 +211,467 @@ class NetServiceTest {
             assertThat(count, `is`(5))
         }
     }
-}
\ No newline at end of file
+
+    @Test
+    @EnabledIfEnvironmentVariable(named = "CI", matches = "true")
+    fun `NIO Bundle message handler`() {
+        var count = 0
+
+        assertTimeoutPreemptively(Duration.ofSeconds(2)) {
+            val server = net.newNIOServer(TEST_PORT)
+
+            server.setOnConnected {
+                count++
+
+                val bundle = Bundle("")
+                bundle.put("data", "Hello World Test")
+
+                // sending does not block, so it is safe to send from the callback
+                it.send(bundle)
+
+                bundle.put("data2", LARGE_DATA)
+
+                it.send(bundle)
+            }
+
+            val client = net.newNIOClient("localhost", TEST_PORT)
+
+            client.setOnConnected {
+                count++
+
+                it.addMessageHandler { connection, message ->
+
+                    if (count == 2) {
+                        val data = message.get<String>("data")
+
+                        assertThat(data, `is`("Hello World Test"))
+
+                        count++
+                    } else if (count == 3) {
+                        val data = message.get<ByteArray>("data2")
+
+                        assertThat(data, `is`(LARGE_DATA))
+
+                        count++
+
+                        server.stop()
+                    }
+                }
+            }
+
+            server.listeningProperty().addListener { _, _, isListening ->
+                if (isListening) {
+                    client.connectTask().run()
+                }
+            }
+
+            server.startTask()
+                    .onFailure { e -> fail { "Server Start failed $e" } }
+                    .run()
+
+            assertThat(count, `is`(4))
+        }
+    }
+
+    @Test
+    @EnabledIfEnvironmentVariable(named = "CI", matches = "true")
+    fun `NIO echo to multiple clients preserves message order`() {
+        val numClients = 8
+        val numMessages = 1000
+
+        assertTimeoutPreemptively(Duration.ofSeconds(5)) {
+            val server = net.newNIOServer(TEST_PORT, ByteArray::class.java)
+
+            server.setOnConnected {
+                // replies are sent from the selector thread
+                it.addMessageHandler { connection, message -> connection.send(message) }
+            }
+
+            val isOrdered = AtomicBoolean(true)
+            val numReceived = AtomicInteger(0)
+            val clients = (0 until numClients).map { net.newNIOClient("localhost", TEST_PORT, ByteArray::class.java) }
+
+            server.listeningProperty().addListener { _, _, isListening ->
+                if (!isListening)
+                    return@addListener
+
+                clients.forEach { client ->
+                    var expected = 0
+
+                    client.setOnConnected {
+                        it.addMessageHandler { _, message ->
+                            if (ByteBuffer.wrap(message).int != expected++)
+                                isOrdered.set(false)
+
+                            if (numReceived.incrementAndGet() == numClients * numMessages)
+                                server.stop()
+                        }
+                    }
+
+                    client.connectTask().run()
+                }
+
+                // larger than the socket buffers, so that partial reads and writes occur
+                clients.forEach { client ->
+                    for (i in 0 until numMessages) {
+                        client.broadcast(ByteBuffer.allocate(1024).putInt(i).array())
+                    }
+                }
+            }
+
+            server.startTask()
+                    .onFailure { e -> fail { "Server Start failed $e" } }
+                    .run()
+
+            assertTrue(isOrdered.get())
+            assertThat(numReceived.get(), `is`(numClients * numMessages))
+            assertThat(server.connections.size, `is`(numClients))
+
+            clients.forEach { it.disconnect() }
+        }
+    }
+
+    @ParameterizedTest
+    @ValueSource(booleans = [false, true])
+    @EnabledIfEnvironmentVariable(named = "CI", matches = "true")
+    fun `Messages are written on flush if auto flush is disabled`(isNIO: Boolean) {
+        assertTimeoutPreemptively(Duration.ofSeconds(3)) {
+            val server = if (isNIO) net.newNIOServer(TEST_PORT, ByteArray::class.java) else net.newTCPServer(TEST_PORT, ByteArray::class.java)
+            server.setAutoFlush(false)
+
+            val numReceived = AtomicInteger(0)
+
+            val client = if (isNIO) net.newNIOClient("localhost", TEST_PORT, ByteArray::class.java) else net.newTCPClient("localhost", TEST_PORT, ByteArray::class.java)
+            client.setOnConnected {
+                it.addMessageHandler { _, _ -> numReceived.incrementAndGet() }
+            }
+
+            server.setOnConnected { connection ->
+                Thread(Runnable {
+                    repeat(3) { connection.send(LOREM_IPSUM.toByteArray()) }
+
+                    Thread.sleep(300)
+
+                    assertThat(numReceived.get(), `is`(0))
+                    assertThat(connection.sendQueueSize, `is`(3))
+
+                    // e.g. end of game tick
+                    server.flush()
+
+                    while (numReceived.get() < 3) {
+                        Thread.sleep(10)
+                    }
+
+                    assertThat(connection.sendQueueSize, `is`(0))
+                    assertThat(connection.numMessagesSent, `is`(3L))
+                    assertThat(connection.numBytesSent, greaterThan(3L * LOREM_IPSUM.length))
+
+                    server.stop()
+                }).start()
+            }
+
+            server.listeningProperty().addListener { _, _, isListening ->
+                if (isListening) {
+                    client.connectTask().run()
+                }
+            }
+
+            server.startTask()
+                    .onFailure { e -> fail { "Server Start failed $e" } }
+                    .run()
+
+            client.disconnect()
+
+            assertThat(numReceived.get(), `is`(3))
+        }
+    }
+
+    @Test
+    @EnabledIfEnvironmentVariable(named = "CI", matches = "true")
+    fun `UDP Bundle message handler`() {
+        var count = 0
+
+        assertTimeoutPreemptively(Duration.ofSeconds(2)) {
+            val server = net.newUDPServer(UDP_TEST_PORT)
+
+            server.setOnConnected {
+                count++
+
+                val bundle = Bundle("")
+                bundle.put("data", "Hello World Test")
+
+                it.send(bundle, DeliveryMode.RELIABLE_UNORDERED)
+            }
+
+            val client = net.newUDPClient("localhost", UDP_TEST_PORT)
+
+            client.setOnConnected {
+                count++
+
+                it.addMessageHandler { connection, message ->
+                    assertThat(message.get<String>("data"), `is`("Hello World Test"))
+
+                    count++
+
+                    connection.terminate()
+                    server.stop()
+                }
+            }
+
+            server.listeningProperty().addListener { _, _, isListening ->
+                if (isListening) {
+                    client.connectTask().run()
+                }
+            }
+
+            server.startTask()
+                    .onFailure { e -> fail { "Server Start failed $e" } }
+                    .run()
+
+            assertThat(count, `is`(3))
+        }
+    }
+
+    @ParameterizedTest
+    @EnumSource(DeliveryMode::class)
+    @EnabledIfEnvironmentVariable(named = "CI", matches = "true")
+    fun `UDP delivery modes with packet loss and reordering`(mode: DeliveryMode) {
+        val numMessages = 300
+        val port = UDP_TEST_PORT + 1 + mode.ordinal
+
+        assertTimeoutPreemptively(Duration.ofSeconds(10)) {
+            val server = net.newUDPServer(port, ByteArray::class.java)
+            server.setSimulatedPacketLoss(0.2, 0.2)
+
+            val received = CopyOnWriteArrayList<Int>()
+
+            server.setOnConnected {
+                it.addMessageHandler { _, message -> received += ByteBuffer.wrap(message).int }
+            }
+
+            val client = net.newUDPClient("localhost", port, ByteArray::class.java)
+            client.setSimulatedPacketLoss(0.2, 0.2)
+
+            server.listeningProperty().addListener { _, _, isListening ->
+                if (!isListening)
+                    return@addListener
+
+                Thread(Runnable {
+                    client.connectTask().run()
+
+                    val connection = client.connections[0]
+
+                    for (i in 0 until numMessages) {
+                        connection.send(ByteBuffer.allocate(16).putInt(i).array(), mode)
+
+                        if (i % 10 == 0)
+                            Thread.sleep(5)
+                    }
+
+                    if (mode == DeliveryMode.UNRELIABLE_SEQUENCED) {
+                        Thread.sleep(500)
+                    } else {
+                        while (received.size < numMessages) {
+                            Thread.sleep(10)
+                        }
+                    }
+
+                    client.disconnect()
+                    server.stop()
+                }).start()
+            }
+
+            server.startTask()
+                    .onFailure { e -> fail { "Server Start failed $e" } }
+                    .run()
+
+            when (mode) {
+                DeliveryMode.RELIABLE_ORDERED -> {
+                    assertThat(received, `is`((0 until numMessages).toList()))
+                }
+
+                DeliveryMode.RELIABLE_UNORDERED -> {
+                    assertThat(received.sorted(), `is`((0 until numMessages).toList()))
+                }
+
+                DeliveryMode.UNRELIABLE_SEQUENCED -> {
+                    assertThat(received.size, `is`(greaterThan(0)))
+                    assertThat(received.size, `is`(lessThanOrEqualTo(numMessages)))
+                    assertTrue(received.zipWithNext().all { (prev, next) -> prev < next })
+                }
+            }
+        }
+    }
+
+    @Test
+    @EnabledIfEnvironmentVariable(named = "CI", matches = "true")
+    fun `UDP connection measures round trip time and packet loss`() {
+        val port = UDP_TEST_PORT + 5
+
+        assertTimeoutPreemptively(Duration.ofSeconds(5)) {
+            val server = net.newUDPServer(port, ByteArray::class.java)
+
+            val client = net.newUDPClient("localhost", port, ByteArray::class.java)
+            client.setSimulatedPacketLoss(0.3, 0.0)
+
+            server.listeningProperty().addListener { _, _, isListening ->
+                if (!isListening)
+                    return@addListener
+
+                Thread(Runnable {
+                    client.connectTask().run()
+
+                    val connection = client.connections[0]
+
+                    // lost packets are detected after a second without acknowledgement
+                    repeat(300) {
+                        connection.send(ByteArray(32), DeliveryMode.UNRELIABLE_SEQUENCED)
+                        Thread.sleep(5)
+                    }
+
+                    assertThat(connection.roundTripTime, `is`(greaterThan(0.0)))
+                    assertThat(connection.roundTripTime, `is`(lessThan(0.5)))
+                    assertThat(connection.packetLoss, `is`(greaterThan(0.1)))
+                    assertThat(connection.packetLoss, `is`(lessThan(0.5)))
+                    assertThat(server.connections[0].packetLoss, `is`(0.0))
+
+                    client.disconnect()
+                    server.stop()
+                }).start()
+            }
+
+            server.startTask()
+                    .onFailure { e -> fail { "Server Start failed $e" } }
+                    .run()
+        }
+    }
+
+    @Test
+    @EnabledIfEnvironmentVariable(named = "CI", matches = "true")
+    fun `UDP connection rejects messages larger than max size`() {
+        val port = UDP_TEST_PORT + 6
+
+        assertTimeoutPreemptively(Duration.ofSeconds(5)) {
+            val server = net.newUDPServer(port, ByteArray::class.java)
+
+            val client = net.newUDPClient("localhost", port, ByteArray::class.java)
+
+            server.listeningProperty().addListener { _, _, isListening ->
+                if (!isListening)
+                    return@addListener
+
+                Thread(Runnable {
+                    client.connectTask().run()
+
+                    val connection = client.connections[0]
+
+                    assertThrows(IllegalArgumentException::class.java) {
+                        connection.send(ByteArray(UDPConnectionHandler.MAX_MESSAGE_SIZE + 1))
+                    }
+
+                    assertThat(connection.sendQueueSize, `is`(0))
+                    assertThat(connection.isConnected, `is`(true))
+
+                    client.disconnect()
+                    server.stop()
+                }).start()
+            }
+
+            server.startTask()
+                    .onFailure { e -> fail { "Server Start failed $e" } }
+                    .run()
+        }
+    }
+
+    @Test
+    @EnabledIfEnvironmentVariable(named = "CI", matches = "true")
+    fun `UDP connection drops messages too far ahead of expected sequence`() {
+        val port = UDP_TEST_PORT + 7
+        val n = UDPConnectionHandler.MAX_RELIABLE_IN_FLIGHT
+
+        // message id = mode * 1000000 + message sequence
+        fun id(mode: DeliveryMode, sequence: Int) = mode.ordinal * 1000000 + sequence
+
+        assertTimeoutPreemptively(Duration.ofSeconds(5)) {
+            val server = net.newUDPServer(port, ByteArray::class.java)
+
+            val received = CopyOnWriteArrayList<Int>()
+
+            server.setOnConnected {
+                it.addMessageHandler { _, message -> received += ByteBuffer.wrap(message).int }
+            }
+
+            server.listeningProperty().addListener { _, _, isListening ->
+                if (!isListening)
+                    return@addListener
+
+                Thread(Runnable {
+                    // a raw socket, so that message sequences can be chosen freely
+                    DatagramSocket().use { socket ->
+                        val address = InetSocketAddress("localhost", port)
+                        var packetSequence = 0
+
+                        fun sendPacket(type: Byte, messages: List<Pair<DeliveryMode, Int>>) {
+                            val buffer = ByteBuffer.allocate(1024)
+                                    .putShort(UDPSocket.PROTOCOL_ID)
+                                    .put(type)
+
+                            if (type == UDPSocket.TYPE_DATA) {
+                                buffer.putInt(packetSequence++).putInt(-1).putInt(0)
+                            }
+
+                            messages.forEach { (mode, sequence) ->
+                                buffer.put(mode.ordinal.toByte())
+                                        .putInt(sequence)
+                                        .putShort(8)
+                                        .putInt(4)
+                                        .putInt(id(mode, sequence))
+                            }
+
+                            socket.send(DatagramPacket(buffer.array(), buffer.position(), address))
+                        }
+
+                        sendPacket(UDPSocket.TYPE_CONNECT, listOf())
+
+                        sendPacket(UDPSocket.TYPE_DATA, listOf(
+                                DeliveryMode.UNRELIABLE_SEQUENCED to UDPConnectionHandler.MAX_SEQUENCED_GAP + 1,
+                                DeliveryMode.RELIABLE_ORDERED to n,
+                                DeliveryMode.RELIABLE_UNORDERED to n
+                        ))
+
+                        // would be dropped if the huge sequence above had been accepted
+                        sendPacket(UDPSocket.TYPE_DATA, listOf(DeliveryMode.UNRELIABLE_SEQUENCED to 0))
+
+                        // once these arrive, messages with sequence n would be delivered if they had been buffered
+                        listOf(DeliveryMode.RELIABLE_ORDERED, DeliveryMode.RELIABLE_UNORDERED).forEach { mode ->
+                            (0 until n).chunked(50).forEach { sequences ->
+                                sendPacket(UDPSocket.TYPE_DATA, sequences.map { mode to it })
+                            }
+                        }
+
+                        while (received.size < 1 + 2 * n) {
+                            Thread.sleep(10)
+                        }
+
+                        Thread.sleep(200)
+
+                        sendPacket(UDPSocket.TYPE_DISCONNECT, listOf())
+                    }
+
+                    server.stop()
+                }).start()
+            }
+
+            server.startTask()
+                    .onFailure { e -> fail { "Server Start failed $e" } }
+                    .run()
+
+            assertThat(received.size, `is`(1 + 2 * n))
+            assertThat(received[0], `is`(id(DeliveryMode.UNRELIABLE_SEQUENCED, 0)))
+            assertThat(received.filter { it / 1000000 == DeliveryMode.RELIABLE_ORDERED.ordinal },
+                    `is`((0 until n).map { id(DeliveryMode.RELIABLE_ORDERED, it) }))
+            assertThat(received.filter { it / 1000000 == DeliveryMode.RELIABLE_UNORDERED.ordinal },
+                    `is`((0 until n).map { id(DeliveryMode.RELIABLE_UNORDERED, it) }))
+        }
+    }
+}
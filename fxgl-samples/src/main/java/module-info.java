@@ -9,4 +9,6 @@ open module samples.main {
     requires com.almasb.fxgl.all;
 
     requires java.desktop;
+    requires java.management;
+    requires jdk.management;
 }
\ No newline at end of file
@@ -0,0 +1,156 @@
+/*
+ * FXGL - JavaFX Game Library. The MIT License (MIT).
+ * Copyright (c) AlmasB (almaslvl@gmail.com).
+ * See LICENSE for details.
+ */
+
+package sandbox.benchmark;
+
+import com.almasb.fxgl.core.collection.Array;
+import com.almasb.fxgl.entity.Entity;
+import com.almasb.fxgl.entity.GameWorld;
+import com.almasb.fxgl.entity.components.CollidableComponent;
+import com.almasb.fxgl.physics.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.function.BiConsumer;
+import java.util.function.Supplier;
+
+/**
+ * Compares candidate pair counts and physics tick time of collision broadphases
+ * for entities without PhysicsComponent (manual collision check).
+ * Does not require a running FXGL application.
+ *
+ * @author Almas Baimagambetov (almaslvl@gmail.com)
+ */
+public class BroadphaseBenchmark {
+
+    private enum Type {
+        BULLET, ENEMY
+    }
+
+    private static final int[] NUM_ENTITIES = { 500, 2000, 10000 };
+
+    private static final double ENTITY_SIZE = 16.0;
+    private static final double SPEED = 4.0;
+
+    public static void main(String[] args) {
+        System.out.printf("%8s %-24s %14s %12s %14s%n", "entities", "broadphase", "pairs/tick", "begins", "ms/tick");
+
+        for (int n : NUM_ENTITIES) {
+            // brute force at 10k entities is 50m pairs per tick, so keep the total amount of work bounded
+            int numBruteForceTicks = Math.max(1, Math.min(300, 50_000_000 / (n * n)));
+
+            run(n, "BruteForceBroadphase", BruteForceBroadphase::new, numBruteForceTicks);
+            run(n, "SpatialHashBroadphase", SpatialHashBroadphase::new, 300);
+        }
+    }
+
+    private static void run(int numEntities, String name, Supplier<CollisionBroadphase> broadphaseSupplier, int numTicks) {
+        int numWarmUpTicks = Math.max(1, numTicks / 5);
+
+        var counting = new CountingBroadphase(broadphaseSupplier.get());
+
+        var physicsWorld = new PhysicsWorld(720, 50.0);
+        physicsWorld.setBroadphase(counting);
+
+        int[] collisions = { 0 };
+
+        physicsWorld.addCollisionHandler(new CollisionHandler(Type.BULLET, Type.ENEMY) {
+            @Override
+            protected void onCollisionBegin(Entity a, Entity b) {
+                collisions[0]++;
+            }
+        });
+
+        var gameWorld = new GameWorld();
+        gameWorld.addWorldListener(physicsWorld);
+
+        // keep density constant: each entity has a 40x40 area on average
+        double worldSize = Math.sqrt(numEntities) * 40;
+
+        var random = new Random(1);
+        List<Entity> entities = new ArrayList<>();
+        List<double[]> velocities = new ArrayList<>();
+
+        for (int i = 0; i < numEntities; i++) {
+            var e = new Entity();
+            e.setType(i % 2 == 0 ? Type.BULLET : Type.ENEMY);
+            e.setPosition(random.nextDouble() * worldSize, random.nextDouble() * worldSize);
+            e.getBoundingBoxComponent().addHitBox(new HitBox(BoundingShape.box(ENTITY_SIZE, ENTITY_SIZE)));
+            e.addComponent(new CollidableComponent(true));
+
+            entities.add(e);
+            velocities.add(new double[] { (random.nextDouble() * 2 - 1) * SPEED, (random.nextDouble() * 2 - 1) * SPEED });
+
+            gameWorld.addEntity(e);
+        }
+
+        long totalNanos = 0;
+
+        for (int tick = 0; tick < numWarmUpTicks + numTicks; tick++) {
+            for (int i = 0; i < entities.size(); i++) {
+                var e = entities.get(i);
+                var v = velocities.get(i);
+
+                double x = e.getX() + v[0];
+                double y = e.getY() + v[1];
+
+                if (x < 0 || x > worldSize)
+                    v[0] = -v[0];
+
+                if (y < 0 || y > worldSize)
+                    v[1] = -v[1];
+
+                e.setPosition(x, y);
+            }
+
+            if (tick == numWarmUpTicks) {
+                counting.numPairs = 0;
+                collisions[0] = 0;
+            }
+
+            long start = System.nanoTime();
+
+            physicsWorld.onUpdate(1 / 60.0);
+
+            if (tick >= numWarmUpTicks) {
+                totalNanos += System.nanoTime() - start;
+            }
+        }
+
+        System.out.printf("%8d %-24s %14d %12d %14.3f%n",
+                numEntities,
+                name,
+                counting.numPairs / numTicks,
+                collisions[0],
+                totalNanos / 1_000_000.0 / numTicks
+        );
+    }
+
+    private static class CountingBroadphase implements CollisionBroadphase {
+
+        private final CollisionBroadphase broadphase;
+
+        private long numPairs = 0;
+
+        CountingBroadphase(CollisionBroadphase broadphase) {
+            this.broadphase = broadphase;
+        }
+
+        @Override
+        public void findPairs(Array<Entity> collidables, BiConsumer<Entity, Entity> callback) {
+            broadphase.findPairs(collidables, (e1, e2) -> {
+                numPairs++;
+                callback.accept(e1, e2);
+            });
+        }
+
+        @Override
+        public void clear() {
+            broadphase.clear();
+        }
+    }
+}
@@ -0,0 +1,111 @@
+/*
+ * FXGL - JavaFX Game Library. The MIT License (MIT).
+ * Copyright (c) AlmasB (almaslvl@gmail.com).
+ * See LICENSE for details.
+ */
+
+package sandbox.benchmark;
+
+import com.almasb.fxgl.core.serialization.Bundle;
+import com.almasb.fxgl.net.BinaryBundleMessageReader;
+import com.almasb.fxgl.net.BinaryBundleMessageWriter;
+import com.almasb.fxgl.net.BundleMessageReader;
+import com.almasb.fxgl.net.BundleMessageWriter;
+import com.almasb.fxgl.net.MessageReader;
+import com.almasb.fxgl.net.MessageWriter;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.function.Function;
+
+/**
+ * Compares the binary bundle codec with Java serialization of bundles:
+ * size of the first and of subsequent messages on a single stream, encode and decode time.
+ * Each message is a typical entity state update.
+ * Does not require a running FXGL application.
+ *
+ * @author Almas Baimagambetov (almaslvl@gmail.com)
+ */
+public class BundleCodecBenchmark {
+
+    private static final int NUM_WARM_UP_MESSAGES = 50_000;
+    private static final int NUM_MESSAGES = 100_000;
+
+    public static void main(String[] args) throws Exception {
+        System.out.printf("%-10s %12s %14s %12s %12s%n", "codec", "first bytes", "bytes/message", "encode ns", "decode ns");
+
+        for (int i = 0; i < 2; i++) {
+            boolean isWarmUp = i == 0;
+
+            run("java", BundleMessageWriter::new, BundleMessageReader::new, isWarmUp);
+            run("binary", BinaryBundleMessageWriter::new, BinaryBundleMessageReader::new, isWarmUp);
+        }
+    }
+
+    private static void run(String name,
+                            Function<OutputStream, MessageWriter<Bundle>> writerFactory,
+                            Function<InputStream, MessageReader<Bundle>> readerFactory,
+                            boolean isWarmUp) throws Exception {
+
+        int numMessages = isWarmUp ? NUM_WARM_UP_MESSAGES : NUM_MESSAGES;
+
+        var messages = new ArrayList<Bundle>(numMessages);
+        for (int i = 0; i < numMessages; i++) {
+            messages.add(newMessage(i));
+        }
+
+        var out = new ByteArrayOutputStream();
+        var writer = writerFactory.apply(out);
+
+        long start = System.nanoTime();
+
+        writer.write(messages.get(0));
+        int firstSize = out.size();
+
+        for (int i = 1; i < numMessages; i++) {
+            writer.write(messages.get(i));
+        }
+
+        long encodeNanos = System.nanoTime() - start;
+
+        var bytes = out.toByteArray();
+        var reader = readerFactory.apply(new ByteArrayInputStream(bytes));
+
+        start = System.nanoTime();
+
+        for (int i = 0; i < numMessages; i++) {
+            reader.read();
+        }
+
+        long decodeNanos = System.nanoTime() - start;
+
+        if (isWarmUp)
+            return;
+
+        System.out.printf("%-10s %12d %14.1f %12.1f %12.1f%n",
+                name,
+                firstSize,
+                (bytes.length - firstSize) / (double) (numMessages - 1),
+                encodeNanos / (double) numMessages,
+                decodeNanos / (double) numMessages
+        );
+    }
+
+    private static Bundle newMessage(int i) {
+        var bundle = new Bundle("EntityState");
+        bundle.put("id", i % 500);
+        bundle.put("type", "ENEMY");
+        bundle.put("x", 100.0 + i % 640);
+        bundle.put("y", 50.0 + i % 480);
+        bundle.put("vx", 1.5);
+        bundle.put("vy", -0.5);
+        bundle.put("rotation", (float) (i % 360));
+        bundle.put("hp", 100 - i % 100);
+        bundle.put("isAlive", true);
+        bundle.put("tick", (long) i);
+        return bundle;
+    }
+}
@@ -0,0 +1,228 @@
+/*
+ * FXGL - JavaFX Game Library. The MIT License (MIT).
+ * Copyright (c) AlmasB (almaslvl@gmail.com).
+ * See LICENSE for details.
+ */
+
+package sandbox.benchmark;
+
+import com.almasb.fxgl.entity.Entity;
+import com.almasb.fxgl.entity.GameWorld;
+import com.almasb.fxgl.entity.component.Component;
+import com.almasb.fxgl.entity.components.IDComponent;
+
+import java.util.Optional;
+import java.util.Random;
+import java.util.stream.Collectors;
+
+/**
+ * Measures the cost of entity queries typically made by AI systems every frame:
+ * by type, by component, by ID and singleton, while a few entities are added and removed every frame.
+ * Compares the indexed queries of {@link GameWorld} with the previous implementation,
+ * which filtered the full entity list on every call.
+ * Does not require a running FXGL application.
+ *
+ * @author Almas Baimagambetov (almaslvl@gmail.com)
+ */
+public class EntityQueryBenchmark {
+
+    private enum Type {
+        PLAYER, ENEMY, BULLET, COIN, WALL, TREE, ROCK, NPC, DOOR, ITEM
+    }
+
+    private static final int NUM_ENTITIES = 20_000;
+    private static final int NUM_IDS = 1000;
+
+    private static final int QUERIES_PER_FRAME = 50;
+    private static final int CHURN_PER_FRAME = 20;
+
+    private static final int NUM_WARM_UP_FRAMES = 200;
+    private static final int NUM_FRAMES = 300;
+
+    private interface Queries {
+        long run(GameWorld world, Random random);
+    }
+
+    public static void main(String[] args) {
+        System.out.printf("%-10s %10s %16s %16s %14s%n", "queries", "entities", "query us/frame", "churn us/frame", "checksum");
+
+        run("linear", EntityQueryBenchmark::linearQueries);
+        run("indexed", EntityQueryBenchmark::indexedQueries);
+        run("visitor", EntityQueryBenchmark::visitorQueries);
+    }
+
+    private static void run(String name, Queries queries) {
+        var random = new Random(0);
+        var world = new GameWorld();
+
+        world.addEntity(newEntity(Type.PLAYER, random, 0));
+
+        for (int i = 1; i < NUM_ENTITIES; i++) {
+            world.addEntity(newEntity(randomType(random), random, i));
+        }
+
+        long checksum = 0;
+        long queryNanos = 0;
+        long churnNanos = 0;
+
+        for (int frame = 0; frame < NUM_WARM_UP_FRAMES + NUM_FRAMES; frame++) {
+            long start = System.nanoTime();
+
+            // removed entities are replaced, keeping the number of entities (and unique IDs) constant
+            for (int i = 0; i < CHURN_PER_FRAME; i++) {
+                var entities = world.getEntities();
+                var e = entities.get(1 + random.nextInt(entities.size() - 1));
+
+                int id = e.getComponentOptional(IDComponent.class).map(IDComponent::getId).orElse(-1);
+
+                world.removeEntity(e);
+                world.addEntity(newEntity(randomType(random), random, id));
+            }
+
+            long queryStart = System.nanoTime();
+
+            long result = queries.run(world, random);
+
+            long queryEnd = System.nanoTime();
+
+            if (frame >= NUM_WARM_UP_FRAMES) {
+                churnNanos += queryStart - start;
+                queryNanos += queryEnd - queryStart;
+                checksum += result;
+            }
+
+            // clean removed entities, no components are updated, since entities do not have behavior
+            world.onUpdate(1 / 60.0);
+        }
+
+        System.out.printf("%-10s %10d %16.1f %16.1f %14d%n",
+                name,
+                world.getEntities().size(),
+                queryNanos / 1000.0 / NUM_FRAMES,
+                churnNanos / 1000.0 / NUM_FRAMES,
+                checksum
+        );
+    }
+
+    private static Type randomType(Random random) {
+        // skip player, which is a singleton
+        return Type.values()[1 + random.nextInt(Type.values().length - 1)];
+    }
+
+    private static Entity newEntity(Type type, Random random, int id) {
+        var e = new Entity();
+        e.setType(type);
+
+        if (random.nextInt(4) == 0) {
+            e.addComponent(new AIComponent());
+        }
+
+        if (id >= 0 && id < NUM_IDS) {
+            e.addComponent(new IDComponent("unit", id));
+        }
+
+        return e;
+    }
+
+    /**
+     * The previous implementation: each query filters all entities.
+     */
+    private static long linearQueries(GameWorld world, Random random) {
+        long result = 0;
+
+        for (int i = 0; i < QUERIES_PER_FRAME; i++) {
+            switch (i % 5) {
+                case 0:
+                    var type = randomType(random);
+                    result += world.getEntities().stream().filter(e -> e.isType(type)).collect(Collectors.toList()).size();
+                    break;
+
+                case 1:
+                    result += world.getEntities().stream().filter(e -> e.hasComponent(AIComponent.class)).collect(Collectors.toList()).size();
+                    break;
+
+                case 2:
+                    int id = random.nextInt(NUM_IDS);
+                    result += world.getEntities().stream()
+                            .filter(e -> e.hasComponent(IDComponent.class))
+                            .filter(e -> e.getComponent(IDComponent.class).getName().equals("unit") && e.getComponent(IDComponent.class).getId() == id)
+                            .findFirst()
+                            .map(e -> 1)
+                            .orElse(0);
+                    break;
+
+                case 3:
+                    result += Optional.ofNullable(world.getEntities().stream().filter(e -> e.isType(Type.PLAYER)).findFirst().orElse(null))
+                            .map(e -> 1)
+                            .orElse(0);
+                    break;
+
+                default:
+                    var type2 = randomType(random);
+                    result += world.getEntities().stream().filter(e -> e.isType(type2)).count();
+                    break;
+            }
+        }
+
+        return result;
+    }
+
+    private static long indexedQueries(GameWorld world, Random random) {
+        long result = 0;
+
+        for (int i = 0; i < QUERIES_PER_FRAME; i++) {
+            switch (i % 5) {
+                case 0:
+                    result += world.getEntitiesByType(randomType(random)).size();
+                    break;
+
+                case 1:
+                    result += world.getEntitiesByComponent(AIComponent.class).size();
+                    break;
+
+                case 2:
+                    result += world.getEntityByID("unit", random.nextInt(NUM_IDS)).map(e -> 1).orElse(0);
+                    break;
+
+                case 3:
+                    result += world.getSingletonOptional(Type.PLAYER).map(e -> 1).orElse(0);
+                    break;
+
+                default:
+                    result += world.getEntitiesByType(randomType(random)).size();
+                    break;
+            }
+        }
+
+        return result;
+    }
+
+    private static long visitorQueries(GameWorld world, Random random) {
+        long[] result = { 0 };
+
+        for (int i = 0; i < QUERIES_PER_FRAME; i++) {
+            switch (i % 5) {
+                case 1:
+                    world.forEachEntityByComponent(AIComponent.class, e -> result[0]++);
+                    break;
+
+                case 2:
+                    result[0] += world.getEntityByID("unit", random.nextInt(NUM_IDS)).map(e -> 1).orElse(0);
+                    break;
+
+                case 3:
+                    result[0] += world.getSingletonOptional(Type.PLAYER).map(e -> 1).orElse(0);
+                    break;
+
+                default:
+                    world.forEachEntityByType(randomType(random), e -> result[0]++);
+                    break;
+            }
+        }
+
+        return result[0];
+    }
+
+    private static class AIComponent extends Component {
+    }
+}
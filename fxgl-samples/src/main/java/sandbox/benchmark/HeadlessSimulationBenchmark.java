@@ -0,0 +1,127 @@
+/*
+ * FXGL - JavaFX Game Library. The MIT License (MIT).
+ * Copyright (c) AlmasB (almaslvl@gmail.com).
+ * See LICENSE for details.
+ */
+
+package sandbox.benchmark;
+
+import com.almasb.fxgl.app.HeadlessGame;
+import com.almasb.fxgl.entity.Entity;
+import com.almasb.fxgl.entity.GameWorld;
+import com.almasb.fxgl.entity.component.Component;
+import com.almasb.fxgl.entity.components.CollidableComponent;
+import com.almasb.fxgl.physics.*;
+import com.almasb.fxgl.time.Timer;
+import javafx.util.Duration;
+
+import java.util.Random;
+
+/**
+ * Measures throughput (ticks per second) of a headless simulation:
+ * moving entities, collision detection with the spatial hash broadphase and timer actions.
+ * Runs without a display, so it can be used in CI.
+ *
+ * @author Almas Baimagambetov (almaslvl@gmail.com)
+ */
+public class HeadlessSimulationBenchmark {
+
+    private enum Type {
+        BULLET, ENEMY
+    }
+
+    private static final int[] NUM_ENTITIES = { 1000, 10000 };
+
+    private static final int NUM_WARM_UP_TICKS = 200;
+    private static final int NUM_TICKS = 1000;
+
+    private static final double ENTITY_SIZE = 16.0;
+    private static final double SPEED = 240.0;
+
+    public static void main(String[] args) {
+        System.out.printf("%8s %12s %12s %12s %12s%n", "entities", "ticks/sec", "ms/tick", "collisions", "timer runs");
+
+        for (int n : NUM_ENTITIES) {
+            run(n);
+        }
+    }
+
+    private static void run(int numEntities) {
+        int[] collisions = { 0 };
+        int[] timerRuns = { 0 };
+
+        var physicsWorld = new PhysicsWorld(720, 50.0);
+        physicsWorld.setBroadphase(new SpatialHashBroadphase());
+        physicsWorld.addCollisionHandler(new CollisionHandler(Type.BULLET, Type.ENEMY) {
+            @Override
+            protected void onCollisionBegin(Entity a, Entity b) {
+                collisions[0]++;
+            }
+        });
+
+        var game = new HeadlessGame(60, false, new GameWorld(), physicsWorld, new Timer());
+
+        game.getTimer().runAtInterval(() -> timerRuns[0]++, Duration.seconds(0.5));
+
+        // keep density constant: each entity has a 40x40 area on average
+        double worldSize = Math.sqrt(numEntities) * 40;
+
+        var random = new Random(1);
+
+        for (int i = 0; i < numEntities; i++) {
+            var e = new Entity();
+            e.setType(i % 2 == 0 ? Type.BULLET : Type.ENEMY);
+            e.setPosition(random.nextDouble() * worldSize, random.nextDouble() * worldSize);
+            e.getBoundingBoxComponent().addHitBox(new HitBox(BoundingShape.box(ENTITY_SIZE, ENTITY_SIZE)));
+            e.addComponent(new CollidableComponent(true));
+            e.addComponent(new BounceComponent(worldSize, (random.nextDouble() * 2 - 1) * SPEED, (random.nextDouble() * 2 - 1) * SPEED));
+
+            game.getGameWorld().addEntity(e);
+        }
+
+        game.runTicks(NUM_WARM_UP_TICKS);
+
+        collisions[0] = 0;
+        timerRuns[0] = 0;
+
+        game.runTicks(NUM_TICKS);
+
+        game.stop();
+
+        System.out.printf("%8d %12.1f %12.3f %12d %12d%n",
+                numEntities,
+                game.getMeasuredTicksPerSecond(),
+                1000.0 / game.getMeasuredTicksPerSecond(),
+                collisions[0],
+                timerRuns[0]
+        );
+    }
+
+    private static class BounceComponent extends Component {
+
+        private final double worldSize;
+
+        private double vx;
+        private double vy;
+
+        BounceComponent(double worldSize, double vx, double vy) {
+            this.worldSize = worldSize;
+            this.vx = vx;
+            this.vy = vy;
+        }
+
+        @Override
+        public void onUpdate(double tpf) {
+            double x = entity.getX() + vx * tpf;
+            double y = entity.getY() + vy * tpf;
+
+            if (x < 0 || x > worldSize)
+                vx = -vx;
+
+            if (y < 0 || y > worldSize)
+                vy = -vy;
+
+            entity.setPosition(x, y);
+        }
+    }
+}
@@ -0,0 +1,86 @@
+/*
+ * FXGL - JavaFX Game Library. The MIT License (MIT).
+ * Copyright (c) AlmasB (almaslvl@gmail.com).
+ * See LICENSE for details.
+ */
+
+package sandbox.benchmark;
+
+import com.almasb.fxgl.logging.FileOutput;
+import com.almasb.fxgl.logging.Logger;
+import com.almasb.fxgl.logging.LoggerConfig;
+import com.almasb.fxgl.logging.LoggerLevel;
+
+import java.nio.file.Files;
+
+/**
+ * Measures the cost of logging on the calling (game) thread:
+ * a disabled level, synchronous logging to a file and asynchronous logging to a file.
+ * Messages are logged in bursts (frames), with a pause between frames, as a game would.
+ * Does not require a running FXGL application.
+ *
+ * @author Almas Baimagambetov (almaslvl@gmail.com)
+ */
+public class LoggingBenchmark {
+
+    private static final int NUM_WARM_UP_FRAMES = 100;
+    private static final int NUM_FRAMES = 300;
+    private static final int MESSAGES_PER_FRAME = 1000;
+
+    private static final Logger log = Logger.get(LoggingBenchmark.class);
+
+    private interface LogCall {
+        void log(int i);
+    }
+
+    public static void main(String[] args) throws Exception {
+        var logDir = Files.createTempDirectory("fxgl-logs");
+
+        Logger.addOutput(new FileOutput("benchmark", logDir + "/"), LoggerLevel.INFO);
+
+        System.out.printf("%-28s %12s %16s%n", "mode", "ns/message", "worst frame ms");
+
+        run("debugf (disabled)", i -> log.debugf("Entity %d at (%.2f, %.2f)", i, i * 0.5, i * 2.0));
+        run("infof (sync)", i -> log.infof("Entity %d at (%.2f, %.2f)", i, i * 0.5, i * 2.0));
+        run("info (sync)", i -> log.info("Entity spawned"));
+
+        var config = new LoggerConfig();
+        config.setAsync(true);
+
+        Logger.configure(config);
+
+        run("infof (async)", i -> log.infof("Entity %d at (%.2f, %.2f)", i, i * 0.5, i * 2.0));
+        run("info (async)", i -> log.info("Entity spawned"));
+
+        Logger.close();
+    }
+
+    private static void run(String name, LogCall call) throws Exception {
+        long totalNanos = 0;
+        long worstFrameNanos = 0;
+
+        for (int frame = 0; frame < NUM_WARM_UP_FRAMES + NUM_FRAMES; frame++) {
+            long start = System.nanoTime();
+
+            for (int i = 0; i < MESSAGES_PER_FRAME; i++) {
+                call.log(i);
+            }
+
+            long frameNanos = System.nanoTime() - start;
+
+            if (frame >= NUM_WARM_UP_FRAMES) {
+                totalNanos += frameNanos;
+                worstFrameNanos = Math.max(worstFrameNanos, frameNanos);
+            }
+
+            // the rest of the frame, which gives the async consumer time to catch up
+            Thread.sleep(10);
+        }
+
+        System.out.printf("%-28s %12.1f %16.3f%n",
+                name,
+                totalNanos / (double) (NUM_FRAMES * MESSAGES_PER_FRAME),
+                worstFrameNanos / 1_000_000.0
+        );
+    }
+}
@@ -0,0 +1,173 @@
+/*
+ * FXGL - JavaFX Game Library. The MIT License (MIT).
+ * Copyright (c) AlmasB (almaslvl@gmail.com).
+ * See LICENSE for details.
+ */
+
+package sandbox.benchmark;
+
+import com.almasb.fxgl.net.Client;
+import com.almasb.fxgl.net.NetService;
+import com.almasb.fxgl.net.Server;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Loopback load test of the network servers: each client keeps a few messages in flight,
+ * the server echoes every message back and the client measures the round trip time.
+ * Reports echoed messages per second and round trip latency for 1, 64 and 512 clients.
+ * NIO clients are used for both servers, so that only the server side differs.
+ * Does not require a running FXGL application.
+ *
+ * @author Almas Baimagambetov (almaslvl@gmail.com)
+ */
+public class NetworkBenchmark {
+
+    private static final int PORT = 55555;
+
+    private static final int MESSAGE_SIZE = 64;
+    private static final int MESSAGES_IN_FLIGHT = 4;
+
+    private static final long WARM_UP_MILLIS = 1000;
+    private static final long MEASURE_MILLIS = 3000;
+
+    private static final int[] NUM_CLIENTS = { 1, 64, 512 };
+
+    /**
+     * Max number of latency samples recorded per client.
+     */
+    private static final int MAX_SAMPLES = 1 << 16;
+
+    private interface ServerFactory {
+        Server<byte[]> create(NetService net, int port);
+    }
+
+    public static void main(String[] args) throws Exception {
+        var net = new NetService();
+
+        System.out.printf("%-8s %8s %14s %10s %10s %10s%n", "server", "clients", "messages/s", "p50 us", "p99 us", "threads");
+
+        int port = PORT;
+
+        for (int numClients : NUM_CLIENTS) {
+            run("TCP", (n, p) -> n.newTCPServer(p, byte[].class), net, port++, numClients);
+            run("NIO", (n, p) -> n.newNIOServer(p, byte[].class), net, port++, numClients);
+        }
+    }
+
+    private static void run(String name, ServerFactory factory, NetService net, int port, int numClients) throws Exception {
+        int numThreadsBefore = Thread.activeCount();
+
+        var server = factory.create(net, port);
+        server.setOnConnected(connection -> connection.addMessageHandler((c, message) -> c.send(message)));
+
+        var listening = new CountDownLatch(1);
+        server.listeningProperty().addListener((o, wasListening, isListening) -> {
+            if (isListening)
+                listening.countDown();
+        });
+
+        var serverThread = new Thread(() -> server.startTask().run(), "Benchmark Server");
+        serverThread.setDaemon(true);
+        serverThread.start();
+
+        listening.await();
+
+        var isMeasuring = new AtomicBoolean(false);
+        var numEchoed = new AtomicLong();
+        var latencies = new ArrayList<long[]>();
+        var clients = new ArrayList<Client<byte[]>>();
+
+        for (int i = 0; i < numClients; i++) {
+            var client = net.newNIOClient("localhost", port, byte[].class);
+
+            // each client is only called back on a single selector thread
+            var clientLatencies = new long[MAX_SAMPLES + 1];
+            var numLatencies = new int[1];
+            latencies.add(clientLatencies);
+
+            client.setOnConnected(connection -> connection.addMessageHandler((c, message) -> {
+                long sentAt = ByteBuffer.wrap(message).getLong();
+
+                if (isMeasuring.get()) {
+                    numEchoed.incrementAndGet();
+
+                    if (numLatencies[0] < MAX_SAMPLES) {
+                        clientLatencies[++numLatencies[0]] = System.nanoTime() - sentAt;
+                        clientLatencies[0] = numLatencies[0];
+                    }
+                }
+
+                c.send(newMessage());
+            }));
+
+            client.connectTask().run();
+            clients.add(client);
+        }
+
+        for (var client : clients) {
+            for (int i = 0; i < MESSAGES_IN_FLIGHT; i++) {
+                client.broadcast(newMessage());
+            }
+        }
+
+        Thread.sleep(WARM_UP_MILLIS);
+
+        isMeasuring.set(true);
+        Thread.sleep(MEASURE_MILLIS);
+        isMeasuring.set(false);
+
+        // threads started by the server and clients
+        int numThreads = Thread.activeCount() - numThreadsBefore;
+
+        clients.forEach(Client::disconnect);
+        server.stop();
+        server.getConnections().forEach(c -> c.terminate());
+
+        System.out.printf("%-8s %8d %14.0f %10.1f %10.1f %10d%n",
+                name,
+                numClients,
+                numEchoed.get() / (MEASURE_MILLIS / 1000.0),
+                percentile(latencies, 0.50),
+                percentile(latencies, 0.99),
+                numThreads
+        );
+
+        // let the OS release sockets before the next run
+        Thread.sleep(500);
+    }
+
+    private static byte[] newMessage() {
+        return ByteBuffer.allocate(MESSAGE_SIZE).putLong(System.nanoTime()).array();
+    }
+
+    /**
+     * @return given percentile of all recorded latencies, in microseconds
+     */
+    private static double percentile(List<long[]> latencies, double percentile) {
+        int total = latencies.stream().mapToInt(array -> (int) array[0]).sum();
+
+        if (total == 0)
+            return 0;
+
+        var all = new long[total];
+        int index = 0;
+
+        for (var array : latencies) {
+            int size = (int) array[0];
+            System.arraycopy(array, 1, all, index, size);
+            index += size;
+        }
+
+        Arrays.sort(all);
+
+        return all[Math.min(total - 1, (int) (total * percentile))] / (double) TimeUnit.MICROSECONDS.toNanos(1);
+    }
+}
@@ -0,0 +1,142 @@
+/*
+ * FXGL - JavaFX Game Library. The MIT License (MIT).
+ * Copyright (c) AlmasB (almaslvl@gmail.com).
+ * See LICENSE for details.
+ */
+
+package sandbox.benchmark;
+
+import com.almasb.fxgl.app.GameApplication;
+import com.almasb.fxgl.app.GameSettings;
+import com.almasb.fxgl.core.math.FXGLMath;
+import com.almasb.fxgl.entity.Entity;
+import com.almasb.fxgl.particle.ParticleComponent;
+import com.almasb.fxgl.particle.ParticleEmitter;
+import com.almasb.fxgl.particle.ParticleRenderMode;
+import javafx.scene.effect.BlendMode;
+import javafx.scene.paint.Color;
+import javafx.util.Duration;
+
+import static com.almasb.fxgl.dsl.FXGL.*;
+
+/**
+ * Finds the number of particles that can be sustained at 60 FPS in each particle render mode.
+ * An emitter emits every frame, particles live for 1 second, so about (particles per emission * 60) are alive.
+ * The number of particles per emission is increased while the measured frame rate stays at 60 FPS.
+ * Prints the results and exits when all modes have been measured.
+ *
+ * @author Almas Baimagambetov (almaslvl@gmail.com)
+ */
+public class ParticleBenchmarkSample extends GameApplication {
+
+    private static final ParticleRenderMode[] MODES = { ParticleRenderMode.NODE, ParticleRenderMode.CANVAS };
+
+    private static final int START_PARTICLES_PER_EMISSION = 10;
+    private static final double STEP = 1.25;
+
+    /**
+     * Frames to wait after a change, so that the number of alive particles is stable (particles live for 1 sec).
+     */
+    private static final int NUM_SETTLE_FRAMES = 90;
+    private static final int NUM_MEASURED_FRAMES = 120;
+
+    private static final double TARGET_FPS = 60;
+
+    /**
+     * Allowed deviation from the target frame rate due to timer jitter.
+     */
+    private static final double TOLERANCE = 0.97;
+
+    private int modeIndex = 0;
+    private int numPerEmission;
+    private int sustainedAlive;
+
+    private int frame;
+    private long measureStart;
+
+    private Entity particleEntity;
+    private ParticleEmitter emitter;
+
+    private final StringBuilder results = new StringBuilder();
+
+    @Override
+    protected void initSettings(GameSettings settings) {
+        settings.setWidth(1280);
+        settings.setHeight(720);
+        settings.setTitle("ParticleBenchmarkSample");
+    }
+
+    @Override
+    protected void initGame() {
+        getGameScene().setBackgroundColor(Color.BLACK);
+
+        results.append(String.format("%-8s %24s%n", "mode", "sustained particles"));
+
+        startMode();
+    }
+
+    private void startMode() {
+        numPerEmission = START_PARTICLES_PER_EMISSION;
+        sustainedAlive = 0;
+
+        emitter = new ParticleEmitter();
+        emitter.setRenderMode(MODES[modeIndex]);
+        emitter.setNumParticles(numPerEmission);
+        emitter.setEmissionRate(1.0);
+        emitter.setSize(4, 8);
+        emitter.setStartColor(Color.YELLOW);
+        emitter.setEndColor(Color.RED);
+        emitter.setBlendMode(BlendMode.ADD);
+        emitter.setExpireFunction(i -> Duration.seconds(1));
+        emitter.setVelocityFunction(i -> FXGLMath.randomPoint2D().multiply(FXGLMath.random(50, 600)));
+
+        particleEntity = entityBuilder()
+                .at(getAppWidth() / 2.0, getAppHeight() / 2.0)
+                .with(new ParticleComponent(emitter))
+                .buildAndAttach();
+
+        frame = 0;
+    }
+
+    @Override
+    protected void onUpdate(double tpf) {
+        frame++;
+
+        if (frame == NUM_SETTLE_FRAMES) {
+            measureStart = System.nanoTime();
+        }
+
+        if (frame < NUM_SETTLE_FRAMES + NUM_MEASURED_FRAMES)
+            return;
+
+        double seconds = (System.nanoTime() - measureStart) / 1_000_000_000.0;
+        double fps = NUM_MEASURED_FRAMES / seconds;
+
+        System.out.printf("%-8s alive: %8d fps: %6.1f%n", MODES[modeIndex], numPerEmission * 60, fps);
+
+        if (fps >= TARGET_FPS * TOLERANCE) {
+            sustainedAlive = numPerEmission * 60;
+
+            numPerEmission = (int) Math.ceil(numPerEmission * STEP);
+            emitter.setNumParticles(numPerEmission);
+            frame = 0;
+            return;
+        }
+
+        results.append(String.format("%-8s %24d%n", MODES[modeIndex], sustainedAlive));
+
+        particleEntity.removeFromWorld();
+        modeIndex++;
+
+        if (modeIndex < MODES.length) {
+            startMode();
+        } else {
+            System.out.print(results);
+            getGameController().exit();
+        }
+    }
+
+    public static void main(String[] args) {
+        launch(args);
+    }
+}
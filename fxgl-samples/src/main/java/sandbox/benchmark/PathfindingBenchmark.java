@@ -0,0 +1,155 @@
+/*
+ * FXGL - JavaFX Game Library. The MIT License (MIT).
+ * Copyright (c) AlmasB (almaslvl@gmail.com).
+ * See LICENSE for details.
+ */
+
+package sandbox.benchmark;
+
+import com.almasb.fxgl.pathfinding.CellState;
+import com.almasb.fxgl.pathfinding.DiagonalMovement;
+import com.almasb.fxgl.pathfinding.astar.AStarCell;
+import com.almasb.fxgl.pathfinding.astar.AStarGrid;
+import com.almasb.fxgl.pathfinding.astar.AStarPathfinder;
+import com.almasb.fxgl.pathfinding.astar.JPSPathfinder;
+import com.almasb.fxgl.pathfinding.maze.Maze;
+import com.almasb.fxgl.pathfinding.maze.MazeCell;
+
+import java.util.List;
+import java.util.Random;
+import java.util.function.Function;
+import java.util.function.IntSupplier;
+
+/**
+ * Compares expanded cells and search time of A* and Jump Point Search
+ * on open fields and on mazes generated by {@link Maze}.
+ * JPS expands far fewer cells, but also scans cells while jumping, which is reported separately.
+ * Does not require a running FXGL application.
+ *
+ * @author Almas Baimagambetov (almaslvl@gmail.com)
+ */
+public class PathfindingBenchmark {
+
+    private static final int NUM_QUERIES = 500;
+
+    public static void main(String[] args) {
+        System.out.printf("%-12s %-22s %-6s %10s %14s %14s %10s%n", "grid", "diagonal", "algo", "path cost", "expanded/path", "scanned/path", "us/path");
+
+        var random = new Random(3);
+
+        run("empty 256", openField(256, 256, 0.0, random));
+        run("open 256", openField(256, 256, 0.05, random));
+        run("maze 64", fromMaze(new Maze(64, 64)));
+    }
+
+    private static void run(String gridName, AStarGrid grid) {
+        var random = new Random(5);
+
+        List<AStarCell> walkableCells = grid.getWalkableCells();
+
+        int[][] queries = new int[NUM_QUERIES][];
+
+        for (int i = 0; i < NUM_QUERIES; i++) {
+            var start = walkableCells.get(random.nextInt(walkableCells.size()));
+            var target = walkableCells.get(random.nextInt(walkableCells.size()));
+
+            queries[i] = new int[] { start.getX(), start.getY(), target.getX(), target.getY() };
+        }
+
+        for (DiagonalMovement diagonalMovement : DiagonalMovement.values()) {
+            var astar = new AStarPathfinder(grid, diagonalMovement);
+            var jps = new JPSPathfinder(grid, diagonalMovement);
+
+            // A* does not scan cells other than neighbors of expanded cells
+            run(gridName, diagonalMovement, "A*", queries, (q) -> astar.findPath(q[0], q[1], q[2], q[3]), astar::getNumExpandedCells, () -> 0);
+            run(gridName, diagonalMovement, "JPS", queries, (q) -> jps.findPath(q[0], q[1], q[2], q[3]), jps::getNumExpandedCells, jps::getNumScannedCells);
+        }
+    }
+
+    private static void run(String gridName, DiagonalMovement diagonalMovement, String algorithmName, int[][] queries,
+                            Function<int[], List<AStarCell>> findPath, IntSupplier numExpanded, IntSupplier numScanned) {
+
+        // warm up
+        for (int[] q : queries) {
+            findPath.apply(q);
+        }
+
+        long totalCost = 0;
+        long totalExpanded = 0;
+        long totalScanned = 0;
+        long totalNanos = 0;
+
+        for (int[] q : queries) {
+            long start = System.nanoTime();
+
+            var path = findPath.apply(q);
+
+            totalNanos += System.nanoTime() - start;
+            totalExpanded += numExpanded.getAsInt();
+            totalScanned += numScanned.getAsInt();
+            totalCost += cost(q[0], q[1], path);
+        }
+
+        System.out.printf("%-12s %-22s %-6s %10d %14d %14d %10.1f%n",
+                gridName,
+                diagonalMovement,
+                algorithmName,
+                totalCost / queries.length,
+                totalExpanded / queries.length,
+                totalScanned / queries.length,
+                totalNanos / 1000.0 / queries.length
+        );
+    }
+
+    private static int cost(int startX, int startY, List<AStarCell> path) {
+        int cost = 0;
+
+        int x = startX;
+        int y = startY;
+
+        for (AStarCell cell : path) {
+            cost += cell.getX() != x && cell.getY() != y ? 14 : 10;
+
+            x = cell.getX();
+            y = cell.getY();
+        }
+
+        return cost;
+    }
+
+    private static AStarGrid openField(int width, int height, double obstacleDensity, Random random) {
+        var grid = new AStarGrid(width, height);
+
+        grid.forEach(cell -> {
+            if (random.nextDouble() < obstacleDensity)
+                cell.setState(CellState.NOT_WALKABLE);
+        });
+
+        return grid;
+    }
+
+    /**
+     * Each maze cell becomes a walkable grid cell and walls become non-walkable cells between them.
+     */
+    private static AStarGrid fromMaze(Maze maze) {
+        var grid = new AStarGrid(maze.getWidth() * 2 + 1, maze.getHeight() * 2 + 1);
+
+        grid.forEach(cell -> cell.setState(CellState.NOT_WALKABLE));
+
+        for (int x = 0; x < maze.getWidth(); x++) {
+            for (int y = 0; y < maze.getHeight(); y++) {
+                MazeCell mazeCell = maze.get(x, y);
+
+                grid.get(2 * x + 1, 2 * y + 1).setState(CellState.WALKABLE);
+
+                if (!mazeCell.hasTopWall())
+                    grid.get(2 * x + 1, 2 * y).setState(CellState.WALKABLE);
+
+                if (!mazeCell.hasLeftWall())
+                    grid.get(2 * x, 2 * y + 1).setState(CellState.WALKABLE);
+            }
+        }
+
+        return grid;
+    }
+}
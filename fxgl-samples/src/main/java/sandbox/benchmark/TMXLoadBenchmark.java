@@ -0,0 +1,159 @@
+/*
+ * FXGL - JavaFX Game Library. The MIT License (MIT).
+ * Copyright (c) AlmasB (almaslvl@gmail.com).
+ * See LICENSE for details.
+ */
+
+package sandbox.benchmark;
+
+import com.almasb.fxgl.entity.level.tiled.TMXLevelLoader;
+import com.almasb.fxgl.entity.level.tiled.TiledMap;
+import com.almasb.fxgl.entity.level.tiled.TilesetLoader;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.lang.management.ManagementFactory;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Random;
+import java.util.zip.DeflaterOutputStream;
+
+/**
+ * Measures parse time and allocated memory of {@link TMXLevelLoader#parse} on large generated maps,
+ * with CSV and with base64 zlib tile data, as well as the time to create the tile layer views.
+ * Layer views build their chunks lazily, so creating them does not depend on the map size.
+ * Does not require a running FXGL application.
+ *
+ * @author Almas Baimagambetov (almaslvl@gmail.com)
+ */
+public class TMXLoadBenchmark {
+
+    private static final int MAP_SIZE = 2000;
+    private static final int NUM_LAYERS = 2;
+    private static final int NUM_OBJECTS = 20_000;
+    private static final int NUM_RUNS = 5;
+
+    public static void main(String[] args) throws Exception {
+        System.out.printf("%-8s %10s %10s %14s %12s%n", "encoding", "file MB", "parse ms", "allocated MB", "views ms");
+
+        byte[] csv = generateMap(false);
+        byte[] base64 = generateMap(true);
+
+        for (int i = 0; i < 2; i++) {
+            boolean isWarmUp = i == 0;
+
+            run("csv", csv, isWarmUp);
+            run("base64", base64, isWarmUp);
+        }
+    }
+
+    private static void run(String name, byte[] file, boolean isWarmUp) throws Exception {
+        var threadBean = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long threadID = Thread.currentThread().getId();
+
+        long parseNanos = 0;
+        long viewNanos = 0;
+        long allocatedBytes = 0;
+
+        for (int run = 0; run < NUM_RUNS; run++) {
+            long allocatedBefore = threadBean.getThreadAllocatedBytes(threadID);
+            long start = System.nanoTime();
+
+            TiledMap map = new TMXLevelLoader().parse(new ByteArrayInputStream(file));
+
+            parseNanos += System.nanoTime() - start;
+            allocatedBytes += threadBean.getThreadAllocatedBytes(threadID) - allocatedBefore;
+
+            start = System.nanoTime();
+
+            var tilesetLoader = new TilesetLoader(map, TMXLoadBenchmark.class.getResource("TMXLoadBenchmark.class"));
+
+            for (var layer : map.getLayers()) {
+                if (layer.getType().equals("tilelayer")) {
+                    tilesetLoader.loadView(layer.getName());
+                }
+            }
+
+            viewNanos += System.nanoTime() - start;
+        }
+
+        if (isWarmUp)
+            return;
+
+        System.out.printf("%-8s %10.1f %10.1f %14.1f %12.2f%n",
+                name,
+                file.length / 1_000_000.0,
+                parseNanos / 1_000_000.0 / NUM_RUNS,
+                allocatedBytes / 1_000_000.0 / NUM_RUNS,
+                viewNanos / 1_000_000.0 / NUM_RUNS
+        );
+    }
+
+    private static byte[] generateMap(boolean isBase64) throws Exception {
+        var random = new Random(7);
+
+        var sb = new StringBuilder();
+        sb.append("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n");
+        sb.append("<map version=\"1.2\" tiledversion=\"1.2.3\" orientation=\"orthogonal\" renderorder=\"right-down\" ")
+                .append("width=\"").append(MAP_SIZE).append("\" height=\"").append(MAP_SIZE).append("\" ")
+                .append("tilewidth=\"32\" tileheight=\"32\" infinite=\"0\" nextobjectid=\"").append(NUM_OBJECTS + 1).append("\">\n");
+        sb.append(" <tileset firstgid=\"1\" name=\"tiles\" tilewidth=\"32\" tileheight=\"32\" tilecount=\"256\" columns=\"16\">\n");
+        sb.append("  <image source=\"tiles.png\" width=\"512\" height=\"512\"/>\n");
+        sb.append(" </tileset>\n");
+
+        for (int layer = 0; layer < NUM_LAYERS; layer++) {
+            sb.append(" <layer name=\"layer").append(layer).append("\" width=\"").append(MAP_SIZE).append("\" height=\"").append(MAP_SIZE).append("\">\n");
+
+            if (isBase64) {
+                var buffer = ByteBuffer.allocate(MAP_SIZE * MAP_SIZE * 4).order(ByteOrder.LITTLE_ENDIAN);
+                for (int i = 0; i < MAP_SIZE * MAP_SIZE; i++) {
+                    buffer.putInt(random.nextInt(257));
+                }
+
+                var compressed = new ByteArrayOutputStream();
+                try (var out = new DeflaterOutputStream(compressed)) {
+                    out.write(buffer.array());
+                }
+
+                sb.append("  <data encoding=\"base64\" compression=\"zlib\">\n   ")
+                        .append(Base64.getEncoder().encodeToString(compressed.toByteArray()))
+                        .append("\n  </data>\n");
+            } else {
+                sb.append("  <data encoding=\"csv\">\n");
+
+                for (int y = 0; y < MAP_SIZE; y++) {
+                    for (int x = 0; x < MAP_SIZE; x++) {
+                        sb.append(random.nextInt(257));
+
+                        if (x < MAP_SIZE - 1 || y < MAP_SIZE - 1)
+                            sb.append(',');
+                    }
+                    sb.append('\n');
+                }
+
+                sb.append("</data>\n");
+            }
+
+            sb.append(" </layer>\n");
+        }
+
+        sb.append(" <objectgroup name=\"objects\">\n");
+
+        for (int i = 1; i <= NUM_OBJECTS; i++) {
+            sb.append("  <object id=\"").append(i).append("\" type=\"enemy\" ")
+                    .append("x=\"").append(random.nextInt(MAP_SIZE * 32)).append("\" ")
+                    .append("y=\"").append(random.nextInt(MAP_SIZE * 32)).append("\" width=\"32\" height=\"32\">\n")
+                    .append("   <properties>\n")
+                    .append("    <property name=\"hp\" type=\"int\" value=\"").append(random.nextInt(100)).append("\"/>\n")
+                    .append("   </properties>\n")
+                    .append("  </object>\n");
+        }
+
+        sb.append(" </objectgroup>\n");
+        sb.append("</map>\n");
+
+        return sb.toString().getBytes(StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,147 @@
+/*
+ * FXGL - JavaFX Game Library. The MIT License (MIT).
+ * Copyright (c) AlmasB (almaslvl@gmail.com).
+ * See LICENSE for details.
+ */
+
+package sandbox.benchmark;
+
+import com.almasb.fxgl.time.Timer;
+import javafx.util.Duration;
+
+import java.util.Random;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Measures the cost of a timer update with many pending actions, e.g. cooldowns,
+ * while short-lived actions (e.g. damage over time ticks) are added every frame.
+ * Compares {@link Timer} with the previous implementation, which scanned a copy-on-write list every frame.
+ * Does not require a running FXGL application.
+ *
+ * @author Almas Baimagambetov (almaslvl@gmail.com)
+ */
+public class TimerBenchmark {
+
+    private static final int[] NUM_PENDING = { 10_000, 100_000 };
+
+    private static final int NUM_WARM_UP_FRAMES = 300;
+    private static final int NUM_FRAMES = 300;
+
+    private static final int NEW_ACTIONS_PER_FRAME = 50;
+
+    private static final double TPF = 1 / 60.0;
+
+    private interface Scheduler {
+        void runOnceAfter(Runnable action, double delay);
+
+        void update(double tpf);
+    }
+
+    public static void main(String[] args) {
+        System.out.printf("%-10s %10s %12s %12s%n", "timer", "pending", "us/frame", "runs/frame");
+
+        for (int numPending : NUM_PENDING) {
+            run("list scan", new ListScanScheduler(), numPending);
+
+            var timer = new Timer();
+
+            run("wheel", new Scheduler() {
+                @Override
+                public void runOnceAfter(Runnable action, double delay) {
+                    timer.runOnceAfter(action, Duration.seconds(delay));
+                }
+
+                @Override
+                public void update(double tpf) {
+                    timer.update(tpf);
+                }
+            }, numPending);
+        }
+    }
+
+    private static void run(String name, Scheduler scheduler, int numPending) {
+        var random = new Random(0);
+        long[] numRuns = { 0 };
+
+        Runnable action = () -> numRuns[0]++;
+
+        // long cooldowns, which are pending for the whole benchmark
+        for (int i = 0; i < numPending; i++) {
+            scheduler.runOnceAfter(action, 60 + random.nextDouble() * 60);
+        }
+
+        long totalNanos = 0;
+
+        for (int frame = 0; frame < NUM_WARM_UP_FRAMES + NUM_FRAMES; frame++) {
+            if (frame == NUM_WARM_UP_FRAMES)
+                numRuns[0] = 0;
+
+            long start = System.nanoTime();
+
+            for (int i = 0; i < NEW_ACTIONS_PER_FRAME; i++) {
+                scheduler.runOnceAfter(action, 0.1 + random.nextDouble());
+            }
+
+            scheduler.update(TPF);
+
+            if (frame >= NUM_WARM_UP_FRAMES)
+                totalNanos += System.nanoTime() - start;
+        }
+
+        System.out.printf("%-10s %10d %12.1f %12.1f%n",
+                name,
+                numPending,
+                totalNanos / 1000.0 / NUM_FRAMES,
+                numRuns[0] / (double) NUM_FRAMES
+        );
+    }
+
+    /**
+     * The previous timer implementation: every action is updated every frame
+     * and expired actions are removed from a copy-on-write list.
+     */
+    private static final class ListScanScheduler implements Scheduler {
+
+        private final CopyOnWriteArrayList<ScanAction> actions = new CopyOnWriteArrayList<>();
+
+        @Override
+        public void runOnceAfter(Runnable action, double delay) {
+            actions.add(new ScanAction(action, delay));
+        }
+
+        @Override
+        public void update(double tpf) {
+            actions.forEach(it -> {
+                it.update(tpf);
+
+                if (it.isExpired)
+                    actions.remove(it);
+            });
+        }
+    }
+
+    private static final class ScanAction {
+        private final Runnable action;
+        private final double delay;
+
+        private double currentTime = 0.0;
+        private boolean isExpired = false;
+
+        ScanAction(Runnable action, double delay) {
+            this.action = action;
+            this.delay = delay;
+        }
+
+        void update(double tpf) {
+            if (isExpired)
+                return;
+
+            currentTime += tpf;
+
+            if (currentTime >= delay) {
+                action.run();
+                isExpired = true;
+            }
+        }
+    }
+}
@@ -74,7 +74,7 @@ abstract class Scene : State<Scene> {
 
     fun update(tpf: Double) {
         input.update(tpf)
-        timer.update(tpf)
+        updateTimer(tpf)
         onUpdate(tpf)
 
         listeners.addAll(listenersToAdd)
@@ -86,6 +86,13 @@ abstract class Scene : State<Scene> {
         listeners.forEach { it.onUpdate(tpf) }
     }
 
+    /**
+     * Called once per frame before [onUpdate] to advance the scene timer.
+     */
+    protected open fun updateTimer(tpf: Double) {
+        timer.update(tpf)
+    }
+
     /**
      * Binds the scene size to given properties.
      * [scaledWidth] and [scaledHeight] are the values in pixels this scene (the root) will be drawn at.
@@ -8,17 +8,29 @@ package com.almasb.fxgl.time
 
 import javafx.beans.property.ReadOnlyBooleanProperty
 import javafx.util.Duration
-import java.util.concurrent.CopyOnWriteArrayList
 
 /**
  * Timer that supports running actions at an interval and with a delay.
  * Runs on the same thread that updates the timer.
+ * Actions are kept in a timing wheel, so the cost of an update depends on the number of
+ * actions that are due, rather than the number of scheduled actions.
  *
  * @author Almas Baimagambetov (almaslvl@gmail.com)
  */
 class Timer {
 
-    private val timerActions = CopyOnWriteArrayList<TimerAction>()
+    private val timerActions = TimingWheel()
+
+    /**
+     * Actions that are due in the current update.
+     */
+    private val firedActions = ArrayList<TimerAction>()
+
+    /**
+     * Incremented on [clear].
+     */
+    internal var generation = 0
+        private set
 
     /**
      * @return time in seconds accumulated by this timer
@@ -34,12 +46,36 @@ class Timer {
     fun update(tpf: Double) {
         now += tpf
 
-        timerActions.forEach {
-            it.update(tpf)
+        // actions scheduled while running due actions are not run in this update
+        timerActions.advance(now, firedActions)
 
-            if (it.isExpired)
-                timerActions.remove(it)
-        }
+        firedActions.forEach { it.fire(now) }
+        firedActions.clear()
+    }
+
+    /**
+     * @return number of scheduled actions, which may include actions that expired since the last update
+     */
+    val numScheduledActions: Int
+        get() = timerActions.size
+
+    internal fun schedule(action: TimerAction) {
+        timerActions.add(action)
+    }
+
+    internal fun unschedule(action: TimerAction) {
+        timerActions.remove(action)
+    }
+
+    private fun start(action: TimerAction, delay: Double): TimerAction {
+        action.timer = this
+        action.generation = generation
+        action.dueTime = now + delay
+
+        if (!action.isExpired)
+            schedule(action)
+
+        return action
     }
 
     /**
@@ -63,9 +99,7 @@ class Timer {
      * @return timer action
      */
     fun runAtInterval(action: Runnable, interval: Duration, limit: Int): TimerAction {
-        val act = TimerAction(interval, action, limit)
-        timerActions.add(act)
-        return act
+        return start(TimerAction(interval, action, limit), interval.toSeconds())
     }
 
     /**
@@ -84,8 +118,7 @@ class Timer {
             return TimerAction(interval, action, 0)
         }
 
-        val act = TimerAction(interval, action)
-        timerActions.add(act)
+        val act = start(TimerAction(interval, action), interval.toSeconds())
 
         whileCondition.addListener { _, _, isTrue ->
             if (!isTrue)
@@ -119,6 +152,7 @@ class Timer {
      * Remove all scheduled actions.
      */
     fun clear() {
+        generation++
         timerActions.clear()
     }
 
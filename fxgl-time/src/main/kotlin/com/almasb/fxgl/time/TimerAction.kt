@@ -12,6 +12,7 @@ import javafx.util.Duration
  * A wrapper for Runnable which is executed at given intervals.
  * The timer can be made to expire, in which case the action
  * will not execute.
+ * Actions scheduled by a [Timer] are driven by the timer, other actions by [update].
  *
  * @author Almas Baimagambetov (AlmasB) (almaslvl@gmail.com)
  */
@@ -50,6 +51,32 @@ internal constructor(
 
     private var timesFired = 0
 
+    /**
+     * The timer by which this action is scheduled, if any.
+     */
+    internal var timer: Timer? = null
+
+    /**
+     * Value of [Timer.generation] when scheduled, so that actions cleared from the timer are not rescheduled.
+     */
+    internal var generation = 0
+
+    /**
+     * Timer time at which this action is due, if scheduled by a timer.
+     */
+    internal var dueTime = 0.0
+
+    /**
+     * Time remaining until due when paused, if scheduled by a timer.
+     */
+    private var remainingTime = 0.0
+
+    /**
+     * Timing wheel slot (and its level) that contains this action, null if not in a wheel.
+     */
+    internal var bucket: ArrayList<TimerAction>? = null
+    internal var level = 0
+
     /**
      * Updates the state of this timer action.
      * If the difference between current time
@@ -76,12 +103,58 @@ internal constructor(
         }
     }
 
+    /**
+     * Called by the timer when this action is due.
+     */
+    internal fun fire(now: Double) {
+        if (isExpired || isPaused)
+            return
+
+        action.run()
+        timesFired++
+
+        if (timesFired == limit) {
+            expire()
+            return
+        }
+
+        dueTime = now + interval
+
+        if (isPaused) {
+            // paused by the action itself, so it waits for the full interval once resumed
+            remainingTime = interval
+        } else if (!isExpired) {
+            timer?.let {
+                if (it.generation == generation)
+                    it.schedule(this)
+            }
+        }
+    }
+
     fun pause() {
+        if (isPaused)
+            return
+
         isPaused = true
+
+        timer?.let {
+            remainingTime = maxOf(0.0, dueTime - it.now)
+            it.unschedule(this)
+        }
     }
 
     fun resume() {
+        if (!isPaused)
+            return
+
         isPaused = false
+
+        timer?.let {
+            if (!isExpired && it.generation == generation) {
+                dueTime = it.now + remainingTime
+                it.schedule(this)
+            }
+        }
     }
 
     /**
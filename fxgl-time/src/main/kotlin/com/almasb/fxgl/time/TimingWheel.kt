@@ -0,0 +1,247 @@
+/*
+ * FXGL - JavaFX Game Library. The MIT License (MIT).
+ * Copyright (c) AlmasB (almaslvl@gmail.com).
+ * See LICENSE for details.
+ */
+
+package com.almasb.fxgl.time
+
+import kotlin.math.floor
+
+/**
+ * A hierarchical timing wheel that schedules timer actions by their due time.
+ * Level 0 has [TICKS_PER_SECOND] slots per second, each higher level has slots
+ * [WHEEL_SIZE] times longer than the level below.
+ * When a level wraps around, the next slot of the level above is cascaded (re-inserted) into the lower levels.
+ * Actions due later than the highest level can cover are kept in the last slot they reach and re-inserted until due.
+ *
+ * So advancing the wheel only visits actions that are (nearly) due and actions being cascaded,
+ * rather than all scheduled actions.
+ *
+ * @author Almas Baimagambetov (almaslvl@gmail.com)
+ */
+internal class TimingWheel {
+
+    companion object {
+        const val TICKS_PER_SECOND = 256
+
+        private const val WHEEL_BITS = 8
+        private const val WHEEL_SIZE = 1 shl WHEEL_BITS
+        private const val WHEEL_MASK = WHEEL_SIZE - 1L
+        private const val NUM_LEVELS = 4
+
+        /**
+         * Tolerance when comparing due time with current time, so that accumulated
+         * floating point errors do not delay an action by a frame.
+         */
+        private const val EPSILON = 1e-9
+    }
+
+    /**
+     * Slots are allocated on first use, since most timers only schedule a few actions.
+     */
+    private val slots = Array(NUM_LEVELS) { arrayOfNulls<ArrayList<TimerAction>>(WHEEL_SIZE) }
+
+    private val counts = IntArray(NUM_LEVELS)
+
+    /**
+     * Actions whose due tick has already been reached, but which are not due yet (or were just added).
+     */
+    private val current = ArrayList<TimerAction>()
+
+    private var spare = ArrayList<TimerAction>()
+
+    /**
+     * Last tick processed by [advance].
+     */
+    private var currentTick = 0L
+
+    /**
+     * Number of scheduled actions, including expired ones not yet dropped.
+     */
+    var size = 0
+        private set
+
+    fun add(action: TimerAction) {
+        size++
+
+        insert(action)
+    }
+
+    fun remove(action: TimerAction) {
+        val bucket = action.bucket ?: return
+
+        bucket.remove(action)
+        action.bucket = null
+
+        if (bucket !== current) {
+            counts[action.level]--
+        }
+
+        size--
+    }
+
+    /**
+     * Advances the wheel to [now] and moves all actions due at [now] into [fired], in due order.
+     * Expired and paused actions are dropped instead.
+     */
+    fun advance(now: Double, fired: MutableList<TimerAction>) {
+        val targetTick = toTick(now)
+
+        while (currentTick < targetTick) {
+            val lowestLevel = counts.indexOfFirst { it > 0 }
+
+            if (lowestLevel == -1) {
+                currentTick = targetTick
+                break
+            }
+
+            // no action can be due before the lowest non-empty level wraps, so skip straight to it
+            if (lowestLevel > 0) {
+                val boundary = (currentTick or ((1L shl (WHEEL_BITS * lowestLevel)) - 1))
+
+                if (boundary >= targetTick) {
+                    currentTick = targetTick
+                    break
+                }
+
+                currentTick = boundary
+            }
+
+            currentTick++
+
+            cascade()
+
+            val slot = slots[0][(currentTick and WHEEL_MASK).toInt()]
+
+            if (slot != null && slot.isNotEmpty()) {
+                counts[0] -= slot.size
+
+                slot.forEach {
+                    it.bucket = current
+                    current.add(it)
+                }
+
+                slot.clear()
+            }
+        }
+
+        // current holds actions in due tick order
+        collectDue(current, now, fired)
+    }
+
+    /**
+     * Removes all actions.
+     */
+    fun clear() {
+        current.forEach { it.bucket = null }
+        current.clear()
+
+        slots.forEach { level ->
+            level.forEach { slot ->
+                slot?.forEach { it.bucket = null }
+                slot?.clear()
+            }
+        }
+
+        counts.fill(0)
+        size = 0
+    }
+
+    private fun toTick(time: Double): Long = floor((time + EPSILON) * TICKS_PER_SECOND).toLong()
+
+    private fun insert(action: TimerAction) {
+        val dueTick = toTick(action.dueTime)
+        val delta = dueTick - currentTick
+
+        if (delta <= 0) {
+            action.bucket = current
+            current.add(action)
+            return
+        }
+
+        var level = 0
+
+        while (level < NUM_LEVELS - 1 && delta >= 1L shl (WHEEL_BITS * (level + 1))) {
+            level++
+        }
+
+        // beyond the highest level, wait in the furthest slot and get re-inserted when cascaded
+        val tick = if (level == NUM_LEVELS - 1 && delta >= 1L shl (WHEEL_BITS * NUM_LEVELS))
+            currentTick + (1L shl (WHEEL_BITS * NUM_LEVELS)) - 1
+        else
+            dueTick
+
+        val index = ((tick shr (WHEEL_BITS * level)) and WHEEL_MASK).toInt()
+
+        var slot = slots[level][index]
+
+        if (slot == null) {
+            slot = ArrayList()
+            slots[level][index] = slot
+        }
+
+        action.bucket = slot
+        action.level = level
+        slot.add(action)
+
+        counts[level]++
+    }
+
+    /**
+     * Re-inserts actions of the higher level slots that become current at [currentTick].
+     */
+    private fun cascade() {
+        if (currentTick and WHEEL_MASK != 0L)
+            return
+
+        var level = 1
+
+        // find the highest level that wraps at this tick
+        while (level < NUM_LEVELS - 1 && (currentTick shr (WHEEL_BITS * level)) and WHEEL_MASK == 0L) {
+            level++
+        }
+
+        while (level > 0) {
+            val index = ((currentTick shr (WHEEL_BITS * level)) and WHEEL_MASK).toInt()
+            val slot = slots[level][index]
+
+            if (slot != null && slot.isNotEmpty()) {
+                // detach, since actions may be re-inserted into the same slot
+                slots[level][index] = spare
+                counts[level] -= slot.size
+
+                slot.forEach { insert(it) }
+                slot.clear()
+
+                spare = slot
+            }
+
+            level--
+        }
+    }
+
+    private fun collectDue(actions: ArrayList<TimerAction>, now: Double, fired: MutableList<TimerAction>) {
+        var numKept = 0
+
+        // compact in place, so that removing many actions at once is linear
+        for (i in actions.indices) {
+            val action = actions[i]
+
+            if (action.isExpired || action.isPaused || action.dueTime <= now + EPSILON) {
+                action.bucket = null
+                size--
+
+                if (!action.isExpired && !action.isPaused) {
+                    fired.add(action)
+                }
+            } else {
+                actions[numKept++] = action
+            }
+        }
+
+        while (actions.size > numKept) {
+            actions.removeAt(actions.size - 1)
+        }
+    }
+}
@@ -14,6 +14,7 @@ import org.junit.jupiter.api.Assertions.assertFalse
 import org.junit.jupiter.api.Assertions.assertTrue
 import org.junit.jupiter.api.BeforeEach
 import org.junit.jupiter.api.Test
+import java.util.*
 
 /**
  *
@@ -139,4 +140,119 @@ class TimerTest {
         timer.update(0.150)
         assertTrue(local.elapsed(Duration.millis(150.0)))
     }
-}
\ No newline at end of file
+
+    @Test
+    fun `Paused action does not advance until resumed`() {
+        var count = 0
+
+        val action = timer.runOnceAfter({ count++ }, Duration.seconds(1.0))
+
+        timer.update(0.5)
+        action.pause()
+
+        timer.update(2.0)
+        assertThat(count, `is`(0))
+
+        action.resume()
+
+        timer.update(0.4)
+        assertThat(count, `is`(0))
+
+        timer.update(0.1)
+        assertThat(count, `is`(1))
+    }
+
+    @Test
+    fun `Expired actions are removed`() {
+        val actions = (1..100).map { timer.runAtInterval(Runnable { }, Duration.seconds(it.toDouble())) }
+
+        assertThat(timer.numScheduledActions, `is`(100))
+
+        actions.forEach { it.expire() }
+
+        timer.update(100.0)
+        assertThat(timer.numScheduledActions, `is`(0))
+    }
+
+    @Test
+    fun `Action scheduled during update does not run in the same update`() {
+        var count = 0
+
+        timer.runOnceAfter({
+            timer.runOnceAfter({ count++ }, Duration.ZERO)
+        }, Duration.seconds(1.0))
+
+        timer.update(1.0)
+        assertThat(count, `is`(0))
+
+        timer.update(0.016)
+        assertThat(count, `is`(1))
+    }
+
+    @Test
+    fun `Cleared action does not run after resume`() {
+        var count = 0
+
+        val action = timer.runOnceAfter({ count++ }, Duration.seconds(1.0))
+        action.pause()
+
+        timer.clear()
+        action.resume()
+
+        timer.update(2.0)
+        assertThat(count, `is`(0))
+    }
+
+    @Test
+    fun `Actions run in the first update after their delay`() {
+        val random = Random(42)
+
+        // delays of up to 10 days cover all wheel levels
+        val delays = (0 until 2000).map {
+            when (it % 4) {
+                0 -> random.nextDouble()
+                1 -> random.nextDouble() * 300
+                2 -> random.nextDouble() * 100_000
+                else -> random.nextDouble() * 1_000_000
+            }
+        }
+
+        val firedAt = DoubleArray(delays.size) { -1.0 }
+
+        delays.forEachIndexed { index, delay ->
+            timer.runOnceAfter({
+                assertThat(firedAt[index], `is`(-1.0))
+                firedAt[index] = timer.now
+            }, Duration.seconds(delay))
+        }
+
+        while (timer.numScheduledActions > 0) {
+            val previous = timer.now
+
+            // mostly frames, sometimes long jumps
+            timer.update(if (random.nextInt(100) == 0) random.nextDouble() * 50_000 else random.nextDouble() * 0.1)
+
+            firedAt.forEachIndexed { index, time ->
+                if (time == timer.now) {
+                    assertTrue(delays[index] <= timer.now + 1e-9)
+                    assertTrue(delays[index] > previous - 1e-9)
+                }
+            }
+        }
+
+        assertTrue(firedAt.all { it >= 0 })
+    }
+
+    @Test
+    fun `Action far beyond wheel range runs after its delay`() {
+        var count = 0
+
+        timer.runOnceAfter({ count++ }, Duration.hours(24.0 * 365))
+
+        timer.update(3600.0 * 24 * 365 - 1)
+        assertThat(count, `is`(0))
+
+        timer.update(1.0)
+        assertThat(count, `is`(1))
+    }
+}
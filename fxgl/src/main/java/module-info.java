@@ -58,5 +58,6 @@ module com.almasb.fxgl.all {
     exports com.almasb.fxgl.dsl.effects;
     exports com.almasb.fxgl.dsl.handlers;
     exports com.almasb.fxgl.dsl.views;
+    exports com.almasb.fxgl.multiplayer;
     exports com.almasb.fxgl.gameplay;
 }
\ No newline at end of file
@@ -30,6 +30,12 @@ internal class Engine(val settings: ReadOnlyGameSettings) {
     val tpf: Double
         get() = loop.tpf
 
+    /**
+     * Actual time (in seconds) elapsed since the previous frame, which is used to accumulate fixed steps.
+     */
+    val frameTime: Double
+        get() = loop.frameTime
+
     private val services = arrayListOf<EngineService>()
     private val servicesCache = hashMapOf<Class<out EngineService>, EngineService>()
 
@@ -56,6 +56,7 @@ import javafx.util.Duration
 import java.nio.file.Files
 import java.nio.file.Paths
 import java.time.LocalDateTime
+import java.util.function.DoubleSupplier
 import javax.imageio.ImageIO
 import kotlin.system.measureNanoTime
 
@@ -142,7 +143,14 @@ class FXGLApplication : Application() {
         initAndLoadLocalization()
 
         // onGameUpdate is only updated in Game Scene
-        FXGL.getGameScene().addListener(Updatable { tpf -> engine.onGameUpdate(tpf) })
+        val gameUpdate = Updatable { tpf -> engine.onGameUpdate(tpf) }
+
+        if (settings.isFixedTimestep) {
+            // run game update with the same fixed tpf as the game world
+            FXGL.getGameScene().addStepListener(gameUpdate)
+        } else {
+            FXGL.getGameScene().addListener(gameUpdate)
+        }
     }
 
     private fun initPauseResumeHandler() {
@@ -379,6 +387,11 @@ class FXGLApplication : Application() {
             )
 
             gameScene.isSingleStep = settings.isSingleStep
+            gameScene.gameWorld.isEntityPoolingEnabled = settings.isEntityPoolingEnabled
+
+            if (settings.isFixedTimestep) {
+                gameScene.enableFixedTimestep(settings.fixedTicksPerSecond, settings.maxCatchUpSteps, DoubleSupplier { engine.frameTime })
+            }
 
             if (settings.isClickFeedbackEnabled) {
                 addClickFeedbackHandler()
@@ -0,0 +1,115 @@
+/*
+ * FXGL - JavaFX Game Library. The MIT License (MIT).
+ * Copyright (c) AlmasB (almaslvl@gmail.com).
+ * See LICENSE for details.
+ */
+
+package com.almasb.fxgl.app
+
+import com.almasb.fxgl.core.EngineService
+import com.almasb.fxgl.core.Updatable
+import com.almasb.fxgl.core.concurrent.HeadlessLoopRunner
+import com.almasb.fxgl.entity.GameWorld
+import com.almasb.fxgl.physics.PhysicsWorld
+import com.almasb.fxgl.time.Timer
+
+/**
+ * Runs a game simulation without a display, e.g. for an authoritative server or soak tests.
+ * Each tick updates, in the same order as the main loop:
+ * services (onUpdate), timer, game world, physics world, services (onGameUpdate).
+ *
+ * There is no game scene, so entity views are never attached to a scene graph or sorted.
+ * Services are not injected with dependencies, so they should be fully constructed by the caller.
+ *
+ * Game world, physics world and timer are not thread-safe, so once [start] is called,
+ * they should only be accessed from services, which run on the loop thread.
+ *
+ * @author Almas Baimagambetov (almaslvl@gmail.com)
+ */
+class HeadlessGame
+@JvmOverloads constructor(
+        val ticksPerSecond: Int = 60,
+
+        /**
+         * If false, ticks run as fast as possible.
+         */
+        isThrottled: Boolean = true,
+
+        val gameWorld: GameWorld = GameWorld(),
+        val physicsWorld: PhysicsWorld = PhysicsWorld(600, 50.0),
+        val timer: Timer = Timer(),
+        services: List<EngineService> = emptyList()) {
+
+    private val services = ArrayList(services)
+
+    private val loop = HeadlessLoopRunner(ticksPerSecond, Updatable { tick(it) }, isThrottled)
+
+    private var isLoopStarting = true
+
+    /**
+     * Simulation time (in seconds) per tick.
+     */
+    val tpf: Double
+        get() = loop.tpf
+
+    /**
+     * Total number of ticks run.
+     */
+    val numTicks: Long
+        get() = loop.numTicks
+
+    /**
+     * Ticks run per real second, measured over the last second (or over the last [runTicks] call).
+     */
+    val measuredTicksPerSecond: Double
+        get() = loop.measuredTicksPerSecond
+
+    val isRunning: Boolean
+        get() = loop.isRunning
+
+    init {
+        gameWorld.addWorldListener(physicsWorld)
+
+        this.services.forEach { it.onInit() }
+    }
+
+    /**
+     * Starts the simulation on a new thread.
+     */
+    fun start() {
+        loop.start()
+    }
+
+    /**
+     * Runs given number of ticks on the calling thread as fast as possible.
+     */
+    fun runTicks(numTicks: Int) {
+        loop.runTicks(numTicks)
+    }
+
+    /**
+     * Stops the simulation and notifies services that the game is exiting.
+     */
+    fun stop() {
+        loop.stop()
+
+        services.forEach { it.onExit() }
+    }
+
+    private fun tick(tpf: Double) {
+        if (isLoopStarting) {
+            isLoopStarting = false
+
+            services.forEach { it.onMainLoopStarting() }
+        }
+
+        services.forEach { it.onUpdate(tpf) }
+
+        timer.update(tpf)
+
+        gameWorld.onUpdate(tpf)
+        physicsWorld.onUpdate(tpf)
+
+        services.forEach { it.onGameUpdate(tpf) }
+    }
+}
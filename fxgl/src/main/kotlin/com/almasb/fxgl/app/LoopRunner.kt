@@ -10,12 +10,25 @@ import com.almasb.fxgl.logging.Logger
 import javafx.animation.AnimationTimer
 
 /**
+ * Drives the main loop via an [AnimationTimer].
  *
+ * tpf, which is passed to the runnable, is derived from the average FPS.
+ * In addition, [frameTime] is the actual time elapsed since the previous pulse,
+ * which is required to correctly accumulate time for a fixed timestep.
  *
  * @author Almas Baimagambetov (almaslvl@gmail.com)
  */
 internal class LoopRunner(private val runnable: (Double) -> Unit) {
 
+    companion object {
+
+        /**
+         * Frame time (in seconds) is capped, so that a long stall, e.g. when
+         * the window is being dragged, does not produce a huge time step.
+         */
+        private const val MAX_FRAME_TIME = 0.25
+    }
+
     private val log = Logger.get<LoopRunner>()
 
     @get:JvmName("getFPS")
@@ -26,13 +39,25 @@ internal class LoopRunner(private val runnable: (Double) -> Unit) {
     var tpf = 0.0
         private set
 
+    /**
+     * Time (in seconds) elapsed since the previous pulse.
+     */
+    var frameTime = 0.0
+        private set
+
     private val fpsCounter = FPSCounter()
 
+    /**
+     * Timestamp of the previous pulse or -1 if there was none since start / resume.
+     */
+    private var lastNow = -1L
+
     private val impl by lazy {
         object : AnimationTimer() {
 
             override fun handle(now: Long) {
                 tpf = tpfCompute(now)
+                frameTime = frameTimeCompute(now)
 
                 frame()
             }
@@ -55,6 +80,9 @@ internal class LoopRunner(private val runnable: (Double) -> Unit) {
     fun resume() {
         log.debug("Resuming loop")
 
+        // time spent paused or stopped is not part of the frame time
+        lastNow = -1L
+
         impl.start()
     }
 
@@ -82,6 +110,14 @@ internal class LoopRunner(private val runnable: (Double) -> Unit) {
         return 1.0 / fps
     }
 
+    private fun frameTimeCompute(now: Long): Double {
+        val frameTime = if (lastNow == -1L) tpf else (now - lastNow) / 1_000_000_000.0
+
+        lastNow = now
+
+        return frameTime.coerceIn(0.0, MAX_FRAME_TIME)
+    }
+
     private fun frame() {
         runnable(tpf)
     }
@@ -167,6 +167,15 @@ class GameSettings(
          */
         var isEntityPreloadEnabled: Boolean = true,
 
+        /**
+         * If true, entities spawned by factory methods annotated with @Preload are pooled:
+         * the pool is filled when the factory is added and removed entities are reused by later spawns.
+         * Such factory methods must take all per-spawn state from SpawnData,
+         * since a reused entity does not run the factory method again.
+         * Default: false.
+         */
+        var isEntityPoolingEnabled: Boolean = false,
+
         /**
          * If true, allows FXGL to make write calls to the file system, for example
          * to create log files.
@@ -183,6 +192,26 @@ class GameSettings(
 
         var isSingleStep: Boolean = false,
 
+        /**
+         * If true, the game scene (game world, physics world, viewport), game timer and game update
+         * run in steps of exactly 1 / [fixedTicksPerSecond] seconds, decoupled from the frame rate.
+         * Input and engine services are still updated once per frame.
+         * Views can use GameScene.interpolationAlpha to interpolate between the last two steps.
+         */
+        var isFixedTimestep: Boolean = false,
+
+        /**
+         * Number of fixed steps per second when [isFixedTimestep] is true, default = 60.
+         */
+        var fixedTicksPerSecond: Int = 60,
+
+        /**
+         * Maximum number of fixed steps run in a single frame when [isFixedTimestep] is true.
+         * If a frame takes longer, the remaining time is dropped, i.e. the game slows down
+         * instead of trying to catch up indefinitely.
+         */
+        var maxCatchUpSteps: Int = 5,
+
         /**
          * Sets application run mode. See [ApplicationMode] for more info.
          */
@@ -325,9 +354,13 @@ class GameSettings(
                 isDeveloperMenuEnabled,
                 isClickFeedbackEnabled,
                 isEntityPreloadEnabled,
+                isEntityPoolingEnabled,
                 isFileSystemWriteAllowed,
                 isCloseConfirmation,
                 isSingleStep,
+                isFixedTimestep,
+                fixedTicksPerSecond,
+                maxCatchUpSteps,
                 applicationMode,
                 menuKey,
                 unmodifiableList(credits),
@@ -446,6 +479,15 @@ class ReadOnlyGameSettings internal constructor(
          */
         val isEntityPreloadEnabled: Boolean,
 
+        /**
+         * If true, entities spawned by factory methods annotated with @Preload are pooled:
+         * the pool is filled when the factory is added and removed entities are reused by later spawns.
+         * Such factory methods must take all per-spawn state from SpawnData,
+         * since a reused entity does not run the factory method again.
+         * Default: false.
+         */
+        val isEntityPoolingEnabled: Boolean,
+
         /**
          * If true, allows FXGL to make write calls to the file system, for example
          * to create log files.
@@ -462,6 +504,26 @@ class ReadOnlyGameSettings internal constructor(
 
         val isSingleStep: Boolean,
 
+        /**
+         * If true, the game scene (game world, physics world, viewport), game timer and game update
+         * run in steps of exactly 1 / [fixedTicksPerSecond] seconds, decoupled from the frame rate.
+         * Input and engine services are still updated once per frame.
+         * Views can use GameScene.interpolationAlpha to interpolate between the last two steps.
+         */
+        val isFixedTimestep: Boolean,
+
+        /**
+         * Number of fixed steps per second when [isFixedTimestep] is true, default = 60.
+         */
+        val fixedTicksPerSecond: Int,
+
+        /**
+         * Maximum number of fixed steps run in a single frame when [isFixedTimestep] is true.
+         * If a frame takes longer, the remaining time is dropped, i.e. the game slows down
+         * instead of trying to catch up indefinitely.
+         */
+        val maxCatchUpSteps: Int,
+
         /**
          * Sets application run mode. See [ApplicationMode] for more info.
          */
@@ -690,6 +752,7 @@ class ReadOnlyGameSettings internal constructor(
                 "Intro: " + isIntroEnabled + '\n'.toString() +
                 "Profiling: " + isProfilingEnabled + '\n'.toString() +
                 "Single step:" + isSingleStep + '\n'.toString() +
+                "Fixed timestep: " + isFixedTimestep + '\n'.toString() +
                 "App Mode: " + applicationMode + '\n'.toString() +
                 "Menu Key: " + menuKey + '\n'.toString() +
                 "Stage Style: " + stageStyle + '\n'.toString() +
@@ -6,6 +6,9 @@
 
 package com.almasb.fxgl.app.scene
 
+import com.almasb.fxgl.core.Updatable
+import com.almasb.fxgl.core.collection.Array
+import com.almasb.fxgl.core.util.FixedTimestep
 import com.almasb.fxgl.entity.Entity
 import com.almasb.fxgl.entity.EntityWorldListener
 import com.almasb.fxgl.entity.GameWorld
@@ -13,6 +16,7 @@ import com.almasb.fxgl.entity.components.ViewComponent
 import com.almasb.fxgl.physics.PhysicsWorld
 import com.almasb.fxgl.ui.UI
 import com.almasb.fxgl.logging.Logger
+import javafx.beans.property.ReadOnlyProperty
 import javafx.beans.property.SimpleIntegerProperty
 import javafx.beans.value.ChangeListener
 import javafx.collections.ObservableList
@@ -20,6 +24,7 @@ import javafx.scene.Group
 import javafx.scene.Node
 import javafx.scene.transform.Rotate
 import javafx.scene.transform.Scale
+import java.util.function.DoubleSupplier
 
 /**
  * Represents the scene that shows entities on the screen during "play" mode.
@@ -38,13 +43,24 @@ internal constructor(width: Int, height: Int,
 
     companion object {
         private val log = Logger.get(GameScene::class.java)
+
+        private const val MIN_EMPTY_LAYERS_TO_REMOVE = 64
     }
 
     /**
      * Root for entity views, it is affected by viewport movement.
+     * Its children are [ZLayer]s in ascending order of z.
      */
     private val gameRoot = Group()
 
+    /**
+     * Views are grouped by z index, so that a change of z moves a single node
+     * rather than re-sorting all views.
+     */
+    private val zLayers = hashMapOf<Int, ZLayer>()
+
+    private var numEmptyLayers = 0
+
     /**
      * The overlay root above [.gameRoot]. Contains UI elements, native JavaFX nodes.
      * uiRoot isn't affected by viewport movement.
@@ -53,10 +69,10 @@ internal constructor(width: Int, height: Int,
 
     private val entities = ArrayList<Entity>()
 
-    private var isZSortingNeeded = false
+    private val zChangeListener = ChangeListener<Number> { observable, _, newZ ->
+        val view = (observable as ReadOnlyProperty<*>).bean as GameView
 
-    private val zChangeListener = ChangeListener<Number> { _, _, _ ->
-        isZSortingNeeded = true
+        moveToLayer(view.node, newZ.toInt())
     }
 
     /**
@@ -71,6 +87,31 @@ internal constructor(width: Int, height: Int,
      */
     var isSingleStep = false
 
+    private var fixedTimestep: FixedTimestep? = null
+
+    /**
+     * Provides the actual frame time to accumulate for fixed steps, if null the frame tpf is used.
+     */
+    private var frameTime: DoubleSupplier? = null
+
+    /**
+     * Called at the end of each step, i.e. once per fixed step if fixed timestep is enabled.
+     */
+    private val stepListeners = Array<Updatable>()
+
+    val isFixedTimestep: Boolean
+        get() = fixedTimestep != null
+
+    /**
+     * If fixed timestep is enabled, this is the fraction in [0..1) of a step
+     * that has elapsed since the last step.
+     * Views can use it to interpolate between the previous and the current state:
+     * previous * (1 - alpha) + current * alpha.
+     * If fixed timestep is disabled, the value is always 1, i.e. the current state.
+     */
+    val interpolationAlpha: Double
+        get() = fixedTimestep?.alpha ?: 1.0
+
     init {
         contentRoot.children.addAll(gameRoot, uiRoot)
 
@@ -102,23 +143,59 @@ internal constructor(width: Int, height: Int,
         gameRoot.transforms.add(rotate)
     }
 
+    /**
+     * From now on, the scene accumulates frame time and calls step()
+     * with 1 / [ticksPerSecond] seconds, at most [maxCatchUpSteps] times per frame.
+     * The game timer is then also advanced in fixed steps.
+     * If [frameTime] is given, it provides the time to accumulate each frame instead of the frame tpf.
+     */
+    @JvmOverloads fun enableFixedTimestep(ticksPerSecond: Int, maxCatchUpSteps: Int, frameTime: DoubleSupplier? = null) {
+        fixedTimestep = FixedTimestep(ticksPerSecond, maxCatchUpSteps, Updatable { step(it) })
+        this.frameTime = frameTime
+    }
+
+    fun disableFixedTimestep() {
+        fixedTimestep = null
+        frameTime = null
+    }
+
+    internal fun addStepListener(listener: Updatable) {
+        stepListeners.add(listener)
+    }
+
+    override fun updateTimer(tpf: Double) {
+        // in fixed timestep mode, the timer is advanced in step()
+        if (!isFixedTimestep) {
+            timer.update(tpf)
+        }
+    }
+
     override fun onUpdate(tpf: Double) {
         // if single step is configured, then step() will be called manually
         if (isSingleStep)
             return
 
-        step(tpf)
+        val timestep = fixedTimestep
+
+        if (timestep != null) {
+            timestep.update(frameTime?.asDouble ?: tpf)
+        } else {
+            step(tpf)
+        }
     }
 
     fun step(tpf: Double) {
+        if (isFixedTimestep) {
+            timer.update(tpf)
+        }
+
         gameWorld.onUpdate(tpf)
         physicsWorld.onUpdate(tpf)
         viewport.onUpdate(tpf)
 
-        if (isZSortingNeeded) {
-            sortZ()
-            isZSortingNeeded = false
-        }
+        removeEmptyLayers()
+
+        stepListeners.forEach { it.onUpdate(tpf) }
     }
 
     /**
@@ -173,6 +250,8 @@ internal constructor(width: Int, height: Int,
      */
     fun clearGameViews() {
         gameRoot.children.clear()
+        zLayers.clear()
+        numEmptyLayers = 0
     }
 
     /**
@@ -193,15 +272,6 @@ internal constructor(width: Int, height: Int,
         uiRoot.isMouseTransparent = b
     }
 
-    private fun sortZ() {
-        // it is important to sort in a different list since gameRoot is part of active scene graph
-        // and does not allow duplicates that may occur during sorting
-        val tmp = ArrayList(gameRoot.children)
-        tmp.sortBy { (it.properties["viewData"] as GameView).z }
-
-        gameRoot.children.setAll(tmp)
-    }
-
     /**
      * Resets game world, physics world, game timer.
      * Unbinds viewport, clears game views and UI nodes.
@@ -221,7 +291,7 @@ internal constructor(width: Int, height: Int,
         timer.clear()
 
         viewport.unbind()
-        gameRoot.children.clear()
+        clearGameViews()
         uiRoot.children.clear()
     }
 
@@ -235,19 +305,98 @@ internal constructor(width: Int, height: Int,
         destroyView(entity.viewComponent)
     }
 
+    /**
+     * Adds view on top of other views with the same z.
+     */
     fun addGameView(view: GameView) {
         view.zProperty.addListener(zChangeListener)
         view.node.properties["viewData"] = view
 
-        gameRoot.children.add(view.node)
-
-        isZSortingNeeded = true
+        addToLayer(view.node, view.z)
     }
 
     fun removeGameView(view: GameView) {
         view.node.properties.clear()
 
-        gameRoot.children.remove(view.node)
+        removeFromLayer(view.node)
+    }
+
+    /**
+     * Moves the node on top of other views with the new z,
+     * unless the node has been removed from this scene.
+     */
+    private fun moveToLayer(node: Node, z: Int) {
+        if (removeFromLayer(node)) {
+            addToLayer(node, z)
+        }
+    }
+
+    private fun addToLayer(node: Node, z: Int) {
+        var layer = zLayers[z]
+
+        if (layer == null) {
+            layer = ZLayer(z)
+            zLayers[z] = layer
+            gameRoot.children.add(layerIndex(z), layer)
+        } else if (layer.children.isEmpty()) {
+            numEmptyLayers--
+        }
+
+        layer.children.add(node)
+    }
+
+    /**
+     * @return true if node was in a layer of this scene
+     */
+    private fun removeFromLayer(node: Node): Boolean {
+        val layer = node.parent as? ZLayer ?: return false
+
+        if (zLayers[layer.z] !== layer)
+            return false
+
+        layer.children.remove(node)
+
+        if (layer.children.isEmpty()) {
+            numEmptyLayers++
+        }
+
+        return true
+    }
+
+    /**
+     * Empty layers are kept, since with frequent z changes they are likely to be reused,
+     * and are removed in one pass once they make up half of all layers.
+     */
+    private fun removeEmptyLayers() {
+        if (numEmptyLayers < MIN_EMPTY_LAYERS_TO_REMOVE || numEmptyLayers * 2 < zLayers.size)
+            return
+
+        gameRoot.children.removeIf { (it as ZLayer).children.isEmpty() }
+        zLayers.values.removeIf { it.children.isEmpty() }
+
+        numEmptyLayers = 0
+    }
+
+    /**
+     * @return index of the layer with given z in game root, or the index where it should be inserted
+     */
+    private fun layerIndex(z: Int): Int {
+        val layers = gameRoot.children
+
+        var low = 0
+        var high = layers.size
+
+        while (low < high) {
+            val mid = (low + high) ushr 1
+
+            if ((layers[mid] as ZLayer).z < z) {
+                low = mid + 1
+            } else {
+                high = mid
+            }
+        }
+
+        return low
     }
 
     private fun initView(viewComponent: ViewComponent) {
@@ -268,10 +417,15 @@ internal constructor(width: Int, height: Int,
             removeGameView(view)
         }
     }
+
+    /**
+     * Views with the same z index.
+     */
+    private class ZLayer(val z: Int) : Group()
 }
 
 class GameView(val node: Node, zIndex: Int) {
-    val zProperty = SimpleIntegerProperty(zIndex)
+    val zProperty = SimpleIntegerProperty(this, "z", zIndex)
 
     var z: Int
         get() = zProperty.value
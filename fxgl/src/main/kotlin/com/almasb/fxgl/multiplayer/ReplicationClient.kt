@@ -0,0 +1,125 @@
+/*
+ * FXGL - JavaFX Game Library. The MIT License (MIT).
+ * Copyright (c) AlmasB (almaslvl@gmail.com).
+ * See LICENSE for details.
+ */
+
+package com.almasb.fxgl.multiplayer
+
+import com.almasb.fxgl.core.Updatable
+import com.almasb.fxgl.core.serialization.Bundle
+import com.almasb.fxgl.entity.Entity
+import com.almasb.fxgl.entity.GameWorld
+import com.almasb.fxgl.entity.component.SerializableComponent
+import com.almasb.fxgl.net.Connection
+import com.almasb.fxgl.net.Endpoint
+import com.almasb.fxgl.net.MessageHandler
+import java.util.concurrent.ConcurrentLinkedQueue
+
+/**
+ * Applies snapshots sent by a [ReplicationServer] to [gameWorld].
+ * Replicated entities are spawned with the spawn name given on the server,
+ * so [gameWorld] must have the entity factories that can spawn them.
+ *
+ * Snapshots are received on a network thread and applied in [onUpdate],
+ * which must be called from the game thread, e.g. from the game's onUpdate().
+ *
+ * @author Almas Baimagambetov (almaslvl@gmail.com)
+ */
+class ReplicationClient(private val endpoint: Endpoint<Bundle>, private val gameWorld: GameWorld) : Updatable {
+
+    /**
+     * Tick of the last applied snapshot.
+     */
+    var tick = -1L
+        private set
+
+    private val entities = hashMapOf<Int, Entity>()
+
+    private val snapshots = ConcurrentLinkedQueue<Pair<Connection<Bundle>, Bundle>>()
+
+    private val connections = hashSetOf<Connection<Bundle>>()
+
+    private val snapshotHandler = MessageHandler<Bundle> { connection, message ->
+        if (message.name == SNAPSHOT) {
+            snapshots.add(connection to message)
+        }
+    }
+
+    /**
+     * @return number of entities currently replicated to this client
+     */
+    val numEntities: Int
+        get() = entities.size
+
+    /**
+     * @return entity replicated with given network id or null if there is no such entity
+     */
+    fun getEntity(networkID: Int): Entity? = entities[networkID]
+
+    override fun onUpdate(tpf: Double) {
+        // snapshots received before the handler was added are lost,
+        // but the server keeps sending changes until they are acknowledged
+        endpoint.connections.forEach {
+            if (connections.add(it)) {
+                it.addMessageHandler(snapshotHandler)
+            }
+        }
+
+        connections.retainAll(endpoint.connections)
+
+        while (true) {
+            val (connection, snapshot) = snapshots.poll() ?: break
+
+            if (applySnapshot(snapshot)) {
+                val ack = Bundle(ACK)
+                ack.put("tick", tick)
+
+                connection.send(ack)
+            }
+        }
+    }
+
+    /**
+     * @return true if the snapshot was applied, false if it was older than the last applied
+     */
+    internal fun applySnapshot(snapshot: Bundle): Boolean {
+        val snapshotTick = snapshot.get<Long>("tick")
+
+        if (snapshotTick <= tick)
+            return false
+
+        tick = snapshotTick
+
+        snapshot.get<List<Bundle>>("spawns").forEach { spawn ->
+            val networkID = spawn.get<Int>("id")
+
+            // may be received again if the previous ack has not reached the server yet
+            val entity = entities.getOrPut(networkID) { gameWorld.spawn(spawn.get("spawnName")) }
+
+            applyComponents(entity, spawn)
+        }
+
+        snapshot.get<List<Bundle>>("updates").forEach { update ->
+            entities[update.get("id")]?.let { applyComponents(it, update) }
+        }
+
+        snapshot.get<IntArray>("removals").forEach { networkID ->
+            entities.remove(networkID)?.let {
+                if (it.isActive) {
+                    gameWorld.removeEntity(it)
+                }
+            }
+        }
+
+        return true
+    }
+
+    private fun applyComponents(entity: Entity, bundle: Bundle) {
+        bundle.get<List<Bundle>>("components").forEach { componentBundle ->
+            val component = entity.components.find { it is SerializableComponent && it.javaClass.name == componentBundle.name }
+
+            (component as SerializableComponent?)?.read(componentBundle)
+        }
+    }
+}
@@ -0,0 +1,272 @@
+/*
+ * FXGL - JavaFX Game Library. The MIT License (MIT).
+ * Copyright (c) AlmasB (almaslvl@gmail.com).
+ * See LICENSE for details.
+ */
+
+package com.almasb.fxgl.multiplayer
+
+import com.almasb.fxgl.core.Updatable
+import com.almasb.fxgl.core.serialization.Bundle
+import com.almasb.fxgl.entity.Entity
+import com.almasb.fxgl.entity.component.SerializableComponent
+import com.almasb.fxgl.net.Connection
+import com.almasb.fxgl.net.Endpoint
+import com.almasb.fxgl.net.MessageHandler
+import java.util.*
+import java.util.concurrent.ConcurrentHashMap
+
+/**
+ * Replicates state of entities to all clients connected to [endpoint].
+ * State of an entity is the state of its [SerializableComponent]s.
+ *
+ * Every snapshot tick, changed component state is detected by a deep comparison with the previous state.
+ * Each client then receives a delta snapshot with only the changes since the last snapshot
+ * acknowledged by that client, so bandwidth is proportional to the rate of change, not the number of entities.
+ * Changes that are not yet acknowledged are sent again with the next snapshot.
+ *
+ * [onUpdate] must be called from the game thread, e.g. from the game's onUpdate().
+ * See [ReplicationClient] for the receiving side.
+ *
+ * @author Almas Baimagambetov (almaslvl@gmail.com)
+ */
+class ReplicationServer(private val endpoint: Endpoint<Bundle>) : Updatable {
+
+    /**
+     * How many snapshots per second are sent to clients.
+     */
+    var ticksPerSecond = 20
+        set(value) {
+            require(value > 0) { "Ticks per second must be positive: $value" }
+            field = value
+        }
+
+    /**
+     * Number of the last snapshot tick.
+     */
+    var tick = 0L
+        private set
+
+    private var timeSinceSnapshot = 0.0
+
+    private var nextNetworkID = 1
+
+    private val entities = LinkedHashMap<Entity, ReplicatedEntity>()
+
+    /**
+     * Entities removed from the world, which some clients may not know about yet.
+     */
+    private val removals = ArrayList<Removal>()
+
+    private val clients = ConcurrentHashMap<Connection<Bundle>, ClientState>()
+
+    /**
+     * Start replicating given entity.
+     * Clients will spawn it via their game world with [spawnName] once it is in the world.
+     * When it is removed from the world, clients remove it as well.
+     */
+    fun replicate(entity: Entity, spawnName: String) {
+        if (entity in entities)
+            return
+
+        entities[entity] = ReplicatedEntity(nextNetworkID++, spawnName)
+    }
+
+    override fun onUpdate(tpf: Double) {
+        timeSinceSnapshot += tpf
+
+        val interval = 1.0 / ticksPerSecond
+
+        if (timeSinceSnapshot < interval)
+            return
+
+        // keep the remainder, so that the snapshot rate does not drift below ticksPerSecond,
+        // but drop whole missed intervals, since only one snapshot is sent per update
+        timeSinceSnapshot %= interval
+
+        captureChanges()
+        syncConnections()
+
+        clients.forEach { (connection, client) ->
+            buildSnapshot(client.ackedTick)?.let { connection.send(it) }
+        }
+
+        purgeRemovals()
+    }
+
+    /**
+     * Starts a new tick and records which components changed in it.
+     */
+    internal fun captureChanges() {
+        tick++
+
+        val it = entities.entries.iterator()
+
+        while (it.hasNext()) {
+            val (entity, replicated) = it.next()
+
+            if (!entity.isActive) {
+                // not yet added to world
+                if (replicated.spawnTick < 0)
+                    continue
+
+                removals.add(Removal(replicated.networkID, replicated.spawnTick, tick))
+                it.remove()
+                continue
+            }
+
+            if (replicated.spawnTick < 0) {
+                replicated.spawnTick = tick
+            }
+
+            entity.components.forEach { component ->
+                if (component is SerializableComponent) {
+                    val key = component.javaClass.name
+
+                    val bundle = Bundle(key)
+                    component.write(bundle)
+
+                    val state = replicated.components[key]
+
+                    if (state == null) {
+                        replicated.components[key] = ComponentState(bundle, tick)
+                    } else if (!isEqual(state.bundle, bundle)) {
+                        state.bundle = bundle
+                        state.changedTick = tick
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * @return snapshot of all changes after [ackedTick] or null if there were none
+     */
+    internal fun buildSnapshot(ackedTick: Long): Bundle? {
+        val spawns = ArrayList<Bundle>()
+        val updates = ArrayList<Bundle>()
+
+        entities.values.forEach { replicated ->
+            if (replicated.spawnTick < 0)
+                return@forEach
+
+            if (replicated.spawnTick > ackedTick) {
+                val spawn = Bundle("")
+                spawn.put("id", replicated.networkID)
+                spawn.put("spawnName", replicated.spawnName)
+                spawn.put("components", replicated.components.values.mapTo(ArrayList()) { it.bundle })
+
+                spawns.add(spawn)
+            } else {
+                val changed = replicated.components.values.filter { it.changedTick > ackedTick }
+
+                if (changed.isNotEmpty()) {
+                    val update = Bundle("")
+                    update.put("id", replicated.networkID)
+                    update.put("components", changed.mapTo(ArrayList()) { it.bundle })
+
+                    updates.add(update)
+                }
+            }
+        }
+
+        // entities that were spawned and removed since ack were never seen by the client
+        val removed = removals.filter { it.tick > ackedTick && it.spawnTick <= ackedTick }
+                .map { it.networkID }
+                .toIntArray()
+
+        if (spawns.isEmpty() && updates.isEmpty() && removed.isEmpty())
+            return null
+
+        val snapshot = Bundle(SNAPSHOT)
+        snapshot.put("tick", tick)
+        snapshot.put("spawns", spawns)
+        snapshot.put("updates", updates)
+        snapshot.put("removals", removed)
+        return snapshot
+    }
+
+    /**
+     * Keeps track of connections of the endpoint, so that no callbacks of the endpoint are taken over.
+     */
+    private fun syncConnections() {
+        val connections = endpoint.connections
+
+        connections.forEach {
+            clients.computeIfAbsent(it) { connection ->
+                val client = ClientState()
+
+                connection.addMessageHandler(MessageHandler { _, message ->
+                    if (message.name == ACK) {
+                        client.ackedTick = maxOf(client.ackedTick, message.get<Long>("tick"))
+                    }
+                })
+
+                client
+            }
+        }
+
+        clients.keys.retainAll(connections)
+    }
+
+    private fun purgeRemovals() {
+        val minAckedTick = clients.values.map { it.ackedTick }.min() ?: tick
+
+        removals.removeIf { it.tick <= minAckedTick }
+    }
+
+    private class ReplicatedEntity(val networkID: Int, val spawnName: String) {
+
+        /**
+         * Tick when the entity was first seen in the world, or -1.
+         */
+        var spawnTick = -1L
+
+        val components = LinkedHashMap<String, ComponentState>()
+    }
+
+    private class ComponentState(var bundle: Bundle, var changedTick: Long)
+
+    private class Removal(val networkID: Int, val spawnTick: Long, val tick: Long)
+
+    private class ClientState {
+
+        @Volatile
+        var ackedTick = -1L
+    }
+}
+
+/**
+ * Structural comparison of bundle values, since bundles do not override equals()
+ * and arrays are compared by reference.
+ */
+private fun isEqual(value1: Any?, value2: Any?): Boolean {
+    if (value1 === value2)
+        return true
+
+    return when {
+        value1 is Bundle && value2 is Bundle -> {
+            value1.name == value2.name
+                    && value1.data.size == value2.data.size
+                    && value1.data.all { (key, value) -> value2.data.containsKey(key) && isEqual(value, value2.data[key]) }
+        }
+
+        value1 is List<*> && value2 is List<*> -> {
+            value1.size == value2.size && value1.indices.all { isEqual(value1[it], value2[it]) }
+        }
+
+        value1 is Map<*, *> && value2 is Map<*, *> -> {
+            value1.size == value2.size && value1.all { (key, value) -> value2.containsKey(key) && isEqual(value, value2[key]) }
+        }
+
+        value1 is Array<*> && value2 is Array<*> -> {
+            value1.size == value2.size && value1.indices.all { isEqual(value1[it], value2[it]) }
+        }
+
+        // primitive arrays by content, other values by equals()
+        else -> Objects.deepEquals(value1, value2)
+    }
+}
+
+internal const val SNAPSHOT = "ReplicationSnapshot"
+internal const val ACK = "ReplicationAck"
@@ -8,6 +8,7 @@ package com.almasb.fxgl.app
 
 import com.almasb.fxgl.app.scene.GameScene
 import com.almasb.fxgl.app.scene.GameView
+import com.almasb.fxgl.core.Updatable
 import com.almasb.fxgl.entity.Entity
 import com.almasb.fxgl.entity.GameWorld
 import com.almasb.fxgl.particle.ParticleComponent
@@ -25,6 +26,7 @@ import org.junit.jupiter.api.Assertions.assertFalse
 import org.junit.jupiter.api.Assertions.assertTrue
 import org.junit.jupiter.api.BeforeEach
 import org.junit.jupiter.api.Test
+import java.util.function.DoubleSupplier
 
 /**
  *
@@ -49,32 +51,28 @@ class GameSceneTest {
 
     @Test
     fun `Add and remove entity adds its view to game scene and removes`() {
-        val gameRoot = gameScene.contentRoot.children[0] as Group
-
-        assertThat(gameRoot.children.size, `is`(0))
+        assertThat(gameViews().size, `is`(0))
 
         val e = Entity()
 
         world.addEntity(e)
-        assertThat(gameRoot.children.size, `is`(1))
+        assertThat(gameViews(), contains<Node>(e.viewComponent.parent))
 
         world.onUpdate(0.016)
 
         world.removeEntity(e)
-        assertThat(gameRoot.children.size, `is`(0))
+        assertThat(gameViews().size, `is`(0))
     }
 
     @Test
     fun `Add and remove particles to game scene`() {
-        val gameRoot = gameScene.contentRoot.children[0] as Group
-
-        assertThat(gameRoot.children.size, `is`(0))
+        assertThat(gameViews().size, `is`(0))
 
         val e = Entity()
         e.addComponent(ParticleComponent(ParticleEmitters.newFireEmitter()))
 
         world.addEntity(e)
-        assertThat(gameRoot.children.size, `is`(1))
+        assertThat(gameViews().size, `is`(1))
 
         //world.onUpdate(0.016)
 
@@ -82,7 +80,7 @@ class GameSceneTest {
 
         //world.onUpdate(0.016)
 
-        assertThat(gameRoot.children.size, `is`(0))
+        assertThat(gameViews().size, `is`(0))
     }
 
     @Test
@@ -139,23 +137,108 @@ class GameSceneTest {
 
     @Test
     fun `Z index is correctly sorted`() {
-        val gameRoot = gameScene.contentRoot.children[0] as Group
-
-        assertThat(gameRoot.children.size, `is`(0))
+        assertThat(gameViews().size, `is`(0))
 
         val view1 = GameView(Rectangle(), 1000)
         gameScene.addGameView(view1)
-        assertThat(gameRoot.children[0], `is`(view1.node))
+        assertThat(gameViews(), contains(view1.node))
 
+        // views are sorted by z as soon as they are added
         val view2 = GameView(Rectangle(), 300)
         gameScene.addGameView(view2)
-        assertThat(gameRoot.children[0], `is`(view1.node))
-        assertThat(gameRoot.children[1], `is`(view2.node))
+        assertThat(gameViews(), contains(view2.node, view1.node))
+
+        gameScene.update(0.016)
+        assertThat(gameViews(), contains(view2.node, view1.node))
+    }
+
+    @Test
+    fun `Views with same z are in order of addition`() {
+        val view1 = GameView(Rectangle(), 5)
+        val view2 = GameView(Rectangle(), 5)
+        val view3 = GameView(Rectangle(), 5)
+
+        gameScene.addGameView(view1)
+        gameScene.addGameView(view2)
+        gameScene.addGameView(view3)
+
+        assertThat(gameViews(), contains(view1.node, view2.node, view3.node))
+
+        // a view that changes z goes on top of views with the new z
+        view1.z = 7
+        view1.z = 5
+
+        assertThat(gameViews(), contains(view2.node, view3.node, view1.node))
+    }
+
+    @Test
+    fun `Z change moves a single view`() {
+        val view1 = GameView(Rectangle(), 1000)
+        val view2 = GameView(Rectangle(), 300)
+        val view3 = GameView(Rectangle(), 300)
+
+        gameScene.addGameView(view1)
+        gameScene.addGameView(view2)
+        gameScene.addGameView(view3)
+
+        val layer2 = view2.node.parent
+        val layer3 = view3.node.parent
+
+        view1.z = 300
+
+        assertThat(gameViews(), contains(view2.node, view3.node, view1.node))
+
+        // other views stay where they were
+        assertThat(view2.node.parent, `is`(layer2))
+        assertThat(view3.node.parent, `is`(layer3))
+
+        view2.z = -10
+
+        assertThat(gameViews(), contains(view2.node, view3.node, view1.node))
+        assertThat(view3.node.parent, `is`(layer3))
+        assertThat(view1.node.parent, `is`(layer3))
+
+        // removed views no longer follow z changes
+        gameScene.removeGameView(view2)
+        view2.z = 2000
+
+        assertThat(gameViews(), contains(view3.node, view1.node))
+        assertThat(view2.node.parent, `is`(nullValue()))
+    }
+
+    @Test
+    fun `Empty z layers are removed once they make up half of all layers`() {
+        val views = (0 until 64).map { GameView(Rectangle(), it) }
 
-        // update should sort z indices
+        views.forEach { gameScene.addGameView(it) }
+
+        assertThat(gameRoot().children.size, `is`(64))
+
+        views.take(63).forEach { gameScene.removeGameView(it) }
         gameScene.update(0.016)
-        assertThat(gameRoot.children[0], `is`(view2.node))
-        assertThat(gameRoot.children[1], `is`(view1.node))
+
+        // too few empty layers, so they are kept for reuse
+        assertThat(gameRoot().children.size, `is`(64))
+
+        gameScene.addGameView(views[0])
+        assertThat(gameRoot().children.size, `is`(64))
+        assertThat(gameViews(), contains(views[0].node, views[63].node))
+
+        gameScene.removeGameView(views[0])
+        gameScene.removeGameView(views[63])
+
+        // layers are only collected during a step
+        assertThat(gameRoot().children.size, `is`(64))
+
+        gameScene.update(0.016)
+
+        assertThat(gameRoot().children.size, `is`(0))
+
+        // new views can still be added after layers are collected
+        gameScene.addGameView(views[10])
+        gameScene.addGameView(views[3])
+
+        assertThat(gameViews(), contains(views[3].node, views[10].node))
     }
 
     @Test
@@ -212,26 +295,83 @@ class GameSceneTest {
     fun `Single step does not trigger step update`() {
         assertFalse(gameScene.isSingleStep)
 
-        val gameRoot = gameScene.contentRoot.children[0] as Group
+        val steps = arrayListOf<Double>()
 
-        assertThat(gameRoot.children.size, `is`(0))
+        gameScene.addStepListener(Updatable { steps.add(it) })
 
-        val view1 = GameView(Rectangle(), 1000)
-        gameScene.addGameView(view1)
-        assertThat(gameRoot.children[0], `is`(view1.node))
+        val views = (0 until 64).map { GameView(Rectangle(), it) }
 
-        val view2 = GameView(Rectangle(), 300)
-        gameScene.addGameView(view2)
-        assertThat(gameRoot.children[0], `is`(view1.node))
-        assertThat(gameRoot.children[1], `is`(view2.node))
+        views.forEach { gameScene.addGameView(it) }
+        views.forEach { gameScene.removeGameView(it) }
 
         gameScene.isSingleStep = true
 
         // now update should not trigger frame update, in which case
-        // z is not sorted and the order remains the same
+        // step listeners are not notified and empty layers are not removed
         gameScene.update(0.016)
 
-        assertThat(gameRoot.children[0], `is`(view1.node))
-        assertThat(gameRoot.children[1], `is`(view2.node))
+        assertThat(steps.size, `is`(0))
+        assertThat(gameRoot().children.size, `is`(64))
+
+        gameScene.step(0.016)
+
+        assertThat(steps, contains(0.016))
+        assertThat(gameRoot().children.size, `is`(0))
     }
-}
\ No newline at end of file
+
+    @Test
+    fun `Fixed timestep steps game scene with fixed tpf`() {
+        val steps = arrayListOf<Double>()
+
+        gameScene.addStepListener(Updatable { steps.add(it) })
+
+        gameScene.update(0.05)
+
+        assertThat(steps, contains(0.05))
+        assertThat(gameScene.interpolationAlpha, `is`(1.0))
+
+        steps.clear()
+
+        gameScene.enableFixedTimestep(64, 4)
+        assertTrue(gameScene.isFixedTimestep)
+
+        gameScene.update(1.0 / 128)
+        assertThat(steps.size, `is`(0))
+        assertThat(gameScene.interpolationAlpha, `is`(0.5))
+
+        gameScene.update(2.0 / 64)
+        assertThat(steps, contains(1.0 / 64, 1.0 / 64))
+        assertThat(gameScene.interpolationAlpha, `is`(0.5))
+
+        gameScene.disableFixedTimestep()
+        assertFalse(gameScene.isFixedTimestep)
+    }
+
+    @Test
+    fun `Fixed timestep advances game timer in fixed steps using given frame time`() {
+        var frameTime = 1.0 / 128
+
+        gameScene.enableFixedTimestep(64, 4, DoubleSupplier { frameTime })
+
+        // frame tpf is ignored, frame time is accumulated instead
+        gameScene.update(1.0)
+        assertThat(gameScene.timer.now, `is`(0.0))
+
+        frameTime = 3.0 / 128
+
+        gameScene.update(1.0)
+        assertThat(gameScene.timer.now, `is`(2.0 / 64))
+
+        gameScene.disableFixedTimestep()
+
+        gameScene.update(0.5)
+        assertThat(gameScene.timer.now, `is`(2.0 / 64 + 0.5))
+    }
+
+    private fun gameRoot() = gameScene.contentRoot.children[0] as Group
+
+    /**
+     * @return views in render order, from all z layers of the game root
+     */
+    private fun gameViews(): List<Node> = gameRoot().children.flatMap { (it as Group).children }
+}
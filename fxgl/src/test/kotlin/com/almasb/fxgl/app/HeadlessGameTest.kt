@@ -0,0 +1,118 @@
+/*
+ * FXGL - JavaFX Game Library. The MIT License (MIT).
+ * Copyright (c) AlmasB (almaslvl@gmail.com).
+ * See LICENSE for details.
+ */
+
+package com.almasb.fxgl.app
+
+import com.almasb.fxgl.core.EngineService
+import com.almasb.fxgl.entity.Entity
+import com.almasb.fxgl.entity.component.Component
+import javafx.util.Duration
+import org.hamcrest.MatcherAssert.assertThat
+import org.hamcrest.Matchers.*
+import org.junit.jupiter.api.Assertions.assertFalse
+import org.junit.jupiter.api.Assertions.assertTimeout
+import org.junit.jupiter.api.Assertions.assertTrue
+import org.junit.jupiter.api.Test
+import java.time.Duration.ofSeconds
+import java.util.concurrent.CountDownLatch
+
+/**
+ *
+ * @author Almas Baimagambetov (almaslvl@gmail.com)
+ */
+class HeadlessGameTest {
+
+    @Test
+    fun `Run ticks updates services, timer and game world in order`() {
+        val calls = arrayListOf<String>()
+
+        val service = object : EngineService() {
+            override fun onInit() {
+                calls += "init"
+            }
+
+            override fun onMainLoopStarting() {
+                calls += "starting"
+            }
+
+            override fun onUpdate(tpf: Double) {
+                calls += "update"
+            }
+
+            override fun onGameUpdate(tpf: Double) {
+                calls += "gameUpdate"
+            }
+
+            override fun onExit() {
+                calls += "exit"
+            }
+        }
+
+        val game = HeadlessGame(ticksPerSecond = 50, services = listOf(service))
+
+        game.timer.runOnceAfter({ calls += "timer" }, Duration.seconds(0.01))
+
+        game.gameWorld.addEntity(Entity().also {
+            it.addComponent(object : Component() {
+                override fun onUpdate(tpf: Double) {
+                    calls += "world"
+                }
+            })
+        })
+
+        assertThat(calls, contains("init"))
+        assertThat(game.ticksPerSecond, `is`(50))
+        assertThat(game.tpf, `is`(0.02))
+
+        calls.clear()
+
+        game.runTicks(2)
+
+        assertThat(game.numTicks, `is`(2L))
+        assertThat(game.timer.now, closeTo(0.04, 0.0001))
+        assertThat(game.measuredTicksPerSecond, greaterThan(0.0))
+
+        assertThat(calls, contains(
+                "starting",
+                "update", "timer", "world", "gameUpdate",
+                "update", "world", "gameUpdate"
+        ))
+
+        calls.clear()
+
+        game.stop()
+
+        assertThat(calls, contains("exit"))
+    }
+
+    @Test
+    fun `Start runs simulation on a separate thread until stopped`() {
+        assertTimeout(ofSeconds(2)) {
+            val latch = CountDownLatch(100)
+            var threadID = -1L
+
+            val service = object : EngineService() {
+                override fun onGameUpdate(tpf: Double) {
+                    threadID = Thread.currentThread().id
+                    latch.countDown()
+                }
+            }
+
+            val game = HeadlessGame(isThrottled = false, services = listOf(service))
+
+            game.start()
+            assertTrue(game.isRunning)
+
+            latch.await()
+
+            game.stop()
+            assertFalse(game.isRunning)
+
+            assertThat(game.numTicks, greaterThanOrEqualTo(100L))
+            assertThat(threadID, `is`(not(Thread.currentThread().id)))
+        }
+    }
+}
@@ -0,0 +1,269 @@
+/*
+ * FXGL - JavaFX Game Library. The MIT License (MIT).
+ * Copyright (c) AlmasB (almaslvl@gmail.com).
+ * See LICENSE for details.
+ */
+
+package com.almasb.fxgl.multiplayer
+
+import com.almasb.fxgl.core.serialization.Bundle
+import com.almasb.fxgl.core.serialization.BundleWriter
+import com.almasb.fxgl.entity.Entity
+import com.almasb.fxgl.entity.EntityFactory
+import com.almasb.fxgl.entity.GameWorld
+import com.almasb.fxgl.entity.SpawnData
+import com.almasb.fxgl.entity.Spawns
+import com.almasb.fxgl.entity.component.Component
+import com.almasb.fxgl.entity.component.SerializableComponent
+import com.almasb.fxgl.entity.components.IntegerComponent
+import com.almasb.fxgl.net.NetService
+import org.hamcrest.MatcherAssert.assertThat
+import org.hamcrest.Matchers.*
+import org.junit.jupiter.api.Assertions.assertFalse
+import org.junit.jupiter.api.Assertions.assertNull
+import org.junit.jupiter.api.Assertions.assertThrows
+import org.junit.jupiter.api.BeforeEach
+import org.junit.jupiter.api.Test
+import java.io.ByteArrayOutputStream
+
+/**
+ *
+ * @author Almas Baimagambetov (almaslvl@gmail.com)
+ */
+class ReplicationServerTest {
+
+    private lateinit var serverWorld: GameWorld
+    private lateinit var clientWorld: GameWorld
+
+    private lateinit var server: ReplicationServer
+    private lateinit var client: ReplicationClient
+
+    @BeforeEach
+    fun setUp() {
+        serverWorld = GameWorld()
+        clientWorld = GameWorld()
+        clientWorld.addEntityFactory(TestEntityFactory())
+
+        val net = NetService()
+
+        // endpoints are not connected, snapshots are passed directly
+        server = ReplicationServer(net.newNIOServer(0))
+        client = ReplicationClient(net.newNIOClient("localhost", 0), clientWorld)
+    }
+
+    @Test
+    fun `Full snapshot spawns entities on client`() {
+        val entities = spawnEntities(3)
+
+        entities[1].getComponent(HPComponent::class.java).value = 42
+
+        server.captureChanges()
+
+        val snapshot = server.buildSnapshot(-1)!!
+
+        assertThat(snapshot.get<List<Bundle>>("spawns").size, `is`(3))
+
+        client.applySnapshot(snapshot)
+
+        assertThat(clientWorld.entities.size, `is`(3))
+        assertThat(client.numEntities, `is`(3))
+        assertThat(clientWorld.entities.map { it.x }, contains(0.0, 10.0, 20.0))
+        assertThat(clientWorld.entities[1].getComponent(HPComponent::class.java).value, `is`(42))
+    }
+
+    @Test
+    fun `Delta snapshot only contains changes since ack`() {
+        val entities = spawnEntities(2000)
+
+        server.captureChanges()
+
+        val full = server.buildSnapshot(-1)!!
+        client.applySnapshot(full)
+
+        val ackedTick = server.tick
+
+        // nothing changed
+        server.captureChanges()
+
+        assertNull(server.buildSnapshot(ackedTick))
+
+        entities.take(10).forEach { it.translateX(5.0) }
+
+        server.captureChanges()
+
+        val delta = server.buildSnapshot(ackedTick)!!
+
+        assertThat(delta.get<List<Bundle>>("spawns").size, `is`(0))
+        assertThat(delta.get<List<Bundle>>("updates").size, `is`(10))
+
+        // bandwidth is proportional to changes, not entity count
+        assertThat(sizeOf(delta) * 50, lessThan(sizeOf(full)))
+
+        client.applySnapshot(delta)
+
+        assertThat(client.getEntity(1)!!.x, `is`(5.0))
+        assertThat(client.getEntity(11)!!.x, `is`(100.0))
+    }
+
+    @Test
+    fun `Unacknowledged changes are sent again`() {
+        val entities = spawnEntities(2)
+
+        server.captureChanges()
+        val ackedTick = server.tick
+
+        entities[0].translateX(5.0)
+        server.captureChanges()
+
+        entities[1].translateX(5.0)
+        server.captureChanges()
+
+        // client has not acknowledged the previous snapshot, so both changes are sent
+        assertThat(server.buildSnapshot(ackedTick)!!.get<List<Bundle>>("updates").size, `is`(2))
+        assertThat(server.buildSnapshot(server.tick - 1)!!.get<List<Bundle>>("updates").size, `is`(1))
+    }
+
+    @Test
+    fun `Removed entities are removed on client`() {
+        val entities = spawnEntities(3)
+
+        server.captureChanges()
+        client.applySnapshot(server.buildSnapshot(-1)!!)
+
+        val ackedTick = server.tick
+
+        serverWorld.removeEntity(entities[1])
+        server.captureChanges()
+
+        val snapshot = server.buildSnapshot(ackedTick)!!
+
+        assertThat(snapshot.get<IntArray>("removals").toList(), contains(2))
+
+        client.applySnapshot(snapshot)
+
+        assertThat(clientWorld.entities.size, `is`(2))
+        assertNull(client.getEntity(2))
+
+        // a new client never sees the removed entity
+        assertThat(server.buildSnapshot(-1)!!.get<IntArray>("removals").size, `is`(0))
+    }
+
+    @Test
+    fun `Entities are replicated once added to world`() {
+        val entity = Entity()
+        server.replicate(entity, "test")
+
+        server.captureChanges()
+
+        assertNull(server.buildSnapshot(-1))
+
+        serverWorld.addEntity(entity)
+        server.captureChanges()
+
+        assertThat(server.buildSnapshot(-1)!!.get<List<Bundle>>("spawns").size, `is`(1))
+    }
+
+    @Test
+    fun `Old snapshots are ignored`() {
+        spawnEntities(1)
+
+        server.captureChanges()
+        val old = server.buildSnapshot(-1)!!
+
+        server.captureChanges()
+        val new = server.buildSnapshot(-1)!!
+
+        assertThat(client.applySnapshot(new), `is`(true))
+        assertFalse(client.applySnapshot(old))
+        assertThat(clientWorld.entities.size, `is`(1))
+    }
+
+    @Test
+    fun `Unchanged nested values are not sent again`() {
+        val e = Entity()
+        e.addComponent(InventoryComponent())
+
+        serverWorld.addEntity(e)
+        server.replicate(e, "test")
+
+        server.captureChanges()
+        val ackedTick = server.tick
+
+        server.captureChanges()
+
+        assertNull(server.buildSnapshot(ackedTick))
+
+        e.getComponent(InventoryComponent::class.java).items[1] = 5
+
+        server.captureChanges()
+
+        assertThat(server.buildSnapshot(ackedTick)!!.get<List<Bundle>>("updates").size, `is`(1))
+    }
+
+    @Test
+    fun `Snapshot interval keeps remainder of update time`() {
+        server.ticksPerSecond = 4
+
+        server.onUpdate(0.125)
+        assertThat(server.tick, `is`(0L))
+
+        server.onUpdate(0.25)
+        assertThat(server.tick, `is`(1L))
+
+        // 0.125 left from previous update
+        server.onUpdate(0.125)
+        assertThat(server.tick, `is`(2L))
+    }
+
+    @Test
+    fun `Ticks per second must be positive`() {
+        assertThrows(IllegalArgumentException::class.java) {
+            server.ticksPerSecond = 0
+        }
+    }
+
+    private fun spawnEntities(num: Int): List<Entity> {
+        return (0 until num).map {
+            val e = Entity()
+            e.x = it * 10.0
+            e.addComponent(HPComponent())
+
+            serverWorld.addEntity(e)
+            server.replicate(e, "test")
+            e
+        }
+    }
+
+    private fun sizeOf(bundle: Bundle): Int {
+        val out = ByteArrayOutputStream()
+        BundleWriter(out).write(bundle)
+        return out.size()
+    }
+
+    class HPComponent : IntegerComponent()
+
+    class InventoryComponent : Component(), SerializableComponent {
+        val items = intArrayOf(1, 2, 3)
+
+        override fun write(bundle: Bundle) {
+            val nested = Bundle("Nested")
+            nested.put("items", items.copyOf())
+            nested.put("names", arrayListOf("a", "b"))
+
+            bundle.put("inventory", nested)
+            bundle.put("weights", doubleArrayOf(0.5, 1.5))
+        }
+
+        override fun read(bundle: Bundle) { }
+    }
+
+    class TestEntityFactory : EntityFactory {
+
+        @Spawns("test")
+        fun newTest(data: SpawnData): Entity {
+            val e = Entity()
+            e.addComponent(HPComponent())
+            return e
+        }
+    }
+}